@@ -0,0 +1,65 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cliente;
+import com.inventario.search.IndiceBusqueda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de un cliente en el repositorio por DNI y por apellido, con textos que no son los
+ * mismos objetos que los guardados (como los que llegan de la ventana), así que se normalizan y
+ * se comparan completos.
+ *
+ * {@link #buscarTexto} mide el cuadro de búsqueda ({@link IndiceBusqueda}) con consultas cortas
+ * (prefijos amplios), exactas, de varias palabras, por DNI y con errores de tipeo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BusquedaJmh {
+
+    /**
+     * El índice del cuadro de búsqueda sobre la cartera; la consulta se elige con -p consulta=...
+     */
+    @State(Scope.Benchmark)
+    public static class Indice {
+        @Param({"g", "gon", "gonzalez", "juan gonz", "maria perez tele", "2004", "20099999", "gonzales", "rodrigez lenovo"})
+        public String consulta;
+
+        IndiceBusqueda indice;
+
+        @Setup
+        public void armar(CarteraJmh cartera) {
+            indice = IndiceBusqueda.sobre(cartera.repositorio);
+        }
+    }
+
+    @Benchmark
+    public Cliente buscarPorDni(CarteraJmh cartera) {
+        return cartera.repositorio.buscarPorDni(new String(cartera.siguiente().getDni()));
+    }
+
+    @Benchmark
+    public List<Cliente> buscarPorApellido(CarteraJmh cartera) {
+        return cartera.repositorio.buscarPorApellido(cartera.siguienteApellido().toUpperCase());
+    }
+
+    @Benchmark
+    public List<Cliente> buscarTexto(Indice indice) {
+        return indice.indice.buscar(indice.consulta, 10);
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.GeneradorCartera;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cartera sintética compartida por los benchmarks, de 1.000, 100.000 o 1.000.000 de clientes
+ * (-p clientes=... para elegir), generada con {@link GeneradorCartera}: siempre la misma para la
+ * misma cantidad, con la mezcla de planes, pagos parciales, atrasos, adelantos y faltantes de
+ * una cartera real.
+ *
+ * Los benchmarks de a un cliente por operación los recorren con {@link #siguiente()} en un orden
+ * salteado, para que el costo incluya traer al cliente de memoria como en la aplicación.
+ */
+@State(Scope.Benchmark)
+public class CarteraJmh {
+
+    private static final long SEMILLA = 20250131L;
+    // Primo que no divide a ninguna de las cantidades: el recorrido pasa por todos los clientes
+    private static final int PASO = 7919;
+
+    @Param({"1000", "100000", "1000000"})
+    public int clientes;
+
+    public ClienteRepository repositorio;
+    public Cliente[] lista;
+    private int cursor;
+
+    @Setup
+    public void generar() {
+        repositorio = new ClienteRepository();
+        lista = new Cliente[clientes];
+        int i = 0;
+        for (Cliente cliente : new GeneradorCartera(SEMILLA, clientes)) {
+            repositorio.agregar(cliente);
+            lista[i++] = cliente;
+        }
+    }
+
+    /**
+     * El próximo cliente del recorrido.
+     */
+    public Cliente siguiente() {
+        cursor = (cursor + PASO) % lista.length;
+        return lista[cursor];
+    }
+
+    /**
+     * Un apellido de la cartera, siguiendo el mismo recorrido que {@link #siguiente()}.
+     */
+    public String siguienteApellido() {
+        return siguiente().getApellido();
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventario.jmh;
+
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.CambiosCuotas;
+import com.inventario.models.Cliente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones sobre un cliente de la cartera por vez: aplicar un pago, registrarlo con el
+ * comando (construirlo, ejecutarlo y deshacerlo) y el texto que muestra la lista.
+ *
+ * Los pagos se deshacen en la misma operación para que la cartera no se vaya saldando entre
+ * iteraciones. Al deshacer, las cuotas quedan materializadas en columnas: después del
+ * calentamiento todos los clientes recorridos las tienen así, como en una cartera en uso.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class ClienteJmh {
+
+    private final CambiosCuotas cambios = new CambiosCuotas();
+
+    // Paga la mitad del plan y lo deshace
+    @Benchmark
+    public double aplicarPagoACuotas(CarteraJmh cartera) {
+        Cliente cliente = cartera.siguiente();
+        double monto = cliente.getValorCuota() * cliente.getTotalCuotas() / 2;
+        cliente.aplicarPagoACuotas(monto, cambios);
+        cambios.deshacer(cliente);
+        return cliente.getAdelantoAcumulado();
+    }
+
+    @Benchmark
+    public RegistrarPagoCommand registrarPagoCommand(CarteraJmh cartera) {
+        Cliente cliente = cartera.siguiente();
+        RegistrarPagoCommand comando = new RegistrarPagoCommand(cartera.repositorio, cliente, cliente.getValorCuota() * 1.5);
+        comando.execute();
+        comando.undo();
+        return comando;
+    }
+
+    @Benchmark
+    public String toStringCliente(CarteraJmh cartera) {
+        return cartera.siguiente().toString();
+    }
+}
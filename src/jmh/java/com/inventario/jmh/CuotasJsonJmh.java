@@ -0,0 +1,65 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import com.inventario.utils.CuotasJson;
+import com.inventario.utils.CuotasJsonLegado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de la columna JSON de cuotas de un cliente, como al leer un libro de versiones anteriores.
+ * Se parsea el JSON de un cliente distinto en cada operación; como el texto de toda la cartera
+ * de un millón no entra en memoria, se serializan como mucho {@link #MAX_TEXTOS} clientes.
+ *
+ * {@link #parsearLegado} es el parser anterior (split + extractValue), como línea base; con
+ * -prof gc se comparan también los bytes asignados por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CuotasJsonJmh {
+
+    private static final int MAX_TEXTOS = 1 << 16;
+
+    private String[] textos;
+    private int cursor;
+
+    @Setup
+    public void serializar(CarteraJmh cartera) {
+        textos = new String[Math.min(cartera.clientes, MAX_TEXTOS)];
+        for (int i = 0; i < textos.length; i++) {
+            Cliente cliente = cartera.siguiente();
+            textos[i] = CuotasJson.serializar(cliente.getCuotas());
+        }
+    }
+
+    @Benchmark
+    public List<Cuota> parsear() {
+        return CuotasJson.parsear(siguiente());
+    }
+
+    @Benchmark
+    public List<Cuota> parsearLegado() {
+        return CuotasJsonLegado.parsear(siguiente());
+    }
+
+    private String siguiente() {
+        cursor = cursor + 1 == textos.length ? 0 : cursor + 1;
+        return textos[cursor];
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cuota;
+import com.inventario.models.CuotasColumnares;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoria de las cuotas de un cliente de 24 cuotas según cómo se guardan: objetos Cuota con sus
+ * LocalDate (como antes), el almacén por columnas ya materializado y el cronograma implícito.
+ * Cada operación arma solo la estructura que queda guardada, así que con -prof gc la métrica
+ * gc.alloc.rate.norm es lo que ocupa un cliente (dividir por 24 para los bytes por cuota).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CuotasMemoriaJmh {
+
+    private static final int CUOTAS = 24;
+    private static final LocalDate INICIO = LocalDate.of(2025, 3, 10);
+    private static final double VALOR = 115000.0;
+    private static final int PAGADAS = 3;
+
+    // Fechas distintas por cuota, como quedan al leerlas del JSON
+    @Benchmark
+    public List<Cuota> objetos() {
+        List<Cuota> cuotas = new ArrayList<>(CUOTAS);
+        for (int i = 0; i < CUOTAS; i++) {
+            LocalDate vencimiento = INICIO.plusMonths(i);
+            cuotas.add(new Cuota(i + 1, VALOR, i < PAGADAS ? VALOR : 0.0, vencimiento,
+                    i < PAGADAS ? vencimiento.minusDays(1) : null, false));
+        }
+        return cuotas;
+    }
+
+    @Benchmark
+    public CuotasColumnares columnas() {
+        int[] numero = new int[CUOTAS];
+        double[] original = new double[CUOTAS];
+        double[] pagado = new double[CUOTAS];
+        int[] vencimiento = new int[CUOTAS];
+        int[] fechaPago = new int[CUOTAS];
+        boolean[] faltante = new boolean[CUOTAS];
+        for (int i = 0; i < CUOTAS; i++) {
+            numero[i] = i + 1;
+            original[i] = VALOR;
+            pagado[i] = i < PAGADAS ? VALOR : 0.0;
+            vencimiento[i] = (int) INICIO.plusMonths(i).toEpochDay();
+            fechaPago[i] = i < PAGADAS ? vencimiento[i] - 1 : CuotasColumnares.SIN_FECHA;
+        }
+        return CuotasColumnares.deColumnas(CUOTAS, numero, original, pagado, vencimiento, fechaPago, faltante);
+    }
+
+    @Benchmark
+    public CuotasColumnares cronogramaImplicito() {
+        return CuotasColumnares.cronograma("mensual", INICIO, CUOTAS, VALOR);
+    }
+}
@@ -0,0 +1,63 @@
+package com.inventario.jmh;
+
+import com.inventario.utils.ExcelExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportar e importar la cartera completa en el libro Excel. Cada operación tarda segundos,
+ * así que se mide cada una por separado (una invocación por iteración).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ExcelJmh {
+
+    private Path carpeta;
+    private Path exportado;
+    private Path importado;
+
+    @Setup
+    public void preparar(CarteraJmh cartera) throws IOException {
+        carpeta = Files.createTempDirectory("excel-jmh");
+        exportado = carpeta.resolve("exportado.xlsx");
+        importado = carpeta.resolve("importado.xlsx");
+        ExcelExporter.exportarClientes(cartera.repositorio.getClientes(), importado.toString(),
+                ExcelExporter.modoPara(cartera.clientes), 0);
+    }
+
+    @TearDown
+    public void borrar() throws IOException {
+        Files.deleteIfExists(exportado);
+        Files.deleteIfExists(importado);
+        Files.deleteIfExists(carpeta);
+    }
+
+    @Benchmark
+    public boolean exportarClientes(CarteraJmh cartera) {
+        return ExcelExporter.exportarClientes(cartera.repositorio.getClientes(), exportado.toString(),
+                ExcelExporter.modoPara(cartera.clientes), 0);
+    }
+
+    @Benchmark
+    public int importarClientes() {
+        return ExcelExporter.importarClientes(importado.toString()).size();
+    }
+}
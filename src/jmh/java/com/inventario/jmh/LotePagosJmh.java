@@ -0,0 +1,100 @@
+package com.inventario.jmh;
+
+import com.inventario.commands.LoteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.persistence.HistorialComandos;
+import com.inventario.persistence.JournalClientes;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.GeneradorCartera;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Registrar N pagos uno por uno (ejecutar, journal con fsync e historial por cada pago, como hace
+ * la ventana principal) contra registrarlos en un único LoteCommand (una entrada de journal con
+ * un fsync y una entrada de historial). Cada iteración parte de una cartera y archivos nuevos.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LotePagosJmh {
+
+    private static final long SEMILLA = 20250131L;
+
+    @Param({"10000"})
+    public int pagos;
+
+    @Param({"1000"})
+    public int clientes;
+
+    private Path carpeta;
+    private List<RegistrarPagoCommand> comandos;
+    private JournalClientes journal;
+    private HistorialComandos historial;
+
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        carpeta = Files.createTempDirectory("lote-pagos-jmh");
+        ClienteRepository repositorio = new ClienteRepository();
+        new GeneradorCartera(SEMILLA, clientes).forEach(repositorio::agregar);
+        SplittableRandom random = new SplittableRandom(7);
+        comandos = new ArrayList<>(pagos);
+        for (int i = 0; i < pagos; i++) {
+            comandos.add(new RegistrarPagoCommand(repositorio, repositorio.get(random.nextInt(clientes)), 10 + random.nextInt(90)));
+        }
+        journal = new JournalClientes(carpeta.resolve("clientes.journal"));
+        historial = new HistorialComandos(carpeta.resolve("clientes.historial"), repositorio);
+    }
+
+    @TearDown(Level.Iteration)
+    public void borrar() throws IOException {
+        journal.close();
+        historial.close();
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(carpeta);
+    }
+
+    @Benchmark
+    public void unoAUno() throws IOException {
+        for (RegistrarPagoCommand comando : comandos) {
+            comando.execute();
+            journal.registrar(comando, false);
+            historial.registrar(comando);
+        }
+    }
+
+    @Benchmark
+    public void enLote() throws IOException {
+        LoteCommand lote = new LoteCommand(comandos);
+        lote.execute();
+        journal.registrar(lote, false);
+        historial.registrar(lote);
+    }
+}
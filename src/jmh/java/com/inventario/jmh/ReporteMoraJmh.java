@@ -0,0 +1,75 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import com.inventario.reportes.ReporteMora;
+import com.inventario.utils.GeneradorCartera;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporte de mora de toda la cartera con pools de distintos tamaños (-p hilos=... para ver cómo
+ * escala con los núcleos), contra recorrer a mano las cuotas como objetos Cuota en un solo hilo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReporteMoraJmh {
+
+    private static final LocalDate CORTE = GeneradorCartera.REFERENCIA;
+
+    /**
+     * El pool del reporte; solo lo usa {@link #calcular}, así que la línea base no se repite por cada tamaño.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "2", "4", "8"})
+        public int hilos;
+
+        ForkJoinPool pool;
+
+        @Setup
+        public void crear() {
+            pool = new ForkJoinPool(hilos);
+        }
+
+        @TearDown
+        public void cerrar() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public ReporteMora calcular(CarteraJmh cartera, Pool pool) {
+        return ReporteMora.calcular(cartera.repositorio.getClientes(), CORTE, pool.pool);
+    }
+
+    @Benchmark
+    public double recorrerCuotas(CarteraJmh cartera) {
+        double vencido = 0;
+        for (Cliente cliente : cartera.lista) {
+            for (Cuota cuota : cliente.getCuotas()) {
+                if (!cuota.estaPagada() && cuota.getFechaVencimiento() != null && cuota.getFechaVencimiento().isBefore(CORTE)) {
+                    vencido += cuota.getMontoRestante();
+                }
+            }
+        }
+        return vencido;
+    }
+}
@@ -0,0 +1,64 @@
+package com.inventario.jmh;
+
+import com.inventario.models.Cliente;
+import com.inventario.persistence.SnapshotClientes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guardar y cargar la cartera completa con el snapshot binario, para comparar con
+ * {@link ExcelJmh} (el libro que se usaba antes como almacenamiento principal).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SnapshotJmh {
+
+    private Path carpeta;
+    private Path escrito;
+    private Path leido;
+
+    @Setup
+    public void preparar(CarteraJmh cartera) throws IOException {
+        carpeta = Files.createTempDirectory("snapshot-jmh");
+        escrito = carpeta.resolve("escrito.dat");
+        leido = carpeta.resolve("leido.dat");
+        SnapshotClientes.escribir(cartera.repositorio.getClientes(), leido, 0);
+    }
+
+    @TearDown
+    public void borrar() throws IOException {
+        Files.deleteIfExists(escrito);
+        Files.deleteIfExists(leido);
+        Files.deleteIfExists(carpeta);
+    }
+
+    @Benchmark
+    public Path escribir(CarteraJmh cartera) throws IOException {
+        SnapshotClientes.escribir(cartera.repositorio.getClientes(), escrito, 0);
+        return escrito;
+    }
+
+    @Benchmark
+    public List<Cliente> leer() throws IOException {
+        return SnapshotClientes.leer(leido);
+    }
+}
@@ -1,27 +1,41 @@
 package com.inventario.commands;
 
 import com.inventario.models.Cliente;
-import java.util.List;
+import com.inventario.persistence.RegistroCambios;
+import com.inventario.repository.ClienteRepository;
 
 // Comando para agregar un cliente.
 public class AgregarClienteCommand implements Command {
-    private List<Cliente> clientes; // Referencia a la lista de clientes principal
+    private ClienteRepository clientes; // Repositorio de clientes principal
     private Cliente clienteAgregado; // El cliente que se va a agregar/eliminar
 
-    public AgregarClienteCommand(List<Cliente> clientes, Cliente clienteAgregado) {
+    public AgregarClienteCommand(ClienteRepository clientes, Cliente clienteAgregado) {
         this.clientes = clientes;
         this.clienteAgregado = clienteAgregado;
     }
 
     @Override
     public void execute() {
-        // Al ejecutar, simplemente añade el cliente a la lista.
-        clientes.add(clienteAgregado);
+        // Al ejecutar, añade el cliente al final (el repositorio rechaza DNI duplicados).
+        clientes.agregar(clienteAgregado);
     }
 
     @Override
     public void undo() {
         // Al deshacer, elimina el cliente de la lista.
-        clientes.remove(clienteAgregado);
+        clientes.eliminar(clienteAgregado);
+    }
+
+    public Cliente getCliente() {
+        return clienteAgregado;
+    }
+
+    @Override
+    public void registrarCambios(RegistroCambios registro, boolean deshecho) {
+        if (deshecho) {
+            registro.clienteEliminado(clienteAgregado);
+        } else {
+            registro.clienteGuardado(clienteAgregado, -1);
+        }
     }
 }
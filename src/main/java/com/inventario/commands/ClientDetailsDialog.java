@@ -209,15 +209,11 @@ public class ClientDetailsDialog extends JDialog {
 
         List<Cuota> cuotas = cliente.getCuotas();
         int totalCuotas = cuotas.size();
-        long cuotasPagadas = cuotas.stream().filter(Cuota::estaPagada).count();
-        long cuotasPendientes = totalCuotas - cuotasPagadas;
-
-        double montoTotalPagado = cuotas.stream()
-                .mapToDouble(Cuota::getMontoPagado)
-                .sum();
-        double montoTotalPendiente = cuotas.stream()
-                .mapToDouble(Cuota::getMontoRestante)
-                .sum();
+        int cuotasPagadas = cliente.getCuotasPagadasCount();
+        int cuotasPendientes = cliente.getCuotasRestantes();
+
+        double montoTotalPagado = cliente.getTotalPagado();
+        double montoTotalPendiente = cliente.calcularDeudaRestante();
 
         lblCuotasTotales.setText(String.valueOf(totalCuotas));
         lblCuotasPagadas.setText(String.valueOf(cuotasPagadas));
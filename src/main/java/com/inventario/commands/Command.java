@@ -1,5 +1,7 @@
 package com.inventario.commands;
 
+import com.inventario.persistence.RegistroCambios;
+
 // Interfaz para el patrón Command.
 // Cada acción que pueda ser deshecha implementará esta interfaz.
 public interface Command {
@@ -12,4 +14,18 @@ public interface Command {
      * Deshace la acción previamente ejecutada por este comando.
      */
     void undo();
+
+    /**
+     * Informa al registro los clientes afectados por la última ejecución del comando
+     * (o por el último deshacer, si deshecho es true), para persistir solo ese cambio.
+     */
+    void registrarCambios(RegistroCambios registro, boolean deshecho);
+
+    /**
+     * Memoria aproximada que el comando mantiene viva mientras está en el historial, en bytes
+     * (sin contar lo que sigue en el repositorio). Se usa para acotar el historial en memoria.
+     */
+    default long bytesEstimados() {
+        return 64;
+    }
 }
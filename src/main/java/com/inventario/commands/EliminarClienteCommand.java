@@ -1,15 +1,16 @@
 package com.inventario.commands;
 
 import com.inventario.models.Cliente;
-import java.util.List;
+import com.inventario.persistence.RegistroCambios;
+import com.inventario.repository.ClienteRepository;
 
 // Comando para eliminar un cliente.
 public class EliminarClienteCommand implements Command {
-    private List<Cliente> clientes; // Referencia a la lista de clientes principal
+    private ClienteRepository clientes; // Repositorio de clientes principal
     private Cliente clienteEliminado; // El cliente que se eliminó
     private int indiceEliminado; // El índice donde se eliminó el cliente (para reinsertarlo)
 
-    public EliminarClienteCommand(List<Cliente> clientes, Cliente clienteEliminado, int indiceEliminado) {
+    public EliminarClienteCommand(ClienteRepository clientes, Cliente clienteEliminado, int indiceEliminado) {
         this.clientes = clientes;
         this.clienteEliminado = clienteEliminado;
         this.indiceEliminado = indiceEliminado;
@@ -18,18 +19,36 @@ public class EliminarClienteCommand implements Command {
     @Override
     public void execute() {
         // Al ejecutar, elimina el cliente de la lista.
-        clientes.remove(clienteEliminado);
+        clientes.eliminar(clienteEliminado);
     }
 
     @Override
     public void undo() {
         // Al deshacer, reinserta el cliente en su posición original.
-        // Se asegura de que el índice sea válido si la lista ha cambiado de tamaño.
-        if (indiceEliminado >= 0 && indiceEliminado <= clientes.size()) {
-            clientes.add(indiceEliminado, clienteEliminado);
+        // Si el índice ya no es válido (ej. la lista se encogió mucho), el repositorio lo añade al final.
+        clientes.agregar(indiceEliminado, clienteEliminado);
+    }
+
+    public Cliente getCliente() {
+        return clienteEliminado;
+    }
+
+    public int getIndiceEliminado() {
+        return indiceEliminado;
+    }
+
+    @Override
+    public long bytesEstimados() {
+        // Mientras está eliminado, el historial es lo único que mantiene vivo al cliente
+        return 256 + clienteEliminado.getCuotasColumnares().bytesEstimados();
+    }
+
+    @Override
+    public void registrarCambios(RegistroCambios registro, boolean deshecho) {
+        if (deshecho) {
+            registro.clienteGuardado(clienteEliminado, indiceEliminado);
         } else {
-            // Si el índice no es válido (ej. la lista se encogió mucho), simplemente añadir al final.
-            clientes.add(clienteEliminado);
+            registro.clienteEliminado(clienteEliminado);
         }
     }
 }
@@ -0,0 +1,145 @@
+package com.inventario.commands;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.models.ObservadorCuotas;
+import com.inventario.persistence.RegistroCambios;
+import com.inventario.repository.ClienteRepository;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Comando para registrar de una vez muchos pagos (por ejemplo, los de un extracto bancario).
+// Los pagos de clientes distintos se aplican en paralelo; los de un mismo cliente, en el orden
+// en que se agregaron. Como lote, se deshace entero y se persiste con un solo registro.
+// Los clientes del repositorio avisan cada cambio de cuota en el hilo que lo hace, así que mientras
+// se aplican los pagos el comando les quita el observador. Al terminar se lo devuelve y avisa, en
+// el hilo que lo ejecutó, un reemplazo de las cuotas y una modificación por cliente afectado.
+public class ImportarPagosCommand extends LoteCommand {
+    private final ClienteRepository clientes; // Se le avisa una vez por cliente afectado (puede ser null)
+    // Pagos agrupados por cliente, cada grupo en su orden original
+    private final List<List<Command>> porCliente;
+    private final List<Cliente> afectados;
+
+    /**
+     * @param pagos Los pagos en orden; los comandos no deben avisar al repositorio por su cuenta
+     *              (crearlos con el constructor sin repositorio), porque se aplican en otros hilos.
+     *              Los avisos de los clientes afectados los da este comando al terminar.
+     */
+    public ImportarPagosCommand(ClienteRepository clientes, List<RegistrarPagoCommand> pagos) {
+        super(pagos);
+        this.clientes = clientes;
+        Map<Cliente, List<Command>> grupos = new IdentityHashMap<>();
+        this.afectados = new ArrayList<>();
+        for (RegistrarPagoCommand pago : pagos) {
+            grupos.computeIfAbsent(pago.getCliente(), c -> {
+                afectados.add(c);
+                return new ArrayList<>();
+            }).add(pago);
+        }
+        this.porCliente = new ArrayList<>(afectados.size());
+        for (Cliente cliente : afectados) {
+            porCliente.add(grupos.get(cliente));
+        }
+    }
+
+    /**
+     * Clientes con al menos un pago, en el orden de su primer pago.
+     */
+    public List<Cliente> getAfectados() {
+        return afectados;
+    }
+
+    @Override
+    public void execute() {
+        // Cada grupo toca un solo cliente, y sin observador sus cambios no salen del cliente, así
+        // que los grupos no comparten estado
+        Suspension suspension = suspenderObservadores();
+        int[] ejecutados = new int[porCliente.size()];
+        RuntimeException[] error = new RuntimeException[1];
+        IntStream.range(0, porCliente.size()).parallel().forEach(g -> {
+            try {
+                for (Command pago : porCliente.get(g)) {
+                    pago.execute();
+                    ejecutados[g]++;
+                }
+            } catch (RuntimeException e) {
+                synchronized (error) {
+                    error[0] = e;
+                }
+            }
+        });
+        if (error[0] != null) {
+            // Todo o nada, como en LoteCommand
+            for (int g = 0; g < porCliente.size(); g++) {
+                List<Command> grupo = porCliente.get(g);
+                for (int i = ejecutados[g] - 1; i >= 0; i--) {
+                    grupo.get(i).undo();
+                }
+            }
+            notificarAfectados(suspension);
+            throw error[0];
+        }
+        notificarAfectados(suspension);
+    }
+
+    @Override
+    public void undo() {
+        // Igual que al ejecutar: los clientes quedan sin observador mientras se deshace en paralelo
+        Suspension suspension = suspenderObservadores();
+        porCliente.parallelStream().forEach(grupo -> {
+            for (int i = grupo.size() - 1; i >= 0; i--) {
+                grupo.get(i).undo();
+            }
+        });
+        notificarAfectados(suspension);
+    }
+
+    @Override
+    public void registrarCambios(RegistroCambios registro, boolean deshecho) {
+        // Se guarda el estado final de cada cliente afectado una sola vez
+        for (Cliente cliente : afectados) {
+            registro.clienteGuardado(cliente, -1);
+        }
+    }
+
+    // Observador de cada cliente afectado (en el orden de 'afectados') y copia de sus cuotas antes de los pagos
+    private record Suspension(ObservadorCuotas[] observadores, CuotasColumnares[] anteriores) {
+    }
+
+    // Quita el observador de cada cliente afectado; sin observador no hace falta copiar las cuotas
+    private Suspension suspenderObservadores() {
+        ObservadorCuotas[] observadores = new ObservadorCuotas[afectados.size()];
+        CuotasColumnares[] anteriores = new CuotasColumnares[afectados.size()];
+        for (int i = 0; i < afectados.size(); i++) {
+            Cliente cliente = afectados.get(i);
+            observadores[i] = cliente.getObservador();
+            if (observadores[i] != null) {
+                anteriores[i] = cliente.getCuotasColumnares().copiar();
+                cliente.setObservador(null);
+            }
+        }
+        return new Suspension(observadores, anteriores);
+    }
+
+    // En el hilo que ejecuta el comando (el EDT en la aplicación): devuelve los observadores, les
+    // pasa las cuotas que cambiaron y después avisa al repositorio
+    private void notificarAfectados(Suspension suspension) {
+        for (int i = 0; i < afectados.size(); i++) {
+            ObservadorCuotas observador = suspension.observadores()[i];
+            if (observador != null) {
+                Cliente cliente = afectados.get(i);
+                cliente.setObservador(observador);
+                observador.cuotasReemplazadas(cliente, suspension.anteriores()[i]);
+            }
+        }
+        if (clientes != null) {
+            for (Cliente cliente : afectados) {
+                clientes.notificarModificado(cliente);
+            }
+        }
+    }
+}
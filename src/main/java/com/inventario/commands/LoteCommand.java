@@ -0,0 +1,115 @@
+package com.inventario.commands;
+
+import com.inventario.models.Cliente;
+import com.inventario.persistence.RegistroCambios;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// Comando compuesto: ejecuta varios comandos como una sola acción.
+// Se deshace entero (en orden inverso), ocupa una sola entrada del historial y se persiste
+// con un único registro en el journal (un write + fsync) en lugar de uno por comando.
+public class LoteCommand implements Command {
+    private final List<Command> comandos;
+
+    public LoteCommand(List<? extends Command> comandos) {
+        this.comandos = new ArrayList<>(comandos);
+    }
+
+    public List<Command> getComandos() {
+        return Collections.unmodifiableList(comandos);
+    }
+
+    public int size() {
+        return comandos.size();
+    }
+
+    @Override
+    public void execute() {
+        // Todo o nada: si un comando falla, se deshacen los que ya se ejecutaron
+        int ejecutados = 0;
+        try {
+            for (Command comando : comandos) {
+                comando.execute();
+                ejecutados++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = ejecutados - 1; i >= 0; i--) {
+                comandos.get(i).undo();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void undo() {
+        for (int i = comandos.size() - 1; i >= 0; i--) {
+            comandos.get(i).undo();
+        }
+    }
+
+    @Override
+    public void registrarCambios(RegistroCambios registro, boolean deshecho) {
+        // Como el registro guarda el estado final de cada cliente, los cambios en el lugar de un
+        // mismo cliente se escriben una sola vez (mil pagos del mismo cliente, una línea)
+        RegistroAgrupado agrupado = new RegistroAgrupado(registro);
+        if (deshecho) {
+            for (int i = comandos.size() - 1; i >= 0; i--) {
+                comandos.get(i).registrarCambios(agrupado, true);
+            }
+        } else {
+            for (Command comando : comandos) {
+                comando.registrarCambios(agrupado, false);
+            }
+        }
+        agrupado.volcar();
+    }
+
+    @Override
+    public long bytesEstimados() {
+        long total = 64 + 8L * comandos.size();
+        for (Command comando : comandos) {
+            total += comando.bytesEstimados();
+        }
+        return total;
+    }
+
+    // Junta los guardados en el lugar (-1) hasta el próximo cambio de estructura (baja o
+    // reinserción en una posición), para que el orden relativo de esos cambios se mantenga
+    private static class RegistroAgrupado implements RegistroCambios {
+        private final RegistroCambios destino;
+        private final Set<Cliente> pendientes = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Cliente> enOrden = new ArrayList<>();
+
+        RegistroAgrupado(RegistroCambios destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void clienteGuardado(Cliente cliente, int posicion) {
+            if (posicion >= 0) {
+                volcar();
+                destino.clienteGuardado(cliente, posicion);
+            } else if (pendientes.add(cliente)) {
+                enOrden.add(cliente);
+            }
+        }
+
+        @Override
+        public void clienteEliminado(Cliente cliente) {
+            volcar();
+            destino.clienteEliminado(cliente);
+        }
+
+        void volcar() {
+            for (Cliente cliente : enOrden) {
+                destino.clienteGuardado(cliente, -1);
+            }
+            pendientes.clear();
+            enOrden.clear();
+        }
+    }
+}
@@ -1,47 +1,84 @@
 package com.inventario.commands;
 
+import com.inventario.models.CambiosCuotas;
 import com.inventario.models.Cliente;
-import com.inventario.models.Cuota;
-
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import com.inventario.persistence.RegistroCambios;
+import com.inventario.repository.ClienteRepository;
 
 public class RegistrarPagoCommand implements Command {
+    private ClienteRepository clientes; // Se le avisa del cambio para refrescar la lista (puede ser null)
     private Cliente cliente;
     private double montoPago;
 
-    // Para deshacer: guardar el estado previo del cliente y sus cuotas
-    private double clienteAdelantoAcumuladoBefore;
-    private List<Cuota> cuotasBefore; // Una copia profunda de las cuotas
+    // Para deshacer: solo las cuotas que tocó el pago, con sus valores previos, y el adelanto anterior
+    private final CambiosCuotas cambios;
 
     public RegistrarPagoCommand(Cliente cliente, double montoPago) {
+        this(null, cliente, montoPago);
+    }
+
+    public RegistrarPagoCommand(ClienteRepository clientes, Cliente cliente, double montoPago) {
+        this.clientes = clientes;
         this.cliente = cliente;
         this.montoPago = montoPago;
-        // Guardar el estado actual del cliente para el deshacer
-        this.clienteAdelantoAcumuladoBefore = cliente.getAdelantoAcumulado();
-        this.cuotasBefore = new ArrayList<>();
-        // Realizar una copia profunda de las cuotas
-        for (Cuota c : cliente.getCuotas()) {
-            this.cuotasBefore.add(new Cuota(c.getNumeroCuota(), c.getMontoOriginal(), c.getMontoPagado(), c.getFechaVencimiento(), c.getFechaPago(), c.isFaltante()));
-        }
+        this.cambios = new CambiosCuotas();
+    }
+
+    /**
+     * Reconstruye un pago ya aplicado (por ejemplo, leído del historial en disco) para poder deshacerlo.
+     * @param cambios Lo que cambió el pago cuando se ejecutó.
+     */
+    public RegistrarPagoCommand(ClienteRepository clientes, Cliente cliente, double montoPago, CambiosCuotas cambios) {
+        this.clientes = clientes;
+        this.cliente = cliente;
+        this.montoPago = montoPago;
+        this.cambios = cambios;
     }
 
     @Override
     public void execute() {
-        // La lógica de aplicar el pago y distribuir el excedente ahora está en Cliente.aplicarPagoACuotas
-        cliente.aplicarPagoACuotas(montoPago);
+        // La lógica de aplicar el pago y distribuir el excedente está en Cliente.aplicarPagoACuotas;
+        // de paso registra el estado previo de las cuotas que modifica
+        cliente.aplicarPagoACuotas(montoPago, cambios);
+        notificarCambio();
     }
 
     @Override
     public void undo() {
-        // Restaurar el adelanto acumulado del cliente
-        cliente.setAdelantoAcumulado(clienteAdelantoAcumuladoBefore);
+        // Restaurar las cuotas tocadas y el adelanto acumulado (los totales del cliente se ajustan solos)
+        cambios.deshacer(cliente);
+        notificarCambio();
+    }
+
+    public Cliente getCliente() {
+        return cliente;
+    }
 
-        // Restaurar el estado de las cuotas desde la copia profunda
-        cliente.getCuotas().clear();
-        for (Cuota c : cuotasBefore) {
-            cliente.getCuotas().add(c);
+    public double getMontoPago() {
+        return montoPago;
+    }
+
+    /**
+     * Lo que cambió la última ejecución del pago.
+     */
+    public CambiosCuotas getCambios() {
+        return cambios;
+    }
+
+    @Override
+    public long bytesEstimados() {
+        return 64 + cambios.bytesEstimados();
+    }
+
+    private void notificarCambio() {
+        if (clientes != null) {
+            clientes.notificarModificado(cliente);
         }
     }
+
+    @Override
+    public void registrarCambios(RegistroCambios registro, boolean deshecho) {
+        // Tanto el pago como su deshacer modifican en su lugar las mismas cuotas y el adelanto
+        registro.pagoAplicado(cliente, cambios);
+    }
 }
@@ -0,0 +1,383 @@
+package com.inventario.importacion;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.LoteCommand;
+import com.inventario.models.Cliente;
+import com.inventario.persistence.ArchivoAtomico;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.ExcelStreamingReader;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Alta masiva de clientes desde una planilla de contratos (.xlsx, primera hoja, o CSV).
+ *
+ * Columnas, en este orden y con los mismos datos que el formulario de alta: Nombre, Apellido,
+ * DNI, Tipo de Cuota (mensual/quincenal), Producto, Total Producto, Total Cuotas, Valor Cuota
+ * (si está vacío se usa total / cuotas) y Fecha Inicio (dd/MM/yyyy, yyyy-MM-dd o fecha de Excel).
+ * Una primera fila sin total numérico se toma como encabezado. Los montos escritos como texto se
+ * leen igual que en el formulario ("150.000" son ciento cincuenta mil); las celdas numéricas del
+ * .xlsx, con el número guardado.
+ *
+ * Las filas se leen de a una (el .xlsx con el lector por eventos) y se validan al pasar; los DNI
+ * repetidos, dentro del archivo o contra los clientes existentes, se detectan en esa misma pasada
+ * con un mapa hash. Los cronogramas de los contratos aceptados se generan después en un
+ * fork-join pool. La lectura no modifica el repositorio: el resultado trae un único
+ * {@link LoteCommand} con todas las altas, que se ejecuta, deshace y persiste como una acción.
+ */
+public class AltaMasivaClientes {
+
+    public enum Estado { ACEPTADA, RECHAZADA, OMITIDA }
+
+    /**
+     * Resultado de una fila del archivo (numeradas desde 1, como en Excel).
+     */
+    public record Linea(int numero, Estado estado, String dni, String detalle) {
+    }
+
+    public static final class Resultado {
+        private final List<Linea> lineas;
+        private final List<Cliente> clientesNuevos;
+        private final LoteCommand comando;
+        private final int rechazadas;
+
+        private Resultado(List<Linea> lineas, List<Cliente> clientesNuevos, LoteCommand comando) {
+            this.lineas = Collections.unmodifiableList(lineas);
+            this.clientesNuevos = Collections.unmodifiableList(clientesNuevos);
+            this.comando = comando;
+            int r = 0;
+            for (Linea linea : lineas) {
+                if (linea.estado() == Estado.RECHAZADA) {
+                    r++;
+                }
+            }
+            this.rechazadas = r;
+        }
+
+        public List<Linea> getLineas() {
+            return lineas;
+        }
+
+        /**
+         * Los clientes a dar de alta, en el orden del archivo.
+         */
+        public List<Cliente> getClientesNuevos() {
+            return clientesNuevos;
+        }
+
+        /**
+         * El lote con todas las altas, o null si no se aceptó ninguna fila.
+         */
+        public LoteCommand getComando() {
+            return comando;
+        }
+
+        public int getAceptadas() {
+            return clientesNuevos.size();
+        }
+
+        public int getRechazadas() {
+            return rechazadas;
+        }
+
+        public List<Linea> getLineasRechazadas() {
+            List<Linea> lista = new ArrayList<>(rechazadas);
+            for (Linea linea : lineas) {
+                if (linea.estado() == Estado.RECHAZADA) {
+                    lista.add(linea);
+                }
+            }
+            return lista;
+        }
+
+        /**
+         * Escribe el reporte fila por fila (linea;estado;dni;detalle).
+         */
+        public void escribirReporte(Path destino) throws IOException {
+            ArchivoAtomico.escribir(destino, 0, out -> {
+                BufferedWriter escritor = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                escritor.write("linea;estado;dni;detalle\n");
+                for (Linea linea : lineas) {
+                    escritor.write(linea.numero() + ";" + linea.estado() + ";" + campo(linea.dni()) + ";" + campo(linea.detalle()) + "\n");
+                }
+                escritor.flush();
+            });
+        }
+
+        private static String campo(String valor) {
+            if (valor == null) {
+                return "";
+            }
+            return valor.indexOf(';') >= 0 || valor.indexOf('"') >= 0 ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+        }
+    }
+
+    // Contratos por tarea del fork-join: construir un cliente es barato, conviene agrupar
+    private static final int UMBRAL_TAREA = 256;
+    // Total Producto, Total Cuotas, Valor Cuota y Fecha Inicio
+    private static final int COLUMNA_PRIMER_NUMERO = 5;
+    private static final int MAX_CUOTAS = Integer.getInteger("inventario.altaMasiva.maxCuotas", 600);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("d/M/yyyy");
+
+    // Una fila validada, todavía sin cronograma
+    private record Contrato(String nombre, String apellido, String dni, String tipoCuota, String producto,
+                            double total, int cuotas, double valorCuota, LocalDate inicio) {
+    }
+
+    private final ClienteRepository clientes;
+    private final ForkJoinPool pool;
+
+    public AltaMasivaClientes(ClienteRepository clientes) {
+        this(clientes, ForkJoinPool.commonPool());
+    }
+
+    public AltaMasivaClientes(ClienteRepository clientes, ForkJoinPool pool) {
+        this.clientes = clientes;
+        this.pool = pool;
+    }
+
+    /**
+     * Lee la planilla (.xlsx o CSV según la extensión) y arma el resultado. Debe llamarse sin que
+     * la lista de clientes cambie mientras tanto.
+     */
+    public Resultado leer(Path archivo) throws Exception {
+        Lectura lectura = new Lectura();
+        if (archivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+            boolean leida = ExcelStreamingReader.leerHoja(archivo.toFile(), null, (numeroFila, fila) -> {
+                // Textos formateados (un DNI numérico sale sin exponente) y, en los montos y la
+                // fecha, el valor crudo: el formato de la celda podría cambiar los separadores
+                String[] valores = new String[fila.getColumnas()];
+                boolean[] crudos = new boolean[valores.length];
+                for (int i = 0; i < valores.length; i++) {
+                    valores[i] = i >= COLUMNA_PRIMER_NUMERO ? fila.valor(i) : fila.texto(i);
+                    crudos[i] = i >= COLUMNA_PRIMER_NUMERO && fila.esNumerica(i);
+                }
+                lectura.fila(numeroFila + 1, valores, crudos);
+            });
+            if (!leida) {
+                throw new IOException("El archivo no tiene hojas");
+            }
+        } else {
+            try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                leerCsv(lector, lectura);
+            }
+        }
+        return lectura.terminar();
+    }
+
+    public Resultado leer(BufferedReader csv) throws IOException {
+        Lectura lectura = new Lectura();
+        leerCsv(csv, lectura);
+        return lectura.terminar();
+    }
+
+    private static void leerCsv(BufferedReader lector, Lectura lectura) throws IOException {
+        char separador = 0;
+        String texto;
+        int numero = 0;
+        while ((texto = lector.readLine()) != null) {
+            numero++;
+            if (numero == 1 && !texto.isEmpty() && texto.charAt(0) == '\uFEFF') {
+                texto = texto.substring(1);
+            }
+            if (separador == 0 && !texto.isBlank()) {
+                separador = ImportadorPagosCsv.detectarSeparador(texto);
+            }
+            lectura.fila(numero, texto.isBlank() ? new String[0] : ImportadorPagosCsv.separarCampos(texto, separador).toArray(new String[0]), null);
+        }
+    }
+
+    // Estado de una lectura: valida cada fila al pasar y detecta DNI repetidos con un mapa hash
+    private class Lectura {
+        private final List<Linea> lineas = new ArrayList<>();
+        private final List<Contrato> contratos = new ArrayList<>();
+        // DNI normalizado -> fila donde apareció primero
+        private final Map<String, Integer> dnisDelArchivo = new HashMap<>();
+        private boolean primeraConDatos = true;
+
+        /**
+         * @param crudos Qué valores son números crudos de celdas numéricas del .xlsx (null en un CSV,
+         *               donde todos son textos escritos con el criterio de la ventana).
+         */
+        void fila(int numero, String[] valores, boolean[] crudos) {
+            if (vacia(valores)) {
+                lineas.add(new Linea(numero, Estado.OMITIDA, null, "Fila vacía"));
+                return;
+            }
+            boolean encabezado = primeraConDatos;
+            primeraConDatos = false;
+            String dni = valor(valores, 2);
+            try {
+                Contrato contrato = validar(valores, crudos);
+                String clave = ClienteRepository.normalizarDni(contrato.dni());
+                Integer anterior = dnisDelArchivo.putIfAbsent(clave, numero);
+                if (anterior != null) {
+                    lineas.add(new Linea(numero, Estado.RECHAZADA, dni, "DNI repetido en el archivo (fila " + anterior + ")"));
+                } else if (clientes.existeDni(clave)) {
+                    lineas.add(new Linea(numero, Estado.RECHAZADA, dni, "Ya existe un cliente con ese DNI"));
+                } else {
+                    contratos.add(contrato);
+                    lineas.add(new Linea(numero, Estado.ACEPTADA, dni, contrato.apellido() + ", " + contrato.nombre()));
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                if (encabezado && !esNumero(valor(valores, 5), crudo(crudos, 5))) {
+                    lineas.add(new Linea(numero, Estado.OMITIDA, null, "Encabezado"));
+                } else {
+                    lineas.add(new Linea(numero, Estado.RECHAZADA, dni, e.getMessage()));
+                }
+            }
+        }
+
+        Resultado terminar() {
+            Cliente[] nuevos = new Cliente[contratos.size()];
+            if (nuevos.length > 0) {
+                pool.invoke(new GenerarCronogramas(contratos, nuevos, 0, nuevos.length));
+            }
+            List<Cliente> lista = List.of(nuevos);
+            List<AgregarClienteCommand> altas = new ArrayList<>(nuevos.length);
+            for (Cliente cliente : nuevos) {
+                altas.add(new AgregarClienteCommand(clientes, cliente));
+            }
+            return new Resultado(lineas, lista, altas.isEmpty() ? null : new LoteCommand(altas));
+        }
+    }
+
+    // Construye los clientes (y sus cronogramas) de un rango de contratos, partiéndolo en mitades
+    private static class GenerarCronogramas extends RecursiveAction {
+        private final List<Contrato> contratos;
+        private final Cliente[] destino;
+        private final int desde;
+        private final int hasta;
+
+        GenerarCronogramas(List<Contrato> contratos, Cliente[] destino, int desde, int hasta) {
+            this.contratos = contratos;
+            this.destino = destino;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UMBRAL_TAREA) {
+                for (int i = desde; i < hasta; i++) {
+                    Contrato c = contratos.get(i);
+                    destino[i] = new Cliente(c.nombre(), c.apellido(), c.dni(), c.tipoCuota(), c.producto(),
+                            c.total(), c.cuotas(), c.valorCuota(), c.inicio());
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new GenerarCronogramas(contratos, destino, desde, medio),
+                    new GenerarCronogramas(contratos, destino, medio, hasta));
+        }
+    }
+
+    // Mismas reglas que el formulario de alta
+    private static Contrato validar(String[] valores, boolean[] crudos) {
+        String nombre = valor(valores, 0);
+        String apellido = valor(valores, 1);
+        String dni = valor(valores, 2);
+        String tipo = valor(valores, 3).toLowerCase(Locale.ROOT);
+        String producto = valor(valores, 4);
+        if (nombre.isEmpty() || apellido.isEmpty() || dni.isEmpty() || producto.isEmpty()) {
+            throw new IllegalArgumentException("Nombre, Apellido, DNI y Producto no pueden estar vacíos");
+        }
+        if (!tipo.equals("mensual") && !tipo.equals("quincenal")) {
+            throw new IllegalArgumentException("Tipo de cuota inválido: " + valor(valores, 3));
+        }
+        double total = numero(valor(valores, 5), crudo(crudos, 5), "Total Producto");
+        double totalCuotas = numero(valor(valores, 6), crudo(crudos, 6), "Total Cuotas");
+        int cuotas = (int) totalCuotas;
+        if (cuotas != totalCuotas) {
+            throw new IllegalArgumentException("Total Cuotas debe ser un número entero: " + valor(valores, 6));
+        }
+        if (total <= 0 || cuotas <= 0) {
+            throw new IllegalArgumentException("Total del producto y total de cuotas deben ser mayores a cero");
+        }
+        if (cuotas > MAX_CUOTAS) {
+            throw new IllegalArgumentException("Demasiadas cuotas: " + cuotas);
+        }
+        String textoValor = valor(valores, 7);
+        double valorCuota = textoValor.isEmpty() ? Math.round(total / cuotas * 100) / 100.0 : numero(textoValor, crudo(crudos, 7), "Valor Cuota");
+        if (valorCuota <= 0) {
+            throw new IllegalArgumentException("El valor de la cuota debe ser mayor a cero");
+        }
+        LocalDate inicio = fecha(valor(valores, 8), crudo(crudos, 8));
+        return new Contrato(nombre, apellido, dni, tipo, producto, total, cuotas, valorCuota, inicio);
+    }
+
+    private static LocalDate fecha(String texto, boolean crudo) {
+        if (texto.isEmpty()) {
+            throw new IllegalArgumentException("Falta la fecha de inicio");
+        }
+        if (texto.indexOf('/') >= 0) {
+            return LocalDate.parse(texto, FORMATO_FECHA);
+        }
+        if (texto.indexOf('-') >= 0) {
+            return LocalDate.parse(texto);
+        }
+        // Celda de fecha de Excel: número de serie
+        double serie = numero(texto, crudo, "Fecha Inicio");
+        if (!DateUtil.isValidExcelDate(serie)) {
+            throw new IllegalArgumentException("Fecha inválida: " + texto);
+        }
+        return DateUtil.getLocalDateTime(serie).toLocalDate();
+    }
+
+    // Los números crudos del .xlsx usan punto decimal; los textos, el criterio de miles de la ventana
+    private static double numero(String texto, boolean crudo, String columna) {
+        try {
+            double valor = crudo ? Double.parseDouble(texto) : ImportadorPagosCsv.parsearMonto(texto);
+            if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+                throw new NumberFormatException();
+            }
+            return valor;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + " inválido: " + texto);
+        }
+    }
+
+    private static boolean esNumero(String texto, boolean crudo) {
+        try {
+            numero(texto, crudo, "");
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean crudo(boolean[] crudos, int columna) {
+        return crudos != null && columna < crudos.length && crudos[columna];
+    }
+
+    private static String valor(String[] valores, int columna) {
+        return columna < valores.length && valores[columna] != null ? valores[columna].trim() : "";
+    }
+
+    private static boolean vacia(String[] valores) {
+        for (String v : valores) {
+            if (v != null && !v.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
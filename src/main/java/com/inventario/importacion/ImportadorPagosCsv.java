@@ -0,0 +1,269 @@
+package com.inventario.importacion;
+
+import com.inventario.commands.ImportarPagosCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.persistence.ArchivoAtomico;
+import com.inventario.repository.ClienteRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Importa pagos desde un CSV de extracto bancario: una línea por pago con DNI y monto
+ * (columnas extra, como fecha o referencia, se ignoran).
+ *
+ * El archivo se lee línea por línea sin cargarlo entero. El separador (';', tabulación o ',')
+ * se detecta en la primera línea con datos y una primera línea sin monto numérico se toma como
+ * encabezado. Los montos se leen como en la ventana ("15.000", "1.234,56"; ver
+ * {@link #parsearMonto(String)}). Cada DNI se resuelve con la búsqueda hash del repositorio.
+ *
+ * La lectura no modifica ningún cliente: devuelve un {@link Resultado} con el estado de cada
+ * línea y un único {@link ImportarPagosCommand} con los pagos aceptados, que aplica en paralelo
+ * los de clientes distintos y en el orden del archivo los de un mismo cliente.
+ */
+public class ImportadorPagosCsv {
+
+    public enum Estado { ACEPTADA, RECHAZADA, OMITIDA }
+
+    /**
+     * Resultado de una línea del archivo (numeradas desde 1).
+     */
+    public record Linea(int numero, String texto, Estado estado, String dni, double monto, String detalle) {
+    }
+
+    public static final class Resultado {
+        private final List<Linea> lineas;
+        private final ImportarPagosCommand comando;
+        private final int aceptadas;
+        private final int rechazadas;
+
+        private Resultado(List<Linea> lineas, ImportarPagosCommand comando) {
+            this.lineas = Collections.unmodifiableList(lineas);
+            this.comando = comando;
+            int a = 0;
+            int r = 0;
+            for (Linea linea : lineas) {
+                if (linea.estado() == Estado.ACEPTADA) {
+                    a++;
+                } else if (linea.estado() == Estado.RECHAZADA) {
+                    r++;
+                }
+            }
+            this.aceptadas = a;
+            this.rechazadas = r;
+        }
+
+        public List<Linea> getLineas() {
+            return lineas;
+        }
+
+        /**
+         * El comando con todos los pagos aceptados, o null si no hubo ninguno.
+         */
+        public ImportarPagosCommand getComando() {
+            return comando;
+        }
+
+        public int getAceptadas() {
+            return aceptadas;
+        }
+
+        public int getRechazadas() {
+            return rechazadas;
+        }
+
+        public List<Linea> getLineasRechazadas() {
+            List<Linea> rechazadasLista = new ArrayList<>(rechazadas);
+            for (Linea linea : lineas) {
+                if (linea.estado() == Estado.RECHAZADA) {
+                    rechazadasLista.add(linea);
+                }
+            }
+            return rechazadasLista;
+        }
+
+        /**
+         * Escribe el reporte línea por línea (linea;estado;dni;monto;detalle).
+         */
+        public void escribirReporte(Path destino) throws IOException {
+            ArchivoAtomico.escribir(destino, 0, out -> {
+                BufferedWriter escritor = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                escritor.write("linea;estado;dni;monto;detalle\n");
+                for (Linea linea : lineas) {
+                    escritor.write(linea.numero() + ";" + linea.estado() + ";" + campo(linea.dni()) + ";"
+                            + (linea.estado() == Estado.ACEPTADA ? String.format("%.2f", linea.monto()) : "") + ";"
+                            + campo(linea.detalle()) + "\n");
+                }
+                escritor.flush();
+            });
+        }
+
+        private static String campo(String valor) {
+            if (valor == null) {
+                return "";
+            }
+            return valor.indexOf(';') >= 0 || valor.indexOf('"') >= 0 ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+        }
+    }
+
+    // Parte entera con puntos de miles: "15.000", "-1.234.567"
+    private static final Pattern MILES = Pattern.compile("[-+]?\\d{1,3}(\\.\\d{3})+");
+
+    private final ClienteRepository clientes;
+
+    public ImportadorPagosCsv(ClienteRepository clientes) {
+        this.clientes = clientes;
+    }
+
+    /**
+     * Lee el archivo (UTF-8) y arma el resultado. Debe llamarse sin que la lista de clientes
+     * cambie mientras tanto (la ventana deshabilita las acciones durante la importación).
+     */
+    public Resultado leer(Path archivo) throws IOException {
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return leer(lector);
+        }
+    }
+
+    public Resultado leer(BufferedReader lector) throws IOException {
+        List<Linea> lineas = new ArrayList<>();
+        List<RegistrarPagoCommand> pagos = new ArrayList<>();
+        char separador = 0;
+        boolean primeraConDatos = true;
+        String texto;
+        int numero = 0;
+        while ((texto = lector.readLine()) != null) {
+            numero++;
+            if (numero == 1 && !texto.isEmpty() && texto.charAt(0) == '\uFEFF') {
+                texto = texto.substring(1); // BOM de Excel
+            }
+            if (texto.isBlank()) {
+                lineas.add(new Linea(numero, texto, Estado.OMITIDA, null, 0, "Línea vacía"));
+                continue;
+            }
+            if (separador == 0) {
+                separador = detectarSeparador(texto);
+            }
+            List<String> campos = separarCampos(texto, separador);
+            boolean encabezado = primeraConDatos;
+            primeraConDatos = false;
+
+            if (campos.size() < 2) {
+                lineas.add(new Linea(numero, texto, Estado.RECHAZADA, null, 0, "Se esperaban al menos DNI y monto"));
+                continue;
+            }
+            String dni = campos.get(0).trim();
+            double monto;
+            try {
+                monto = parsearMonto(campos.get(1));
+            } catch (NumberFormatException e) {
+                if (encabezado) {
+                    lineas.add(new Linea(numero, texto, Estado.OMITIDA, null, 0, "Encabezado"));
+                } else {
+                    lineas.add(new Linea(numero, texto, Estado.RECHAZADA, dni, 0, "Monto inválido: " + campos.get(1).trim()));
+                }
+                continue;
+            }
+            if (!(monto > 0) || Double.isInfinite(monto)) {
+                lineas.add(new Linea(numero, texto, Estado.RECHAZADA, dni, monto, "El monto debe ser mayor a cero"));
+                continue;
+            }
+            Cliente cliente = clientes.buscarPorDni(dni);
+            if (cliente == null) {
+                lineas.add(new Linea(numero, texto, Estado.RECHAZADA, dni, monto, "No existe un cliente con ese DNI"));
+                continue;
+            }
+            // Sin repositorio: el comando de importación avisa una vez por cliente en el EDT
+            pagos.add(new RegistrarPagoCommand(cliente, monto));
+            lineas.add(new Linea(numero, texto, Estado.ACEPTADA, dni, monto, cliente.getApellido() + ", " + cliente.getNombre()));
+        }
+        ImportarPagosCommand comando = pagos.isEmpty() ? null : new ImportarPagosCommand(clientes, pagos);
+        return new Resultado(lineas, comando);
+    }
+
+    static char detectarSeparador(String linea) {
+        if (linea.indexOf(';') >= 0) {
+            return ';';
+        }
+        if (linea.indexOf('\t') >= 0) {
+            return '\t';
+        }
+        return ',';
+    }
+
+    /**
+     * Separa una línea CSV respetando campos entre comillas (con "" como comilla escapada).
+     */
+    static List<String> separarCampos(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Mismo criterio que los campos de monto de la ventana: el punto separa miles y la coma los
+     * decimales, así que "15.000" son quince mil y "1.234,56" mil doscientos treinta y cuatro con
+     * cincuenta y seis. Solo cuando el punto no puede ser un separador de miles ("1500.75", un único
+     * punto sin tres dígitos detrás) se toma como punto decimal, como en los extractos que lo usan.
+     * Se ignoran el signo $ y los espacios.
+     * @throws NumberFormatException Si el texto no es un monto, o si mezcla los separadores de otra
+     *                               forma ("1,234.56", "1.2.3"): no hay manera segura de leerlo.
+     */
+    static double parsearMonto(String texto) {
+        String limpio = texto.replace("$", "").replace(" ", "").trim();
+        if (limpio.isEmpty()) {
+            throw new NumberFormatException("vacío");
+        }
+        int coma = limpio.indexOf(',');
+        String entera = coma >= 0 ? limpio.substring(0, coma) : limpio;
+        if (entera.indexOf('.') >= 0) {
+            if (MILES.matcher(entera).matches()) {
+                entera = entera.replace(".", "");
+            } else if (coma >= 0 || entera.indexOf('.') != entera.lastIndexOf('.')) {
+                throw new NumberFormatException("separadores de miles mal ubicados: " + texto);
+            }
+        }
+        if (coma >= 0) {
+            String decimales = limpio.substring(coma + 1);
+            if (decimales.indexOf('.') >= 0) {
+                throw new NumberFormatException("punto después de la coma decimal: " + texto);
+            }
+            return Double.parseDouble(entera + "." + decimales);
+        }
+        return Double.parseDouble(entera);
+    }
+}
@@ -0,0 +1,87 @@
+package com.inventario.models;
+
+import java.util.Arrays;
+
+/**
+ * Registro de lo que cambió un pago: el adelanto previo del cliente y, por cada cuota que
+ * tocó, su posición, el monto pagado y la fecha de pago anteriores.
+ *
+ * Solo se guardan las cuotas afectadas, en arreglos primitivos, así que la memoria y el costo
+ * de deshacer son proporcionales a las cuotas que cubrió el pago y no al largo del cronograma.
+ * Deshacer supone que las cuotas no cambiaron por otro lado desde el pago (el orden del
+ * historial de comandos lo garantiza).
+ */
+public final class CambiosCuotas {
+
+    private double adelantoAntes;
+    private int[] indices = new int[2];
+    private double[] pagadoAntes = new double[2];
+    private int[] fechaPagoAntes = new int[2];
+    private int cantidad;
+
+    /**
+     * Descarta lo registrado y empieza un registro nuevo con el adelanto previo al pago.
+     */
+    public void iniciar(double adelantoAntes) {
+        this.adelantoAntes = adelantoAntes;
+        this.cantidad = 0;
+    }
+
+    /**
+     * Anota el estado de una cuota antes de que el pago la modifique.
+     */
+    public void registrar(int indice, double montoPagado, int fechaPagoEpoch) {
+        if (cantidad == indices.length) {
+            int capacidad = cantidad * 2;
+            indices = Arrays.copyOf(indices, capacidad);
+            pagadoAntes = Arrays.copyOf(pagadoAntes, capacidad);
+            fechaPagoAntes = Arrays.copyOf(fechaPagoAntes, capacidad);
+        }
+        indices[cantidad] = indice;
+        pagadoAntes[cantidad] = montoPagado;
+        fechaPagoAntes[cantidad] = fechaPagoEpoch;
+        cantidad++;
+    }
+
+    /**
+     * Devuelve al cliente el estado previo al pago: las cuotas registradas (en orden inverso)
+     * y el adelanto acumulado.
+     */
+    public void deshacer(Cliente cliente) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        for (int k = cantidad - 1; k >= 0; k--) {
+            cuotas.restaurarPago(indices[k], pagadoAntes[k], fechaPagoAntes[k]);
+        }
+        cliente.setAdelantoAcumulado(adelantoAntes);
+    }
+
+    public double getAdelantoAntes() {
+        return adelantoAntes;
+    }
+
+    /**
+     * Cantidad de cuotas que tocó el pago.
+     */
+    public int size() {
+        return cantidad;
+    }
+
+    public int indice(int k) {
+        return indices[k];
+    }
+
+    public double pagadoAntes(int k) {
+        return pagadoAntes[k];
+    }
+
+    public int fechaPagoAntes(int k) {
+        return fechaPagoAntes[k];
+    }
+
+    /**
+     * Memoria aproximada del registro, en bytes.
+     */
+    public long bytesEstimados() {
+        return 32 + 3L * 16 + (long) indices.length * (4 + 8 + 4);
+    }
+}
@@ -1,9 +1,8 @@
 package com.inventario.models;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Comparator;
 
 public class Cliente {
     private String nombre;
@@ -12,9 +11,23 @@ public class Cliente {
     private String tipoCuota; // Ej: "mensual", "quincenal"
     private String producto; // Nuevo campo para el nombre del producto
     private double totalProducto;
-    private List<Cuota> cuotas = new ArrayList<>(); // Inicialización directa para evitar NullPointerException
+    private CuotasColumnares cuotas; // Almacén por columnas; getCuotas() devuelve vistas sobre él
     private double adelantoAcumulado;
 
+    // Totales de las cuotas, mantenidos a medida que cambian (ver cuotaModificada) para no
+    // recorrer la lista en cada consulta. Se llevan en centavos: como enteros no acumulan error de
+    // redondeo y una deuda saldada da exactamente 0. valorCuota en NaN indica que hay que recalcularlo.
+    private long centavosPagados;
+    private long centavosDeuda;
+    private int cuotasPagadas;
+    private double valorCuota = Double.NaN;
+    // Quien sigue los cambios de las cuotas (el repositorio que tiene al cliente), o null
+    private ObservadorCuotas observador;
+
+    // En modo depuración cada cambio compara los totales con un recálculo completo. Se activa con
+    // -Dinventario.debug.verificarTotales=true o con las aserciones habilitadas (-ea, como en los tests).
+    private static final boolean VERIFICAR_TOTALES = Boolean.getBoolean("inventario.debug.verificarTotales") || aserciones();
+
     // Constructor para un nuevo cliente
     // Ahora incluye 'producto'
     public Cliente(String nombre, String apellido, String dni, String tipoCuota, String producto, double totalProducto, int totalCuotas, double valorCuota, LocalDate fechaInicioCuotas) {
@@ -24,19 +37,11 @@ public class Cliente {
         this.tipoCuota = tipoCuota;
         this.producto = producto; // Asignar el producto
         this.totalProducto = totalProducto;
-        this.cuotas = new ArrayList<>(); // Se mantiene para crear una nueva lista en cada nuevo cliente
         this.adelantoAcumulado = 0.0;
-        for (int i = 1; i <= totalCuotas; i++) {
-            LocalDate fechaVencimiento;
-            if ("mensual".equalsIgnoreCase(tipoCuota)) {
-                fechaVencimiento = fechaInicioCuotas.plusMonths(i - 1);
-            } else if ("quincenal".equalsIgnoreCase(tipoCuota)) {
-                fechaVencimiento = fechaInicioCuotas.plusWeeks((i - 1) * 2);
-            } else {
-                fechaVencimiento = null;
-            }
-            this.cuotas.add(new Cuota(i, valorCuota, 0.0, fechaVencimiento, null, false));
-        }
+        // El cronograma nuevo (vencimientos cada mes o cada quince días desde fechaInicioCuotas) se
+        // guarda implícito hasta el primer pago
+        this.cuotas = CuotasColumnares.cronograma(tipoCuota, fechaInicioCuotas, totalCuotas, valorCuota);
+        adoptarCuotas();
     }
 
     // Constructor para cargar desde Excel (con la lista de Cuotas deserializada)
@@ -48,12 +53,36 @@ public class Cliente {
         this.tipoCuota = tipoCuota;
         this.producto = producto; // Cargar el producto
         this.totalProducto = totalProducto;
-        this.cuotas = cuotas != null ? cuotas : new ArrayList<>(); // Asegura que cuotas nunca sea null
+        this.cuotas = CuotasColumnares.de(cuotas != null ? cuotas : Collections.emptyList());
         this.adelantoAcumulado = adelantoAcumulado; // Cargar adelanto acumulado
+        adoptarCuotas();
+    }
+
+    /**
+     * Constructor para cargar desde el snapshot binario: el cliente se queda con el almacén de
+     * cuotas tal cual (no debe pertenecer a otro cliente).
+     */
+    public Cliente(String nombre, String apellido, String dni, String tipoCuota, String producto, double totalProducto, CuotasColumnares cuotas, double adelantoAcumulado) {
+        this.nombre = nombre;
+        this.apellido = apellido;
+        this.dni = dni;
+        this.tipoCuota = tipoCuota;
+        this.producto = producto;
+        this.totalProducto = totalProducto;
+        this.cuotas = cuotas;
+        this.adelantoAcumulado = adelantoAcumulado;
+        adoptarCuotas();
+    }
+
+    /**
+     * Copia profunda del cliente y sus cuotas, para tomar instantáneas inmutables del estado.
+     */
+    public Cliente copiar() {
+        return new Cliente(nombre, apellido, dni, tipoCuota, producto, totalProducto, cuotas.copiar(), adelantoAcumulado);
     }
 
     public double getTotalPagado() {
-        return cuotas.stream().mapToDouble(Cuota::getMontoPagado).sum();
+        return centavosPagados / 100.0;
     }
 
     public String getNombre() { return nombre; }
@@ -63,10 +92,46 @@ public class Cliente {
     public String getProducto() { return producto; } // Nuevo getter para el producto
     public double getTotalProducto() { return totalProducto; }
 
+    /**
+     * Vista de solo lectura de las cuotas. Cada Cuota de la lista es una vista sobre el almacén
+     * del cliente: sus montos se cambian con los métodos de la Cuota (que avisan al cliente para
+     * mantener los totales) y la lista completa con {@link #restaurarCuotas(List)}.
+     */
     public List<Cuota> getCuotas() {
+        return cuotas.vista();
+    }
+
+    /**
+     * El almacén por columnas de las cuotas, para recorridos que no necesitan objetos Cuota.
+     */
+    public CuotasColumnares getCuotasColumnares() {
         return cuotas;
     }
 
+    /**
+     * Reemplaza todas las cuotas del cliente y recalcula los totales.
+     */
+    public void restaurarCuotas(List<Cuota> nuevas) {
+        CuotasColumnares anteriores = cuotas;
+        anteriores.setTitular(null);
+        cuotas = CuotasColumnares.de(nuevas);
+        adoptarCuotas();
+        if (observador != null) {
+            observador.cuotasReemplazadas(this, anteriores);
+        }
+    }
+
+    /**
+     * Registra quién se entera de cada cambio en las cuotas (uno solo; null para ninguno).
+     */
+    public void setObservador(ObservadorCuotas observador) {
+        this.observador = observador;
+    }
+
+    public ObservadorCuotas getObservador() {
+        return observador;
+    }
+
     public double getAdelantoAcumulado() {
         return adelantoAcumulado;
     }
@@ -82,34 +147,42 @@ public class Cliente {
      * @param montoPago El monto total del pago recibido.
      */
     public void aplicarPagoACuotas(double montoPago) {
+        aplicarPagoACuotas(montoPago, null);
+    }
+
+    /**
+     * Igual que {@link #aplicarPagoACuotas(double)}, pero anota en 'cambios' el estado previo
+     * de cada cuota que toca el pago y del adelanto, para poder deshacerlo con
+     * {@link CambiosCuotas#deshacer(Cliente)}.
+     *
+     * @param cambios Dónde registrar los valores previos (puede ser null).
+     */
+    public void aplicarPagoACuotas(double montoPago, CambiosCuotas cambios) {
+        if (cambios != null) {
+            cambios.iniciar(this.adelantoAcumulado);
+        }
         double pagoRestante = montoPago;
 
         // Primero, usar cualquier adelanto acumulado existente para cubrir cuotas
         pagoRestante += this.adelantoAcumulado;
         this.adelantoAcumulado = 0.0;
 
-        List<Cuota> cuotasOrdenadas = new ArrayList<>(cuotas);
-        cuotasOrdenadas.sort(Comparator
-                .comparing(Cuota::estaPagada)
-                .thenComparing(Cuota::getFechaVencimiento, Comparator.nullsLast(Comparator.naturalOrder()))
-                .thenComparing(Cuota::getNumeroCuota));
-
-        for (Cuota cuota : cuotasOrdenadas) {
-            if (pagoRestante <= 0) {
-                break;
-            }
-
-            if (!cuota.estaPagada()) {
-                double excedente = cuota.aplicarPago(pagoRestante);
-                pagoRestante = excedente;
+        // Las cuotas se cubren por vencimiento (sin fecha al final) y número. El almacén mantiene
+        // ese orden y un cursor a la primera impaga, así que solo se recorren las cuotas que cubre el pago.
+        for (int k = cuotas.primeraImpaga(); k >= 0 && pagoRestante > 0; k = cuotas.siguienteImpaga(k)) {
+            int indice = cuotas.indiceEnOrden(k);
+            if (cambios != null) {
+                cambios.registrar(indice, cuotas.pagado(indice), cuotas.fechaPagoEpoch(indice));
             }
+            Cuota cuota = new Cuota(cuotas, indice);
+            pagoRestante = cuota.aplicarPago(pagoRestante);
         }
 
         this.adelantoAcumulado = pagoRestante;
     }
 
     public double calcularDeudaRestante() {
-        return cuotas.stream().mapToDouble(Cuota::getMontoRestante).sum();
+        return centavosDeuda / 100.0;
     }
 
     public int getTotalCuotas() {
@@ -117,7 +190,7 @@ public class Cliente {
     }
 
     public int getCuotasPagadasCount() {
-        return (int) cuotas.stream().filter(Cuota::estaPagada).count();
+        return cuotasPagadas;
     }
 
     public int getCuotasRestantes() {
@@ -125,11 +198,115 @@ public class Cliente {
     }
 
     public double getValorCuota() {
-        return cuotas.stream()
-                .filter(c -> !c.isFaltante())
-                .findFirst()
-                .map(Cuota::getMontoOriginal)
-                .orElse(0.0);
+        if (Double.isNaN(valorCuota)) {
+            valorCuota = calcularValorCuota();
+        }
+        return valorCuota;
+    }
+
+    /**
+     * Actualiza los totales con la diferencia de una cuota que acaba de cambiar. Lo llama
+     * la propia Cuota después de modificar sus montos.
+     */
+    void cuotaModificada(int indice, double pagadoAntes, double originalAntes, boolean pagadaAntes) {
+        centavosPagados += centavos(cuotas.pagado(indice)) - centavos(pagadoAntes);
+        centavosDeuda += centavos(cuotas.restante(indice)) - centavos(originalAntes - pagadoAntes);
+        cuotasPagadas += (cuotas.pagada(indice) ? 1 : 0) - (pagadaAntes ? 1 : 0);
+        if (cuotas.original(indice) != originalAntes) {
+            valorCuota = Double.NaN;
+        }
+        if (VERIFICAR_TOTALES) {
+            verificarTotales();
+        }
+        if (observador != null) {
+            observador.cuotaModificada(this, indice, cuotas.vencimientoEpoch(indice), pagadaAntes ? 0.0 : originalAntes - pagadoAntes);
+        }
+    }
+
+    /**
+     * Avisa al observador que cambió el vencimiento de una cuota (los montos siguen iguales).
+     */
+    void vencimientoModificado(int indice, int vencimientoAntes) {
+        if (observador != null) {
+            observador.cuotaModificada(this, indice, vencimientoAntes, cuotas.pagada(indice) ? 0.0 : cuotas.restante(indice));
+        }
+    }
+
+    /**
+     * Suma a los totales una cuota recién agregada al almacén.
+     */
+    void cuotaAgregada(int indice) {
+        centavosPagados += centavos(cuotas.pagado(indice));
+        centavosDeuda += centavos(cuotas.restante(indice));
+        if (cuotas.pagada(indice)) {
+            cuotasPagadas++;
+        }
+        valorCuota = Double.NaN;
+        if (VERIFICAR_TOTALES) {
+            verificarTotales();
+        }
+        if (observador != null) {
+            observador.cuotaModificada(this, indice, CuotasColumnares.SIN_FECHA, 0.0);
+        }
+    }
+
+    /**
+     * Compara los totales mantenidos con un recálculo completo sobre las cuotas.
+     * @throws IllegalStateException Si alguno no coincide.
+     */
+    public void verificarTotales() {
+        long pagado = 0;
+        long deuda = 0;
+        int pagadas = 0;
+        for (int i = 0; i < cuotas.size(); i++) {
+            pagado += centavos(cuotas.pagado(i));
+            deuda += centavos(cuotas.restante(i));
+            if (cuotas.pagada(i)) {
+                pagadas++;
+            }
+        }
+        if (pagado != centavosPagados || deuda != centavosDeuda || pagadas != cuotasPagadas
+                || (!Double.isNaN(valorCuota) && valorCuota != calcularValorCuota())) {
+            throw new IllegalStateException(String.format(
+                    "Totales desincronizados para DNI %s: pagado %.2f/%.2f, deuda %.2f/%.2f, pagadas %d/%d, valor cuota %.2f/%.2f",
+                    dni, centavosPagados / 100.0, pagado / 100.0, centavosDeuda / 100.0, deuda / 100.0, cuotasPagadas, pagadas, valorCuota, calcularValorCuota()));
+        }
+    }
+
+    // Toma las cuotas como propias (para recibir sus avisos de cambio) y recalcula los totales desde cero
+    private void adoptarCuotas() {
+        cuotas.setTitular(this);
+        centavosPagados = 0;
+        centavosDeuda = 0;
+        cuotasPagadas = 0;
+        for (int i = 0; i < cuotas.size(); i++) {
+            centavosPagados += centavos(cuotas.pagado(i));
+            centavosDeuda += centavos(cuotas.restante(i));
+            if (cuotas.pagada(i)) {
+                cuotasPagadas++;
+            }
+        }
+        valorCuota = Double.NaN;
+    }
+
+    private double calcularValorCuota() {
+        for (int i = 0; i < cuotas.size(); i++) {
+            if (!cuotas.faltante(i)) {
+                return cuotas.original(i);
+            }
+        }
+        return 0.0;
+    }
+
+    // Cada monto se redondea al centavo por separado, así el total no depende del orden de los cambios
+    private static long centavos(double monto) {
+        return Math.round(monto * 100);
+    }
+
+    private static boolean aserciones() {
+        boolean habilitadas = false;
+        assert habilitadas = true;
+        return habilitadas;
     }
 
     @Override
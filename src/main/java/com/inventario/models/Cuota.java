@@ -2,6 +2,13 @@ package com.inventario.models;
 
 import java.time.LocalDate;
 
+/**
+ * Una cuota del cronograma de un cliente.
+ *
+ * Una Cuota creada con sus constructores públicos guarda sus propios datos. Las cuotas de un
+ * cliente, en cambio, viven en su {@link CuotasColumnares} y las Cuota que se obtienen con
+ * Cliente.getCuotas() son vistas sobre una posición de ese almacén: leen y escriben en él.
+ */
 public class Cuota {
     private int numeroCuota;
     private double montoOriginal;
@@ -10,6 +17,10 @@ public class Cuota {
     private LocalDate fechaPago;
     private boolean isFaltante;
 
+    // Si no es null, la cuota es una vista sobre la posición 'indice' del almacén y los campos de arriba no se usan
+    private CuotasColumnares almacen;
+    private int indice;
+
     public Cuota(int numeroCuota, double montoOriginal) {
         this(numeroCuota, montoOriginal, 0.0, null, null, false);
     }
@@ -27,48 +38,74 @@ public class Cuota {
         this(numeroCuota, montoOriginal, montoPagado, null, null, isFaltante);
     }
 
+    // Vista sobre una cuota guardada en el almacén de un cliente
+    Cuota(CuotasColumnares almacen, int indice) {
+        vincular(almacen, indice);
+    }
+
+    void vincular(CuotasColumnares almacen, int indice) {
+        this.almacen = almacen;
+        this.indice = indice;
+    }
+
     public int getNumeroCuota() {
-        return numeroCuota;
+        return almacen != null ? almacen.numero(indice) : numeroCuota;
     }
 
     public double getMontoOriginal() {
-        return montoOriginal;
+        return almacen != null ? almacen.original(indice) : montoOriginal;
     }
 
     public void setMontoOriginal(double montoOriginal) {
-        this.montoOriginal = montoOriginal;
+        if (almacen != null) {
+            almacen.setOriginal(indice, montoOriginal);
+        } else {
+            this.montoOriginal = montoOriginal;
+        }
     }
 
     public double getMontoPagado() {
-        return montoPagado;
+        return almacen != null ? almacen.pagado(indice) : montoPagado;
     }
 
     public void setMontoPagado(double montoPagado) {
-        this.montoPagado = montoPagado;
+        if (almacen != null) {
+            almacen.setPagado(indice, montoPagado);
+        } else {
+            this.montoPagado = montoPagado;
+        }
     }
 
     public LocalDate getFechaVencimiento() {
-        return fechaVencimiento;
+        return almacen != null ? almacen.vencimiento(indice) : fechaVencimiento;
     }
 
     public void setFechaVencimiento(LocalDate fechaVencimiento) {
-        this.fechaVencimiento = fechaVencimiento;
+        if (almacen != null) {
+            almacen.setVencimiento(indice, fechaVencimiento);
+        } else {
+            this.fechaVencimiento = fechaVencimiento;
+        }
     }
 
     public LocalDate getFechaPago() {
-        return fechaPago;
+        return almacen != null ? almacen.fechaPago(indice) : fechaPago;
     }
 
     public void setFechaPago(LocalDate fechaPago) {
-        this.fechaPago = fechaPago;
+        if (almacen != null) {
+            almacen.setFechaPago(indice, fechaPago);
+        } else {
+            this.fechaPago = fechaPago;
+        }
     }
 
     public boolean isFaltante() {
-        return isFaltante;
+        return almacen != null ? almacen.faltante(indice) : isFaltante;
     }
 
     public double getMontoRestante() {
-        return montoOriginal - montoPagado;
+        return getMontoOriginal() - getMontoPagado();
     }
 
     /**
@@ -79,11 +116,11 @@ public class Cuota {
     public double aplicarPago(double pago) {
         double restante = getMontoRestante();
         if (pago >= restante) {
-            montoPagado += restante;
+            setMontoPagado(getMontoPagado() + restante);
             this.setFechaPago(LocalDate.now());
             return pago - restante; // Devuelve el excedente
         } else {
-            montoPagado += pago;
+            setMontoPagado(getMontoPagado() + pago);
             this.setFechaPago(null); // Si el pago es parcial, la fecha de pago se anula
             return 0.0; // No hay excedente
         }
@@ -95,26 +132,28 @@ public class Cuota {
      * @return El monto que "sobró" al deshacer (ej. si se deshizo un pago que dejó la cuota en negativo).
      */
     public double deshacerPago(double monto) {
-        double montoParaDeshacer = Math.min(monto, montoPagado);
-        montoPagado -= montoParaDeshacer;
-        if (montoPagado < montoOriginal) {
+        double montoParaDeshacer = Math.min(monto, getMontoPagado());
+        setMontoPagado(getMontoPagado() - montoParaDeshacer);
+        if (getMontoPagado() < getMontoOriginal()) {
             this.setFechaPago(null);
         }
         return monto - montoParaDeshacer;
     }
 
     public boolean estaPagada() {
-        return montoPagado >= montoOriginal;
+        return getMontoPagado() >= getMontoOriginal();
     }
 
     @Override
     public String toString() {
-        String tipo = isFaltante ? "FALTANTE" : "ORIGINAL";
+        String tipo = isFaltante() ? "FALTANTE" : "ORIGINAL";
         String estado = estaPagada() ? "Pagada" : "Pendiente";
-        String fechaVenc = (fechaVencimiento != null) ? fechaVencimiento.toString() : "N/A";
-        String fechaPag = (fechaPago != null) ? fechaPago.toString() : "N/A";
+        LocalDate vencimiento = getFechaVencimiento();
+        LocalDate pago = getFechaPago();
+        String fechaVenc = (vencimiento != null) ? vencimiento.toString() : "N/A";
+        String fechaPag = (pago != null) ? pago.toString() : "N/A";
 
         return String.format("Cuota %d (%s): Original $%.2f, Pagado $%.2f, Restante $%.2f | Venc: %s | Pago: %s | Estado: %s",
-                numeroCuota, tipo, montoOriginal, montoPagado, getMontoRestante(), fechaVenc, fechaPag, estado);
+                getNumeroCuota(), tipo, getMontoOriginal(), getMontoPagado(), getMontoRestante(), fechaVenc, fechaPag, estado);
     }
 }
@@ -0,0 +1,505 @@
+package com.inventario.models;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Almacén compacto de las cuotas de un cliente, organizado por columnas: un arreglo primitivo
+ * por campo (montos en double, fechas como días desde 1970 en int) en lugar de un objeto Cuota
+ * con dos LocalDate por cada cuota. Así las cuotas de un cliente ocupan unos pocos arreglos
+ * contiguos, sin encabezados de objeto ni punteros por cuota.
+ *
+ * Un cronograma recién generado (todas las cuotas sin pagar, con el mismo valor y vencimientos
+ * cada mes o cada quince días) se guarda de forma implícita, solo como fecha de inicio, período
+ * y cantidad; los arreglos se crean recién con la primera modificación.
+ *
+ * Las Cuota que devuelve {@link #vista()} son vistas sobre una posición del almacén: leen y
+ * escriben directamente en los arreglos. Cada cambio de montos se avisa al cliente titular
+ * para que mantenga sus totales.
+ *
+ * Para aplicar pagos sin ordenar las cuotas cada vez, el almacén guarda el orden de pago
+ * (vencimiento, sin fecha al final, y número de cuota) y un cursor a la primera cuota impaga
+ * en ese orden: todas las anteriores al cursor están pagadas. Un pago avanza el cursor; si una
+ * cuota vuelve a quedar impaga (deshacer, aumento del monto original) el cursor retrocede hasta
+ * ella. El orden se calcula una vez y se recalcula solo si cambian los vencimientos o se
+ * agregan cuotas.
+ */
+public class CuotasColumnares {
+
+    /** Valor de las columnas de fecha para "sin fecha". */
+    public static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    private static final byte SIN_PERIODO = 0;
+    private static final byte MENSUAL = 1;
+    private static final byte QUINCENAL = 2;
+
+    private int cantidad;
+
+    // Cronograma implícito: se usa mientras 'original' es null
+    private long inicio;
+    private byte periodo;
+    private double valorImplicito;
+
+    private int[] numero;
+    private double[] original;
+    private double[] pagado;
+    private int[] vencimiento;
+    private int[] fechaPago;
+    private boolean[] faltante;
+
+    private Cliente titular;
+
+    // Orden de pago: orden[k] es el índice de la k-ésima cuota y posicionEnOrden su inversa.
+    // null mientras no se calculó (o después de un cambio de vencimientos); con el cronograma
+    // implícito el orden es el de los índices.
+    private int[] orden;
+    private int[] posicionEnOrden;
+    // Posición en 'orden' de la primera cuota impaga (o anterior a ella, se avanza al consultarla)
+    private int cursor;
+
+    private CuotasColumnares() {
+    }
+
+    /**
+     * Cronograma implícito de 'cantidad' cuotas sin pagar de 'valorCuota', numeradas desde 1.
+     * @param tipoCuota "mensual" o "quincenal" (sin distinguir mayúsculas); con otro valor las cuotas no tienen vencimiento.
+     */
+    public static CuotasColumnares cronograma(String tipoCuota, LocalDate fechaInicio, int cantidad, double valorCuota) {
+        CuotasColumnares cuotas = new CuotasColumnares();
+        cuotas.cantidad = Math.max(cantidad, 0);
+        cuotas.valorImplicito = valorCuota;
+        if ("mensual".equalsIgnoreCase(tipoCuota)) {
+            cuotas.periodo = MENSUAL;
+        } else if ("quincenal".equalsIgnoreCase(tipoCuota)) {
+            cuotas.periodo = QUINCENAL;
+        } else {
+            cuotas.periodo = SIN_PERIODO;
+        }
+        if (cuotas.periodo != SIN_PERIODO) {
+            cuotas.inicio = fechaInicio.toEpochDay();
+        }
+        return cuotas;
+    }
+
+    /**
+     * Copia las cuotas de la lista al almacén. Las Cuota de la lista pasan a ser vistas sobre
+     * el almacén, de modo que cambiarlas después modifica las cuotas guardadas acá.
+     */
+    public static CuotasColumnares de(List<Cuota> lista) {
+        CuotasColumnares cuotas = new CuotasColumnares();
+        cuotas.reservar(lista.size());
+        for (Cuota c : lista) {
+            cuotas.agregarSinAvisar(c.getNumeroCuota(), c.getMontoOriginal(), c.getMontoPagado(),
+                    c.getFechaVencimiento(), c.getFechaPago(), c.isFaltante());
+        }
+        for (int i = 0; i < lista.size(); i++) {
+            lista.get(i).vincular(cuotas, i);
+        }
+        return cuotas;
+    }
+
+    /**
+     * Cuotas a partir de sus columnas, por ejemplo leídas de un snapshot binario. El almacén
+     * se queda con los arreglos (no se copian); deben tener al menos 'cantidad' elementos.
+     * Las fechas van en días desde 1970 o {@link #SIN_FECHA}.
+     */
+    public static CuotasColumnares deColumnas(int cantidad, int[] numero, double[] original, double[] pagado,
+                                              int[] vencimiento, int[] fechaPago, boolean[] faltante) {
+        CuotasColumnares cuotas = new CuotasColumnares();
+        cuotas.cantidad = cantidad;
+        cuotas.numero = numero;
+        cuotas.original = original;
+        cuotas.pagado = pagado;
+        cuotas.vencimiento = vencimiento;
+        cuotas.fechaPago = fechaPago;
+        cuotas.faltante = faltante;
+        return cuotas;
+    }
+
+    /**
+     * Copia independiente (sin titular); un cronograma implícito sigue siendo implícito.
+     */
+    public CuotasColumnares copiar() {
+        CuotasColumnares copia = new CuotasColumnares();
+        copia.cantidad = cantidad;
+        copia.inicio = inicio;
+        copia.periodo = periodo;
+        copia.valorImplicito = valorImplicito;
+        if (original != null) {
+            copia.numero = Arrays.copyOf(numero, cantidad);
+            copia.original = Arrays.copyOf(original, cantidad);
+            copia.pagado = Arrays.copyOf(pagado, cantidad);
+            copia.vencimiento = Arrays.copyOf(vencimiento, cantidad);
+            copia.fechaPago = Arrays.copyOf(fechaPago, cantidad);
+            copia.faltante = Arrays.copyOf(faltante, cantidad);
+        }
+        return copia;
+    }
+
+    void setTitular(Cliente titular) {
+        this.titular = titular;
+    }
+
+    public int size() {
+        return cantidad;
+    }
+
+    /**
+     * true mientras el cronograma se guarda solo como inicio + período + cantidad.
+     */
+    public boolean esImplicito() {
+        return original == null;
+    }
+
+    /**
+     * Período del cronograma implícito: "mensual", "quincenal" o null si las cuotas no tienen
+     * vencimiento. Junto con {@link #inicioImplicito()}, {@link #valorImplicito()} y size()
+     * alcanza para volver a crearlo con {@link #cronograma}.
+     */
+    public String tipoImplicito() {
+        return periodo == MENSUAL ? "mensual" : periodo == QUINCENAL ? "quincenal" : null;
+    }
+
+    /**
+     * Fecha de la primera cuota del cronograma implícito, en días desde 1970.
+     */
+    public long inicioImplicito() {
+        return inicio;
+    }
+
+    public double valorImplicito() {
+        return valorImplicito;
+    }
+
+    /**
+     * Las cuotas como lista de vistas (de solo lectura en cuanto a la lista; cada Cuota se puede modificar).
+     */
+    public List<Cuota> vista() {
+        return new Vista();
+    }
+
+    public int numero(int i) {
+        return original == null ? i + 1 : numero[i];
+    }
+
+    public double original(int i) {
+        return original == null ? valorImplicito : original[i];
+    }
+
+    public double pagado(int i) {
+        return original == null ? 0.0 : pagado[i];
+    }
+
+    public double restante(int i) {
+        return original(i) - pagado(i);
+    }
+
+    public boolean pagada(int i) {
+        return pagado(i) >= original(i);
+    }
+
+    public boolean faltante(int i) {
+        return original != null && faltante[i];
+    }
+
+    /**
+     * Vencimiento en días desde 1970, o {@link #SIN_FECHA}.
+     */
+    public int vencimientoEpoch(int i) {
+        if (original != null) {
+            return vencimiento[i];
+        }
+        LocalDate fecha = vencimientoImplicito(i);
+        return fecha == null ? SIN_FECHA : (int) fecha.toEpochDay();
+    }
+
+    public LocalDate vencimiento(int i) {
+        return original == null ? vencimientoImplicito(i) : fecha(vencimiento[i]);
+    }
+
+    public LocalDate fechaPago(int i) {
+        return original == null ? null : fecha(fechaPago[i]);
+    }
+
+    /**
+     * Fecha de pago en días desde 1970, o {@link #SIN_FECHA}.
+     */
+    public int fechaPagoEpoch(int i) {
+        return original == null ? SIN_FECHA : fechaPago[i];
+    }
+
+    /**
+     * Vuelve el monto pagado y la fecha de pago de una cuota a valores registrados antes
+     * (ver {@link CambiosCuotas}).
+     */
+    public void restaurarPago(int i, double montoPagado, int fechaPagoEpoch) {
+        setPagado(i, montoPagado);
+        fechaPago[i] = fechaPagoEpoch;
+    }
+
+    public void setOriginal(int i, double valor) {
+        materializar();
+        double pagadoAntes = pagado[i];
+        double originalAntes = original[i];
+        boolean pagadaAntes = pagada(i);
+        original[i] = valor;
+        retrocederCursorSiImpaga(i);
+        avisarCambio(i, pagadoAntes, originalAntes, pagadaAntes);
+    }
+
+    public void setPagado(int i, double valor) {
+        materializar();
+        double pagadoAntes = pagado[i];
+        boolean pagadaAntes = pagada(i);
+        pagado[i] = valor;
+        retrocederCursorSiImpaga(i);
+        avisarCambio(i, pagadoAntes, original[i], pagadaAntes);
+    }
+
+    public void setVencimiento(int i, LocalDate fecha) {
+        materializar();
+        int antes = vencimiento[i];
+        vencimiento[i] = epoch(fecha);
+        invalidarOrden();
+        if (titular != null) {
+            titular.vencimientoModificado(i, antes);
+        }
+    }
+
+    public void setFechaPago(int i, LocalDate fecha) {
+        materializar();
+        fechaPago[i] = epoch(fecha);
+    }
+
+    /**
+     * Agrega una cuota al final (por ejemplo, una cuota faltante).
+     * @return La posición de la cuota agregada.
+     */
+    public int agregar(int numeroCuota, double montoOriginal, double montoPagado, LocalDate fechaVencimiento, LocalDate fechaDePago, boolean esFaltante) {
+        materializar();
+        int posicion = agregarSinAvisar(numeroCuota, montoOriginal, montoPagado, fechaVencimiento, fechaDePago, esFaltante);
+        // La cuota nueva puede ir en cualquier lugar del orden de pago: se recalcula en el próximo pago
+        invalidarOrden();
+        if (titular != null) {
+            titular.cuotaAgregada(posicion);
+        }
+        return posicion;
+    }
+
+    /**
+     * Posición en el orden de pago de la primera cuota impaga, o -1 si están todas pagadas.
+     * Usar con {@link #siguienteImpaga(int)} e {@link #indiceEnOrden(int)}.
+     */
+    public int primeraImpaga() {
+        if (original != null && orden == null) {
+            calcularOrden();
+        }
+        while (cursor < cantidad && pagada(indiceEnOrden(cursor))) {
+            cursor++;
+        }
+        return cursor < cantidad ? cursor : -1;
+    }
+
+    /**
+     * Posición en el orden de pago de la siguiente cuota impaga después de 'posicion', o -1.
+     */
+    public int siguienteImpaga(int posicion) {
+        int k = posicion + 1;
+        while (k < cantidad && pagada(indiceEnOrden(k))) {
+            k++;
+        }
+        return k < cantidad ? k : -1;
+    }
+
+    /**
+     * Índice de la cuota que ocupa la posición indicada en el orden de pago.
+     */
+    public int indiceEnOrden(int posicion) {
+        return orden == null ? posicion : orden[posicion];
+    }
+
+    /**
+     * Primera posición del orden de pago, a partir de 'desde', cuya cuota vence el día 'dia'
+     * (en días desde 1970) o después; las cuotas sin fecha cuentan como que vencen después de
+     * todas. Devuelve size() si no hay ninguna. Como el orden es por vencimiento, las posiciones
+     * anteriores son justamente las vencidas antes de ese día.
+     */
+    public int primeraQueVenceDesde(int desde, int dia) {
+        if (original != null) {
+            if (orden == null) {
+                calcularOrden();
+            }
+            int bajo = desde;
+            int alto = cantidad;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                int v = vencimiento[orden[medio]];
+                if (v != SIN_FECHA && v < dia) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+        // Cronograma implícito: la posición sale de la fecha sin recorrer las cuotas
+        long posicion;
+        if (periodo == QUINCENAL) {
+            posicion = Math.max(0, Math.floorDiv(dia - inicio + 13, 14));
+        } else if (periodo == MENSUAL) {
+            LocalDate primera = LocalDate.ofEpochDay(inicio);
+            posicion = Math.max(0, ChronoUnit.MONTHS.between(primera, LocalDate.ofEpochDay(dia)));
+            // plusMonths ajusta al último día del mes: se corrige la estimación por si acaso
+            while (posicion > 0 && primera.plusMonths(posicion - 1).toEpochDay() >= dia) {
+                posicion--;
+            }
+            while (posicion < cantidad && primera.plusMonths(posicion).toEpochDay() < dia) {
+                posicion++;
+            }
+        } else {
+            posicion = 0;
+        }
+        return (int) Math.min(Math.max(posicion, desde), cantidad);
+    }
+
+    // Vencimiento (sin fecha al final) y número de cuota; a igualdad se respeta el orden de la lista
+    private void calcularOrden() {
+        Integer[] indices = new Integer[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator
+                .comparingInt((Integer i) -> vencimiento[i] == SIN_FECHA ? Integer.MAX_VALUE : vencimiento[i])
+                .thenComparingInt(i -> vencimiento[i] == SIN_FECHA ? 1 : 0)
+                .thenComparingInt(i -> numero[i]));
+        orden = new int[cantidad];
+        posicionEnOrden = new int[cantidad];
+        for (int k = 0; k < cantidad; k++) {
+            orden[k] = indices[k];
+            posicionEnOrden[indices[k]] = k;
+        }
+        cursor = 0;
+    }
+
+    private void invalidarOrden() {
+        orden = null;
+        posicionEnOrden = null;
+        cursor = 0;
+    }
+
+    // Mantiene el invariante del cursor: todo lo anterior a él está pagado
+    private void retrocederCursorSiImpaga(int i) {
+        if (orden != null && !pagada(i) && posicionEnOrden[i] < cursor) {
+            cursor = posicionEnOrden[i];
+        }
+    }
+
+    /**
+     * Memoria aproximada que ocupan los datos de las cuotas (sin contar este objeto), en bytes.
+     */
+    public long bytesEstimados() {
+        if (original == null) {
+            return 0;
+        }
+        // 6 arreglos con encabezado de 16 bytes: int + double + double + int + int + boolean por cuota
+        return 6L * 16 + (long) numero.length * (4 + 8 + 8 + 4 + 4 + 1);
+    }
+
+    private int agregarSinAvisar(int numeroCuota, double montoOriginal, double montoPagado, LocalDate fechaVencimiento, LocalDate fechaDePago, boolean esFaltante) {
+        materializar();
+        if (cantidad == original.length) {
+            reservar(Math.max(cantidad * 2, 4));
+        }
+        int i = cantidad++;
+        numero[i] = numeroCuota;
+        original[i] = montoOriginal;
+        pagado[i] = montoPagado;
+        vencimiento[i] = epoch(fechaVencimiento);
+        fechaPago[i] = epoch(fechaDePago);
+        faltante[i] = esFaltante;
+        return i;
+    }
+
+    // Pasa del cronograma implícito a los arreglos
+    private void materializar() {
+        if (original != null) {
+            return;
+        }
+        int n = cantidad;
+        int[] vencimientos = new int[n];
+        for (int i = 0; i < n; i++) {
+            vencimientos[i] = vencimientoEpoch(i);
+        }
+        reservar(n);
+        for (int i = 0; i < n; i++) {
+            numero[i] = i + 1;
+            original[i] = valorImplicito;
+            vencimiento[i] = vencimientos[i];
+            fechaPago[i] = SIN_FECHA;
+        }
+    }
+
+    // Crea o agranda los arreglos conservando las primeras 'cantidad' cuotas ya materializadas
+    private void reservar(int capacidad) {
+        if (original == null) {
+            numero = new int[capacidad];
+            original = new double[capacidad];
+            pagado = new double[capacidad];
+            vencimiento = new int[capacidad];
+            fechaPago = new int[capacidad];
+            faltante = new boolean[capacidad];
+        } else {
+            numero = Arrays.copyOf(numero, capacidad);
+            original = Arrays.copyOf(original, capacidad);
+            pagado = Arrays.copyOf(pagado, capacidad);
+            vencimiento = Arrays.copyOf(vencimiento, capacidad);
+            fechaPago = Arrays.copyOf(fechaPago, capacidad);
+            faltante = Arrays.copyOf(faltante, capacidad);
+        }
+    }
+
+    private LocalDate vencimientoImplicito(int i) {
+        if (periodo == MENSUAL) {
+            return LocalDate.ofEpochDay(inicio).plusMonths(i);
+        }
+        if (periodo == QUINCENAL) {
+            return LocalDate.ofEpochDay(inicio + 14L * i);
+        }
+        return null;
+    }
+
+    private void avisarCambio(int i, double pagadoAntes, double originalAntes, boolean pagadaAntes) {
+        if (titular != null) {
+            titular.cuotaModificada(i, pagadoAntes, originalAntes, pagadaAntes);
+        }
+    }
+
+    private static int epoch(LocalDate fecha) {
+        return fecha == null ? SIN_FECHA : (int) fecha.toEpochDay();
+    }
+
+    private static LocalDate fecha(int epoch) {
+        return epoch == SIN_FECHA ? null : LocalDate.ofEpochDay(epoch);
+    }
+
+    // Lista de vistas: cada get crea una Cuota liviana apuntando a la posición
+    private class Vista extends AbstractList<Cuota> implements RandomAccess {
+        @Override
+        public Cuota get(int index) {
+            if (index < 0 || index >= cantidad) {
+                throw new IndexOutOfBoundsException("Cuota " + index + " de " + cantidad);
+            }
+            return new Cuota(CuotasColumnares.this, index);
+        }
+
+        @Override
+        public int size() {
+            return cantidad;
+        }
+    }
+}
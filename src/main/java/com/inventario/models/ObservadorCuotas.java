@@ -0,0 +1,22 @@
+package com.inventario.models;
+
+/**
+ * Se entera de cada cambio en las cuotas de un cliente en el momento en que ocurre, con lo que
+ * la cuota tenía antes del cambio. Junto con el estado actual de la cuota alcanza para mantener
+ * un total derivado (por ejemplo, saldo por fecha de vencimiento) sin guardar una copia de las
+ * cuotas. Se llama en el mismo hilo que modificó la cuota.
+ */
+public interface ObservadorCuotas {
+
+    /**
+     * Cambió la cuota de la posición indicada, o se agregó (entonces no tenía vencimiento ni saldo).
+     * @param vencimientoAntes Vencimiento previo en días desde 1970, o {@link CuotasColumnares#SIN_FECHA}.
+     * @param restanteAntes Saldo impago previo; 0 si la cuota estaba pagada.
+     */
+    void cuotaModificada(Cliente cliente, int indice, int vencimientoAntes, double restanteAntes);
+
+    /**
+     * El cliente reemplazó todas sus cuotas; 'anteriores' son las que tenía.
+     */
+    void cuotasReemplazadas(Cliente cliente, CuotasColumnares anteriores);
+}
@@ -0,0 +1,42 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.Command;
+import com.inventario.models.Cliente;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Almacenamiento de los clientes que guarda cada comando en el momento, escribiendo solo lo que
+ * cambió. La ventana lo usa sin saber cuál es; el snapshot con journal (la opción por defecto)
+ * sigue aparte porque escribe en segundo plano.
+ *
+ * Se usa desde un solo hilo: la carga inicial en segundo plano y después solo desde el EDT.
+ */
+public interface AlmacenClientes extends Closeable {
+
+    /**
+     * true si el almacenamiento no tenía clientes guardados al abrirlo (por ejemplo, para migrar
+     * a él los de otro formato).
+     */
+    boolean esNuevo();
+
+    /**
+     * Lee los clientes guardados, en su orden. Hay que llamarlo antes de registrar cambios.
+     */
+    List<Cliente> leer() throws IOException;
+
+    /**
+     * Reemplaza todo lo guardado por estos clientes, de una vez: si falla, queda lo anterior.
+     * Se usa para migrar y para volver a un estado conocido si falla un cambio.
+     */
+    void reemplazarTodo(List<Cliente> clientes) throws IOException;
+
+    /**
+     * Guarda los cambios de un comando recién ejecutado (o deshecho, si deshecho es true).
+     * Si falla, lo guardado puede no coincidir con lo que tiene el almacenamiento en memoria
+     * y hay que llamar a {@link #reemplazarTodo(List)}.
+     */
+    void registrar(Command comando, boolean deshecho) throws IOException;
+}
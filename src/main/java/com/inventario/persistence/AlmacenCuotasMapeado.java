@@ -0,0 +1,758 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.Command;
+import com.inventario.models.CambiosCuotas;
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.repository.ClienteRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Almacenamiento de los clientes en dos archivos, para que un pago escriba en disco solo lo que
+ * cambió en lugar de todos los clientes:
+ * <ul>
+ * <li>clientes.cuotas.N: registros de 32 bytes en un archivo mapeado en memoria. Cada cliente
+ * ocupa un bloque contiguo: un registro de cabecera (cantidad de cuotas, capacidad del bloque,
+ * adelanto acumulado y, si el cronograma es implícito, sus parámetros) seguido de un registro por
+ * cuota (número, vencimiento, fecha de pago, faltante, monto original y pagado). Un bloque que
+ * entra en una página de 4 KB no la cruza, así que un pago sincroniza una sola página.</li>
+ * <li>clientes.registro: archivo de solo agregado con los datos de largo variable de cada cliente
+ * (nombre, apellido, DNI, tipo de cuota, producto y total) y la ubicación de su bloque. Cada alta,
+ * cambio de datos o mudanza de bloque agrega una entrada, y cada baja una entrada de baja; al
+ * cargar se reproducen en orden, igual que el journal. El encabezado indica la generación N del
+ * archivo de cuotas.</li>
+ * </ul>
+ *
+ * Un pago ({@link #pagoAplicado}) reescribe en el lugar la cabecera y las cuotas que tocó y
+ * sincroniza solo esas páginas. Para que un corte a mitad de camino no deje un pago a medias, las
+ * imágenes nuevas de los registros se escriben antes en un área de intención al principio del
+ * archivo de cuotas (con CRC); al abrir, si quedó una intención completa, se vuelve a aplicar.
+ * Lo que no entra en el bloque del cliente (más cuotas que su capacidad, el primer pago de un
+ * cronograma implícito, otros datos del cliente) se escribe en un bloque nuevo al final, y la
+ * entrada del registro que lo nombra, escrita después, es la que lo confirma.
+ *
+ * Los bloques y entradas reemplazados quedan como espacio muerto. Al cargar, si ocupan más que
+ * los vivos, se escribe una generación nueva compactada de los dos archivos; el reemplazo del
+ * registro (un rename atómico) es el punto de confirmación y la generación anterior se borra
+ * después. Los archivos de cuotas nunca se renombran, porque en Windows no se puede mientras
+ * sigan mapeados.
+ *
+ * Igual que el repositorio, se usa solo desde el EDT (la carga inicial, antes, desde un solo hilo).
+ */
+public class AlmacenCuotasMapeado implements AlmacenClientes, RegistroCambios {
+
+    // Tamaño de cada registro del archivo de cuotas (cabecera de un cliente o una cuota)
+    static final int REGISTRO = 32;
+    private static final int PAGINA = 4096;
+    private static final int REGISTROS_POR_PAGINA = PAGINA / REGISTRO;
+    // Las primeras páginas tienen el encabezado y el área de intención; los registros van después
+    private static final int INICIO_REGISTROS = 16 * PAGINA;
+    private static final int POS_INTENCION = 64;
+    private static final int ENTRADA_INTENCION = 8 + REGISTRO;
+    // Registros que entran en una intención; un cliente con más cuotas se reescribe en un bloque nuevo
+    static final int MAX_INTENCION = (INICIO_REGISTROS - POS_INTENCION - 8) / ENTRADA_INTENCION;
+    // Cuotas de más que se reservan en cada bloque (por ejemplo, para agregar una faltante sin mudarlo)
+    private static final int HOLGURA = 2;
+    private static final long TAMANIO_INICIAL = INICIO_REGISTROS + 64L * PAGINA;
+    // Espacio muerto tolerado antes de compactar al cargar
+    private static final int MINIMO_COMPACTAR = 8 * REGISTROS_POR_PAGINA;
+
+    private static final int MAGIA_CUOTAS = 0x47434355;   // "GCCU"
+    private static final int MAGIA_REGISTRO = 0x47435247; // "GCRG"
+    private static final short VERSION = 1;
+    private static final int LARGO_ENCABEZADO_REGISTRO = 16;
+    private static final byte GUARDADO = 'G';
+    private static final byte ELIMINADO = 'E';
+    private static final byte FORMA_COLUMNAS = 0;
+    private static final byte FORMA_CRONOGRAMA = 1;
+
+    // Lo último que se registró de un cliente vivo
+    private static final class Ubicacion {
+        final int bloque;       // Índice del registro de cabecera
+        final int capacidad;    // Cuotas que entran en el bloque
+        final String[] textos;  // Nombre, apellido, DNI, tipo de cuota y producto
+        final double total;
+        int cantidad;           // Cuotas escritas en el bloque
+        boolean columnas;       // false si en la cabecera hay un cronograma implícito
+
+        Ubicacion(int bloque, int capacidad, String[] textos, double total) {
+            this.bloque = bloque;
+            this.capacidad = capacidad;
+            this.textos = textos;
+            this.total = total;
+        }
+
+        boolean mismosDatos(Cliente cliente) {
+            return Arrays.equals(textos, textos(cliente)) && Double.compare(total, cliente.getTotalProducto()) == 0;
+        }
+    }
+
+    // Registros de un cliente a reescribir en el lugar, con sus imágenes nuevas de a 32 bytes
+    private record Grupo(int[] registros, ByteBuffer imagenes) {
+    }
+
+    private record BloqueNuevo(int bloque, ByteBuffer imagen) {
+    }
+
+    private final Path registro;
+    private final Path cuotas;
+    private final boolean nuevo;
+    private FileChannel canalRegistro;
+    private FileChannel canalCuotas;
+    private MappedByteBuffer mapa;
+    private long generacion;
+
+    private final Map<String, Ubicacion> ubicaciones = new HashMap<>();
+    private int usados;    // Registros asignados, vivos o muertos
+    private int entradas;  // Entradas del registro
+
+    // Pendiente hasta confirmar()
+    private final List<BloqueNuevo> bloquesNuevos = new ArrayList<>();
+    private final List<ByteBuffer> entradasPendientes = new ArrayList<>();
+    private final List<Grupo> enElLugar = new ArrayList<>();
+
+    /**
+     * Abre el almacenamiento y termina de aplicar un cambio en el lugar que haya quedado a medias.
+     * Si todavía no existe, no se crea nada hasta {@link #reemplazarTodo(List)}. Antes de registrar
+     * cambios hay que cargar los clientes con {@link #leer()}.
+     * @param registro El archivo de solo agregado con los datos de los clientes.
+     * @param cuotas Nombre base de los archivos de cuotas: cada generación es cuotas.N.
+     */
+    public AlmacenCuotasMapeado(Path registro, Path cuotas) throws IOException {
+        this.registro = registro;
+        this.cuotas = cuotas;
+        this.nuevo = !Files.exists(registro);
+        if (!nuevo) {
+            abrirCanales();
+            recuperarIntencion();
+            borrarGeneracionesViejas();
+        }
+    }
+
+    @Override
+    public boolean esNuevo() {
+        return nuevo;
+    }
+
+    /**
+     * Reproduce el registro y devuelve los clientes en su orden, con las cuotas leídas de sus
+     * bloques. Una entrada incompleta al final (corte durante la escritura) se descarta. Si el
+     * espacio muerto supera al vivo, compacta los archivos.
+     */
+    @Override
+    public List<Cliente> leer() throws IOException {
+        ubicaciones.clear();
+        usados = 0;
+        entradas = 0;
+        if (canalRegistro == null) {
+            return new ArrayList<>();
+        }
+        long largo = canalRegistro.size();
+        if (largo > Integer.MAX_VALUE) {
+            throw new IOException(registro + " es demasiado grande para cargarlo");
+        }
+        ByteBuffer contenido = ByteBuffer.allocate((int) largo - LARGO_ENCABEZADO_REGISTRO);
+        leerCompleto(canalRegistro, contenido, LARGO_ENCABEZADO_REGISTRO);
+        contenido.flip();
+
+        ClienteRepository repositorio = new ClienteRepository();
+        CRC32C crc = new CRC32C();
+        long validos = LARGO_ENCABEZADO_REGISTRO;
+        while (contenido.remaining() >= 8) {
+            int largoEntrada = contenido.getInt();
+            int crcEsperado = contenido.getInt();
+            if (largoEntrada <= 0 || largoEntrada > contenido.remaining()) {
+                break;
+            }
+            ByteBuffer cuerpo = contenido.slice(contenido.position(), largoEntrada);
+            crc.reset();
+            crc.update(cuerpo.duplicate());
+            if ((int) crc.getValue() != crcEsperado) {
+                break;
+            }
+            contenido.position(contenido.position() + largoEntrada);
+            try {
+                aplicar(cuerpo, repositorio);
+            } catch (RuntimeException e) {
+                throw new IOException("Entrada inválida en " + registro + ": " + e.getMessage(), e);
+            }
+            validos += 8 + largoEntrada;
+            entradas++;
+        }
+        if (validos < largo) {
+            System.err.println("Advertencia: Entrada incompleta al final de " + registro + ", se descarta.");
+            canalRegistro.truncate(validos);
+            canalRegistro.force(true);
+        }
+        canalRegistro.position(validos);
+
+        List<Cliente> clientes = new ArrayList<>(repositorio.getClientes());
+        if (necesitaCompactar()) {
+            System.out.println("ℹ️ Compactando " + registro + " y el archivo de cuotas");
+            reemplazarTodo(clientes);
+        }
+        return clientes;
+    }
+
+    /**
+     * Escribe los clientes en una generación nueva de los dos archivos y reemplaza a la actual.
+     * Se usa para crear el almacenamiento, migrar a él y compactarlo. Si falla, queda la
+     * generación anterior.
+     */
+    @Override
+    public void reemplazarTodo(List<Cliente> clientes) throws IOException {
+        descartarPendientes();
+        cerrarCanales();
+        long nueva = generacion + 1;
+        int usadosAntes = usados;
+        List<Ubicacion> enOrden = new ArrayList<>(clientes.size());
+        try {
+            usados = 0;
+            try (FileChannel canal = FileChannel.open(archivoCuotas(nueva), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16);
+                out.write(encabezadoCuotas(nueva).array());
+                byte[] ceros = new byte[PAGINA];
+                int escritos = 0;
+                for (Cliente cliente : clientes) {
+                    Ubicacion u = ubicar(cliente);
+                    // Lo que se saltea para no cruzar una página
+                    out.write(ceros, 0, (u.bloque - escritos) * REGISTRO);
+                    out.write(imagenBloque(cliente, u).array());
+                    escritos = u.bloque + 1 + u.capacidad;
+                    enOrden.add(u);
+                }
+                out.flush();
+                canal.force(true);
+            }
+            ArchivoAtomico.escribirCanal(registro, 0, canal -> {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16);
+                out.write(encabezadoRegistro(nueva).array());
+                for (Ubicacion u : enOrden) {
+                    ByteBuffer entrada = entradaGuardado(u, -1);
+                    out.write(entrada.array(), 0, entrada.limit());
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            usados = usadosAntes;
+            if (Files.exists(registro)) {
+                abrirCanales();
+            }
+            throw e;
+        }
+
+        ubicaciones.clear();
+        for (Ubicacion u : enOrden) {
+            ubicaciones.put(ClienteRepository.normalizarDni(u.textos[2]), u);
+        }
+        entradas = enOrden.size();
+        abrirCanales();
+        borrarGeneracionesViejas();
+    }
+
+    @Override
+    public void registrar(Command comando, boolean deshecho) throws IOException {
+        comando.registrarCambios(this, deshecho);
+        confirmar();
+    }
+
+    @Override
+    public void clienteGuardado(Cliente cliente, int posicion) {
+        String clave = ClienteRepository.normalizarDni(cliente.getDni());
+        Ubicacion u = ubicaciones.get(clave);
+        CuotasColumnares cuotasCliente = cliente.getCuotasColumnares();
+        boolean implicito = cuotasCliente.esImplicito();
+        if (u != null && posicion < 0 && u.mismosDatos(cliente)
+                && (implicito || cuotasCliente.size() <= u.capacidad && cuotasCliente.size() + 1 <= MAX_INTENCION)) {
+            // Mismos datos y las cuotas entran en su bloque: se reescribe en el lugar
+            int cantidad = implicito ? 0 : cuotasCliente.size();
+            int[] registros = new int[1 + cantidad];
+            ByteBuffer imagenes = ByteBuffer.allocate(registros.length * REGISTRO);
+            registros[0] = u.bloque;
+            imagenCabecera(imagenes, 0, cliente, u.capacidad);
+            for (int i = 0; i < cantidad; i++) {
+                registros[i + 1] = u.bloque + 1 + i;
+                imagenCuota(imagenes, (i + 1) * REGISTRO, cuotasCliente, i);
+            }
+            enElLugar.add(new Grupo(registros, imagenes));
+            u.cantidad = cuotasCliente.size();
+            u.columnas = !implicito;
+            return;
+        }
+        Ubicacion mudado = ubicar(cliente);
+        bloquesNuevos.add(new BloqueNuevo(mudado.bloque, imagenBloque(cliente, mudado)));
+        entradasPendientes.add(entradaGuardado(mudado, posicion));
+        ubicaciones.put(clave, mudado);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente) {
+        if (ubicaciones.remove(ClienteRepository.normalizarDni(cliente.getDni())) != null) {
+            entradasPendientes.add(entradaEliminado(cliente.getDni()));
+        }
+    }
+
+    @Override
+    public void pagoAplicado(Cliente cliente, CambiosCuotas cambios) {
+        Ubicacion u = ubicaciones.get(ClienteRepository.normalizarDni(cliente.getDni()));
+        CuotasColumnares cuotasCliente = cliente.getCuotasColumnares();
+        if (u == null || !u.columnas || cuotasCliente.esImplicito() || cuotasCliente.size() != u.cantidad
+                || !u.mismosDatos(cliente) || cambios.size() + 1 > MAX_INTENCION) {
+            clienteGuardado(cliente, -1);
+            return;
+        }
+        // Solo la cabecera (por el adelanto) y las cuotas que tocó el pago
+        int[] registros = new int[1 + cambios.size()];
+        ByteBuffer imagenes = ByteBuffer.allocate(registros.length * REGISTRO);
+        registros[0] = u.bloque;
+        imagenCabecera(imagenes, 0, cliente, u.capacidad);
+        for (int k = 0; k < cambios.size(); k++) {
+            int i = cambios.indice(k);
+            registros[k + 1] = u.bloque + 1 + i;
+            imagenCuota(imagenes, (k + 1) * REGISTRO, cuotasCliente, i);
+        }
+        enElLugar.add(new Grupo(registros, imagenes));
+    }
+
+    /**
+     * Escribe lo registrado desde la última confirmación: primero los bloques nuevos (y se
+     * sincronizan), después las entradas del registro que los nombran (un write + fsync) y por
+     * último los cambios en el lugar a través del área de intención. Cada cliente se escribe
+     * entero en una misma intención; un lote con más registros de los que entran en ella se
+     * divide en varias.
+     */
+    public void confirmar() throws IOException {
+        if (canalRegistro == null) {
+            throw new IOException("El almacenamiento todavía no se creó");
+        }
+        try {
+            if (!bloquesNuevos.isEmpty()) {
+                int desde = Integer.MAX_VALUE;
+                int hasta = 0;
+                for (BloqueNuevo b : bloquesNuevos) {
+                    asegurarMapa(b.bloque() + b.imagen().capacity() / REGISTRO);
+                    int posicion = desplazamiento(b.bloque());
+                    mapa.put(posicion, b.imagen(), 0, b.imagen().capacity());
+                    desde = Math.min(desde, posicion);
+                    hasta = Math.max(hasta, posicion + b.imagen().capacity());
+                }
+                // Los bloques nuevos se asignan seguidos al final: una sola sincronización
+                mapa.force(desde, hasta - desde);
+            }
+            if (!entradasPendientes.isEmpty()) {
+                ByteBuffer[] buffers = entradasPendientes.toArray(new ByteBuffer[0]);
+                long restante = 0;
+                for (ByteBuffer b : buffers) {
+                    restante += b.remaining();
+                }
+                while (restante > 0) {
+                    restante -= canalRegistro.write(buffers);
+                }
+                canalRegistro.force(false);
+                entradas += buffers.length;
+            }
+            List<Grupo> tanda = new ArrayList<>();
+            int enTanda = 0;
+            for (Grupo grupo : enElLugar) {
+                if (enTanda + grupo.registros().length > MAX_INTENCION) {
+                    escribirEnElLugar(tanda);
+                    tanda.clear();
+                    enTanda = 0;
+                }
+                tanda.add(grupo);
+                enTanda += grupo.registros().length;
+            }
+            if (!tanda.isEmpty()) {
+                escribirEnElLugar(tanda);
+            }
+        } finally {
+            descartarPendientes();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        cerrarCanales();
+    }
+
+    // La intención primero (sincronizada), después los registros en su lugar, sincronizando solo sus páginas
+    private void escribirEnElLugar(List<Grupo> tanda) {
+        int p = POS_INTENCION + 8;
+        int cantidad = 0;
+        for (Grupo grupo : tanda) {
+            for (int k = 0; k < grupo.registros().length; k++) {
+                mapa.putLong(p, grupo.registros()[k]);
+                mapa.put(p + 8, grupo.imagenes(), k * REGISTRO, REGISTRO);
+                p += ENTRADA_INTENCION;
+                cantidad++;
+            }
+        }
+        mapa.putInt(POS_INTENCION, cantidad);
+        mapa.putInt(POS_INTENCION + 4, crcIntencion(cantidad));
+        mapa.force(0, p);
+
+        for (Grupo grupo : tanda) {
+            int desde = Integer.MAX_VALUE;
+            int hasta = 0;
+            for (int k = 0; k < grupo.registros().length; k++) {
+                int posicion = desplazamiento(grupo.registros()[k]);
+                mapa.put(posicion, grupo.imagenes(), k * REGISTRO, REGISTRO);
+                desde = Math.min(desde, posicion);
+                hasta = Math.max(hasta, posicion + REGISTRO);
+            }
+            mapa.force(desde, hasta - desde);
+        }
+        // Si el corte llega antes de que esto llegue al disco, volver a aplicar la intención no cambia nada
+        mapa.putInt(POS_INTENCION, 0);
+    }
+
+    private void recuperarIntencion() throws IOException {
+        int cantidad = mapa.getInt(POS_INTENCION);
+        if (cantidad <= 0) {
+            return;
+        }
+        // Con el CRC mal, la intención no terminó de escribirse y todavía no se había tocado nada
+        if (cantidad <= MAX_INTENCION && crcIntencion(cantidad) == mapa.getInt(POS_INTENCION + 4)) {
+            int p = POS_INTENCION + 8;
+            byte[] imagen = new byte[REGISTRO];
+            for (int k = 0; k < cantidad; k++, p += ENTRADA_INTENCION) {
+                long registroDestino = mapa.getLong(p);
+                if (registroDestino < 0 || INICIO_REGISTROS + (registroDestino + 1) * REGISTRO > mapa.capacity()) {
+                    throw new IOException("Intención inválida en el archivo de cuotas");
+                }
+                mapa.get(p + 8, imagen);
+                mapa.put(desplazamiento((int) registroDestino), imagen);
+            }
+            mapa.force();
+            System.out.println("✅ Se completó un cambio de cuotas que había quedado a medias");
+        }
+        mapa.putInt(POS_INTENCION, 0);
+        mapa.force(0, PAGINA);
+    }
+
+    private int crcIntencion(int cantidad) {
+        CRC32C crc = new CRC32C();
+        crc.update(mapa.slice(POS_INTENCION, 4));
+        crc.update(mapa.slice(POS_INTENCION + 8, cantidad * ENTRADA_INTENCION));
+        return (int) crc.getValue();
+    }
+
+    private void aplicar(ByteBuffer cuerpo, ClienteRepository repositorio) throws IOException {
+        byte tipo = cuerpo.get();
+        if (tipo == ELIMINADO) {
+            String dni = getTexto(cuerpo);
+            Cliente existente = repositorio.buscarPorDni(dni);
+            if (existente != null) {
+                repositorio.eliminar(existente);
+            }
+            ubicaciones.remove(ClienteRepository.normalizarDni(dni));
+        } else if (tipo == GUARDADO) {
+            int posicion = cuerpo.getInt();
+            int bloque = cuerpo.getInt();
+            int capacidad = cuerpo.getInt();
+            String[] textos = new String[5];
+            for (int i = 0; i < textos.length; i++) {
+                textos[i] = getTexto(cuerpo);
+            }
+            Ubicacion u = new Ubicacion(bloque, capacidad, textos, cuerpo.getDouble());
+            usados = Math.max(usados, bloque + 1 + capacidad);
+            repositorio.reemplazarOAgregar(leerBloque(u), posicion);
+            ubicaciones.put(ClienteRepository.normalizarDni(textos[2]), u);
+        } else {
+            throw new IllegalArgumentException("tipo desconocido " + tipo);
+        }
+    }
+
+    private Cliente leerBloque(Ubicacion u) throws IOException {
+        long base = INICIO_REGISTROS + (long) u.bloque * REGISTRO;
+        if (u.bloque < 0 || u.capacidad < 0 || base + (1L + u.capacidad) * REGISTRO > mapa.capacity()) {
+            throw new IOException("Bloque de cuotas fuera del archivo para el DNI " + u.textos[2]);
+        }
+        int b = (int) base;
+        int cantidad = mapa.getInt(b);
+        byte forma = mapa.get(b + 16);
+        if (mapa.getInt(b + 4) != u.capacidad || cantidad < 0 || (forma == FORMA_COLUMNAS && cantidad > u.capacidad)) {
+            throw new IOException("Bloque de cuotas dañado para el DNI " + u.textos[2]);
+        }
+        double adelanto = mapa.getDouble(b + 8);
+        CuotasColumnares cuotasCliente;
+        if (forma == FORMA_CRONOGRAMA) {
+            byte periodo = mapa.get(b + 17);
+            String tipo = periodo == 1 ? "mensual" : periodo == 2 ? "quincenal" : null;
+            cuotasCliente = CuotasColumnares.cronograma(tipo, LocalDate.ofEpochDay(mapa.getInt(b + 20)), cantidad, mapa.getDouble(b + 24));
+        } else {
+            int[] numero = new int[cantidad];
+            double[] original = new double[cantidad];
+            double[] pagado = new double[cantidad];
+            int[] vencimiento = new int[cantidad];
+            int[] fechaPago = new int[cantidad];
+            boolean[] faltante = new boolean[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                int r = b + (i + 1) * REGISTRO;
+                numero[i] = mapa.getInt(r);
+                vencimiento[i] = mapa.getInt(r + 4);
+                fechaPago[i] = mapa.getInt(r + 8);
+                faltante[i] = mapa.get(r + 12) != 0;
+                original[i] = mapa.getDouble(r + 16);
+                pagado[i] = mapa.getDouble(r + 24);
+            }
+            cuotasCliente = CuotasColumnares.deColumnas(cantidad, numero, original, pagado, vencimiento, fechaPago, faltante);
+        }
+        u.cantidad = cantidad;
+        u.columnas = forma == FORMA_COLUMNAS;
+        return new Cliente(u.textos[0], u.textos[1], u.textos[2], u.textos[3], u.textos[4], u.total, cuotasCliente, adelanto);
+    }
+
+    private boolean necesitaCompactar() {
+        long vivos = 0;
+        for (Ubicacion u : ubicaciones.values()) {
+            vivos += 1 + u.capacidad;
+        }
+        return usados > 2 * vivos + MINIMO_COMPACTAR || entradas > 2L * ubicaciones.size() + 1000;
+    }
+
+    // Asigna un bloque nuevo al final; si entra en una página, sin cruzarla
+    private Ubicacion ubicar(Cliente cliente) {
+        CuotasColumnares cuotasCliente = cliente.getCuotasColumnares();
+        int capacidad = cuotasCliente.esImplicito() ? 0 : cuotasCliente.size() + HOLGURA;
+        int registros = 1 + capacidad;
+        int enPagina = usados % REGISTROS_POR_PAGINA;
+        if (registros <= REGISTROS_POR_PAGINA && enPagina + registros > REGISTROS_POR_PAGINA) {
+            usados += REGISTROS_POR_PAGINA - enPagina;
+        }
+        Ubicacion u = new Ubicacion(usados, capacidad, textos(cliente), cliente.getTotalProducto());
+        u.cantidad = cuotasCliente.size();
+        u.columnas = !cuotasCliente.esImplicito();
+        usados += registros;
+        return u;
+    }
+
+    private static ByteBuffer imagenBloque(Cliente cliente, Ubicacion u) {
+        ByteBuffer imagen = ByteBuffer.allocate((1 + u.capacidad) * REGISTRO);
+        imagenCabecera(imagen, 0, cliente, u.capacidad);
+        CuotasColumnares cuotasCliente = cliente.getCuotasColumnares();
+        if (!cuotasCliente.esImplicito()) {
+            for (int i = 0; i < cuotasCliente.size(); i++) {
+                imagenCuota(imagen, (i + 1) * REGISTRO, cuotasCliente, i);
+            }
+        }
+        return imagen;
+    }
+
+    // int cantidad, int capacidad, double adelanto, byte forma y, si es implícito:
+    // byte período, int inicio (días desde 1970), double valor de la cuota
+    private static void imagenCabecera(ByteBuffer destino, int posicion, Cliente cliente, int capacidad) {
+        CuotasColumnares cuotasCliente = cliente.getCuotasColumnares();
+        destino.putInt(posicion, cuotasCliente.size());
+        destino.putInt(posicion + 4, capacidad);
+        destino.putDouble(posicion + 8, cliente.getAdelantoAcumulado());
+        if (cuotasCliente.esImplicito()) {
+            String tipo = cuotasCliente.tipoImplicito();
+            destino.put(posicion + 16, FORMA_CRONOGRAMA);
+            destino.put(posicion + 17, (byte) ("mensual".equals(tipo) ? 1 : "quincenal".equals(tipo) ? 2 : 0));
+            destino.putInt(posicion + 20, (int) cuotasCliente.inicioImplicito());
+            destino.putDouble(posicion + 24, cuotasCliente.valorImplicito());
+        } else {
+            destino.put(posicion + 16, FORMA_COLUMNAS);
+        }
+    }
+
+    // int número, int vencimiento, int fecha de pago, byte faltante, 3 de relleno, double original, double pagado
+    private static void imagenCuota(ByteBuffer destino, int posicion, CuotasColumnares cuotasCliente, int i) {
+        destino.putInt(posicion, cuotasCliente.numero(i));
+        destino.putInt(posicion + 4, cuotasCliente.vencimientoEpoch(i));
+        destino.putInt(posicion + 8, cuotasCliente.fechaPagoEpoch(i));
+        destino.put(posicion + 12, (byte) (cuotasCliente.faltante(i) ? 1 : 0));
+        destino.putDouble(posicion + 16, cuotasCliente.original(i));
+        destino.putDouble(posicion + 24, cuotasCliente.pagado(i));
+    }
+
+    private static ByteBuffer entradaGuardado(Ubicacion u, int posicion) {
+        byte[][] textos = new byte[u.textos.length][];
+        int largo = 1 + 4 + 4 + 4 + 8;
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = u.textos[i] == null ? null : u.textos[i].getBytes(StandardCharsets.UTF_8);
+            largo += 4 + (textos[i] == null ? 0 : textos[i].length);
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(8 + largo).position(8);
+        entrada.put(GUARDADO).putInt(posicion).putInt(u.bloque).putInt(u.capacidad);
+        for (byte[] texto : textos) {
+            putTexto(entrada, texto);
+        }
+        entrada.putDouble(u.total);
+        return cerrarEntrada(entrada);
+    }
+
+    private static ByteBuffer entradaEliminado(String dni) {
+        byte[] texto = dni == null ? null : dni.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entrada = ByteBuffer.allocate(8 + 1 + 4 + (texto == null ? 0 : texto.length)).position(8);
+        entrada.put(ELIMINADO);
+        putTexto(entrada, texto);
+        return cerrarEntrada(entrada);
+    }
+
+    // Completa el largo y el CRC del cuerpo al principio de la entrada
+    private static ByteBuffer cerrarEntrada(ByteBuffer entrada) {
+        CRC32C crc = new CRC32C();
+        crc.update(entrada.array(), 8, entrada.position() - 8);
+        entrada.putInt(0, entrada.position() - 8).putInt(4, (int) crc.getValue());
+        return entrada.flip();
+    }
+
+    private static void putTexto(ByteBuffer destino, byte[] texto) {
+        if (texto == null) {
+            destino.putInt(-1);
+        } else {
+            destino.putInt(texto.length).put(texto);
+        }
+    }
+
+    private static String getTexto(ByteBuffer origen) {
+        int largo = origen.getInt();
+        if (largo == -1) {
+            return null;
+        }
+        if (largo < 0 || largo > origen.remaining()) {
+            throw new IllegalArgumentException("largo de texto inválido " + largo);
+        }
+        String texto = new String(origen.array(), origen.arrayOffset() + origen.position(), largo, StandardCharsets.UTF_8);
+        origen.position(origen.position() + largo);
+        return texto;
+    }
+
+    private static String[] textos(Cliente cliente) {
+        return new String[]{cliente.getNombre(), cliente.getApellido(), cliente.getDni(), cliente.getTipoCuota(), cliente.getProducto()};
+    }
+
+    private static ByteBuffer encabezadoCuotas(long generacion) {
+        ByteBuffer encabezado = ByteBuffer.allocate(INICIO_REGISTROS);
+        encabezado.putInt(0, MAGIA_CUOTAS).putShort(4, VERSION).putShort(6, (short) REGISTRO).putLong(8, generacion);
+        return encabezado;
+    }
+
+    private static ByteBuffer encabezadoRegistro(long generacion) {
+        ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO_REGISTRO);
+        encabezado.putInt(0, MAGIA_REGISTRO).putShort(4, VERSION).putShort(6, (short) 0).putLong(8, generacion);
+        return encabezado;
+    }
+
+    private void abrirCanales() throws IOException {
+        canalRegistro = FileChannel.open(registro, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO_REGISTRO);
+            leerCompleto(canalRegistro, encabezado, 0);
+            if (encabezado.getInt(0) != MAGIA_REGISTRO || encabezado.getShort(4) > VERSION) {
+                throw new IOException(registro + " no es un registro de clientes de una versión compatible");
+            }
+            generacion = encabezado.getLong(8);
+            canalRegistro.position(canalRegistro.size());
+
+            canalCuotas = FileChannel.open(archivoCuotas(generacion), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long largo = Math.max(canalCuotas.size(), TAMANIO_INICIAL);
+            if (largo > Integer.MAX_VALUE) {
+                throw new IOException("El archivo de cuotas supera los 2 GB que se pueden mapear");
+            }
+            mapa = canalCuotas.map(FileChannel.MapMode.READ_WRITE, 0, largo);
+            if (mapa.getInt(0) != MAGIA_CUOTAS || mapa.getShort(6) != REGISTRO || mapa.getLong(8) != generacion) {
+                throw new IOException(archivoCuotas(generacion) + " no corresponde a " + registro);
+            }
+        } catch (IOException e) {
+            cerrarCanales();
+            throw e;
+        }
+    }
+
+    // El mapeo se libera cuando el recolector descarta el buffer; no se puede forzar antes
+    private void cerrarCanales() throws IOException {
+        mapa = null;
+        try {
+            if (canalRegistro != null) {
+                canalRegistro.close();
+            }
+        } finally {
+            canalRegistro = null;
+            if (canalCuotas != null) {
+                canalCuotas.close();
+            }
+            canalCuotas = null;
+        }
+    }
+
+    private void asegurarMapa(int registros) throws IOException {
+        long necesario = INICIO_REGISTROS + (long) registros * REGISTRO;
+        if (necesario <= mapa.capacity()) {
+            return;
+        }
+        if (necesario > Integer.MAX_VALUE) {
+            throw new IOException("El archivo de cuotas no puede superar los 2 GB que se pueden mapear");
+        }
+        long largo = mapa.capacity();
+        while (largo < necesario) {
+            largo *= 2;
+        }
+        mapa = canalCuotas.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(largo, Integer.MAX_VALUE));
+    }
+
+    private static int desplazamiento(int registro) {
+        return INICIO_REGISTROS + registro * REGISTRO;
+    }
+
+    private Path archivoCuotas(long generacion) {
+        return cuotas.resolveSibling(cuotas.getFileName() + "." + generacion);
+    }
+
+    // Las generaciones anteriores quedan si el borrado falla (en Windows, mientras sigan mapeadas); se reintenta al abrir
+    private void borrarGeneracionesViejas() {
+        String prefijo = cuotas.getFileName() + ".";
+        Path directorio = cuotas.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, prefijo + "*")) {
+            for (Path p : archivos) {
+                String sufijo = p.getFileName().toString().substring(prefijo.length());
+                try {
+                    if (Long.parseLong(sufijo) != generacion) {
+                        Files.deleteIfExists(p);
+                    }
+                } catch (NumberFormatException | IOException e) {
+                    // No es una generación del archivo de cuotas, o todavía no se puede borrar
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Advertencia: No se pudieron borrar versiones viejas del archivo de cuotas: " + e.getMessage());
+        }
+    }
+
+    private void descartarPendientes() {
+        bloquesNuevos.clear();
+        entradasPendientes.clear();
+        enElLugar.clear();
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            if (canal.read(destino, posicion + destino.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.Command;
+import com.inventario.models.CambiosCuotas;
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.repository.ClienteRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacenamiento de los clientes y sus cuotas en una base de datos H2 embebida (un archivo local,
+ * sin servidor). Cada comando se guarda como una transacción chica con sentencias por lotes: un
+ * pago actualiza solo las filas de las cuotas que tocó y el adelanto del cliente, un alta inserta
+ * el cliente y sus cuotas, una baja borra las dos cosas.
+ *
+ * Las tablas tienen índices por DNI y apellido (cliente) y por fecha de vencimiento (cuota), para
+ * consultarlas desde afuera. Por eso las cuotas de un cronograma implícito también se guardan
+ * fila por fila; al cargar, el cliente recupera el cronograma implícito desde sus columnas en
+ * la tabla cliente, sin leer esas filas.
+ *
+ * El orden de la lista se guarda en la columna 'orden', numerada con espacios para insertar en
+ * el medio (al deshacer una baja) sin renumerar a los demás.
+ */
+public class AlmacenSql implements AlmacenClientes, RegistroCambios {
+
+    private static final int VERSION = 1;
+    // Espacio entre los 'orden' de dos clientes seguidos
+    private static final long ESPACIO = 1 << 16;
+    // Filas por executeBatch en las escrituras completas
+    private static final int FILAS_POR_LOTE = 1000;
+
+    private static final String[] ESQUEMA = {
+            "CREATE TABLE IF NOT EXISTS almacen (version INT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS cliente (id BIGINT PRIMARY KEY, orden BIGINT NOT NULL, nombre VARCHAR, "
+                    + "apellido VARCHAR, dni VARCHAR, tipo_cuota VARCHAR, producto VARCHAR, total_producto DOUBLE NOT NULL, "
+                    + "adelanto DOUBLE NOT NULL, cantidad_cuotas INT NOT NULL, cronograma BOOLEAN NOT NULL, "
+                    + "cronograma_tipo VARCHAR, cronograma_inicio DATE, cronograma_valor DOUBLE)",
+            "CREATE TABLE IF NOT EXISTS cuota (cliente_id BIGINT NOT NULL REFERENCES cliente(id) ON DELETE CASCADE, "
+                    + "indice INT NOT NULL, numero INT NOT NULL, monto_original DOUBLE NOT NULL, monto_pagado DOUBLE NOT NULL, "
+                    + "fecha_vencimiento DATE, fecha_pago DATE, faltante BOOLEAN NOT NULL, PRIMARY KEY (cliente_id, indice))",
+            "CREATE INDEX IF NOT EXISTS cliente_orden ON cliente(orden)",
+            "CREATE INDEX IF NOT EXISTS cliente_dni ON cliente(dni)",
+            "CREATE INDEX IF NOT EXISTS cliente_apellido ON cliente(apellido)",
+            "CREATE INDEX IF NOT EXISTS cuota_vencimiento ON cuota(fecha_vencimiento)",
+    };
+
+    // Lo que se sabe de cada cliente guardado, en el orden de la lista
+    private static final class Fila {
+        final long id;
+        long orden;
+        int cantidad;
+        boolean cronograma;
+
+        Fila(long id, long orden, int cantidad, boolean cronograma) {
+            this.id = id;
+            this.orden = orden;
+            this.cantidad = cantidad;
+            this.cronograma = cronograma;
+        }
+    }
+
+    private final Connection conexion;
+    private final boolean nuevo;
+    private final List<Fila> enOrden = new ArrayList<>();
+    private final Map<String, Fila> porDni = new HashMap<>();
+    private long siguienteId = 1;
+
+    private final PreparedStatement insertarCliente;
+    private final PreparedStatement actualizarCliente;
+    private final PreparedStatement actualizarAdelanto;
+    private final PreparedStatement borrarCliente;
+    private final PreparedStatement insertarCuota;
+    private final PreparedStatement actualizarPago;
+    private final PreparedStatement borrarCuotas;
+    private final PreparedStatement actualizarOrden;
+    // Sentencia con el lote en curso; al pasar a otra se ejecuta, para respetar el orden de los cambios
+    private PreparedStatement loteActual;
+    private SQLException error;
+
+    /**
+     * Abre (o crea) la base de datos.
+     * @param base Ruta de la base sin extensión; H2 guarda los datos en base.mv.db.
+     */
+    public AlmacenSql(Path base) throws IOException {
+        try {
+            conexion = DriverManager.getConnection("jdbc:h2:file:" + base.toAbsolutePath(), "sa", "");
+        } catch (SQLException e) {
+            throw new IOException("No se pudo abrir la base de datos " + base + ": " + e.getMessage(), e);
+        }
+        try {
+            try (Statement st = conexion.createStatement()) {
+                for (String sentencia : ESQUEMA) {
+                    st.execute(sentencia);
+                }
+                // Hasta que reemplazarTodo no confirma la primera carga completa, la base está vacía
+                try (ResultSet rs = st.executeQuery("SELECT MAX(version) FROM almacen")) {
+                    rs.next();
+                    int version = rs.getInt(1);
+                    if (version > VERSION) {
+                        throw new IOException("La base de datos " + base + " es de una versión más nueva");
+                    }
+                    nuevo = rs.wasNull();
+                }
+            }
+            conexion.setAutoCommit(false);
+            insertarCliente = conexion.prepareStatement("INSERT INTO cliente (id, orden, nombre, apellido, dni, tipo_cuota, producto, "
+                    + "total_producto, adelanto, cantidad_cuotas, cronograma, cronograma_tipo, cronograma_inicio, cronograma_valor) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            actualizarCliente = conexion.prepareStatement("UPDATE cliente SET nombre = ?, apellido = ?, dni = ?, tipo_cuota = ?, "
+                    + "producto = ?, total_producto = ?, adelanto = ?, cantidad_cuotas = ?, cronograma = ?, cronograma_tipo = ?, "
+                    + "cronograma_inicio = ?, cronograma_valor = ? WHERE id = ?");
+            actualizarAdelanto = conexion.prepareStatement("UPDATE cliente SET adelanto = ?, cronograma = FALSE WHERE id = ?");
+            borrarCliente = conexion.prepareStatement("DELETE FROM cliente WHERE id = ?");
+            insertarCuota = conexion.prepareStatement("INSERT INTO cuota (cliente_id, indice, numero, monto_original, monto_pagado, "
+                    + "fecha_vencimiento, fecha_pago, faltante) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            actualizarPago = conexion.prepareStatement("UPDATE cuota SET monto_pagado = ?, fecha_pago = ? WHERE cliente_id = ? AND indice = ?");
+            borrarCuotas = conexion.prepareStatement("DELETE FROM cuota WHERE cliente_id = ?");
+            actualizarOrden = conexion.prepareStatement("UPDATE cliente SET orden = ? WHERE id = ?");
+        } catch (SQLException | IOException e) {
+            try {
+                conexion.close();
+            } catch (SQLException ignorada) {
+                // Se informa el error original
+            }
+            throw e instanceof IOException io ? io : new IOException("No se pudo preparar la base de datos " + base + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean esNuevo() {
+        return nuevo;
+    }
+
+    @Override
+    public List<Cliente> leer() throws IOException {
+        enOrden.clear();
+        porDni.clear();
+        siguienteId = 1;
+        List<Cliente> clientes = new ArrayList<>();
+        List<String[]> textos = new ArrayList<>();
+        List<double[]> importes = new ArrayList<>();
+        List<CuotasColumnares> cronogramas = new ArrayList<>();
+        Map<Long, Integer> posicionPorId = new HashMap<>();
+        try (Statement st = conexion.createStatement()) {
+            st.setFetchSize(FILAS_POR_LOTE);
+            try (ResultSet rs = st.executeQuery("SELECT id, orden, nombre, apellido, dni, tipo_cuota, producto, total_producto, adelanto, "
+                    + "cantidad_cuotas, cronograma, cronograma_tipo, cronograma_inicio, cronograma_valor FROM cliente ORDER BY orden")) {
+                while (rs.next()) {
+                    Fila fila = new Fila(rs.getLong(1), rs.getLong(2), rs.getInt(10), rs.getBoolean(11));
+                    String[] t = {rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)};
+                    textos.add(t);
+                    importes.add(new double[]{rs.getDouble(8), rs.getDouble(9)});
+                    cronogramas.add(fila.cronograma
+                            ? CuotasColumnares.cronograma(rs.getString(12), rs.getObject(13, LocalDate.class), fila.cantidad, rs.getDouble(14))
+                            : null);
+                    posicionPorId.put(fila.id, enOrden.size());
+                    enOrden.add(fila);
+                    porDni.put(ClienteRepository.normalizarDni(t[2]), fila);
+                    siguienteId = Math.max(siguienteId, fila.id + 1);
+                }
+            }
+
+            // Las cuotas de los clientes sin cronograma implícito, de a un cliente por vez
+            CuotasColumnares[] columnas = new CuotasColumnares[enOrden.size()];
+            try (ResultSet rs = st.executeQuery("SELECT q.cliente_id, q.indice, q.numero, q.monto_original, q.monto_pagado, "
+                    + "q.fecha_vencimiento, q.fecha_pago, q.faltante FROM cuota q JOIN cliente c ON c.id = q.cliente_id "
+                    + "WHERE NOT c.cronograma ORDER BY q.cliente_id, q.indice")) {
+                long idActual = -1;
+                Fila fila = null;
+                int[] numero = null, vencimiento = null, fechaPago = null;
+                double[] original = null, pagado = null;
+                boolean[] faltante = null;
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    if (id != idActual) {
+                        idActual = id;
+                        Integer posicion = posicionPorId.get(id);
+                        fila = enOrden.get(posicion);
+                        numero = new int[fila.cantidad];
+                        vencimiento = new int[fila.cantidad];
+                        fechaPago = new int[fila.cantidad];
+                        original = new double[fila.cantidad];
+                        pagado = new double[fila.cantidad];
+                        faltante = new boolean[fila.cantidad];
+                        columnas[posicion] = CuotasColumnares.deColumnas(fila.cantidad, numero, original, pagado, vencimiento, fechaPago, faltante);
+                    }
+                    int i = rs.getInt(2);
+                    if (i < 0 || i >= fila.cantidad) {
+                        throw new IOException("Cuota fuera de rango para el cliente " + id);
+                    }
+                    numero[i] = rs.getInt(3);
+                    original[i] = rs.getDouble(4);
+                    pagado[i] = rs.getDouble(5);
+                    vencimiento[i] = epoch(rs.getObject(6, LocalDate.class));
+                    fechaPago[i] = epoch(rs.getObject(7, LocalDate.class));
+                    faltante[i] = rs.getBoolean(8);
+                }
+            }
+
+            for (int p = 0; p < enOrden.size(); p++) {
+                Fila fila = enOrden.get(p);
+                CuotasColumnares cuotas = cronogramas.get(p) != null ? cronogramas.get(p) : columnas[p];
+                if (cuotas == null) {
+                    if (fila.cantidad != 0) {
+                        throw new IOException("Faltan las cuotas del cliente " + fila.id);
+                    }
+                    cuotas = CuotasColumnares.deColumnas(0, new int[0], new double[0], new double[0], new int[0], new int[0], new boolean[0]);
+                }
+                String[] t = textos.get(p);
+                clientes.add(new Cliente(t[0], t[1], t[2], t[3], t[4], importes.get(p)[0], cuotas, importes.get(p)[1]));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error al leer la base de datos: " + e.getMessage(), e);
+        }
+        return clientes;
+    }
+
+    @Override
+    public void reemplazarTodo(List<Cliente> clientes) throws IOException {
+        descartarLote();
+        List<Fila> filas = new ArrayList<>(clientes.size());
+        try {
+            try (Statement st = conexion.createStatement()) {
+                st.executeUpdate("DELETE FROM cuota");
+                st.executeUpdate("DELETE FROM cliente");
+                st.executeUpdate("DELETE FROM almacen");
+            }
+            // Primero todos los clientes y después todas las cuotas, en lotes grandes
+            int enLote = 0;
+            for (Cliente cliente : clientes) {
+                Fila fila = new Fila(filas.size() + 1L, (filas.size() + 1L) * ESPACIO, 0, false);
+                cargarInsercion(fila, cliente);
+                insertarCliente.addBatch();
+                filas.add(fila);
+                if (++enLote == FILAS_POR_LOTE) {
+                    insertarCliente.executeBatch();
+                    enLote = 0;
+                }
+            }
+            insertarCliente.executeBatch();
+            enLote = 0;
+            for (int p = 0; p < clientes.size(); p++) {
+                CuotasColumnares cuotas = clientes.get(p).getCuotasColumnares();
+                for (int i = 0; i < cuotas.size(); i++) {
+                    cargarCuota(filas.get(p).id, cuotas, i);
+                    insertarCuota.addBatch();
+                    if (++enLote == FILAS_POR_LOTE) {
+                        insertarCuota.executeBatch();
+                        enLote = 0;
+                    }
+                }
+            }
+            insertarCuota.executeBatch();
+            try (Statement st = conexion.createStatement()) {
+                st.executeUpdate("INSERT INTO almacen (version) VALUES (" + VERSION + ")");
+            }
+            conexion.commit();
+        } catch (SQLException e) {
+            deshacerTransaccion();
+            throw new IOException("Error al guardar los clientes en la base de datos: " + e.getMessage(), e);
+        }
+        enOrden.clear();
+        porDni.clear();
+        for (int p = 0; p < filas.size(); p++) {
+            enOrden.add(filas.get(p));
+            porDni.put(ClienteRepository.normalizarDni(clientes.get(p).getDni()), filas.get(p));
+        }
+        siguienteId = filas.size() + 1L;
+    }
+
+    /**
+     * Guarda los cambios del comando en una transacción: o se guardan todos o ninguno.
+     */
+    @Override
+    public void registrar(Command comando, boolean deshecho) throws IOException {
+        comando.registrarCambios(this, deshecho);
+        try {
+            if (error != null) {
+                throw error;
+            }
+            ejecutarLote();
+            conexion.commit();
+        } catch (SQLException e) {
+            deshacerTransaccion();
+            throw new IOException("Error al guardar el cambio en la base de datos: " + e.getMessage(), e);
+        } finally {
+            descartarLote();
+        }
+    }
+
+    @Override
+    public void clienteGuardado(Cliente cliente, int posicion) {
+        if (error != null) {
+            return;
+        }
+        try {
+            String clave = ClienteRepository.normalizarDni(cliente.getDni());
+            Fila fila = porDni.get(clave);
+            if (fila != null) {
+                // Ya estaba: se actualiza en su lugar y se reescriben sus cuotas
+                cargarActualizacion(fila, cliente);
+                lote(actualizarCliente).addBatch();
+                lote(borrarCuotas).setLong(1, fila.id);
+                borrarCuotas.addBatch();
+            } else {
+                fila = new Fila(siguienteId++, 0, 0, false);
+                insertarEnOrden(fila, posicion);
+                cargarInsercion(fila, cliente);
+                lote(insertarCliente).addBatch();
+                porDni.put(clave, fila);
+            }
+            CuotasColumnares cuotas = cliente.getCuotasColumnares();
+            lote(insertarCuota);
+            for (int i = 0; i < cuotas.size(); i++) {
+                cargarCuota(fila.id, cuotas, i);
+                insertarCuota.addBatch();
+            }
+        } catch (SQLException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente) {
+        if (error != null) {
+            return;
+        }
+        Fila fila = porDni.remove(ClienteRepository.normalizarDni(cliente.getDni()));
+        if (fila == null) {
+            return;
+        }
+        enOrden.remove(posicionDe(fila));
+        try {
+            // Las cuotas se borran en cascada
+            lote(borrarCliente).setLong(1, fila.id);
+            borrarCliente.addBatch();
+        } catch (SQLException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void pagoAplicado(Cliente cliente, CambiosCuotas cambios) {
+        Fila fila = porDni.get(ClienteRepository.normalizarDni(cliente.getDni()));
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        if (fila == null || cuotas.size() != fila.cantidad) {
+            clienteGuardado(cliente, -1);
+            return;
+        }
+        if (error != null) {
+            return;
+        }
+        try {
+            // Las filas de las cuotas ya están aunque el cronograma fuera implícito: solo cambia el pago
+            lote(actualizarAdelanto).setDouble(1, cliente.getAdelantoAcumulado());
+            actualizarAdelanto.setLong(2, fila.id);
+            actualizarAdelanto.addBatch();
+            fila.cronograma = false;
+            lote(actualizarPago);
+            for (int k = 0; k < cambios.size(); k++) {
+                int i = cambios.indice(k);
+                actualizarPago.setDouble(1, cuotas.pagado(i));
+                setFecha(actualizarPago, 2, cuotas.fechaPagoEpoch(i));
+                actualizarPago.setLong(3, fila.id);
+                actualizarPago.setInt(4, i);
+                actualizarPago.addBatch();
+            }
+        } catch (SQLException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            throw new IOException("Error al cerrar la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    // Ubica al cliente nuevo en la lista y le da un 'orden' entre sus vecinos; si no hay lugar, renumera
+    private void insertarEnOrden(Fila fila, int posicion) throws SQLException {
+        if (posicion < 0 || posicion > enOrden.size()) {
+            posicion = enOrden.size();
+        }
+        long anterior = posicion > 0 ? enOrden.get(posicion - 1).orden : 0;
+        long siguiente = posicion < enOrden.size() ? enOrden.get(posicion).orden : anterior + 2 * ESPACIO;
+        enOrden.add(posicion, fila);
+        if (siguiente - anterior >= 2) {
+            fila.orden = anterior + (siguiente - anterior) / 2;
+            return;
+        }
+        lote(actualizarOrden);
+        for (int p = 0; p < enOrden.size(); p++) {
+            Fila f = enOrden.get(p);
+            f.orden = (p + 1L) * ESPACIO;
+            if (f != fila) {
+                actualizarOrden.setLong(1, f.orden);
+                actualizarOrden.setLong(2, f.id);
+                actualizarOrden.addBatch();
+            }
+        }
+    }
+
+    // 'enOrden' está ordenada por 'orden': búsqueda binaria
+    private int posicionDe(Fila fila) {
+        int desde = 0;
+        int hasta = enOrden.size() - 1;
+        while (desde <= hasta) {
+            int medio = (desde + hasta) >>> 1;
+            long orden = enOrden.get(medio).orden;
+            if (orden < fila.orden) {
+                desde = medio + 1;
+            } else if (orden > fila.orden) {
+                hasta = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        throw new IllegalStateException("Cliente " + fila.id + " fuera del orden");
+    }
+
+    private void cargarInsercion(Fila fila, Cliente cliente) throws SQLException {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        fila.cantidad = cuotas.size();
+        fila.cronograma = cuotas.esImplicito();
+        insertarCliente.setLong(1, fila.id);
+        insertarCliente.setLong(2, fila.orden);
+        cargarDatos(insertarCliente, 3, cliente);
+    }
+
+    private void cargarActualizacion(Fila fila, Cliente cliente) throws SQLException {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        fila.cantidad = cuotas.size();
+        fila.cronograma = cuotas.esImplicito();
+        cargarDatos(actualizarCliente, 1, cliente);
+        actualizarCliente.setLong(13, fila.id);
+    }
+
+    // Las doce columnas de datos del cliente, desde nombre hasta cronograma_valor
+    private static void cargarDatos(PreparedStatement ps, int desde, Cliente cliente) throws SQLException {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        ps.setString(desde, cliente.getNombre());
+        ps.setString(desde + 1, cliente.getApellido());
+        ps.setString(desde + 2, cliente.getDni());
+        ps.setString(desde + 3, cliente.getTipoCuota());
+        ps.setString(desde + 4, cliente.getProducto());
+        ps.setDouble(desde + 5, cliente.getTotalProducto());
+        ps.setDouble(desde + 6, cliente.getAdelantoAcumulado());
+        ps.setInt(desde + 7, cuotas.size());
+        ps.setBoolean(desde + 8, cuotas.esImplicito());
+        if (cuotas.esImplicito()) {
+            ps.setString(desde + 9, cuotas.tipoImplicito());
+            ps.setObject(desde + 10, LocalDate.ofEpochDay(cuotas.inicioImplicito()));
+            ps.setDouble(desde + 11, cuotas.valorImplicito());
+        } else {
+            ps.setNull(desde + 9, Types.VARCHAR);
+            ps.setNull(desde + 10, Types.DATE);
+            ps.setNull(desde + 11, Types.DOUBLE);
+        }
+    }
+
+    private void cargarCuota(long id, CuotasColumnares cuotas, int i) throws SQLException {
+        insertarCuota.setLong(1, id);
+        insertarCuota.setInt(2, i);
+        insertarCuota.setInt(3, cuotas.numero(i));
+        insertarCuota.setDouble(4, cuotas.original(i));
+        insertarCuota.setDouble(5, cuotas.pagado(i));
+        setFecha(insertarCuota, 6, cuotas.vencimientoEpoch(i));
+        setFecha(insertarCuota, 7, cuotas.fechaPagoEpoch(i));
+        insertarCuota.setBoolean(8, cuotas.faltante(i));
+    }
+
+    private static void setFecha(PreparedStatement ps, int columna, int epoch) throws SQLException {
+        if (epoch == CuotasColumnares.SIN_FECHA) {
+            ps.setNull(columna, Types.DATE);
+        } else {
+            ps.setObject(columna, LocalDate.ofEpochDay(epoch));
+        }
+    }
+
+    private static int epoch(LocalDate fecha) {
+        return fecha == null ? CuotasColumnares.SIN_FECHA : (int) fecha.toEpochDay();
+    }
+
+    // Pasa a agregar al lote de otra sentencia: antes se ejecuta el lote de la anterior
+    private PreparedStatement lote(PreparedStatement sentencia) throws SQLException {
+        if (loteActual != sentencia) {
+            ejecutarLote();
+            loteActual = sentencia;
+        }
+        return sentencia;
+    }
+
+    private void ejecutarLote() throws SQLException {
+        if (loteActual != null) {
+            PreparedStatement sentencia = loteActual;
+            loteActual = null;
+            sentencia.executeBatch();
+        }
+    }
+
+    private void descartarLote() {
+        if (loteActual != null) {
+            try {
+                loteActual.clearBatch();
+            } catch (SQLException e) {
+                // Se descarta igual al deshacer la transacción
+            }
+            loteActual = null;
+        }
+        error = null;
+    }
+
+    private void deshacerTransaccion() {
+        try {
+            conexion.rollback();
+        } catch (SQLException e) {
+            System.err.println("Advertencia: No se pudo deshacer la transacción: " + e.getMessage());
+        }
+    }
+}
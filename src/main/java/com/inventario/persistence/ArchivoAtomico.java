@@ -0,0 +1,157 @@
+package com.inventario.persistence;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+/**
+ * Escritura de archivos a prueba de cortes: el contenido se escribe en un temporal en el
+ * mismo directorio, se sincroniza a disco y recién entonces se mueve sobre el archivo final
+ * con un rename atómico. Si el programa muere a mitad de la escritura, el archivo anterior
+ * queda intacto.
+ *
+ * Antes de reemplazarlo, la versión anterior se conserva como copia de respaldo rotativa
+ * (archivo.1 es la más reciente, archivo.N la más vieja).
+ */
+public class ArchivoAtomico {
+
+    /**
+     * Escribe el contenido del archivo en un stream.
+     */
+    public interface Escritura {
+        void escribir(OutputStream out) throws IOException;
+    }
+
+    private ArchivoAtomico() {
+    }
+
+    /**
+     * Escribe el contenido del archivo directamente en el canal (sin streams de por medio).
+     */
+    public interface EscrituraCanal {
+        void escribir(FileChannel canal) throws IOException;
+    }
+
+    /**
+     * Escribe el archivo de forma atómica.
+     * @param destino El archivo final.
+     * @param copiasRespaldo Cantidad de versiones anteriores a conservar (0 para ninguna).
+     * @param escritura Genera el contenido.
+     */
+    public static void escribir(Path destino, int copiasRespaldo, Escritura escritura) throws IOException {
+        escribirCanal(destino, copiasRespaldo, canal -> {
+            OutputStream out = new NoCerrable(Channels.newOutputStream(canal));
+            escritura.escribir(out);
+            out.flush();
+        });
+    }
+
+    /**
+     * Igual que {@link #escribir(Path, int, Escritura)}, pero el contenido se escribe en el
+     * FileChannel del temporal.
+     */
+    public static void escribirCanal(Path destino, int copiasRespaldo, EscrituraCanal escritura) throws IOException {
+        Path absoluto = destino.toAbsolutePath();
+        Path directorio = absoluto.getParent();
+        Path temporal = Files.createTempFile(directorio, "." + absoluto.getFileName(), ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                escritura.escribir(canal);
+                canal.force(true);
+            }
+
+            if (copiasRespaldo > 0 && Files.exists(absoluto)) {
+                rotarRespaldos(absoluto, copiasRespaldo);
+            }
+            mover(temporal, absoluto);
+            sincronizarDirectorio(directorio);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Devuelve el archivo a cargar: el principal si es válido o, si no, la copia de respaldo
+     * más reciente que lo sea. La validación debe ser liviana (por ejemplo, revisar la
+     * estructura del archivo sin leer su contenido completo); se prueban las copias en orden
+     * y se corta en la primera válida.
+     * @return El archivo elegido, o el principal si no hay ninguno válido (puede no existir).
+     */
+    public static Path elegirValido(Path principal, int copiasRespaldo, Predicate<Path> esValido) {
+        if (Files.exists(principal) && esValido.test(principal)) {
+            return principal;
+        }
+        for (int i = 1; i <= copiasRespaldo; i++) {
+            Path copia = respaldo(principal, i);
+            if (Files.exists(copia) && esValido.test(copia)) {
+                System.err.println("⚠️ " + principal + " está dañado o falta; se usa la copia de respaldo " + copia);
+                return copia;
+            }
+        }
+        return principal;
+    }
+
+    public static Path respaldo(Path principal, int numero) {
+        return principal.resolveSibling(principal.getFileName() + "." + numero);
+    }
+
+    // archivo.N-1 -> archivo.N, ..., archivo.1 -> archivo.2 y el archivo actual pasa a ser archivo.1
+    private static void rotarRespaldos(Path principal, int copias) throws IOException {
+        Files.deleteIfExists(respaldo(principal, copias));
+        for (int i = copias - 1; i >= 1; i--) {
+            Path origen = respaldo(principal, i);
+            if (Files.exists(origen)) {
+                mover(origen, respaldo(principal, i + 1));
+            }
+        }
+        // Un hard link evita copiar el archivo y deja al principal en su lugar hasta el rename final
+        Path primera = respaldo(principal, 1);
+        try {
+            Files.createLink(primera, principal);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(principal, primera, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private static void mover(Path origen, Path destino) throws IOException {
+        try {
+            Files.move(origen, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Evita que quien escribe cierre el canal antes del force
+    private static class NoCerrable extends FilterOutputStream {
+        NoCerrable(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    // Hace durable el rename; en sistemas que no permiten abrir directorios (Windows) se ignora
+    private static void sincronizarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // No soportado en esta plataforma
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.inventario.persistence;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Escritor de persistencia en un hilo propio, fuera del Event Dispatch Thread.
+ *
+ * La interfaz avisa con {@link #marcarSucio()} cada vez que cambia el estado; el primer aviso
+ * programa una escritura para dentro de 'demora' milisegundos y los avisos siguientes hasta
+ * entonces se acumulan en esa misma escritura. Al momento de escribir se toma una instantánea
+ * inmutable del estado en el EDT (donde se modifican los clientes) y se la escribe en el hilo
+ * de persistencia, así la interfaz no se congela mientras POI genera el archivo.
+ *
+ * @param <T> El tipo de la instantánea (por ejemplo, una copia de la lista de clientes).
+ */
+public class EscritorSegundoPlano<T> {
+
+    private final Supplier<T> tomarInstantanea;
+    private final Predicate<T> escribir;
+    private final long demoraMs;
+    private final ScheduledExecutorService executor;
+
+    // Solo se acceden desde el EDT. 'pendiente' indica que hay una escritura programada
+    // cuya instantánea todavía no se tomó: los avisos que llegan mientras tanto quedan incluidos.
+    private ScheduledFuture<?> programada;
+    private boolean pendiente;
+    private boolean cerrado;
+
+    /**
+     * @param tomarInstantanea Copia el estado a guardar; se ejecuta siempre en el EDT.
+     * @param escribir Escribe la instantánea; se ejecuta en el hilo de persistencia y
+     *                 devuelve true si se guardó correctamente.
+     * @param demoraMs Tiempo que se espera desde el primer aviso para agrupar cambios.
+     */
+    public EscritorSegundoPlano(Supplier<T> tomarInstantanea, Predicate<T> escribir, long demoraMs) {
+        this.tomarInstantanea = tomarInstantanea;
+        this.escribir = escribir;
+        this.demoraMs = demoraMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "persistencia-clientes");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Avisa que el estado cambió. Debe llamarse desde el EDT.
+     */
+    public void marcarSucio() {
+        if (cerrado || pendiente) {
+            return;
+        }
+        pendiente = true;
+        programada = executor.schedule(this::escribirProgramada, demoraMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Escribe los cambios pendientes y detiene el hilo de persistencia, esperando como máximo
+     * 'timeoutMs'. Debe llamarse desde el EDT (por ejemplo, al cerrar la ventana).
+     * @return true si la última escritura terminó bien dentro del tiempo.
+     */
+    public boolean cerrar(long timeoutMs) {
+        if (cerrado) {
+            return true;
+        }
+        cerrado = true;
+        Future<Boolean> ultima = null;
+        if (pendiente) {
+            // La tarea programada puede estar esperando al EDT en invokeAndWait: se la interrumpe
+            // y la instantánea se toma acá mismo, porque el EDT queda bloqueado esperando.
+            pendiente = false;
+            programada.cancel(true);
+            T instantanea = tomarInstantanea.get();
+            ultima = executor.submit(() -> escribirSeguro(instantanea));
+        }
+        executor.shutdown();
+        try {
+            if (ultima != null) {
+                return ultima.get(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            return executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("❌ La escritura final no terminó a tiempo; los cambios quedan en el journal.");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            System.err.println("❌ Error en la escritura final: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Corre en el hilo de persistencia
+    private void escribirProgramada() {
+        try {
+            Object[] caja = new Object[1];
+            SwingUtilities.invokeAndWait(() -> {
+                if (pendiente && !cerrado) {
+                    pendiente = false;
+                    caja[0] = tomarInstantanea.get();
+                }
+            });
+            @SuppressWarnings("unchecked")
+            T instantanea = (T) caja[0];
+            if (instantanea != null) {
+                escribirSeguro(instantanea);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("❌ Error al tomar la instantánea para guardar: " + e.getMessage());
+        }
+    }
+
+    private boolean escribirSeguro(T instantanea) {
+        try {
+            return escribir.test(instantanea);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al guardar en segundo plano: " + e.getMessage());
+            return false;
+        }
+    }
+}
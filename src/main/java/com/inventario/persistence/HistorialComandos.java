@@ -0,0 +1,465 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.Command;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.LoteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.CambiosCuotas;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.CuotasJson;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Historial de deshacer/rehacer acotado y persistente.
+ *
+ * Cada comando ejecutado se agrega a un log binario en disco (clientes.historial) en forma
+ * compacta: un pago guarda solo las cuotas que tocó, un alta solo el DNI, una baja el cliente
+ * eliminado y un lote sus comandos uno detrás de otro. El log siempre refleja el historial
+ * completo; en memoria quedan como objetos solo los comandos más recientes, dentro de un
+ * presupuesto de entradas y de bytes. Al deshacer más atrás de lo que hay en memoria el comando
+ * se lee del log y se vuelve a enlazar con los clientes del repositorio por DNI, así que el
+ * deshacer también sobrevive a un reinicio.
+ *
+ * Cada registro lleva su largo y un CRC32; al abrir se descarta una cola incompleta. Al deshacer,
+ * el log se trunca antes de aplicar el deshacer: si el programa se corta en el medio, el comando
+ * queda aplicado pero ya no se puede deshacer, nunca se deshace dos veces.
+ *
+ * El log tiene un máximo de entradas; al pasarlo se descartan las más viejas reescribiendo el
+ * archivo una vez cada cuarto del máximo. La pila de rehacer vive solo en memoria: un comando
+ * nuevo la vacía y no se conserva entre reinicios.
+ */
+public class HistorialComandos implements Closeable {
+
+    // Entradas que se pueden deshacer, contando las que están solo en disco
+    private static final int MAX_ENTRADAS = Integer.getInteger("inventario.historial.maxEntradas", 1000);
+    // Comandos que se mantienen como objetos en memoria
+    private static final int MAX_EN_MEMORIA = Integer.getInteger("inventario.historial.enMemoria", 50);
+    // Memoria máxima de los comandos en memoria (ver Command.bytesEstimados)
+    private static final long MAX_BYTES = Long.getLong("inventario.historial.maxBytes", 4L << 20);
+
+    private static final byte TIPO_NO_PERSISTIBLE = 0;
+    private static final byte TIPO_PAGO = 1;
+    private static final byte TIPO_ALTA = 2;
+    private static final byte TIPO_BAJA = 3;
+    private static final byte TIPO_LOTE = 4;
+
+    private final Path archivo;
+    private final ClienteRepository clientes;
+    private final int maxEntradas;
+    private final int maxEnMemoria;
+    private final long maxBytes;
+    private FileChannel canal;
+
+    // Posición en el log de cada entrada; las 'recientes' son las últimas de ellas
+    private long[] posiciones = new long[16];
+    private int cantidad;
+    private final Deque<Command> recientes = new ArrayDeque<>();
+    private long bytesRecientes;
+    private final Deque<Command> rehacer = new ArrayDeque<>();
+
+    /**
+     * Abre (o crea) el log del historial con los límites configurados por propiedades del sistema.
+     * @param archivo El log en disco, o null para un historial solo en memoria.
+     * @param clientes El repositorio contra el que se enlazan los comandos leídos del log.
+     */
+    public HistorialComandos(Path archivo, ClienteRepository clientes) throws IOException {
+        this(archivo, clientes, MAX_ENTRADAS, MAX_EN_MEMORIA, MAX_BYTES);
+    }
+
+    public HistorialComandos(Path archivo, ClienteRepository clientes, int maxEntradas, int maxEnMemoria, long maxBytes) throws IOException {
+        this.archivo = archivo;
+        this.clientes = clientes;
+        this.maxEntradas = Math.max(1, maxEntradas);
+        this.maxEnMemoria = Math.max(1, maxEnMemoria);
+        this.maxBytes = maxBytes;
+        if (archivo != null) {
+            canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            indexar();
+        }
+    }
+
+    /**
+     * Historial sin log en disco: lo que excede los límites de memoria se pierde.
+     */
+    public static HistorialComandos enMemoria(ClienteRepository clientes) {
+        try {
+            return new HistorialComandos(null, clientes);
+        } catch (IOException e) {
+            // Sin archivo no hay E/S
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean puedeDeshacer() {
+        return cantidad > 0;
+    }
+
+    public boolean puedeRehacer() {
+        return !rehacer.isEmpty();
+    }
+
+    /**
+     * Cantidad de comandos que se pueden deshacer (en memoria y en disco).
+     */
+    public int size() {
+        return cantidad;
+    }
+
+    /**
+     * Cantidad de comandos que se mantienen como objetos en memoria.
+     */
+    public int getEnMemoria() {
+        return recientes.size();
+    }
+
+    /**
+     * Agrega un comando recién ejecutado. Vacía la pila de rehacer.
+     */
+    public void registrar(Command comando) throws IOException {
+        rehacer.clear();
+        agregar(comando);
+    }
+
+    /**
+     * Quita del historial el último comando y lo deshace con 'deshacer' (que además debe persistir el cambio).
+     * @return false si no había nada para deshacer o si el comando guardado ya no se puede aplicar
+     *         (por ejemplo, el cliente ya no existe); en ese caso la entrada se descarta.
+     */
+    public boolean deshacer(Consumer<Command> deshacer) throws IOException {
+        if (cantidad == 0) {
+            return false;
+        }
+        Command comando;
+        if (!recientes.isEmpty()) {
+            comando = recientes.pollLast();
+            bytesRecientes -= comando.bytesEstimados();
+        } else {
+            comando = leer(cantidad - 1);
+        }
+        cantidad--;
+        if (canal != null) {
+            canal.truncate(posiciones[cantidad]);
+            canal.force(false);
+        }
+        if (comando == null) {
+            return false;
+        }
+        deshacer.accept(comando);
+        rehacer.addLast(comando);
+        if (rehacer.size() > maxEnMemoria) {
+            rehacer.pollFirst();
+        }
+        return true;
+    }
+
+    /**
+     * Vuelve a ejecutar el último comando deshecho con 'ejecutar' (que además debe persistir el
+     * cambio) y lo devuelve al historial.
+     */
+    public boolean rehacer(Consumer<Command> ejecutar) throws IOException {
+        Command comando = rehacer.pollLast();
+        if (comando == null) {
+            return false;
+        }
+        ejecutar.accept(comando);
+        agregar(comando);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+
+    private void agregar(Command comando) throws IOException {
+        if (cantidad == posiciones.length) {
+            posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+        }
+        if (canal != null) {
+            long posicion = canal.size();
+            ByteBuffer registro = ByteBuffer.wrap(codificar(comando));
+            canal.position(posicion);
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            posiciones[cantidad] = posicion;
+        }
+        cantidad++;
+        recientes.addLast(comando);
+        bytesRecientes += comando.bytesEstimados();
+        // Lo más viejo queda solo en disco (o se pierde si el historial es solo en memoria)
+        while (recientes.size() > 1 && (recientes.size() > maxEnMemoria || bytesRecientes > maxBytes)) {
+            bytesRecientes -= recientes.pollFirst().bytesEstimados();
+            if (canal == null) {
+                descartarPrimeras(1);
+            }
+        }
+        if (cantidad > maxEntradas) {
+            descartarPrimeras(cantidad - maxEntradas + maxEntradas / 4);
+        }
+    }
+
+    // Olvida las 'n' entradas más viejas; en disco, reescribe el log sin ellas
+    private void descartarPrimeras(int n) throws IOException {
+        n = Math.min(n, cantidad - recientes.size());
+        if (n <= 0) {
+            return;
+        }
+        if (canal != null) {
+            long desde = posiciones[n];
+            long largo = canal.size() - desde;
+            canal.close();
+            try (FileChannel origen = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                ArchivoAtomico.escribir(archivo, 0, out -> origen.transferTo(desde, largo, Channels.newChannel(out)));
+            }
+            canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            for (int i = n; i < cantidad; i++) {
+                posiciones[i - n] = posiciones[i] - desde;
+            }
+        } else {
+            System.arraycopy(posiciones, n, posiciones, 0, cantidad - n);
+        }
+        cantidad -= n;
+    }
+
+    // Recorre el log al abrir y anota dónde empieza cada entrada; trunca una cola dañada
+    private void indexar() throws IOException {
+        long posicion = 0;
+        canal.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+        try {
+            while (true) {
+                int largo = in.readInt();
+                long crc = in.readInt() & 0xFFFFFFFFL;
+                if (largo <= 0) {
+                    throw new IOException("largo inválido");
+                }
+                byte[] datos = new byte[largo];
+                in.readFully(datos);
+                if (crc(datos) != crc) {
+                    throw new IOException("CRC incorrecto");
+                }
+                if (cantidad == posiciones.length) {
+                    posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+                }
+                posiciones[cantidad++] = posicion;
+                posicion += 8 + largo;
+            }
+        } catch (EOFException e) {
+            // Fin del log (o entrada incompleta)
+        } catch (IOException e) {
+            System.err.println("Advertencia: Entrada inválida en el historial (" + e.getMessage() + "), se descarta el resto.");
+        }
+        if (posicion < canal.size()) {
+            canal.truncate(posicion);
+            canal.force(false);
+        }
+        if (cantidad > maxEntradas) {
+            descartarPrimeras(cantidad - maxEntradas);
+        }
+    }
+
+    // Lee la entrada i del log y la enlaza con los clientes actuales
+    private Command leer(int i) throws IOException {
+        if (canal == null) {
+            return null;
+        }
+        ByteBuffer encabezado = ByteBuffer.allocate(8);
+        leerCompleto(encabezado, posiciones[i]);
+        byte[] datos = new byte[encabezado.getInt(0)];
+        leerCompleto(ByteBuffer.wrap(datos), posiciones[i] + 8);
+        try {
+            Command comando = decodificar(new DataInputStream(new ByteArrayInputStream(datos)));
+            if (comando == null) {
+                System.err.println("Advertencia: La acción guardada en el historial ya no se puede deshacer, se descarta.");
+            }
+            return comando;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Advertencia: Entrada ilegible en el historial (" + e.getMessage() + "), se descarta.");
+            return null;
+        }
+    }
+
+    private void leerCompleto(ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            if (canal.read(destino, posicion + destino.position()) < 0) {
+                throw new EOFException("historial truncado");
+            }
+        }
+    }
+
+    // Registro: largo, CRC32 de los datos y los datos
+    private static byte[] codificar(Command comando) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0); // Lugar para el encabezado
+        escribirComando(comando, out);
+        out.flush();
+        ByteBuffer registro = ByteBuffer.wrap(bytes.toByteArray());
+        int largo = registro.capacity() - 8;
+        registro.putInt(0, largo);
+        registro.putInt(4, (int) crc(registro.array(), 8, largo));
+        return registro.array();
+    }
+
+    private static void escribirComando(Command comando, DataOutputStream out) throws IOException {
+        if (comando instanceof RegistrarPagoCommand pago) {
+            CambiosCuotas cambios = pago.getCambios();
+            out.writeByte(TIPO_PAGO);
+            out.writeUTF(pago.getCliente().getDni());
+            out.writeDouble(pago.getMontoPago());
+            out.writeDouble(cambios.getAdelantoAntes());
+            out.writeInt(cambios.size());
+            for (int k = 0; k < cambios.size(); k++) {
+                out.writeInt(cambios.indice(k));
+                out.writeDouble(cambios.pagadoAntes(k));
+                out.writeInt(cambios.fechaPagoAntes(k));
+            }
+        } else if (comando instanceof AgregarClienteCommand alta) {
+            out.writeByte(TIPO_ALTA);
+            out.writeUTF(alta.getCliente().getDni());
+        } else if (comando instanceof EliminarClienteCommand baja) {
+            out.writeByte(TIPO_BAJA);
+            out.writeInt(baja.getIndiceEliminado());
+            escribirCliente(baja.getCliente(), out);
+        } else if (comando instanceof LoteCommand lote) {
+            out.writeByte(TIPO_LOTE);
+            out.writeInt(lote.size());
+            for (Command parte : lote.getComandos()) {
+                escribirComando(parte, out);
+            }
+        } else {
+            out.writeByte(TIPO_NO_PERSISTIBLE);
+        }
+    }
+
+    // Devuelve null si el comando ya no corresponde al estado actual de los clientes
+    private Command decodificar(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        switch (tipo) {
+            case TIPO_PAGO: {
+                Cliente cliente = clientes.buscarPorDni(in.readUTF());
+                double monto = in.readDouble();
+                CambiosCuotas cambios = new CambiosCuotas();
+                cambios.iniciar(in.readDouble());
+                int n = in.readInt();
+                for (int k = 0; k < n; k++) {
+                    cambios.registrar(in.readInt(), in.readDouble(), in.readInt());
+                }
+                if (cliente == null) {
+                    return null;
+                }
+                for (int k = 0; k < n; k++) {
+                    if (cambios.indice(k) >= cliente.getTotalCuotas()) {
+                        return null;
+                    }
+                }
+                return new RegistrarPagoCommand(clientes, cliente, monto, cambios);
+            }
+            case TIPO_ALTA: {
+                Cliente cliente = clientes.buscarPorDni(in.readUTF());
+                return cliente == null ? null : new AgregarClienteCommand(clientes, cliente);
+            }
+            case TIPO_BAJA: {
+                int indice = in.readInt();
+                Cliente cliente = leerCliente(in);
+                return clientes.existeDni(cliente.getDni()) ? null : new EliminarClienteCommand(clientes, cliente, indice);
+            }
+            case TIPO_LOTE: {
+                // Todas las partes se leen aunque alguna no aplique, para no desalinear el resto
+                int n = in.readInt();
+                List<Command> partes = new ArrayList<>(n);
+                boolean aplicable = true;
+                for (int k = 0; k < n; k++) {
+                    Command parte = decodificar(in);
+                    aplicable &= parte != null;
+                    partes.add(parte);
+                }
+                return aplicable ? new LoteCommand(partes) : null;
+            }
+            case TIPO_NO_PERSISTIBLE:
+                return null;
+            default:
+                throw new IOException("tipo desconocido " + tipo);
+        }
+    }
+
+    private static void escribirCliente(Cliente cliente, DataOutputStream out) throws IOException {
+        escribirTexto(cliente.getNombre(), out);
+        escribirTexto(cliente.getApellido(), out);
+        escribirTexto(cliente.getDni(), out);
+        escribirTexto(cliente.getTipoCuota(), out);
+        escribirTexto(cliente.getProducto(), out);
+        out.writeDouble(cliente.getTotalProducto());
+        out.writeDouble(cliente.getAdelantoAcumulado());
+        escribirTexto(CuotasJson.serializar(cliente.getCuotas()), out);
+    }
+
+    private static Cliente leerCliente(DataInputStream in) throws IOException {
+        String nombre = leerTexto(in);
+        String apellido = leerTexto(in);
+        String dni = leerTexto(in);
+        String tipoCuota = leerTexto(in);
+        String producto = leerTexto(in);
+        double totalProducto = in.readDouble();
+        double adelanto = in.readDouble();
+        return new Cliente(nombre, apellido, dni, tipoCuota, producto, totalProducto, CuotasJson.parsear(leerTexto(in)), adelanto);
+    }
+
+    // writeUTF está limitado a 64 KB; las cuotas de un cronograma largo pueden superarlo
+    private static void escribirTexto(String texto, DataOutputStream out) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        int largo = in.readInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long crc(byte[] datos) {
+        return crc(datos, 0, datos.length);
+    }
+
+    private static long crc(byte[] datos, int desde, int largo) {
+        CRC32 crc = new CRC32();
+        crc.update(datos, desde, largo);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,167 @@
+package com.inventario.persistence;
+
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Instantáneas de los clientes para los checkpoints del snapshot, sin copiar la cartera entera en
+ * el EDT. Por los eventos del repositorio sabe qué clientes cambiaron desde el último snapshot
+ * escrito (la base): al tomar la instantánea copia solo esos y de los demás anota el DNI. Al
+ * escribirla, en el hilo de persistencia, los que no cambiaron se vuelven a leer de la base.
+ *
+ * Eso funciona porque el repositorio nunca reordena a los clientes que no cambian: las altas,
+ * bajas y reemplazos solo agregan o quitan posiciones, así que los que no cambiaron siguen en la
+ * base en el mismo orden relativo. Un cliente eliminado y vuelto a agregar cuenta como cambiado.
+ *
+ * Sin base (los clientes no vinieron de {@code destino}, o falló la última escritura) la
+ * instantánea copia a todos los clientes, como una copia completa.
+ *
+ * Todos los métodos salvo {@link #escribir(Instantanea)} deben llamarse en el hilo que modifica el
+ * repositorio (el EDT).
+ */
+public class InstantaneasClientes implements OyenteRepositorio {
+
+    /**
+     * Lo que hay que escribir: en cada posición, la copia de un cliente cambiado o el DNI de uno
+     * que se lee de la base. No comparte nada con los clientes de la lista.
+     */
+    public static final class Instantanea {
+        private final Path base;
+        private final String[] dnis;
+        private final Cliente[] copias;
+        private final long generacion;
+        private final int copiados;
+
+        private Instantanea(Path base, String[] dnis, Cliente[] copias, long generacion, int copiados) {
+            this.base = base;
+            this.dnis = dnis;
+            this.copias = copias;
+            this.generacion = generacion;
+            this.copiados = copiados;
+        }
+
+        public int size() {
+            return copias.length;
+        }
+
+        /**
+         * Clientes que se copiaron al tomarla; el resto se lee de la base al escribir.
+         */
+        public int getCopiados() {
+            return copiados;
+        }
+    }
+
+    private final ClienteRepository clientes;
+    private final Path destino;
+    private final int copiasRespaldo;
+    // Cliente cambiado -> generación de la instantánea que todavía no lo incluye
+    private final Map<Cliente, Long> cambiados = new IdentityHashMap<>();
+    private long generacion;
+    private Path base;
+
+    /**
+     * @param destino El snapshot que se escribe; cada escritura que termina bien pasa a ser la base.
+     */
+    public InstantaneasClientes(ClienteRepository clientes, Path destino, int copiasRespaldo) {
+        this.clientes = clientes;
+        this.destino = destino;
+        this.copiasRespaldo = copiasRespaldo;
+        clientes.agregarOyente(this);
+    }
+
+    /**
+     * Los clientes de la lista son en este momento exactamente los del snapshot 'cargado'. Solo se
+     * lo toma como base si es el mismo archivo que se escribe: una copia de respaldo rota con la
+     * primera escritura.
+     * @param cargado El snapshot del que se cargaron los clientes, o null si vinieron de otro lado.
+     */
+    public void partirDe(Path cargado) {
+        cambiados.clear();
+        base = cargado != null && cargado.toAbsolutePath().normalize().equals(destino.toAbsolutePath().normalize()) ? destino : null;
+    }
+
+    /**
+     * Deja de seguir los cambios del repositorio.
+     */
+    public void detener() {
+        clientes.quitarOyente(this);
+        cambiados.clear();
+    }
+
+    /**
+     * Toma la instantánea: copia los clientes cambiados desde la base (o todos, si no hay base).
+     */
+    public Instantanea tomar() {
+        int n = clientes.size();
+        String[] dnis = new String[n];
+        Cliente[] copias = new Cliente[n];
+        int copiados = 0;
+        for (int i = 0; i < n; i++) {
+            Cliente cliente = clientes.get(i);
+            if (base == null || cambiados.containsKey(cliente)) {
+                copias[i] = cliente.copiar();
+                copiados++;
+            } else {
+                dnis[i] = cliente.getDni();
+            }
+        }
+        return new Instantanea(base, dnis, copias, generacion++, copiados);
+    }
+
+    /**
+     * Escribe la instantánea en el destino. Se ejecuta en el hilo de persistencia; después hay que
+     * avisar el resultado con {@link #escrita(Instantanea, boolean)} en el EDT.
+     */
+    public void escribir(Instantanea instantanea) throws IOException {
+        SnapshotClientes.escribir(instantanea.base, instantanea.dnis, instantanea.copias, destino, copiasRespaldo);
+    }
+
+    /**
+     * Resultado de escribir la instantánea. Si se guardó, el destino pasa a ser la base y los
+     * clientes que incluía dejan de contar como cambiados (salvo que hayan vuelto a cambiar); si no,
+     * la próxima instantánea copia a todos.
+     */
+    public void escrita(Instantanea instantanea, boolean guardada) {
+        if (!guardada) {
+            base = null;
+            return;
+        }
+        base = destino;
+        cambiados.values().removeIf(g -> g <= instantanea.generacion);
+    }
+
+    /**
+     * Clientes cambiados desde la base que todavía no están en una instantánea escrita.
+     */
+    public int getCambiados() {
+        return cambiados.size();
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        cambiados.put(cliente, generacion);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        cambiados.remove(cliente);
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        cambiados.remove(anterior);
+        cambiados.put(nuevo, generacion);
+    }
+
+    @Override
+    public void clienteModificado(Cliente cliente, int indice) {
+        cambiados.put(cliente, generacion);
+    }
+}
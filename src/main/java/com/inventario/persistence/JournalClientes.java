@@ -0,0 +1,314 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.Command;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.CuotasJson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de solo agregado con los cambios de cada comando ejecutado o deshecho.
+ *
+ * Cada cambio se guarda como una línea con el estado completo del cliente afectado
+ * (o su baja, por DNI), precedida por un CRC32. Al confirmar un comando se hace un único
+ * write + fsync, en lugar de reescribir todo clientes.xlsx. El libro completo se escribe
+ * solo en los checkpoints; al iniciar se carga el último checkpoint y se reproduce el
+ * journal encima.
+ *
+ * Para que el checkpoint se pueda escribir en segundo plano mientras siguen llegando cambios,
+ * el journal se divide en segmentos: al tomar la instantánea se llama a {@link #rotar()}, que
+ * cierra el segmento activo (clientes.journal pasa a clientes.journal.N) y abre uno nuevo;
+ * cuando el checkpoint quedó escrito se borran los segmentos cerrados con {@link #descartarHasta(long)}.
+ *
+ * Como cada línea guarda el estado final del cliente, reproducir el journal es idempotente:
+ * si el programa se cae entre el checkpoint y el borrado de segmentos, volver a aplicarlos no cambia nada.
+ */
+public class JournalClientes implements RegistroCambios, Closeable {
+
+    private static final char TIPO_GUARDADO = 'G';
+    private static final char TIPO_ELIMINADO = 'E';
+
+    private final Path archivo;
+    private FileChannel canal;
+    private final StringBuilder pendiente = new StringBuilder();
+    private int entradas;
+    private long siguienteSegmento;
+
+    public JournalClientes(Path archivo) throws IOException {
+        this.archivo = archivo;
+        this.canal = abrirActivo();
+        List<Long> cerrados = segmentosCerrados();
+        this.siguienteSegmento = cerrados.isEmpty() ? 1 : cerrados.get(cerrados.size() - 1) + 1;
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * Cantidad de entradas escritas desde la última rotación.
+     */
+    public int getEntradas() {
+        return entradas;
+    }
+
+    /**
+     * Aplica sobre la lista los cambios registrados desde el último checkpoint: primero los
+     * segmentos cerrados en orden y después el segmento activo.
+     * Si la última línea de un segmento quedó incompleta (corte durante la escritura) se
+     * descarta y el archivo se trunca en la última entrada válida.
+     * @param clientes Los clientes cargados desde el checkpoint; se modifican en el lugar.
+     * @return La cantidad de entradas aplicadas.
+     */
+    public int reproducir(ClienteRepository clientes) throws IOException {
+        int aplicadas = 0;
+        for (long segmento : segmentosCerrados()) {
+            try (FileChannel cerrado = FileChannel.open(rutaSegmento(segmento), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                aplicadas += reproducir(cerrado, clientes);
+            }
+        }
+        aplicadas += reproducir(canal, clientes);
+        canal.position(canal.size());
+        entradas = aplicadas;
+        return aplicadas;
+    }
+
+    private static int reproducir(FileChannel origen, ClienteRepository clientes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) origen.size());
+        origen.position(0);
+        while (buffer.hasRemaining() && origen.read(buffer) >= 0) {
+            // Leer el segmento completo
+        }
+        byte[] contenido = buffer.array();
+        int inicio = 0;
+        int aplicadas = 0;
+        while (inicio < contenido.length) {
+            int fin = inicio;
+            while (fin < contenido.length && contenido[fin] != '\n') {
+                fin++;
+            }
+            if (fin == contenido.length) {
+                System.err.println("Advertencia: Entrada incompleta al final del journal, se descarta.");
+                break;
+            }
+            String linea = new String(contenido, inicio, fin - inicio, StandardCharsets.UTF_8);
+            try {
+                aplicar(linea, clientes);
+            } catch (RuntimeException e) {
+                System.err.println("Advertencia: Entrada inválida en el journal (" + e.getMessage() + "), se descarta el resto.");
+                break;
+            }
+            aplicadas++;
+            inicio = fin + 1;
+        }
+        if (inicio < contenido.length) {
+            origen.truncate(inicio);
+            origen.force(true);
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Registra los cambios de un comando recién ejecutado (o deshecho) con un único fsync.
+     */
+    public void registrar(Command comando, boolean deshecho) throws IOException {
+        comando.registrarCambios(this, deshecho);
+        confirmar();
+    }
+
+    @Override
+    public void clienteGuardado(Cliente cliente, int posicion) {
+        String[] campos = {
+                String.valueOf(posicion),
+                cliente.getNombre(),
+                cliente.getApellido(),
+                cliente.getDni(),
+                cliente.getTipoCuota(),
+                cliente.getProducto(),
+                String.valueOf(cliente.getTotalProducto()),
+                String.valueOf(cliente.getAdelantoAcumulado()),
+                CuotasJson.serializar(cliente.getCuotas())
+        };
+        agregarEntrada(TIPO_GUARDADO, campos);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente) {
+        agregarEntrada(TIPO_ELIMINADO, new String[]{cliente.getDni()});
+    }
+
+    /**
+     * Escribe en disco las entradas pendientes y espera a que queden persistidas.
+     */
+    public void confirmar() throws IOException {
+        if (pendiente.length() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pendiente.toString().getBytes(StandardCharsets.UTF_8));
+        pendiente.setLength(0);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        canal.force(false);
+    }
+
+    /**
+     * Cierra el segmento activo y abre uno nuevo. Se llama al tomar la instantánea de un
+     * checkpoint: lo que se registre después queda en el segmento nuevo.
+     * @return El número del último segmento cerrado, para pasarlo a {@link #descartarHasta(long)}
+     *         cuando el checkpoint quede escrito.
+     */
+    public synchronized long rotar() throws IOException {
+        confirmar();
+        entradas = 0;
+        if (canal.size() == 0) {
+            return siguienteSegmento - 1;
+        }
+        long segmento = siguienteSegmento++;
+        canal.close();
+        Files.move(archivo, rutaSegmento(segmento), StandardCopyOption.ATOMIC_MOVE);
+        canal = abrirActivo();
+        return segmento;
+    }
+
+    /**
+     * Borra los segmentos cerrados hasta el indicado (inclusive), cuyos cambios ya están en
+     * un checkpoint escrito. Puede llamarse desde el hilo de persistencia.
+     */
+    public synchronized void descartarHasta(long segmento) throws IOException {
+        for (long cerrado : segmentosCerrados()) {
+            if (cerrado <= segmento) {
+                Files.deleteIfExists(rutaSegmento(cerrado));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private FileChannel abrirActivo() throws IOException {
+        return FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+    private Path rutaSegmento(long segmento) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + segmento);
+    }
+
+    // Números de los segmentos cerrados existentes, de menor a mayor
+    private List<Long> segmentosCerrados() throws IOException {
+        String prefijo = archivo.getFileName() + ".";
+        List<Long> segmentos = new ArrayList<>();
+        Path directorio = archivo.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, prefijo + "*")) {
+            for (Path p : archivos) {
+                String sufijo = p.getFileName().toString().substring(prefijo.length());
+                try {
+                    segmentos.add(Long.parseLong(sufijo));
+                } catch (NumberFormatException e) {
+                    // No es un segmento del journal
+                }
+            }
+        }
+        Collections.sort(segmentos);
+        return segmentos;
+    }
+
+    private void agregarEntrada(char tipo, String[] campos) {
+        StringBuilder cuerpo = new StringBuilder();
+        cuerpo.append(tipo);
+        for (String campo : campos) {
+            cuerpo.append('\t');
+            escapar(campo, cuerpo);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(cuerpo.toString().getBytes(StandardCharsets.UTF_8));
+        pendiente.append(Long.toHexString(crc.getValue())).append('\t').append(cuerpo).append('\n');
+        entradas++;
+    }
+
+    private static void aplicar(String linea, ClienteRepository clientes) {
+        int tab = linea.indexOf('\t');
+        if (tab < 0) {
+            throw new IllegalArgumentException("sin CRC");
+        }
+        String cuerpo = linea.substring(tab + 1);
+        CRC32 crc = new CRC32();
+        crc.update(cuerpo.getBytes(StandardCharsets.UTF_8));
+        if (crc.getValue() != Long.parseLong(linea.substring(0, tab), 16)) {
+            throw new IllegalArgumentException("CRC incorrecto");
+        }
+
+        String[] campos = cuerpo.split("\t", -1);
+        for (int i = 1; i < campos.length; i++) {
+            campos[i] = desescapar(campos[i]);
+        }
+        char tipo = campos[0].charAt(0);
+        if (tipo == TIPO_ELIMINADO) {
+            Cliente existente = clientes.buscarPorDni(campos[1]);
+            if (existente != null) {
+                clientes.eliminar(existente);
+            }
+        } else if (tipo == TIPO_GUARDADO) {
+            int posicion = Integer.parseInt(campos[1]);
+            Cliente cliente = new Cliente(campos[2], campos[3], campos[4], campos[5], campos[6],
+                    Double.parseDouble(campos[7]), CuotasJson.parsear(campos[9]), Double.parseDouble(campos[8]));
+            clientes.reemplazarOAgregar(cliente, posicion);
+        } else {
+            throw new IllegalArgumentException("tipo desconocido " + tipo);
+        }
+    }
+
+    private static void escapar(String valor, StringBuilder destino) {
+        if (valor == null) {
+            return;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\': destino.append("\\\\"); break;
+                case '\t': destino.append("\\t"); break;
+                case '\n': destino.append("\\n"); break;
+                case '\r': destino.append("\\r"); break;
+                default: destino.append(c);
+            }
+        }
+    }
+
+    private static String desescapar(String valor) {
+        if (valor.indexOf('\\') < 0) {
+            return valor;
+        }
+        StringBuilder resultado = new StringBuilder(valor.length());
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '\\' && i + 1 < valor.length()) {
+                char siguiente = valor.charAt(++i);
+                switch (siguiente) {
+                    case 't': resultado.append('\t'); break;
+                    case 'n': resultado.append('\n'); break;
+                    case 'r': resultado.append('\r'); break;
+                    default: resultado.append(siguiente);
+                }
+            } else {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.inventario.persistence;
+
+import com.inventario.models.CambiosCuotas;
+import com.inventario.models.Cliente;
+
+// Receptor de los cambios que produce un comando sobre los clientes.
+// La persistencia lo implementa para guardar solo lo que cambió en lugar del archivo completo.
+public interface RegistroCambios {
+    /**
+     * El cliente fue agregado o modificado; se debe guardar su estado completo actual.
+     * @param cliente El cliente con su estado actual.
+     * @param posicion La posición en la lista donde se reinsertó, o -1 si se agregó al final
+     *                 o se modificó en su lugar.
+     */
+    void clienteGuardado(Cliente cliente, int posicion);
+
+    /**
+     * El cliente fue eliminado de la lista.
+     */
+    void clienteEliminado(Cliente cliente);
+
+    /**
+     * Un pago (o su deshacer) cambió, en su lugar, el monto pagado y la fecha de pago de las
+     * cuotas anotadas en 'cambios' y el adelanto acumulado del cliente. Un registro que guarda
+     * las cuotas por separado puede escribir solo esas; por defecto se guarda el cliente completo.
+     */
+    default void pagoAplicado(Cliente cliente, CambiosCuotas cambios) {
+        clienteGuardado(cliente, -1);
+    }
+}
@@ -0,0 +1,556 @@
+package com.inventario.persistence;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot binario de todos los clientes con sus cuotas: es el archivo principal de
+ * persistencia (clientes.dat). El libro Excel queda solo para exportar y para migrar una vez
+ * los datos existentes.
+ *
+ * Formato (versión 1, enteros fijos big-endian; "var" es un entero de largo variable de 7 bits
+ * por byte, y "zz" uno con signo en zigzag):
+ * <pre>
+ * encabezado: int MAGIA, short versión, short 0, int cantidad de clientes
+ * cliente:    nombre, apellido, DNI, tipo de cuota y producto (var 0 si es null o largo + 1, y los bytes UTF-8)
+ *             importe total del producto, importe adelanto acumulado
+ *             byte CRONOGRAMA: byte período (0 sin vencimientos, 1 mensual, 2 quincenal), int inicio, importe valor, var cantidad
+ *             o byte COLUMNAS: var n y las columnas de a una: n zz número (diferencia con el anterior),
+ *                              n importe original, n importe pagado, n fecha vencimiento, n fecha de pago,
+ *                              (n + 7) / 8 bytes con los bits de faltante
+ * importe:    var (zz centavos) * 2 si el monto es exacto en centavos, o var 1 y el double
+ * fecha:      var 0 si es SIN_FECHA, o zz diferencia en días con la fecha anterior de la misma columna + 1
+ * cierre:     int CRC32C de todo lo anterior, int MAGIA_FIN
+ * </pre>
+ * Un cronograma que todavía no tuvo pagos se guarda con sus cuatro parámetros y se vuelve a
+ * cargar implícito; el resto, con las mismas columnas que {@link CuotasColumnares} tiene en
+ * memoria. Las columnas de una cuota típica ocupan unos 8 bytes en lugar de 29.
+ *
+ * Se lee y se escribe por un FileChannel con un buffer directo. La escritura es atómica y con
+ * copias de respaldo ({@link ArchivoAtomico}); la lectura verifica el CRC antes de devolver nada.
+ */
+public final class SnapshotClientes {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIA = 0x47434C53;     // "GCLS"
+    private static final int MAGIA_FIN = 0x46494E31; // "FIN1"
+    private static final int LARGO_ENCABEZADO = 12;
+    private static final int LARGO_CIERRE = 8;
+    private static final byte CRONOGRAMA = 0;
+    private static final byte COLUMNAS = 1;
+    // Lo mínimo que ocupa una cuota en columnas: un byte por número, importes y fechas
+    private static final int BYTES_MINIMOS_POR_CUOTA = 5;
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    private SnapshotClientes() {
+    }
+
+    /**
+     * Escribe el snapshot de forma atómica, conservando 'copiasRespaldo' versiones anteriores.
+     */
+    public static void escribir(List<Cliente> clientes, Path destino, int copiasRespaldo) throws IOException {
+        ArchivoAtomico.escribirCanal(destino, copiasRespaldo, canal -> {
+            Escritor out = new Escritor(canal);
+            out.putInt(MAGIA);
+            out.putShort((short) VERSION);
+            out.putShort((short) 0);
+            out.putInt(clientes.size());
+            for (Cliente cliente : clientes) {
+                escribirCliente(cliente, out);
+            }
+            out.cerrar();
+        });
+    }
+
+    /**
+     * Escribe un snapshot combinando clientes ya copiados con los de un snapshot anterior: en cada
+     * posición va copias[i] si no es null o, si no, el cliente con DNI dnis[i] tal como está en
+     * 'base'. La base se recorre una sola vez hacia adelante, así que esos DNI tienen que estar en
+     * el mismo orden relativo en que la base los tiene; los clientes de la base que no se piden
+     * (eliminados o cambiados después) se saltean. La base se lee hasta el final para verificar su CRC.
+     * @param base El snapshot anterior, o null si todas las posiciones traen su copia.
+     * @throws IOException Si la base no se puede leer, está dañada o le falta alguno de los DNI.
+     */
+    public static void escribir(Path base, String[] dnis, Cliente[] copias, Path destino, int copiasRespaldo) throws IOException {
+        ArchivoAtomico.escribirCanal(destino, copiasRespaldo, canal -> {
+            FileChannel canalBase = base != null ? FileChannel.open(base, StandardOpenOption.READ) : null;
+            try {
+                Lector in = canalBase != null ? new Lector(canalBase) : null;
+                int restantes = in != null ? leerEncabezado(in, base) : 0;
+                Escritor out = new Escritor(canal);
+                out.putInt(MAGIA);
+                out.putShort((short) VERSION);
+                out.putShort((short) 0);
+                out.putInt(copias.length);
+                for (int i = 0; i < copias.length; i++) {
+                    if (copias[i] != null) {
+                        escribirCliente(copias[i], out);
+                        continue;
+                    }
+                    Cliente deBase = null;
+                    while (deBase == null) {
+                        if (restantes == 0) {
+                            throw new IOException("El cliente con DNI " + dnis[i] + " no está en " + base + " en el orden esperado");
+                        }
+                        Cliente leido = leerCliente(in);
+                        restantes--;
+                        if (leido.getDni() != null && leido.getDni().equals(dnis[i])) {
+                            deBase = leido;
+                        }
+                    }
+                    escribirCliente(deBase, out);
+                }
+                if (in != null) {
+                    for (; restantes > 0; restantes--) {
+                        leerCliente(in);
+                    }
+                    verificarCierre(in, base);
+                }
+                out.cerrar();
+            } catch (RuntimeException e) {
+                throw new IOException("El snapshot " + base + " está dañado: " + e.getMessage(), e);
+            } finally {
+                if (canalBase != null) {
+                    canalBase.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lee todos los clientes del snapshot.
+     * @throws IOException Si no se puede leer, no es un snapshot, es de una versión posterior o
+     *                     está truncado o dañado (CRC distinto).
+     */
+    public static List<Cliente> leer(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            Lector in = new Lector(canal);
+            int cantidad = leerEncabezado(in, archivo);
+            List<Cliente> clientes = new ArrayList<>(Math.min(cantidad, 1 << 20));
+            for (int i = 0; i < cantidad; i++) {
+                clientes.add(leerCliente(in));
+            }
+            verificarCierre(in, archivo);
+            return clientes;
+        } catch (RuntimeException e) {
+            // Largos o fechas absurdos en un archivo dañado que igual pasó los controles de rango
+            throw new IOException("El snapshot " + archivo + " está dañado: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Verificación liviana para elegir entre el archivo y sus copias de respaldo: revisa el
+     * encabezado y el cierre sin leer los clientes (el CRC se verifica al cargarlo).
+     */
+    public static boolean esArchivoValido(Path archivo) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long largo = canal.size();
+            if (largo < LARGO_ENCABEZADO + LARGO_CIERRE) {
+                return false;
+            }
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO);
+            ByteBuffer cierre = ByteBuffer.allocate(LARGO_CIERRE);
+            leerCompleto(canal, encabezado, 0);
+            leerCompleto(canal, cierre, largo - LARGO_CIERRE);
+            return encabezado.getInt(0) == MAGIA && encabezado.getShort(4) <= VERSION && cierre.getInt(4) == MAGIA_FIN;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Verifica el encabezado y devuelve la cantidad de clientes
+    private static int leerEncabezado(Lector in, Path archivo) throws IOException {
+        if (in.getInt() != MAGIA) {
+            throw new IOException(archivo + " no es un snapshot de clientes");
+        }
+        int version = in.getShort();
+        in.getShort();
+        if (version > VERSION) {
+            throw new IOException("El snapshot " + archivo + " es de la versión " + version + " (se admite hasta la " + VERSION + ")");
+        }
+        int cantidad = in.getInt();
+        if (cantidad < 0) {
+            throw new IOException("Cantidad de clientes inválida en " + archivo + ": " + cantidad);
+        }
+        return cantidad;
+    }
+
+    private static void verificarCierre(Lector in, Path archivo) throws IOException {
+        int crc = in.crcHastaAca();
+        if (in.getInt() != crc || in.getInt() != MAGIA_FIN) {
+            throw new IOException("El snapshot " + archivo + " está dañado (CRC o cierre inválido)");
+        }
+    }
+
+    private static void escribirCliente(Cliente cliente, Escritor out) throws IOException {
+        out.putTexto(cliente.getNombre());
+        out.putTexto(cliente.getApellido());
+        out.putTexto(cliente.getDni());
+        out.putTexto(cliente.getTipoCuota());
+        out.putTexto(cliente.getProducto());
+        out.putImporte(cliente.getTotalProducto());
+        out.putImporte(cliente.getAdelantoAcumulado());
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        int n = cuotas.size();
+        if (cuotas.esImplicito()) {
+            String tipo = cuotas.tipoImplicito();
+            out.put(CRONOGRAMA);
+            out.put((byte) ("mensual".equals(tipo) ? 1 : "quincenal".equals(tipo) ? 2 : 0));
+            out.putInt((int) cuotas.inicioImplicito());
+            out.putImporte(cuotas.valorImplicito());
+            out.putVar(n);
+            return;
+        }
+        out.put(COLUMNAS);
+        out.putVar(n);
+        int anterior = 0;
+        for (int i = 0; i < n; i++) {
+            out.putZigZag((long) cuotas.numero(i) - anterior);
+            anterior = cuotas.numero(i);
+        }
+        for (int i = 0; i < n; i++) {
+            out.putImporte(cuotas.original(i));
+        }
+        for (int i = 0; i < n; i++) {
+            out.putImporte(cuotas.pagado(i));
+        }
+        anterior = 0;
+        for (int i = 0; i < n; i++) {
+            anterior = out.putFecha(cuotas.vencimientoEpoch(i), anterior);
+        }
+        anterior = 0;
+        for (int i = 0; i < n; i++) {
+            anterior = out.putFecha(cuotas.fechaPagoEpoch(i), anterior);
+        }
+        for (int i = 0; i < n; i += 8) {
+            int bits = 0;
+            for (int j = i; j < Math.min(n, i + 8); j++) {
+                bits |= (cuotas.faltante(j) ? 1 : 0) << (j - i);
+            }
+            out.put((byte) bits);
+        }
+    }
+
+    private static Cliente leerCliente(Lector in) throws IOException {
+        String nombre = in.getTexto();
+        String apellido = in.getTexto();
+        String dni = in.getTexto();
+        String tipoCuota = in.getTexto();
+        String producto = in.getTexto();
+        double totalProducto = in.getImporte();
+        double adelanto = in.getImporte();
+        byte forma = in.get();
+        CuotasColumnares cuotas;
+        if (forma == CRONOGRAMA) {
+            byte periodo = in.get();
+            int inicio = in.getInt();
+            double valor = in.getImporte();
+            int n = in.getCantidad(0);
+            String tipo = periodo == 1 ? "mensual" : periodo == 2 ? "quincenal" : null;
+            cuotas = CuotasColumnares.cronograma(tipo, LocalDate.ofEpochDay(inicio), n, valor);
+        } else if (forma == COLUMNAS) {
+            int n = in.getCantidad(BYTES_MINIMOS_POR_CUOTA);
+            int[] numero = new int[n];
+            double[] original = new double[n];
+            double[] pagado = new double[n];
+            int[] vencimiento = new int[n];
+            int[] fechaPago = new int[n];
+            boolean[] faltante = new boolean[n];
+            int anterior = 0;
+            for (int i = 0; i < n; i++) {
+                anterior = numero[i] = Math.toIntExact(anterior + in.getZigZag());
+            }
+            for (int i = 0; i < n; i++) {
+                original[i] = in.getImporte();
+            }
+            for (int i = 0; i < n; i++) {
+                pagado[i] = in.getImporte();
+            }
+            anterior = 0;
+            for (int i = 0; i < n; i++) {
+                vencimiento[i] = in.getFecha(anterior);
+                anterior = vencimiento[i] == CuotasColumnares.SIN_FECHA ? anterior : vencimiento[i];
+            }
+            anterior = 0;
+            for (int i = 0; i < n; i++) {
+                fechaPago[i] = in.getFecha(anterior);
+                anterior = fechaPago[i] == CuotasColumnares.SIN_FECHA ? anterior : fechaPago[i];
+            }
+            for (int i = 0; i < n; i += 8) {
+                int bits = in.get();
+                for (int j = i; j < Math.min(n, i + 8); j++) {
+                    faltante[j] = (bits >> (j - i) & 1) != 0;
+                }
+            }
+            cuotas = CuotasColumnares.deColumnas(n, numero, original, pagado, vencimiento, fechaPago, faltante);
+        } else {
+            throw new IOException("Tipo de cuotas desconocido en el snapshot: " + forma);
+        }
+        return new Cliente(nombre, apellido, dni, tipoCuota, producto, totalProducto, cuotas, adelanto);
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion + destino.position());
+            if (leidos < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    // Escribe a través de un buffer directo y calcula el CRC de lo que pasa al canal
+    private static final class Escritor {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private final CRC32C crc = new CRC32C();
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void put(byte valor) throws IOException {
+            asegurar(1);
+            buffer.put(valor);
+        }
+
+        void putShort(short valor) throws IOException {
+            asegurar(2);
+            buffer.putShort(valor);
+        }
+
+        void putInt(int valor) throws IOException {
+            asegurar(4);
+            buffer.putInt(valor);
+        }
+
+        void putDouble(double valor) throws IOException {
+            asegurar(8);
+            buffer.putDouble(valor);
+        }
+
+        void putVar(long valor) throws IOException {
+            asegurar(10);
+            while ((valor & ~0x7FL) != 0) {
+                buffer.put((byte) (valor & 0x7F | 0x80));
+                valor >>>= 7;
+            }
+            buffer.put((byte) valor);
+        }
+
+        void putZigZag(long valor) throws IOException {
+            putVar(valor << 1 ^ valor >> 63);
+        }
+
+        // Centavos si el monto se reconstruye idéntico al dividirlos por 100; si no, el double tal cual
+        void putImporte(double valor) throws IOException {
+            long centavos = Math.round(valor * 100);
+            if (Math.abs(centavos) < 1L << 60
+                    && Double.doubleToRawLongBits(centavos / 100.0) == Double.doubleToRawLongBits(valor)) {
+                putVar((centavos << 1 ^ centavos >> 63) << 1);
+            } else {
+                putVar(1);
+                putDouble(valor);
+            }
+        }
+
+        // Devuelve la fecha contra la que se calcula la diferencia de la siguiente
+        int putFecha(int dia, int anterior) throws IOException {
+            if (dia == CuotasColumnares.SIN_FECHA) {
+                putVar(0);
+                return anterior;
+            }
+            putVar((((long) dia - anterior) << 1 ^ ((long) dia - anterior) >> 63) + 1);
+            return dia;
+        }
+
+        void putTexto(String texto) throws IOException {
+            if (texto == null) {
+                putVar(0);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            putVar(bytes.length + 1L);
+            int escritos = 0;
+            while (escritos < bytes.length) {
+                asegurar(1);
+                int parte = Math.min(buffer.remaining(), bytes.length - escritos);
+                buffer.put(bytes, escritos, parte);
+                escritos += parte;
+            }
+        }
+
+        // Vacía lo pendiente y escribe el cierre (que no entra en el CRC)
+        void cerrar() throws IOException {
+            vaciar();
+            buffer.putInt((int) crc.getValue());
+            buffer.putInt(MAGIA_FIN);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                vaciar();
+            }
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Lee a través de un buffer directo y calcula el CRC de lo que se va consumiendo
+    private static final class Lector {
+        private final FileChannel canal;
+        private final long largo;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private final CRC32C crc = new CRC32C();
+        private long leidos;  // Bytes pasados del canal al buffer
+        private int marca;    // Posición del buffer hasta la que ya se sumó al CRC
+
+        Lector(FileChannel canal) throws IOException {
+            this.canal = canal;
+            this.largo = canal.size();
+            buffer.limit(0);
+        }
+
+        byte get() throws IOException {
+            asegurar(1);
+            return buffer.get();
+        }
+
+        short getShort() throws IOException {
+            asegurar(2);
+            return buffer.getShort();
+        }
+
+        int getInt() throws IOException {
+            asegurar(4);
+            return buffer.getInt();
+        }
+
+        double getDouble() throws IOException {
+            asegurar(8);
+            return buffer.getDouble();
+        }
+
+        long getVar() throws IOException {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                byte b = get();
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if (b >= 0) {
+                    return valor;
+                }
+            }
+            throw new IOException("Entero de largo variable inválido en el snapshot");
+        }
+
+        long getZigZag() throws IOException {
+            long valor = getVar();
+            return valor >>> 1 ^ -(valor & 1);
+        }
+
+        double getImporte() throws IOException {
+            long valor = getVar();
+            if ((valor & 1) != 0) {
+                return getDouble();
+            }
+            valor >>>= 1;
+            return (valor >>> 1 ^ -(valor & 1)) / 100.0;
+        }
+
+        int getFecha(int anterior) throws IOException {
+            long valor = getVar();
+            if (valor == 0) {
+                return CuotasColumnares.SIN_FECHA;
+            }
+            valor--;
+            return Math.toIntExact(anterior + (valor >>> 1 ^ -(valor & 1)));
+        }
+
+        // Una cantidad de elementos de al menos 'bytesPorElemento' cada uno, acotada por lo que
+        // queda del archivo para no reservar de más si está dañado
+        int getCantidad(int bytesPorElemento) throws IOException {
+            long n = getVar();
+            if (n < 0 || n > Integer.MAX_VALUE || n * bytesPorElemento > largo - posicion()) {
+                throw new IOException("Cantidad inválida en el snapshot: " + n);
+            }
+            return (int) n;
+        }
+
+        String getTexto() throws IOException {
+            long largoMasUno = getVar();
+            if (largoMasUno == 0) {
+                return null;
+            }
+            if (largoMasUno < 0 || largoMasUno - 1 > largo - posicion()) {
+                throw new IOException("Largo de texto inválido en el snapshot: " + (largoMasUno - 1));
+            }
+            int n = (int) (largoMasUno - 1);
+            byte[] bytes = new byte[n];
+            int copiados = 0;
+            while (copiados < n) {
+                asegurar(1);
+                int parte = Math.min(buffer.remaining(), n - copiados);
+                buffer.get(bytes, copiados, parte);
+                copiados += parte;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int crcHastaAca() {
+            sumarAlCrc();
+            return (int) crc.getValue();
+        }
+
+        private long posicion() {
+            return leidos - buffer.remaining();
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            sumarAlCrc();
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                int n = canal.read(buffer);
+                if (n < 0) {
+                    throw new EOFException("El snapshot está truncado");
+                }
+                leidos += n;
+            }
+            buffer.flip();
+            marca = 0;
+        }
+
+        private void sumarAlCrc() {
+            ByteBuffer consumido = buffer.duplicate();
+            consumido.limit(buffer.position()).position(marca);
+            crc.update(consumido);
+            marca = buffer.position();
+        }
+    }
+}
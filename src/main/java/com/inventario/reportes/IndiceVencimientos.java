@@ -0,0 +1,284 @@
+package com.inventario.reportes;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Índice de próximos vencimientos de la cartera: cada cliente con cuotas impagas figura con la
+ * fecha de su primera cuota impaga (la que sigue en el orden de pago, o sea la más atrasada).
+ * Los clientes se guardan en un conjunto ordenado por esa fecha, así que "qué está atrasado" o
+ * "quién entró en atraso ayer" es un rango del conjunto: la consulta cuesta O(log n + k) para k
+ * resultados, sin recorrer las cuotas de toda la cartera.
+ *
+ * Un cliente atrasado también puede tener una cuota que vence hoy o en los próximos días. Por eso
+ * los que están atrasados al día de referencia ({@link #alDia(LocalDate)}) tienen una segunda
+ * entrada, en otro conjunto, con su primera cuota impaga que vence ese día o después; "qué vence
+ * en los próximos N días" junta los rangos de los dos conjuntos. Al cambiar el día solo se
+ * vuelven a ubicar los clientes cuyas entradas quedaron antes del día nuevo.
+ *
+ * Se registra como oyente del repositorio y con cada pago, deshacer, alta, baja o reemplazo
+ * vuelve a ubicar solo al cliente afectado. Igual que el repositorio, se usa solo desde el EDT.
+ */
+public class IndiceVencimientos implements OyenteRepositorio {
+
+    /**
+     * La cuota impaga de un cliente por la que aparece en una consulta.
+     */
+    public record Alerta(Cliente cliente, LocalDate vencimiento, int numeroCuota, double restante) {
+    }
+
+    // Posición de un cliente en el índice; 'orden' desempata clientes con la misma fecha
+    private record Entrada(int dia, long orden, Cliente cliente) {
+    }
+
+    private static final Comparator<Entrada> POR_FECHA = Comparator.comparingInt(Entrada::dia).thenComparingLong(Entrada::orden);
+
+    private final NavigableSet<Entrada> porFecha = new TreeSet<>(POR_FECHA);
+    private final Map<Cliente, Entrada> entradas = new IdentityHashMap<>();
+    // Solo los clientes atrasados al día de referencia: su primera cuota impaga desde ese día
+    private final NavigableSet<Entrada> proximas = new TreeSet<>(POR_FECHA);
+    private final Map<Cliente, Entrada> entradasProximas = new IdentityHashMap<>();
+    private long siguienteOrden;
+    private int hoy;
+
+    private IndiceVencimientos(LocalDate hoy) {
+        this.hoy = dia(hoy);
+    }
+
+    /**
+     * Crea el índice con los clientes actuales del repositorio y lo mantiene actualizado,
+     * tomando el día de hoy como referencia.
+     */
+    public static IndiceVencimientos sobre(ClienteRepository repositorio) {
+        return sobre(repositorio, LocalDate.now());
+    }
+
+    /**
+     * Igual que {@link #sobre(ClienteRepository)} con otro día de referencia.
+     */
+    public static IndiceVencimientos sobre(ClienteRepository repositorio, LocalDate hoy) {
+        IndiceVencimientos indice = new IndiceVencimientos(hoy);
+        for (Cliente cliente : repositorio.getClientes()) {
+            indice.actualizar(cliente);
+        }
+        repositorio.agregarOyente(indice);
+        return indice;
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        actualizar(cliente);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        quitar(cliente);
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        quitar(anterior);
+        actualizar(nuevo);
+    }
+
+    @Override
+    public void clienteModificado(Cliente cliente, int indice) {
+        actualizar(cliente);
+    }
+
+    /**
+     * Cantidad de clientes con alguna cuota impaga con fecha de vencimiento.
+     */
+    public int size() {
+        return porFecha.size();
+    }
+
+    /**
+     * Clientes cuya próxima cuota impaga vence entre las dos fechas (ambas incluidas), de la
+     * fecha más vieja a la más nueva; como máximo 'limite'.
+     */
+    public List<Alerta> entre(LocalDate desde, LocalDate hasta, int limite) {
+        List<Alerta> alertas = new ArrayList<>();
+        if (hasta.isBefore(desde)) {
+            return alertas;
+        }
+        NavigableSet<Entrada> rango = porFecha.subSet(
+                new Entrada(dia(desde), Long.MIN_VALUE, null), true, new Entrada(dia(hasta), Long.MAX_VALUE, null), true);
+        for (Entrada entrada : rango) {
+            if (alertas.size() >= limite) {
+                break;
+            }
+            alertas.add(alerta(entrada.cliente()));
+        }
+        return alertas;
+    }
+
+    /**
+     * Cambia el día de referencia (por ejemplo, pasada la medianoche). Vuelve a ubicar solo a los
+     * clientes cuyas entradas vencen antes del día nuevo; volver a un día anterior recalcula a
+     * todos los atrasados.
+     */
+    public void alDia(LocalDate fecha) {
+        int nuevo = dia(fecha);
+        if (nuevo == hoy) {
+            return;
+        }
+        List<Cliente> afectados = new ArrayList<>();
+        if (nuevo > hoy) {
+            // Los que ya estaban atrasados y los que se atrasan entre los dos días
+            for (Entrada entrada : proximas.headSet(limite(nuevo), false)) {
+                afectados.add(entrada.cliente());
+            }
+            for (Entrada entrada : porFecha.subSet(limite(hoy), true, limite(nuevo), false)) {
+                afectados.add(entrada.cliente());
+            }
+        } else {
+            for (Entrada entrada : porFecha.headSet(limite(hoy), false)) {
+                afectados.add(entrada.cliente());
+            }
+        }
+        hoy = nuevo;
+        for (Cliente cliente : afectados) {
+            actualizar(cliente);
+        }
+    }
+
+    /**
+     * Clientes con una cuota impaga que vence entre las dos fechas (ambas incluidas), estén o no
+     * atrasados: de cada uno cuenta su primera cuota impaga desde el día de referencia. Van de la
+     * fecha más vieja a la más nueva; como máximo 'limite'.
+     * @throws IllegalArgumentException Si 'desde' es anterior al día de referencia.
+     */
+    public List<Alerta> vencenEntre(LocalDate desde, LocalDate hasta, int limite) {
+        if (dia(desde) < hoy) {
+            throw new IllegalArgumentException("La fecha " + desde + " es anterior al día de referencia del índice");
+        }
+        List<Alerta> alertas = new ArrayList<>();
+        if (hasta.isBefore(desde)) {
+            return alertas;
+        }
+        // Los dos conjuntos no comparten clientes en este rango: se mezclan por fecha
+        Iterator<Entrada> alDia = porFecha.subSet(limite(dia(desde)), true, new Entrada(dia(hasta), Long.MAX_VALUE, null), true).iterator();
+        Iterator<Entrada> atrasados = proximas.subSet(limite(dia(desde)), true, new Entrada(dia(hasta), Long.MAX_VALUE, null), true).iterator();
+        Entrada a = alDia.hasNext() ? alDia.next() : null;
+        Entrada b = atrasados.hasNext() ? atrasados.next() : null;
+        while (alertas.size() < limite && (a != null || b != null)) {
+            if (b == null || (a != null && POR_FECHA.compare(a, b) <= 0)) {
+                alertas.add(alerta(a.cliente()));
+                a = alDia.hasNext() ? alDia.next() : null;
+            } else {
+                alertas.add(alertaDesde(b.cliente(), hoy));
+                b = atrasados.hasNext() ? atrasados.next() : null;
+            }
+        }
+        return alertas;
+    }
+
+    /**
+     * Clientes con alguna cuota vencida antes de la fecha, del atraso más viejo al más nuevo;
+     * como máximo 'limite'.
+     */
+    public List<Alerta> atrasadosAl(LocalDate fecha, int limite) {
+        List<Alerta> alertas = new ArrayList<>();
+        for (Entrada entrada : porFecha.headSet(limite(dia(fecha)), false)) {
+            if (alertas.size() >= limite) {
+                break;
+            }
+            alertas.add(alerta(entrada.cliente()));
+        }
+        return alertas;
+    }
+
+    private void actualizar(Cliente cliente) {
+        int dia = proximoVencimiento(cliente);
+        ubicar(porFecha, entradas, cliente, dia);
+        int proxima = dia != CuotasColumnares.SIN_FECHA && dia < hoy ? vencimientoDesde(cliente, hoy) : CuotasColumnares.SIN_FECHA;
+        ubicar(proximas, entradasProximas, cliente, proxima);
+    }
+
+    private void ubicar(NavigableSet<Entrada> conjunto, Map<Cliente, Entrada> porCliente, Cliente cliente, int dia) {
+        Entrada anterior = porCliente.get(cliente);
+        if (anterior != null) {
+            if (anterior.dia() == dia) {
+                return;
+            }
+            conjunto.remove(anterior);
+            porCliente.remove(cliente);
+        }
+        if (dia != CuotasColumnares.SIN_FECHA) {
+            Entrada entrada = new Entrada(dia, siguienteOrden++, cliente);
+            conjunto.add(entrada);
+            porCliente.put(cliente, entrada);
+        }
+    }
+
+    private void quitar(Cliente cliente) {
+        Entrada anterior = entradas.remove(cliente);
+        if (anterior != null) {
+            porFecha.remove(anterior);
+        }
+        anterior = entradasProximas.remove(cliente);
+        if (anterior != null) {
+            proximas.remove(anterior);
+        }
+    }
+
+    // Primera entrada posible del día, para los límites de los rangos
+    private static Entrada limite(int dia) {
+        return new Entrada(dia, Long.MIN_VALUE, null);
+    }
+
+    // Vencimiento de la primera cuota impaga, o SIN_FECHA si no hay (las sin fecha van al final del orden)
+    private static int proximoVencimiento(Cliente cliente) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        int posicion = cuotas.primeraImpaga();
+        return posicion < 0 ? CuotasColumnares.SIN_FECHA : cuotas.vencimientoEpoch(cuotas.indiceEnOrden(posicion));
+    }
+
+    // Posición en el orden de pago de la primera cuota impaga que vence el día 'dia' o después, o -1
+    private static int impagaDesde(CuotasColumnares cuotas, int dia) {
+        int primera = cuotas.primeraImpaga();
+        if (primera < 0) {
+            return -1;
+        }
+        int posicion = cuotas.primeraQueVenceDesde(primera, dia);
+        if (posicion >= cuotas.size()) {
+            return -1;
+        }
+        return cuotas.pagada(cuotas.indiceEnOrden(posicion)) ? cuotas.siguienteImpaga(posicion) : posicion;
+    }
+
+    private static int vencimientoDesde(Cliente cliente, int dia) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        int posicion = impagaDesde(cuotas, dia);
+        return posicion < 0 ? CuotasColumnares.SIN_FECHA : cuotas.vencimientoEpoch(cuotas.indiceEnOrden(posicion));
+    }
+
+    private static Alerta alertaDesde(Cliente cliente, int dia) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        int indice = cuotas.indiceEnOrden(impagaDesde(cuotas, dia));
+        return new Alerta(cliente, cuotas.vencimiento(indice), cuotas.numero(indice), cuotas.restante(indice));
+    }
+
+    private static Alerta alerta(Cliente cliente) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        int indice = cuotas.indiceEnOrden(cuotas.primeraImpaga());
+        return new Alerta(cliente, cuotas.vencimiento(indice), cuotas.numero(indice), cuotas.restante(indice));
+    }
+
+    private static int dia(LocalDate fecha) {
+        return (int) Math.max(Integer.MIN_VALUE + 1L, Math.min(Integer.MAX_VALUE, fecha.toEpochDay()));
+    }
+}
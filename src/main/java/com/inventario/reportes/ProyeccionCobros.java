@@ -0,0 +1,217 @@
+package com.inventario.reportes;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cobros esperados por fecha: el saldo impago de cada cuota sumado en el día de su vencimiento,
+ * para proyectar cuánto se espera cobrar por día, semana o mes.
+ *
+ * Los montos se guardan en centavos en un árbol de Fenwick indexado por día (días desde 1970,
+ * desplazados al rango cubierto, que se agranda al doble cuando aparece una fecha fuera de él).
+ * El total de un rango de fechas sale de dos sumas prefijas, en tiempo logarítmico, sin recorrer
+ * la cartera.
+ *
+ * Se registra como oyente del repositorio. Las altas, bajas y reemplazos suman o restan todas las
+ * cuotas del cliente; cada cuota que cambia (un pago, su deshacer, una edición) llega con su
+ * vencimiento y saldo anteriores, así que se resta lo que aportaba y se suma su estado actual, sin
+ * guardar una copia de las cuotas ni recorrer las del cliente. Igual que el repositorio, se usa
+ * solo desde el EDT: la importación de pagos, que aplica los pagos en paralelo, avisa sus cambios
+ * recién al terminar y en el hilo que la ejecutó.
+ */
+public class ProyeccionCobros implements OyenteRepositorio {
+
+    public enum Agrupacion { DIA, SEMANA, MES }
+
+    /**
+     * Monto esperado entre dos fechas (ambas incluidas).
+     */
+    public record Periodo(LocalDate desde, LocalDate hasta, double monto) {
+    }
+
+    // Días que cubre el árbol al crearse (unos 11 años, centrados en la primera fecha)
+    private static final int CAPACIDAD_INICIAL = 4096;
+
+    private long[] arbol; // Fenwick con base 1 sobre porDia
+    private long[] porDia;
+    private int base;     // Día (epoch) de porDia[0]
+    private long sinFecha;
+    private long total;
+
+    /**
+     * Crea la proyección con los clientes actuales del repositorio y la mantiene actualizada.
+     */
+    public static ProyeccionCobros sobre(ClienteRepository repositorio) {
+        ProyeccionCobros proyeccion = new ProyeccionCobros();
+        for (Cliente cliente : repositorio.getClientes()) {
+            proyeccion.sumarCuotas(cliente.getCuotasColumnares(), 1);
+        }
+        repositorio.agregarOyente(proyeccion);
+        return proyeccion;
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        sumarCuotas(cliente.getCuotasColumnares(), 1);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        sumarCuotas(cliente.getCuotasColumnares(), -1);
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        sumarCuotas(anterior.getCuotasColumnares(), -1);
+        sumarCuotas(nuevo.getCuotasColumnares(), 1);
+    }
+
+    @Override
+    public void cuotaModificada(Cliente cliente, int indice, int vencimientoAntes, double restanteAntes) {
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        sumar(vencimientoAntes, -centavos(restanteAntes));
+        if (!cuotas.pagada(indice)) {
+            sumar(cuotas.vencimientoEpoch(indice), centavos(cuotas.restante(indice)));
+        }
+    }
+
+    @Override
+    public void cuotasReemplazadas(Cliente cliente, CuotasColumnares anteriores) {
+        sumarCuotas(anteriores, -1);
+        sumarCuotas(cliente.getCuotasColumnares(), 1);
+    }
+
+    /**
+     * Monto esperado con vencimiento entre las dos fechas (ambas incluidas).
+     */
+    public double getMonto(LocalDate desde, LocalDate hasta) {
+        return (acumuladoAntesDe(hasta.toEpochDay() + 1) - acumuladoAntesDe(desde.toEpochDay())) / 100.0;
+    }
+
+    /**
+     * Saldo impago de las cuotas que vencieron antes de la fecha.
+     */
+    public double getVencidoAntesDe(LocalDate fecha) {
+        return acumuladoAntesDe(fecha.toEpochDay()) / 100.0;
+    }
+
+    /**
+     * Saldo impago de las cuotas sin fecha de vencimiento (no entran en ningún período).
+     */
+    public double getSinFecha() {
+        return sinFecha / 100.0;
+    }
+
+    /**
+     * Saldo impago de toda la cartera.
+     */
+    public double getTotal() {
+        return total / 100.0;
+    }
+
+    /**
+     * Monto esperado por período entre las dos fechas. Las semanas van de lunes a domingo y los
+     * meses son calendario; el primer y el último período se recortan al rango pedido.
+     */
+    public List<Periodo> proyectar(LocalDate desde, LocalDate hasta, Agrupacion agrupacion) {
+        List<Periodo> periodos = new ArrayList<>();
+        LocalDate inicio = desde;
+        while (!inicio.isAfter(hasta)) {
+            LocalDate fin = switch (agrupacion) {
+                case DIA -> inicio;
+                case SEMANA -> inicio.with(DayOfWeek.SUNDAY);
+                case MES -> inicio.withDayOfMonth(inicio.lengthOfMonth());
+            };
+            if (fin.isAfter(hasta)) {
+                fin = hasta;
+            }
+            periodos.add(new Periodo(inicio, fin, getMonto(inicio, fin)));
+            inicio = fin.plusDays(1);
+        }
+        return periodos;
+    }
+
+    // Suma (signo 1) o resta (signo -1) el saldo impago de todas las cuotas
+    private void sumarCuotas(CuotasColumnares cuotas, int signo) {
+        for (int i = 0; i < cuotas.size(); i++) {
+            if (!cuotas.pagada(i)) {
+                sumar(cuotas.vencimientoEpoch(i), signo * centavos(cuotas.restante(i)));
+            }
+        }
+    }
+
+    // Como en la suma de cada cliente, cada saldo se redondea al centavo por separado
+    private static long centavos(double monto) {
+        return Math.round(monto * 100);
+    }
+
+    private void sumar(int dia, long centavos) {
+        if (centavos == 0) {
+            return;
+        }
+        total += centavos;
+        if (dia == CuotasColumnares.SIN_FECHA) {
+            sinFecha += centavos;
+            return;
+        }
+        asegurarRango(dia);
+        int posicion = dia - base;
+        porDia[posicion] += centavos;
+        for (int k = posicion + 1; k < arbol.length; k += k & -k) {
+            arbol[k] += centavos;
+        }
+    }
+
+    // Suma de los días anteriores a 'dia'
+    private long acumuladoAntesDe(long dia) {
+        if (arbol == null) {
+            return 0;
+        }
+        int posicion = (int) Math.min(Math.max(dia - base, 0), porDia.length);
+        long suma = 0;
+        for (int k = posicion; k > 0; k -= k & -k) {
+            suma += arbol[k];
+        }
+        return suma;
+    }
+
+    private void asegurarRango(int dia) {
+        if (arbol == null) {
+            base = dia - CAPACIDAD_INICIAL / 2;
+            porDia = new long[CAPACIDAD_INICIAL];
+            arbol = new long[CAPACIDAD_INICIAL + 1];
+            return;
+        }
+        if (dia >= base && dia - base < porDia.length) {
+            return;
+        }
+        long desde = Math.min(base, dia);
+        long hasta = Math.max((long) base + porDia.length, dia + 1L);
+        int capacidad = porDia.length;
+        while (capacidad < hasta - desde) {
+            capacidad *= 2;
+        }
+        // El espacio que sobra queda del lado hacia donde se agrandó
+        int nuevaBase = dia < base ? (int) (hasta - capacidad) : base;
+        long[] nuevosPorDia = new long[capacidad];
+        System.arraycopy(porDia, 0, nuevosPorDia, base - nuevaBase, porDia.length);
+        porDia = nuevosPorDia;
+        base = nuevaBase;
+        // Construcción del árbol en tiempo lineal
+        arbol = new long[capacidad + 1];
+        for (int i = 1; i <= capacidad; i++) {
+            arbol[i] += porDia[i - 1];
+            int padre = i + (i & -i);
+            if (padre <= capacidad) {
+                arbol[padre] += arbol[i];
+            }
+        }
+    }
+}
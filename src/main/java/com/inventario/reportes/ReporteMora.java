@@ -0,0 +1,332 @@
+package com.inventario.reportes;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.persistence.ArchivoAtomico;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reporte de mora de la cartera a una fecha de corte: el saldo impago de cada cuota se
+ * clasifica según los días transcurridos desde su vencimiento (al día, 1-30, 31-60, 61-90 y
+ * más de 90).
+ *
+ * El cálculo recorre los clientes con un fork-join que parte la lista en mitades y lee las
+ * cuotas directamente del almacén por columnas, sin crear objetos Cuota. Como el orden de pago
+ * ya tiene las cuotas por vencimiento, cada tramo es un rango de ese orden y solo se calculan
+ * unas pocas fechas por cliente. Cada cliente se procesa en un solo hilo; los totales y las
+ * filas se combinan al volver de cada mitad. La lista de clientes no debe modificarse durante
+ * el cálculo.
+ */
+public final class ReporteMora {
+
+    public enum Tramo {
+        AL_DIA("Al día"), DIAS_1_30("1-30 días"), DIAS_31_60("31-60 días"), DIAS_61_90("61-90 días"), MAS_DE_90("Más de 90 días");
+
+        private final String titulo;
+
+        Tramo(String titulo) {
+            this.titulo = titulo;
+        }
+
+        public String getTitulo() {
+            return titulo;
+        }
+
+        /**
+         * Tramo de una cuota que lleva 'dias' días vencida (0 o negativo: todavía no vence).
+         */
+        public static Tramo de(long dias) {
+            if (dias <= 0) {
+                return AL_DIA;
+            } else if (dias <= 30) {
+                return DIAS_1_30;
+            } else if (dias <= 60) {
+                return DIAS_31_60;
+            } else if (dias <= 90) {
+                return DIAS_61_90;
+            }
+            return MAS_DE_90;
+        }
+    }
+
+    /**
+     * Saldo impago de un cliente por tramo y la mayor cantidad de días de atraso de sus cuotas.
+     */
+    public record FilaCliente(Cliente cliente, double[] montos, int diasAtraso) {
+        public double getVencido() {
+            double total = 0;
+            for (int t = 1; t < montos.length; t++) {
+                total += montos[t];
+            }
+            return total;
+        }
+    }
+
+    private static final int TRAMOS = Tramo.values().length;
+    // El tramo t (salvo al día) tiene las cuotas con más de ATRASO_MINIMO[t] días de atraso
+    private static final int[] ATRASO_MINIMO = {0, 0, 30, 60, 90};
+    // Clientes por tarea del fork-join
+    private static final int UMBRAL_TAREA = Integer.getInteger("inventario.mora.umbralTarea", 512);
+    private static final int VENTANA_FILAS = 200;
+
+    private final LocalDate fechaCorte;
+    private final double[] totales;
+    private final long[] cuotas;
+    private final int[] clientesPorTramo;
+    private final List<FilaCliente> filas;
+
+    private ReporteMora(LocalDate fechaCorte, double[] totales, long[] cuotas, int[] clientesPorTramo, List<FilaCliente> filas) {
+        this.fechaCorte = fechaCorte;
+        this.totales = totales;
+        this.cuotas = cuotas;
+        this.clientesPorTramo = clientesPorTramo;
+        this.filas = filas;
+    }
+
+    public static ReporteMora calcular(List<Cliente> clientes, LocalDate fechaCorte) {
+        return calcular(clientes, fechaCorte, ForkJoinPool.commonPool());
+    }
+
+    public static ReporteMora calcular(List<Cliente> clientes, LocalDate fechaCorte, ForkJoinPool pool) {
+        Cliente[] lista = clientes.toArray(new Cliente[0]);
+        Acumulado acumulado = pool.invoke(new Recorrido(lista, (int) fechaCorte.toEpochDay(), 0, lista.length));
+        return new ReporteMora(fechaCorte, acumulado.montos, acumulado.cuotas, acumulado.clientes,
+                Collections.unmodifiableList(acumulado.filas));
+    }
+
+    public LocalDate getFechaCorte() {
+        return fechaCorte;
+    }
+
+    public double getTotal(Tramo tramo) {
+        return totales[tramo.ordinal()];
+    }
+
+    public long getCuotas(Tramo tramo) {
+        return cuotas[tramo.ordinal()];
+    }
+
+    /**
+     * Clientes cuyo atraso máximo cae en el tramo (los "al día" tienen saldo pero nada vencido).
+     */
+    public int getClientes(Tramo tramo) {
+        return clientesPorTramo[tramo.ordinal()];
+    }
+
+    /**
+     * Saldo vencido de toda la cartera (todos los tramos menos "al día").
+     */
+    public double getTotalVencido() {
+        double total = 0;
+        for (int t = 1; t < TRAMOS; t++) {
+            total += totales[t];
+        }
+        return total;
+    }
+
+    /**
+     * Clientes con deuda vencida, en el orden de la cartera.
+     */
+    public List<FilaCliente> getFilas() {
+        return filas;
+    }
+
+    /**
+     * Exporta el reporte a un libro con una hoja de resumen por tramo y una hoja con el
+     * detalle por cliente (solo los que tienen deuda vencida).
+     */
+    public void exportar(Path destino) throws IOException {
+        SXSSFWorkbook libro = new SXSSFWorkbook(VENTANA_FILAS);
+        libro.setCompressTempFiles(true);
+        try {
+            CellStyle encabezado = estiloEncabezado(libro);
+            CellStyle moneda = libro.createCellStyle();
+            moneda.setDataFormat(libro.createDataFormat().getFormat("#,##0.00"));
+
+            Sheet resumen = libro.createSheet("Resumen");
+            resumen.createRow(0).createCell(0).setCellValue("Mora al " + fechaCorte.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+            encabezados(resumen.createRow(2), encabezado, "Tramo", "Saldo", "Cuotas", "Clientes");
+            int fila = 3;
+            for (Tramo tramo : Tramo.values()) {
+                Row row = resumen.createRow(fila++);
+                row.createCell(0).setCellValue(tramo.getTitulo());
+                celdaMonto(row, 1, totales[tramo.ordinal()], moneda);
+                row.createCell(2).setCellValue(cuotas[tramo.ordinal()]);
+                row.createCell(3).setCellValue(clientesPorTramo[tramo.ordinal()]);
+            }
+            Row totalVencido = resumen.createRow(fila);
+            totalVencido.createCell(0).setCellValue("Total vencido");
+            celdaMonto(totalVencido, 1, getTotalVencido(), moneda);
+            for (int c = 0; c < 4; c++) {
+                resumen.setColumnWidth(c, 18 * 256);
+            }
+
+            Sheet detalle = libro.createSheet("Mora por cliente");
+            String[] columnas = new String[5 + TRAMOS];
+            columnas[0] = "Apellido";
+            columnas[1] = "Nombre";
+            columnas[2] = "DNI";
+            for (Tramo tramo : Tramo.values()) {
+                columnas[3 + tramo.ordinal()] = tramo.getTitulo();
+            }
+            columnas[3 + TRAMOS] = "Total vencido";
+            columnas[4 + TRAMOS] = "Días de atraso";
+            encabezados(detalle.createRow(0), encabezado, columnas);
+            // De mayor a menor deuda vencida
+            List<FilaCliente> ordenadas = new ArrayList<>(filas);
+            ordenadas.sort(Comparator.comparingDouble(FilaCliente::getVencido).reversed()
+                    .thenComparing(Comparator.comparingInt(FilaCliente::diasAtraso).reversed()));
+            int numeroFila = 1;
+            for (FilaCliente f : ordenadas) {
+                Row row = detalle.createRow(numeroFila++);
+                row.createCell(0).setCellValue(f.cliente().getApellido());
+                row.createCell(1).setCellValue(f.cliente().getNombre());
+                row.createCell(2).setCellValue(f.cliente().getDni());
+                for (int t = 0; t < TRAMOS; t++) {
+                    celdaMonto(row, 3 + t, f.montos()[t], moneda);
+                }
+                celdaMonto(row, 3 + TRAMOS, f.getVencido(), moneda);
+                row.createCell(4 + TRAMOS).setCellValue(f.diasAtraso());
+            }
+            for (int c = 0; c < columnas.length; c++) {
+                detalle.setColumnWidth(c, Math.max(columnas[c].length() + 4, 14) * 256);
+            }
+
+            ArchivoAtomico.escribir(destino, 0, libro::write);
+        } finally {
+            libro.dispose();
+            libro.close();
+        }
+    }
+
+    private static CellStyle estiloEncabezado(SXSSFWorkbook libro) {
+        Font fuente = libro.createFont();
+        fuente.setBold(true);
+        fuente.setColor(IndexedColors.WHITE.getIndex());
+        CellStyle estilo = libro.createCellStyle();
+        estilo.setFont(fuente);
+        estilo.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+        estilo.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        estilo.setAlignment(HorizontalAlignment.CENTER);
+        return estilo;
+    }
+
+    private static void encabezados(Row row, CellStyle estilo, String... titulos) {
+        for (int i = 0; i < titulos.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(titulos[i]);
+            cell.setCellStyle(estilo);
+        }
+    }
+
+    private static void celdaMonto(Row row, int columna, double valor, CellStyle estilo) {
+        Cell cell = row.createCell(columna);
+        cell.setCellValue(valor);
+        cell.setCellStyle(estilo);
+    }
+
+    // Totales por tramo y filas con mora de una parte de la cartera
+    private static final class Acumulado {
+        final double[] montos = new double[TRAMOS];
+        final long[] cuotas = new long[TRAMOS];
+        final int[] clientes = new int[TRAMOS];
+        final List<FilaCliente> filas = new ArrayList<>();
+
+        // 'otro' es la parte siguiente de la cartera: sus filas van después
+        Acumulado sumar(Acumulado otro) {
+            for (int t = 0; t < TRAMOS; t++) {
+                montos[t] += otro.montos[t];
+                cuotas[t] += otro.cuotas[t];
+                clientes[t] += otro.clientes[t];
+            }
+            filas.addAll(otro.filas);
+            return this;
+        }
+    }
+
+    private static final class Recorrido extends RecursiveTask<Acumulado> {
+        private final Cliente[] clientes;
+        private final int corte;
+        private final int desde;
+        private final int hasta;
+
+        Recorrido(Cliente[] clientes, int corte, int desde, int hasta) {
+            this.clientes = clientes;
+            this.corte = corte;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Acumulado compute() {
+            if (hasta - desde <= UMBRAL_TAREA) {
+                Acumulado acumulado = new Acumulado();
+                int[] limites = new int[TRAMOS];
+                for (int i = desde; i < hasta; i++) {
+                    clasificar(clientes[i], limites, acumulado);
+                }
+                return acumulado;
+            }
+            int medio = (desde + hasta) >>> 1;
+            Recorrido izquierda = new Recorrido(clientes, corte, desde, medio);
+            izquierda.fork();
+            Acumulado derecha = new Recorrido(clientes, corte, medio, hasta).compute();
+            return izquierda.join().sumar(derecha);
+        }
+
+        private void clasificar(Cliente cliente, int[] limites, Acumulado acumulado) {
+            CuotasColumnares cuotas = cliente.getCuotasColumnares();
+            int primera = cuotas.primeraImpaga();
+            if (primera < 0) {
+                return;
+            }
+            // El orden de pago ordena las cuotas por vencimiento, así que cada tramo es un rango
+            // de posiciones: limites[t] es donde termina el tramo t (de 90+ hacia al día)
+            int n = cuotas.size();
+            limites[0] = n;
+            for (int t = 1; t < TRAMOS; t++) {
+                limites[t] = cuotas.primeraQueVenceDesde(primera, corte - ATRASO_MINIMO[t]);
+            }
+            double[] montos = new double[TRAMOS];
+            int tramo = TRAMOS - 1;
+            for (int k = primera; k < n; k++) {
+                while (tramo > 0 && k >= limites[tramo]) {
+                    tramo--;
+                }
+                int indice = cuotas.indiceEnOrden(k);
+                if (cuotas.pagada(indice)) {
+                    continue;
+                }
+                double restante = cuotas.restante(indice);
+                montos[tramo] += restante;
+                acumulado.montos[tramo] += restante;
+                acumulado.cuotas[tramo]++;
+            }
+            // Con impagas vencidas, la primera impaga es la de mayor atraso
+            int diasAtraso = primera < limites[1] ? corte - cuotas.vencimientoEpoch(cuotas.indiceEnOrden(primera)) : 0;
+            acumulado.clientes[Tramo.de(diasAtraso).ordinal()]++;
+            if (diasAtraso > 0) {
+                acumulado.filas.add(new FilaCliente(cliente, montos, diasAtraso));
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.inventario.repository;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.models.ObservadorCuotas;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dueño de la lista de clientes. Mantiene el orden en que se muestran y dos índices:
+ * un hash por DNI normalizado (búsqueda O(1) y control de duplicados) y un multimapa por
+ * apellido normalizado. Todas las altas y bajas pasan por acá, así los índices nunca
+ * quedan desincronizados de la lista.
+ *
+ * Además guarda la posición de cada cliente para {@link #indiceDe(Cliente)}. Una alta o baja
+ * en el medio corre a todos los que siguen, así que esas posiciones se recalculan recién en la
+ * próxima consulta que las necesite; las altas al final y los reemplazos no invalidan nada.
+ */
+public class ClienteRepository {
+
+    private final List<Cliente> clientes = new ArrayList<>();
+    private final Map<String, Cliente> porDni = new HashMap<>();
+    private final Map<String, List<Cliente>> porApellido = new HashMap<>();
+    private final Map<Cliente, Integer> posiciones = new IdentityHashMap<>();
+    // Las posiciones menores a esta son correctas; de acá en adelante pueden estar corridas
+    private int posicionesValidas;
+    private final List<OyenteRepositorio> oyentes = new ArrayList<>();
+    // Cada cliente de la lista avisa acá los cambios de sus cuotas, que se pasan a los oyentes
+    private final ObservadorCuotas observadorCuotas = new ObservadorCuotas() {
+        @Override
+        public void cuotaModificada(Cliente cliente, int indice, int vencimientoAntes, double restanteAntes) {
+            for (OyenteRepositorio oyente : oyentes) {
+                oyente.cuotaModificada(cliente, indice, vencimientoAntes, restanteAntes);
+            }
+        }
+
+        @Override
+        public void cuotasReemplazadas(Cliente cliente, CuotasColumnares anteriores) {
+            for (OyenteRepositorio oyente : oyentes) {
+                oyente.cuotasReemplazadas(cliente, anteriores);
+            }
+        }
+    };
+
+    /**
+     * Normaliza un DNI para compararlo: sin espacios, puntos ni guiones y en mayúsculas,
+     * de modo que "12.345.678" y "12345678" son el mismo documento.
+     */
+    public static String normalizarDni(String dni) {
+        if (dni == null) {
+            return "";
+        }
+        StringBuilder normalizado = new StringBuilder(dni.length());
+        for (int i = 0; i < dni.length(); i++) {
+            char c = dni.charAt(i);
+            if (c != '.' && c != '-' && !Character.isWhitespace(c)) {
+                normalizado.append(Character.toUpperCase(c));
+            }
+        }
+        return normalizado.toString();
+    }
+
+    /**
+     * Normaliza un apellido para compararlo: sin espacios al borde, en minúsculas y sin acentos.
+     */
+    public static String normalizarApellido(String apellido) {
+        if (apellido == null) {
+            return "";
+        }
+        String sinAcentos = Normalizer.normalize(apellido.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registra un oyente que se entera de cada alta, baja o reemplazo.
+     */
+    public void agregarOyente(OyenteRepositorio oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void quitarOyente(OyenteRepositorio oyente) {
+        oyentes.remove(oyente);
+    }
+
+    public int size() {
+        return clientes.size();
+    }
+
+    public boolean isEmpty() {
+        return clientes.isEmpty();
+    }
+
+    public Cliente get(int indice) {
+        return clientes.get(indice);
+    }
+
+    /**
+     * Vista de solo lectura de los clientes en el orden en que se muestran.
+     */
+    public List<Cliente> getClientes() {
+        return Collections.unmodifiableList(clientes);
+    }
+
+    public boolean existeDni(String dni) {
+        return porDni.containsKey(normalizarDni(dni));
+    }
+
+    public Cliente buscarPorDni(String dni) {
+        return porDni.get(normalizarDni(dni));
+    }
+
+    public List<Cliente> buscarPorApellido(String apellido) {
+        List<Cliente> encontrados = porApellido.get(normalizarApellido(apellido));
+        return encontrados != null ? Collections.unmodifiableList(encontrados) : Collections.emptyList();
+    }
+
+    /**
+     * Posición del cliente en la lista, o -1 si no está.
+     */
+    public int indiceDe(Cliente cliente) {
+        Integer posicion = posiciones.get(cliente);
+        if (posicion == null) {
+            return -1;
+        }
+        if (posicion >= posicionesValidas) {
+            for (int i = posicionesValidas; i < clientes.size(); i++) {
+                posiciones.put(clientes.get(i), i);
+            }
+            posicionesValidas = clientes.size();
+            posicion = posiciones.get(cliente);
+        }
+        return posicion;
+    }
+
+    public boolean contiene(Cliente cliente) {
+        return posiciones.containsKey(cliente);
+    }
+
+    /**
+     * Agrega el cliente al final de la lista.
+     * @throws IllegalArgumentException Si ya existe un cliente con el mismo DNI.
+     */
+    public void agregar(Cliente cliente) {
+        agregar(clientes.size(), cliente);
+    }
+
+    /**
+     * Agrega el cliente en la posición indicada (o al final si la posición ya no es válida).
+     * @throws IllegalArgumentException Si ya existe un cliente con el mismo DNI.
+     */
+    public void agregar(int indice, Cliente cliente) {
+        indexar(cliente);
+        if (indice < 0 || indice > clientes.size()) {
+            indice = clientes.size();
+        }
+        clientes.add(indice, cliente);
+        posiciones.put(cliente, indice);
+        if (indice == posicionesValidas && indice == clientes.size() - 1) {
+            posicionesValidas++;
+        } else {
+            posicionesValidas = Math.min(posicionesValidas, indice);
+        }
+        for (OyenteRepositorio oyente : oyentes) {
+            oyente.clienteAgregado(cliente, indice);
+        }
+    }
+
+    /**
+     * Quita el cliente de la lista y de los índices.
+     * @return La posición que ocupaba, o -1 si no estaba.
+     */
+    public int eliminar(Cliente cliente) {
+        int indice = indiceDe(cliente);
+        if (indice < 0) {
+            return -1;
+        }
+        clientes.remove(indice);
+        posiciones.remove(cliente);
+        posicionesValidas = Math.min(posicionesValidas, indice);
+        desindexar(cliente);
+        for (OyenteRepositorio oyente : oyentes) {
+            oyente.clienteEliminado(cliente, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Reemplaza al cliente con el mismo DNI conservando su posición; si no existe, lo agrega
+     * en la posición indicada. Se usa al reproducir el journal.
+     * @return La posición final del cliente.
+     */
+    public int reemplazarOAgregar(Cliente cliente, int posicion) {
+        Cliente anterior = buscarPorDni(cliente.getDni());
+        if (anterior == null) {
+            agregar(posicion, cliente);
+            return indiceDe(cliente);
+        }
+        int indice = indiceDe(anterior);
+        desindexar(anterior);
+        indexar(cliente);
+        clientes.set(indice, cliente);
+        posiciones.remove(anterior);
+        posiciones.put(cliente, indice);
+        for (OyenteRepositorio oyente : oyentes) {
+            oyente.clienteReemplazado(anterior, cliente, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Avisa a los oyentes que el cliente cambió en su lugar (pagos y sus deshacer).
+     */
+    public void notificarModificado(Cliente cliente) {
+        int indice = indiceDe(cliente);
+        if (indice < 0) {
+            return;
+        }
+        for (OyenteRepositorio oyente : oyentes) {
+            oyente.clienteModificado(cliente, indice);
+        }
+    }
+
+    /**
+     * Agrega los clientes importados en una sola pasada con el índice hash, descartando los
+     * DNI repetidos (se conserva la primera aparición).
+     * @return Los clientes rechazados por DNI duplicado.
+     */
+    public List<Cliente> agregarTodos(Iterable<Cliente> nuevos) {
+        List<Cliente> rechazados = new ArrayList<>();
+        for (Cliente cliente : nuevos) {
+            if (porDni.containsKey(normalizarDni(cliente.getDni()))) {
+                rechazados.add(cliente);
+            } else {
+                agregar(cliente);
+            }
+        }
+        return rechazados;
+    }
+
+    private void indexar(Cliente cliente) {
+        String dni = normalizarDni(cliente.getDni());
+        if (porDni.containsKey(dni)) {
+            throw new IllegalArgumentException("Ya existe un cliente con DNI " + cliente.getDni());
+        }
+        porDni.put(dni, cliente);
+        cliente.setObservador(observadorCuotas);
+        porApellido.computeIfAbsent(normalizarApellido(cliente.getApellido()), k -> new ArrayList<>(1)).add(cliente);
+    }
+
+    private void desindexar(Cliente cliente) {
+        porDni.remove(normalizarDni(cliente.getDni()));
+        cliente.setObservador(null);
+        String apellido = normalizarApellido(cliente.getApellido());
+        List<Cliente> mismos = porApellido.get(apellido);
+        if (mismos != null) {
+            mismos.removeIf(c -> c == cliente);
+            if (mismos.isEmpty()) {
+                porApellido.remove(apellido);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.inventario.repository;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+
+/**
+ * Recibe los cambios de un {@link ClienteRepository} en el momento en que ocurren, para que
+ * las estructuras derivadas (índices de búsqueda, modelos de la interfaz) se actualicen de a
+ * un cliente en lugar de reconstruirse completas. Se llama en el mismo hilo que modificó el
+ * repositorio (el EDT).
+ */
+public interface OyenteRepositorio {
+
+    default void clienteAgregado(Cliente cliente, int indice) {
+    }
+
+    default void clienteEliminado(Cliente cliente, int indice) {
+    }
+
+    /**
+     * El cliente de la posición indicada fue reemplazado por otro con el mismo DNI
+     * (por ejemplo, al reproducir el journal).
+     */
+    default void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+    }
+
+    /**
+     * Cambió el estado del cliente de la posición indicada (por ejemplo, se registró o se
+     * deshizo un pago) sin que cambie su lugar en la lista.
+     */
+    default void clienteModificado(Cliente cliente, int indice) {
+    }
+
+    /**
+     * Cambió una cuota de un cliente del repositorio; llega en el momento del cambio, antes del
+     * {@link #clienteModificado} del comando que lo hizo (y aunque el comando no lo avise). Los
+     * pagos de un {@link com.inventario.commands.ImportarPagosCommand} no llegan por acá sino como
+     * un {@link #cuotasReemplazadas} por cliente, en el hilo que ejecutó el comando.
+     * @see com.inventario.models.ObservadorCuotas#cuotaModificada
+     */
+    default void cuotaModificada(Cliente cliente, int indice, int vencimientoAntes, double restanteAntes) {
+    }
+
+    /**
+     * @see com.inventario.models.ObservadorCuotas#cuotasReemplazadas
+     */
+    default void cuotasReemplazadas(Cliente cliente, CuotasColumnares anteriores) {
+    }
+}
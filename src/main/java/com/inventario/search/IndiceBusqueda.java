@@ -0,0 +1,484 @@
+package com.inventario.search;
+
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice en memoria para la búsqueda mientras se escribe, sobre nombre, apellido, DNI y producto.
+ *
+ * Cada campo se separa en términos normalizados (minúsculas, sin acentos; los DNI sin puntos
+ * ni guiones). Hay dos estructuras:
+ * <ul>
+ *   <li>un mapa ordenado término → clientes, que resuelve un prefijo con un rango del árbol
+ *       (completar "gonz" a "gonzalez", "gonzalo", ...);</li>
+ *   <li>un índice de trigramas sobre los términos con letras, que encuentra términos parecidos
+ *       cuando lo escrito tiene un error de tipeo ("gonzales" → "gonzalez").</li>
+ * </ul>
+ * Se registra como oyente del repositorio, así que se actualiza de a un cliente con cada alta,
+ * baja o reemplazo, sin reconstruirse.
+ *
+ * La búsqueda revisa como máximo {@link #MAX_CANDIDATOS} clientes candidatos, de modo que el
+ * tiempo de respuesta no depende de la cantidad total de clientes aunque el texto sea muy corto.
+ * Igual que el repositorio, se usa solo desde el EDT.
+ */
+public class IndiceBusqueda implements OyenteRepositorio {
+
+    // Tope de clientes candidatos que se evalúan por búsqueda
+    public static final int MAX_CANDIDATOS = Integer.getInteger("inventario.busqueda.maxCandidatos", 2000);
+    // Similitud de trigramas (coeficiente de Dice) a partir de la cual un término se considera parecido
+    private static final double SIMILITUD_MINIMA = 0.45;
+    private static final int LARGO_MINIMO_APROXIMADO = 3;
+
+    private static final double PUNTAJE_EXACTO = 3;
+    private static final double PUNTAJE_PREFIJO = 2;
+    private static final double PUNTAJE_APROXIMADO = 1;
+
+    // Las listas guardan la entrada del cliente (y no el cliente) para no tener que buscarla al evaluar candidatos
+    private final NavigableMap<String, List<Entrada>> porTermino = new TreeMap<>();
+    private final Map<Long, Set<String>> porTrigrama = new HashMap<>();
+    private final Map<Cliente, Entrada> entradas = new IdentityHashMap<>();
+    // Número de la búsqueda en curso; marca las entradas ya evaluadas sin usar un conjunto auxiliar
+    private int busqueda;
+
+    /**
+     * Crea el índice con los clientes actuales del repositorio y lo registra como oyente.
+     */
+    public static IndiceBusqueda sobre(ClienteRepository repositorio) {
+        IndiceBusqueda indice = new IndiceBusqueda();
+        for (Cliente cliente : repositorio.getClientes()) {
+            indice.agregar(cliente);
+        }
+        repositorio.agregarOyente(indice);
+        return indice;
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    public void agregar(Cliente cliente) {
+        if (entradas.containsKey(cliente)) {
+            return;
+        }
+        Entrada entrada = entradaDe(cliente);
+        entradas.put(cliente, entrada);
+        for (String termino : entrada.terminos) {
+            List<Entrada> clientes = porTermino.get(termino);
+            if (clientes == null) {
+                clientes = new ArrayList<>(1);
+                porTermino.put(termino, clientes);
+                indexarTrigramas(termino);
+            }
+            clientes.add(entrada);
+        }
+    }
+
+    public void quitar(Cliente cliente) {
+        Entrada entrada = entradas.remove(cliente);
+        if (entrada == null) {
+            return;
+        }
+        for (String termino : entrada.terminos) {
+            List<Entrada> clientes = porTermino.get(termino);
+            if (clientes == null) {
+                continue;
+            }
+            clientes.removeIf(e -> e == entrada);
+            if (clientes.isEmpty()) {
+                porTermino.remove(termino);
+                desindexarTrigramas(termino);
+            }
+        }
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        agregar(cliente);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        quitar(cliente);
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        quitar(anterior);
+        agregar(nuevo);
+    }
+
+    /**
+     * Busca los clientes que coinciden con todas las palabras del texto. Cada palabra puede
+     * coincidir exacta, como prefijo o aproximada con algún término del cliente; los resultados
+     * se ordenan por puntaje (exacta &gt; prefijo &gt; aproximada) y después por apellido y nombre.
+     * @param consulta Lo escrito en el campo de búsqueda.
+     * @param limite Cantidad máxima de resultados.
+     * @return Los mejores resultados, como mucho 'limite'.
+     */
+    public List<Cliente> buscar(String consulta, int limite) {
+        List<String> palabras = tokenizar(consulta);
+        if (palabras.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Los candidatos salen de la palabra más larga (la más selectiva); el resto se verifica sobre cada candidato
+        int guia = 0;
+        for (int i = 1; i < palabras.size(); i++) {
+            if (palabras.get(i).length() >= palabras.get(guia).length()) {
+                guia = i;
+            }
+        }
+        long[][] trigramasPalabras = new long[palabras.size()][];
+        for (int i = 0; i < palabras.size(); i++) {
+            trigramasPalabras[i] = trigramas(palabras.get(i));
+        }
+
+        // Primero solo coincidencias exactas o por prefijo en las demás palabras (barato); la
+        // comparación por trigramas contra cada candidato se hace solo si no alcanzan los resultados
+        List<Resultado> resultados = recorrer(palabras, guia, trigramasPalabras, limite, false);
+        if (resultados.size() < limite && palabras.size() > 1) {
+            resultados = recorrer(palabras, guia, trigramasPalabras, limite, true);
+        }
+
+        resultados.sort(Comparator.comparingDouble(Resultado::puntaje).reversed().thenComparing(Resultado::orden));
+        List<Cliente> mejores = new ArrayList<>(Math.min(limite, resultados.size()));
+        for (int i = 0; i < resultados.size() && i < limite; i++) {
+            mejores.add(resultados.get(i).cliente());
+        }
+        return mejores;
+    }
+
+    // Evalúa los clientes de los términos que coinciden con la palabra guía, verificando sobre cada uno las demás palabras
+    private List<Resultado> recorrer(List<String> palabras, int guia, long[][] trigramasPalabras, int limite, boolean aproximadas) {
+        List<Resultado> resultados = new ArrayList<>();
+        long[] sinTrigramas = new long[0];
+        String[] claves = new String[palabras.size()];
+        for (int i = 0; i < palabras.size(); i++) {
+            claves[i] = ' ' + palabras.get(i);
+        }
+        int revisados = 0;
+        int marca = ++busqueda;
+        boolean unaPalabra = palabras.size() == 1;
+
+        Iterator<TerminoCandidato> terminos = terminosCandidatos(palabras.get(guia), trigramasPalabras[guia], limite);
+        recorrido:
+        while (terminos.hasNext()) {
+            TerminoCandidato candidato = terminos.next();
+            for (Entrada entrada : porTermino.getOrDefault(candidato.termino(), Collections.emptyList())) {
+                // Con una sola palabra los términos llegan en orden de puntaje no creciente: se corta al completar
+                if (revisados >= MAX_CANDIDATOS || (unaPalabra && resultados.size() >= limite)) {
+                    break recorrido;
+                }
+                revisados++;
+                // Un cliente puede llegar por más de un término; vale el primero, que es el de mayor puntaje
+                if (entrada.marca == marca) {
+                    continue;
+                }
+                entrada.marca = marca;
+                double puntaje = candidato.puntaje();
+                for (int i = 0; i < palabras.size() && puntaje > 0; i++) {
+                    if (i != guia) {
+                        double coincidencia = mejorCoincidencia(claves[i], aproximadas ? trigramasPalabras[i] : sinTrigramas, entrada);
+                        puntaje = coincidencia > 0 ? puntaje + coincidencia : 0;
+                    }
+                }
+                if (puntaje > 0) {
+                    resultados.add(new Resultado(entrada, puntaje));
+                }
+            }
+        }
+        return resultados;
+    }
+
+    // Términos del índice que coinciden con la palabra guía: primero el exacto, después los que
+    // la tienen como prefijo (en orden alfabético) y, si no alcanzan, los parecidos por trigramas.
+    private Iterator<TerminoCandidato> terminosCandidatos(String palabra, long[] trigramasPalabra, int limite) {
+        List<TerminoCandidato> iniciales = new ArrayList<>();
+        List<Entrada> exactos = porTermino.get(palabra);
+        int clientesPrevios = 0;
+        if (exactos != null) {
+            iniciales.add(new TerminoCandidato(palabra, PUNTAJE_EXACTO));
+            clientesPrevios = exactos.size();
+        }
+        Iterator<Map.Entry<String, List<Entrada>>> prefijos =
+                porTermino.subMap(palabra, false, palabra + Character.MAX_VALUE, false).entrySet().iterator();
+        int clientesAntesDePrefijos = clientesPrevios;
+        return new Iterator<>() {
+            private final Iterator<TerminoCandidato> primeros = iniciales.iterator();
+            private int clientes = clientesAntesDePrefijos;
+            private Iterator<TerminoCandidato> parecidos;
+
+            @Override
+            public boolean hasNext() {
+                if (primeros.hasNext() || prefijos.hasNext()) {
+                    return true;
+                }
+                if (parecidos == null) {
+                    parecidos = clientes < limite ? terminosParecidos(palabra, trigramasPalabra).iterator()
+                            : Collections.emptyIterator();
+                }
+                return parecidos.hasNext();
+            }
+
+            @Override
+            public TerminoCandidato next() {
+                if (primeros.hasNext()) {
+                    return primeros.next();
+                }
+                if (prefijos.hasNext()) {
+                    Map.Entry<String, List<Entrada>> termino = prefijos.next();
+                    clientes += termino.getValue().size();
+                    return new TerminoCandidato(termino.getKey(), PUNTAJE_PREFIJO);
+                }
+                hasNext();
+                return parecidos.next();
+            }
+        };
+    }
+
+    // Términos con letras parecidos a la palabra, de mayor a menor similitud (sin los que la tienen como prefijo)
+    private List<TerminoCandidato> terminosParecidos(String palabra, long[] trigramasPalabra) {
+        if (trigramasPalabra.length == 0) {
+            return Collections.emptyList();
+        }
+        Map<String, Integer> compartidos = new HashMap<>();
+        for (long trigrama : trigramasPalabra) {
+            Set<String> terminos = porTrigrama.get(trigrama);
+            if (terminos != null) {
+                for (String termino : terminos) {
+                    compartidos.merge(termino, 1, Integer::sum);
+                }
+            }
+        }
+        List<TerminoCandidato> parecidos = new ArrayList<>();
+        for (Map.Entry<String, Integer> entrada : compartidos.entrySet()) {
+            String termino = entrada.getKey();
+            if (termino.startsWith(palabra)) {
+                continue;
+            }
+            double similitud = 2.0 * entrada.getValue() / (trigramasPalabra.length + termino.length());
+            if (similitud >= SIMILITUD_MINIMA) {
+                parecidos.add(new TerminoCandidato(termino, PUNTAJE_APROXIMADO + similitud));
+            }
+        }
+        parecidos.sort(Comparator.comparingDouble(TerminoCandidato::puntaje).reversed().thenComparing(TerminoCandidato::termino));
+        return parecidos;
+    }
+
+    // Puntaje de la mejor coincidencia de la palabra con alguno de los términos del cliente (0 si ninguna)
+    // La clave es la palabra precedida por un espacio: buscarla en el texto de la entrada encuentra
+    // los términos que empiezan con ella recorriendo un único String, sin saltar entre objetos.
+    private static double mejorCoincidencia(String clave, long[] trigramasPalabra, Entrada entrada) {
+        String texto = entrada.texto;
+        double mejor = 0;
+        int desde = 0;
+        int posicion;
+        while ((posicion = texto.indexOf(clave, desde)) >= 0) {
+            int fin = posicion + clave.length();
+            if (fin == texto.length() || texto.charAt(fin) == ' ') {
+                return PUNTAJE_EXACTO;
+            }
+            mejor = PUNTAJE_PREFIJO;
+            desde = fin;
+        }
+        if (mejor > 0 || trigramasPalabra.length == 0) {
+            return mejor;
+        }
+        for (String termino : entrada.terminos) {
+            if (tieneLetras(termino)) {
+                double similitud = similitud(trigramasPalabra, termino);
+                if (similitud >= SIMILITUD_MINIMA) {
+                    mejor = Math.max(mejor, PUNTAJE_APROXIMADO + similitud);
+                }
+            }
+        }
+        return mejor;
+    }
+
+    // Coeficiente de Dice entre los trigramas de la palabra y los del término, sin armar substrings
+    private static double similitud(long[] trigramasPalabra, String termino) {
+        int compartidos = 0;
+        int cantidad = termino.length();
+        for (int i = 0; i < cantidad; i++) {
+            long trigrama = trigramaEn(termino, i);
+            for (long t : trigramasPalabra) {
+                if (t == trigrama) {
+                    compartidos++;
+                    break;
+                }
+            }
+        }
+        return 2.0 * compartidos / (trigramasPalabra.length + cantidad);
+    }
+
+    private void indexarTrigramas(String termino) {
+        if (termino.length() < LARGO_MINIMO_APROXIMADO || !tieneLetras(termino)) {
+            return;
+        }
+        for (long trigrama : trigramas(termino)) {
+            porTrigrama.computeIfAbsent(trigrama, k -> new HashSet<>()).add(termino);
+        }
+    }
+
+    private void desindexarTrigramas(String termino) {
+        if (termino.length() < LARGO_MINIMO_APROXIMADO || !tieneLetras(termino)) {
+            return;
+        }
+        for (long trigrama : trigramas(termino)) {
+            Set<String> terminos = porTrigrama.get(trigrama);
+            if (terminos != null) {
+                terminos.remove(termino);
+                if (terminos.isEmpty()) {
+                    porTrigrama.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trigramas distintos del término, con un borde al principio y al final ("$ab", "abc", ..., "yz$"),
+     * codificados como long (tres caracteres de 16 bits). Vacío si el término es muy corto.
+     */
+    static long[] trigramas(String termino) {
+        if (termino.length() < LARGO_MINIMO_APROXIMADO) {
+            return new long[0];
+        }
+        long[] resultado = new long[termino.length()];
+        int cantidad = 0;
+        for (int i = 0; i < termino.length(); i++) {
+            long trigrama = trigramaEn(termino, i);
+            boolean repetido = false;
+            for (int j = 0; j < cantidad && !repetido; j++) {
+                repetido = resultado[j] == trigrama;
+            }
+            if (!repetido) {
+                resultado[cantidad++] = trigrama;
+            }
+        }
+        return cantidad == resultado.length ? resultado : Arrays.copyOf(resultado, cantidad);
+    }
+
+    // Trigrama i de "$" + termino + "$" (hay tantos como caracteres tiene el término)
+    private static long trigramaEn(String termino, int i) {
+        char a = i == 0 ? '$' : termino.charAt(i - 1);
+        char b = termino.charAt(i);
+        char c = i + 1 < termino.length() ? termino.charAt(i + 1) : '$';
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static boolean tieneLetras(String termino) {
+        for (int i = 0; i < termino.length(); i++) {
+            if (Character.isLetter(termino.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entrada entradaDe(Cliente cliente) {
+        List<String> terminos = new ArrayList<>();
+        for (String campo : new String[]{cliente.getNombre(), cliente.getApellido(), cliente.getDni(), cliente.getProducto()}) {
+            for (String termino : tokenizar(campo)) {
+                if (!terminos.contains(termino)) {
+                    terminos.add(termino);
+                }
+            }
+        }
+        // Apellido y nombre normalizados: desempatan resultados en orden alfabético sin importar acentos
+        String orden = String.join(" ", tokenizar(cliente.getApellido())) + '\t' + String.join(" ", tokenizar(cliente.getNombre()));
+        return new Entrada(cliente, terminos.toArray(new String[0]), orden);
+    }
+
+    /**
+     * Separa el texto en términos normalizados: minúsculas, sin acentos y cortando en todo lo que
+     * no sea letra o dígito. Los puntos y guiones entre dígitos no cortan ("12.345.678" es un
+     * único término "12345678"), para que un DNI se encuentre escrito de cualquier forma.
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalizado = sinAcentos(texto).toLowerCase(Locale.ROOT);
+        List<String> terminos = new ArrayList<>(4);
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(c);
+            } else if ((c == '.' || c == '-') && actual.length() > 0 && Character.isDigit(actual.charAt(actual.length() - 1))
+                    && i + 1 < normalizado.length() && Character.isDigit(normalizado.charAt(i + 1))) {
+                // Separador dentro de un número: se omite
+            } else if (actual.length() > 0) {
+                terminos.add(actual.toString());
+                actual.setLength(0);
+            }
+        }
+        if (actual.length() > 0) {
+            terminos.add(actual.toString());
+        }
+        return terminos;
+    }
+
+    private static String sinAcentos(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+                StringBuilder resultado = new StringBuilder(descompuesto.length());
+                for (int j = 0; j < descompuesto.length(); j++) {
+                    char c = descompuesto.charAt(j);
+                    if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                        resultado.append(c);
+                    }
+                }
+                return resultado.toString();
+            }
+        }
+        return texto;
+    }
+
+    private record TerminoCandidato(String termino, double puntaje) {
+    }
+
+    // Cliente indexado con sus términos (también juntos en un texto " t1 t2 ...") y su clave de orden alfabético
+    private static final class Entrada {
+        final Cliente cliente;
+        final String[] terminos;
+        final String texto;
+        final String orden;
+        int marca;
+
+        Entrada(Cliente cliente, String[] terminos, String orden) {
+            this.cliente = cliente;
+            this.terminos = terminos;
+            this.texto = ' ' + String.join(" ", terminos);
+            this.orden = orden;
+        }
+    }
+
+    private record Resultado(Entrada entrada, double puntaje) {
+        Cliente cliente() {
+            return entrada.cliente;
+        }
+
+        String orden() {
+            return entrada.orden;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventario.ui;
+
+import com.inventario.models.Cliente;
+import com.inventario.search.IndiceBusqueda;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Campo de búsqueda mientras se escribe: con cada tecla consulta el {@link IndiceBusqueda}
+ * y muestra los mejores resultados en una lista desplegable. Las flechas recorren los
+ * resultados, Enter (o un clic) elige uno y Escape cierra la lista.
+ */
+public class CampoBusqueda extends JPanel {
+
+    private static final int MAX_RESULTADOS = 10;
+
+    private final IndiceBusqueda indice;
+    private final Consumer<Cliente> alElegir;
+    private final JTextField campo = new JTextField(30);
+    private final DefaultListModel<Cliente> modeloResultados = new DefaultListModel<>();
+    private final JList<Cliente> listaResultados = new JList<>(modeloResultados);
+    private final JPopupMenu desplegable = new JPopupMenu();
+
+    /**
+     * @param indice Índice sobre el que se busca.
+     * @param alElegir Se llama con el cliente elegido de la lista de resultados.
+     */
+    public CampoBusqueda(IndiceBusqueda indice, Consumer<Cliente> alElegir) {
+        super(new BorderLayout(5, 0));
+        this.indice = indice;
+        this.alElegir = alElegir;
+
+        JLabel etiqueta = new JLabel("Buscar:");
+        etiqueta.setFont(new Font("SansSerif", Font.BOLD, 12));
+        campo.setToolTipText("Nombre, apellido, DNI o producto");
+        add(etiqueta, BorderLayout.WEST);
+        add(campo, BorderLayout.CENTER);
+
+        listaResultados.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        listaResultados.setFocusable(false);
+        listaResultados.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listaResultados.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                Cliente c = (Cliente) value;
+                String texto = c.getApellido() + ", " + c.getNombre() + "  (DNI: " + c.getDni() + ")  " + c.getProducto();
+                return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+            }
+        });
+        listaResultados.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int fila = listaResultados.locationToIndex(e.getPoint());
+                if (fila >= 0) {
+                    elegir(fila);
+                }
+            }
+        });
+        desplegable.setFocusable(false);
+        desplegable.add(new JScrollPane(listaResultados));
+
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { actualizarResultados(); }
+            public void removeUpdate(DocumentEvent e) { actualizarResultados(); }
+            public void changedUpdate(DocumentEvent e) { actualizarResultados(); }
+        });
+        campo.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> moverSeleccion(1);
+                    case KeyEvent.VK_UP -> moverSeleccion(-1);
+                    case KeyEvent.VK_ENTER -> elegir(Math.max(listaResultados.getSelectedIndex(), 0));
+                    case KeyEvent.VK_ESCAPE -> desplegable.setVisible(false);
+                    default -> { }
+                }
+            }
+        });
+    }
+
+    private void actualizarResultados() {
+        List<Cliente> resultados = indice.buscar(campo.getText(), MAX_RESULTADOS);
+        modeloResultados.clear();
+        if (resultados.isEmpty()) {
+            desplegable.setVisible(false);
+            return;
+        }
+        modeloResultados.addAll(resultados);
+        listaResultados.setSelectedIndex(0);
+        listaResultados.setVisibleRowCount(resultados.size());
+        desplegable.setPreferredSize(null);
+        desplegable.pack();
+        desplegable.setPopupSize(Math.max(campo.getWidth(), desplegable.getPreferredSize().width),
+                desplegable.getPreferredSize().height);
+        if (campo.isShowing()) {
+            desplegable.show(campo, 0, campo.getHeight());
+            campo.requestFocusInWindow();
+        }
+    }
+
+    private void moverSeleccion(int desplazamiento) {
+        int cantidad = modeloResultados.getSize();
+        if (cantidad == 0 || !desplegable.isVisible()) {
+            return;
+        }
+        int fila = Math.floorMod(listaResultados.getSelectedIndex() + desplazamiento, cantidad);
+        listaResultados.setSelectedIndex(fila);
+        listaResultados.ensureIndexIsVisible(fila);
+    }
+
+    private void elegir(int fila) {
+        if (fila < 0 || fila >= modeloResultados.getSize() || !desplegable.isVisible()) {
+            return;
+        }
+        Cliente elegido = modeloResultados.get(fila);
+        desplegable.setVisible(false);
+        alElegir.accept(elegido);
+    }
+}
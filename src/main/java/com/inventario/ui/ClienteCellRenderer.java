@@ -0,0 +1,27 @@
+package com.inventario.ui;
+
+import com.inventario.models.Cliente;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import java.awt.Component;
+import java.time.LocalDate;
+
+/**
+ * Dibuja un cliente con su resumen (Cliente.toString()). El texto se arma al dibujar la fila,
+ * de modo que solo se formatean las filas visibles.
+ */
+public class ClienteCellRenderer extends DefaultListCellRenderer {
+
+    /**
+     * Cliente de ejemplo con campos largos para {@link JList#setPrototypeCellValue(Object)}: fija
+     * el alto y el ancho de las filas sin que la JList tenga que medir todos los clientes.
+     */
+    public static final Cliente PROTOTIPO = new Cliente("Nombre Ejemplo", "Apellido Ejemplo", "00.000.000", "quincenal",
+            "Producto de ejemplo con nombre largo", 9_999_999.99, 24, 999_999.99, LocalDate.of(2000, 1, 1));
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+        return super.getListCellRendererComponent(list, value != null ? value.toString() : "", index, isSelected, cellHasFocus);
+    }
+}
@@ -0,0 +1,62 @@
+package com.inventario.ui;
+
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * Modelo de la lista principal que lee directamente del {@link ClienteRepository}, sin copiar
+ * los clientes ni sus textos. Escucha al repositorio y avisa a la JList solo el intervalo que
+ * cambió (la fila agregada, eliminada o pagada), así que un cambio no obliga a rearmar la lista.
+ * Los textos de cada fila los arma {@link ClienteCellRenderer} cuando la fila se dibuja.
+ */
+public class ClientesListModel extends AbstractListModel<Cliente> implements OyenteRepositorio {
+
+    private final ClienteRepository clientes;
+
+    public ClientesListModel(ClienteRepository clientes) {
+        this.clientes = clientes;
+        clientes.agregarOyente(this);
+    }
+
+    @Override
+    public int getSize() {
+        return clientes.size();
+    }
+
+    @Override
+    public Cliente getElementAt(int index) {
+        return clientes.get(index);
+    }
+
+    /**
+     * Fuerza a redibujar todas las filas (botón "Actualizar Lista").
+     */
+    public void refrescar() {
+        if (clientes.size() > 0) {
+            fireContentsChanged(this, 0, clientes.size() - 1);
+        }
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        fireIntervalAdded(this, indice, indice);
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        fireIntervalRemoved(this, indice, indice);
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        fireContentsChanged(this, indice, indice);
+    }
+
+    @Override
+    public void clienteModificado(Cliente cliente, int indice) {
+        fireContentsChanged(this, indice, indice);
+    }
+}
@@ -7,6 +7,24 @@ import com.inventario.commands.Command;
 import com.inventario.commands.AgregarClienteCommand;
 import com.inventario.commands.RegistrarPagoCommand;
 import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.ImportarPagosCommand;
+import com.inventario.commands.LoteCommand;
+import com.inventario.importacion.AltaMasivaClientes;
+import com.inventario.importacion.ImportadorPagosCsv;
+import com.inventario.persistence.AlmacenClientes;
+import com.inventario.persistence.AlmacenCuotasMapeado;
+import com.inventario.persistence.AlmacenSql;
+import com.inventario.persistence.ArchivoAtomico;
+import com.inventario.persistence.EscritorSegundoPlano;
+import com.inventario.persistence.HistorialComandos;
+import com.inventario.persistence.InstantaneasClientes;
+import com.inventario.persistence.JournalClientes;
+import com.inventario.persistence.SnapshotClientes;
+import com.inventario.reportes.IndiceVencimientos;
+import com.inventario.reportes.ProyeccionCobros;
+import com.inventario.reportes.ReporteMora;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.search.IndiceBusqueda;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -14,31 +32,79 @@ import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 import java.util.stream.Collectors;
 
 public class MainWindow extends JFrame {
-    private List<Cliente> clientes = new ArrayList<>();
-    private DefaultListModel<String> clienteListModel = new DefaultListModel<>();
-    private JList<String> listaClientes = new JList<>(clienteListModel);
+    // Archivo principal: snapshot binario de clientes y cuotas
+    private static final String SNAPSHOT_FILE = "clientes.dat";
+    // Libro de versiones anteriores: se lee una sola vez para migrarlo al snapshot
+    private static final String CLIENTES_FILE = "clientes.xlsx";
+    private static final String JOURNAL_FILE = "clientes.journal";
+    private static final String HISTORIAL_FILE = "clientes.historial";
+    // -Dinventario.almacenamiento elige dónde se guardan los clientes: "snapshot" (por defecto, snapshot
+    // más journal), "mapeado" (registro de solo agregado y cuotas en un archivo mapeado que cada pago
+    // actualiza en el lugar) o "sql" (base de datos H2 embebida, una transacción por comando)
+    private static final String ALMACENAMIENTO = System.getProperty("inventario.almacenamiento", "snapshot").toLowerCase();
+    private static final String REGISTRO_FILE = "clientes.registro";
+    private static final String CUOTAS_FILE = "clientes.cuotas";
+    // Ruta base de la base de datos: H2 la guarda en clientes.mv.db
+    private static final String BASE_DATOS_FILE = "clientes";
+    // Espera desde el primer cambio hasta la escritura completa, para agrupar ráfagas de cambios
+    private static final long DEMORA_ESCRITURA_MS = Long.getLong("inventario.persistencia.demoraMs", 3000);
+    // Versiones anteriores de clientes.xlsx que se conservan (clientes.xlsx.1 ... .N)
+    private static final int COPIAS_RESPALDO = Integer.getInteger("inventario.respaldos", 3);
+    // Tiempo máximo que se espera la escritura final al cerrar la ventana
+    private static final long TIMEOUT_CIERRE_MS = Long.getLong("inventario.persistencia.timeoutCierreMs", 15000);
 
-    private Stack<Command> commandHistory = new Stack<>();
+    private final ClienteRepository clientes = new ClienteRepository();
+    // Se actualiza solo con cada alta o baja del repositorio
+    private final IndiceBusqueda indiceBusqueda = IndiceBusqueda.sobre(clientes);
+    // Cobros esperados por fecha, también actualizados por los eventos del repositorio
+    private final ProyeccionCobros proyeccionCobros = ProyeccionCobros.sobre(clientes);
+    // Próxima cuota impaga de cada cliente, ordenada por fecha, para el panel de alertas
+    private final IndiceVencimientos indiceVencimientos = IndiceVencimientos.sobre(clientes);
+    // La lista lee directamente del repositorio y se entera de cada cambio por sus eventos
+    private final ClientesListModel clienteListModel = new ClientesListModel(clientes);
+    private JList<Cliente> listaClientes = new JList<>(clienteListModel);
+
+    // Deshacer/rehacer acotado; lo que no entra en memoria queda en clientes.historial
+    private HistorialComandos historial;
     private JButton btnDeshacer;
+    private JButton btnRehacer;
     private JButton btnDetalles;
+    private JPanel panelAcciones;
+    // Opciones de menú que, como los botones, se deshabilitan mientras se carga o importa
+    private final List<JMenuItem> menuAcciones = new ArrayList<>();
+    private boolean cargaCompleta = false;
+    // La carga vino del libro Excel: si se leyó completo y el usuario confirma, el primer checkpoint crea el snapshot
+    private boolean migrarDesdeExcel = false;
+    private JournalClientes journal;
+    private EscritorSegundoPlano<Checkpoint> escritor;
+    // Sigue qué clientes cambiaron desde el último snapshot, para copiar solo esos en cada checkpoint
+    private InstantaneasClientes instantaneas;
+    // El snapshot del que se cargaron los clientes (null si vinieron del libro o del almacenamiento)
+    private Path snapshotCargado;
+    // Solo con el almacenamiento mapeado o sql; entonces no se usan el journal ni el escritor
+    private AlmacenClientes almacen;
+    // El almacenamiento no existía: se crea con lo cargado del snapshot o del libro
+    private boolean migrarAlAlmacen = false;
 
     public MainWindow() {
         setTitle("Inventario de Clientes - Tecnología");
-        setSize(850, 500);
-        setMinimumSize(new Dimension(900, 500));
+        setSize(1100, 720);
+        setMinimumSize(new Dimension(1100, 650));
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
 
-        loadClientsFromExcel();
-
         JPanel panelBotones = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
         panelBotones.setBorder(BorderFactory.createEmptyBorder(10, 10, 5, 10));
 
@@ -48,6 +114,7 @@ public class MainWindow extends JFrame {
         JButton btnExportarExcel = new JButton("Exportar a Excel");
         JButton btnEliminarCliente = new JButton("Eliminar Cliente");
         btnDeshacer = new JButton("Deshacer");
+        btnRehacer = new JButton("Rehacer");
         btnDetalles = new JButton("Detalles Cliente");
 
         Font buttonFont = new Font("SansSerif", Font.BOLD, 14);
@@ -64,6 +131,7 @@ public class MainWindow extends JFrame {
         styleButton(btnExportarExcel, exportColor, buttonFont);
         styleButton(btnEliminarCliente, deleteColor, buttonFont);
         styleButton(btnDeshacer, undoColor, buttonFont);
+        styleButton(btnRehacer, undoColor, buttonFont);
         styleButton(btnDetalles, detailColor, buttonFont);
 
         panelBotones.add(btnAgregar);
@@ -72,18 +140,39 @@ public class MainWindow extends JFrame {
         panelBotones.add(btnExportarExcel);
         panelBotones.add(btnEliminarCliente);
         panelBotones.add(btnDeshacer);
+        panelBotones.add(btnRehacer);
         panelBotones.add(btnDetalles);
 
         add(panelBotones, BorderLayout.NORTH);
 
+        JMenuBar menuBar = new JMenuBar();
+        JMenu menuArchivo = new JMenu("Archivo");
+        agregarAccionMenu(menuArchivo, "Importar pagos (CSV)...", this::importPaymentsFromCsv);
+        agregarAccionMenu(menuArchivo, "Alta masiva de clientes...", this::importClientsFromSpreadsheet);
+        menuBar.add(menuArchivo);
+        JMenu menuReportes = new JMenu("Reportes");
+        agregarAccionMenu(menuReportes, "Reporte de mora...", this::exportAgingReport);
+        agregarAccionMenu(menuReportes, "Proyección de cobros...", () -> new ProyeccionCobrosDialog(this, proyeccionCobros).setVisible(true));
+        menuBar.add(menuReportes);
+        setJMenuBar(menuBar);
+
         listaClientes.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        // Con un prototipo las filas tienen tamaño fijo: el renderer solo formatea las filas visibles
+        listaClientes.setCellRenderer(new ClienteCellRenderer());
+        listaClientes.setPrototypeCellValue(ClienteCellRenderer.PROTOTIPO);
         listaClientes.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         JScrollPane scrollPane = new JScrollPane(listaClientes);
         scrollPane.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createEmptyBorder(0, 10, 10, 10),
                 BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1)
         ));
-        add(scrollPane, BorderLayout.CENTER);
+        CampoBusqueda campoBusqueda = new CampoBusqueda(indiceBusqueda, this::seleccionarCliente);
+        campoBusqueda.setBorder(BorderFactory.createEmptyBorder(0, 10, 5, 10));
+        JPanel panelLista = new JPanel(new BorderLayout());
+        panelLista.add(campoBusqueda, BorderLayout.NORTH);
+        panelLista.add(scrollPane, BorderLayout.CENTER);
+        add(panelLista, BorderLayout.CENTER);
+        add(new PanelAlertas(indiceVencimientos, clientes, this::seleccionarCliente), BorderLayout.SOUTH);
 
         btnAgregar.addActionListener(e -> showAddClientForm());
         btnPagarCuota.addActionListener(e -> showRegisterPaymentForm());
@@ -96,24 +185,33 @@ public class MainWindow extends JFrame {
             int userSelection = fileChooser.showSaveDialog(this);
             if (userSelection == JFileChooser.APPROVE_OPTION) {
                 java.io.File fileToSave = fileChooser.getSelectedFile();
-                ExcelExporter.exportarClientes(clientes, fileToSave.getAbsolutePath());
-                JOptionPane.showMessageDialog(this, "Clientes exportados a: " + fileToSave.getAbsolutePath(),
-                        "Exportación Exitosa", JOptionPane.INFORMATION_MESSAGE);
+                // Si falla, el exportador ya mostró el error
+                if (ExcelExporter.exportarClientes(clientes.getClientes(), fileToSave.getAbsolutePath())) {
+                    JOptionPane.showMessageDialog(this, "Clientes exportados a: " + fileToSave.getAbsolutePath(),
+                            "Exportación Exitosa", JOptionPane.INFORMATION_MESSAGE);
+                }
             }
         });
         btnEliminarCliente.addActionListener(e -> deleteSelectedClient());
         btnDeshacer.addActionListener(e -> undoLastAction());
+        btnRehacer.addActionListener(e -> redoLastAction());
         btnDetalles.addActionListener(e -> showClientDetails());
 
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                saveClientsToExcel();
+                // Escritura final acotada: si no termina a tiempo, los cambios siguen en el journal
+                if (escritor != null) {
+                    escritor.cerrar(TIMEOUT_CIERRE_MS);
+                }
+                cerrarJournal();
+                cerrarAlmacen();
+                cerrarHistorial();
             }
         });
 
-        updateClientList();
-        updateUndoButtonState();
+        panelAcciones = panelBotones;
+        loadClients();
     }
 
     private void styleButton(JButton button, Color bgColor, Font font) {
@@ -125,38 +223,403 @@ public class MainWindow extends JFrame {
         button.setCursor(new Cursor(Cursor.HAND_CURSOR));
     }
 
+    private void agregarAccionMenu(JMenu menu, String texto, Runnable accion) {
+        JMenuItem item = new JMenuItem(texto);
+        item.addActionListener(e -> accion.run());
+        menu.add(item);
+        menuAcciones.add(item);
+    }
+
     private void updateUndoButtonState() {
-        btnDeshacer.setEnabled(!commandHistory.isEmpty());
+        btnDeshacer.setEnabled(historial != null && historial.puedeDeshacer());
+        btnRehacer.setEnabled(historial != null && historial.puedeRehacer());
+    }
+
+    // Selecciona en la lista al cliente elegido en la búsqueda y lo deja a la vista
+    private void seleccionarCliente(Cliente cliente) {
+        int indice = clientes.indiceDe(cliente);
+        if (indice >= 0) {
+            listaClientes.setSelectedIndex(indice);
+            listaClientes.ensureIndexIsVisible(indice);
+            listaClientes.requestFocusInWindow();
+        }
     }
 
     private void updateClientList() {
-        clienteListModel.clear();
-        for (Cliente c : clientes) {
-            clienteListModel.addElement(c.toString());
+        clienteListModel.refrescar();
+    }
+
+    /**
+     * Carga los clientes en segundo plano y los va mostrando en la lista a medida que se leen.
+     * Los botones quedan deshabilitados hasta que termina la carga para que ninguna acción
+     * trabaje sobre una lista incompleta. Se lee el snapshot binario; si todavía no existe pero
+     * hay un clientes.xlsx de una versión anterior, se lee el libro (con el lector por eventos)
+     * y, si llegaron todas sus filas y el usuario lo confirma, el primer checkpoint lo migra al
+     * snapshot.
+     */
+    private void loadClients() {
+        setAccionesHabilitadas(false);
+        new SwingWorker<Boolean, Cliente>() {
+            private final List<Cliente> duplicados = new ArrayList<>();
+            private Path origenExcel;
+            private ExcelExporter.LecturaClientes lecturaExcel;
+
+            @Override
+            protected Boolean doInBackground() {
+                if (!"snapshot".equals(ALMACENAMIENTO)) {
+                    try {
+                        almacen = abrirAlmacen();
+                        if (!almacen.esNuevo()) {
+                            List<Cliente> leidos = almacen.leer();
+                            publish(leidos.toArray(new Cliente[0]));
+                            System.out.println("✅ Clientes cargados desde el almacenamiento " + ALMACENAMIENTO);
+                            return true;
+                        }
+                        System.out.println("ℹ️ El almacenamiento " + ALMACENAMIENTO + " está vacío: se migran los clientes a él");
+                        migrarAlAlmacen = true;
+                    } catch (IOException e) {
+                        System.err.println("❌ Error al cargar el almacenamiento de clientes: " + e.getMessage());
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(MainWindow.this,
+                                "Error al cargar los clientes: " + e.getMessage(), "Error de Carga", JOptionPane.ERROR_MESSAGE));
+                        cerrarAlmacen();
+                        return false;
+                    }
+                }
+                // Si el archivo principal está dañado se usa la copia de respaldo válida más reciente
+                Path snapshot = ArchivoAtomico.elegirValido(Paths.get(SNAPSHOT_FILE), COPIAS_RESPALDO, SnapshotClientes::esArchivoValido);
+                if (Files.exists(snapshot) || !Files.exists(Paths.get(CLIENTES_FILE))) {
+                    return cargarSnapshot(snapshot);
+                }
+                System.out.println("ℹ️ No hay " + SNAPSHOT_FILE + ": se migran los clientes desde " + CLIENTES_FILE);
+                migrarDesdeExcel = true;
+                origenExcel = ArchivoAtomico.elegirValido(Paths.get(CLIENTES_FILE), COPIAS_RESPALDO, ExcelExporter::esArchivoValido);
+                lecturaExcel = ExcelExporter.leerClientes(origenExcel.toString(), this::publish);
+                return lecturaExcel.completa();
+            }
+
+            private boolean cargarSnapshot(Path snapshot) {
+                if (!Files.exists(snapshot)) {
+                    System.out.println("ℹ️ No hay archivo de clientes. Se iniciará con una lista de clientes vacía.");
+                    return true;
+                }
+                try {
+                    List<Cliente> leidos = SnapshotClientes.leer(snapshot);
+                    publish(leidos.toArray(new Cliente[0]));
+                    snapshotCargado = snapshot;
+                    System.out.println("✅ Clientes cargados desde: " + snapshot);
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("❌ Error al cargar el snapshot de clientes: " + e.getMessage());
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(MainWindow.this,
+                            "Error al cargar los clientes: " + e.getMessage(), "Error de Carga", JOptionPane.ERROR_MESSAGE));
+                    return false;
+                }
+            }
+
+            @Override
+            protected void process(List<Cliente> lote) {
+                // El repositorio descarta los DNI repetidos con una búsqueda hash por cliente
+                for (Cliente c : lote) {
+                    if (clientes.existeDni(c.getDni())) {
+                        duplicados.add(c);
+                    } else {
+                        clientes.agregar(c);
+                    }
+                }
+                setTitle("Inventario de Clientes - Tecnología (cargando " + clientes.size() + " clientes...)");
+            }
+
+            @Override
+            protected void done() {
+                setTitle("Inventario de Clientes - Tecnología");
+                try {
+                    // Si la lectura falló se trabaja igual con lo que se haya podido leer, pero sin
+                    // sobrescribir el archivo original al cerrar.
+                    cargaCompleta = get();
+                } catch (Exception e) {
+                    System.err.println("❌ Error al cargar clientes: " + e.getMessage());
+                }
+                if (migrarDesdeExcel && cargaCompleta && !confirmarMigracion(origenExcel, lecturaExcel, duplicados.size())) {
+                    // El libro sigue siendo la fuente: no se crea el snapshot y los cambios quedan en el journal
+                    cargaCompleta = false;
+                }
+                abrirPersistencia();
+                setAccionesHabilitadas(true);
+                updateUndoButtonState();
+                if (!duplicados.isEmpty()) {
+                    String dnis = duplicados.stream().map(Cliente::getDni).distinct().limit(10).collect(Collectors.joining(", "));
+                    System.err.println("Advertencia: Se descartaron " + duplicados.size() + " clientes con DNI duplicado: " + dnis);
+                    JOptionPane.showMessageDialog(MainWindow.this,
+                            "Se descartaron " + duplicados.size() + " clientes con DNI repetido en el archivo (DNI: " + dnis + ").",
+                            "DNI duplicados", JOptionPane.WARNING_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Una vez creado clientes.dat el libro ya no se vuelve a leer, así que antes de migrar se
+     * comprueba que cada fila del libro haya llegado a la lista (o se haya descartado por DNI
+     * repetido) y se pide confirmación. El libro no se modifica en ningún caso.
+     */
+    private boolean confirmarMigracion(Path origen, ExcelExporter.LecturaClientes lectura, int duplicados) {
+        int cargados = clientes.size();
+        if (lectura.descartadas() > 0 || cargados + duplicados != lectura.filas()) {
+            System.err.println("❌ No se migra " + origen + ": tiene " + lectura.filas() + " filas y se cargaron "
+                    + cargados + " clientes (" + lectura.descartadas() + " filas incompletas, " + duplicados + " DNI repetidos)");
+            JOptionPane.showMessageDialog(this, "De las " + lectura.filas() + " filas del libro " + origen + " solo se pudieron cargar "
+                            + (cargados + duplicados) + ".\nSe trabaja con los " + cargados
+                            + " clientes leídos, pero el libro no se migra al nuevo formato hasta corregirlo.",
+                    "Migración pendiente", JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        String detalle = duplicados > 0 ? " (se descartan " + duplicados + " con DNI repetido)" : "";
+        int opcion = JOptionPane.showConfirmDialog(this, "Se leyeron " + cargados + " clientes de " + origen + detalle
+                        + ".\n¿Guardarlos en el nuevo formato (" + SNAPSHOT_FILE + ")? El libro se conserva sin cambios,"
+                        + "\npero desde entonces los clientes se leen de " + SNAPSHOT_FILE + ".",
+                "Migrar clientes", JOptionPane.YES_NO_OPTION);
+        if (opcion != JOptionPane.YES_OPTION) {
+            System.out.println("ℹ️ Migración de " + origen + " postergada: se volverá a leer en el próximo inicio");
+            return false;
+        }
+        return true;
+    }
+
+    private void setAccionesHabilitadas(boolean habilitadas) {
+        for (Component componente : panelAcciones.getComponents()) {
+            componente.setEnabled(habilitadas);
+        }
+        for (JMenuItem item : menuAcciones) {
+            item.setEnabled(habilitadas);
+        }
+    }
+
+    /**
+     * Abre el journal, aplica sobre la lista los cambios posteriores al último checkpoint
+     * y arranca el escritor en segundo plano que escribe los checkpoints.
+     */
+    private void abrirPersistencia() {
+        // Con otro almacenamiento, el journal solo se lee una vez para migrar lo que tenga pendiente
+        if (almacen == null || migrarAlAlmacen) {
+            // Los clientes recién cargados son los del snapshot: desde acá se siguen los cambios,
+            // empezando por los que recupere el journal
+            instantaneas = new InstantaneasClientes(clientes, Paths.get(SNAPSHOT_FILE), COPIAS_RESPALDO);
+            instantaneas.partirDe(snapshotCargado);
+            try {
+                journal = new JournalClientes(Paths.get(JOURNAL_FILE));
+                int aplicadas = journal.reproducir(clientes);
+                if (aplicadas > 0) {
+                    System.out.println("✅ Cambios recuperados del journal: " + aplicadas);
+                }
+            } catch (IOException e) {
+                System.err.println("❌ No se pudo abrir el journal, los cambios se guardarán solo con la escritura completa: " + e.getMessage());
+                cerrarJournal();
+            }
+        }
+        if (almacen != null && migrarAlAlmacen) {
+            if (cargaCompleta) {
+                try {
+                    almacen.reemplazarTodo(clientes.getClientes());
+                    System.out.println("✅ Clientes migrados al almacenamiento " + ALMACENAMIENTO);
+                } catch (IOException e) {
+                    System.err.println("❌ No se pudo crear el almacenamiento " + ALMACENAMIENTO + ", se sigue con el snapshot: " + e.getMessage());
+                    cerrarAlmacen();
+                }
+            } else {
+                // Con una carga incompleta no se crea el almacenamiento: se sigue con el snapshot
+                cerrarAlmacen();
+            }
+        }
+        if (almacen != null) {
+            cerrarJournal();
+            if (instantaneas != null) {
+                instantaneas.detener();
+                instantaneas = null;
+            }
+        }
+
+        // El historial se enlaza por DNI con los clientes ya recuperados
+        try {
+            historial = new HistorialComandos(Paths.get(HISTORIAL_FILE), clientes);
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo abrir el historial, deshacer quedará solo en memoria: " + e.getMessage());
+            historial = HistorialComandos.enMemoria(clientes);
+        }
+
+        if (almacen != null) {
+            // Cada cambio se escribe entero al registrarlo: no hace falta el escritor
+            return;
+        }
+        escritor = new EscritorSegundoPlano<>(this::tomarCheckpoint, this::escribirCheckpoint, DEMORA_ESCRITURA_MS);
+        if (cargaCompleta && (migrarDesdeExcel || (journal != null && journal.getEntradas() > 0))) {
+            // Compactar lo recuperado (o lo migrado del libro) en un checkpoint nuevo
+            escritor.marcarSucio();
+        }
+    }
+
+    private void cerrarJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudo cerrar el journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    private static AlmacenClientes abrirAlmacen() throws IOException {
+        return switch (ALMACENAMIENTO) {
+            case "mapeado" -> new AlmacenCuotasMapeado(Paths.get(REGISTRO_FILE), Paths.get(CUOTAS_FILE));
+            case "sql" -> new AlmacenSql(Paths.get(BASE_DATOS_FILE));
+            default -> throw new IOException("Almacenamiento desconocido: " + ALMACENAMIENTO + " (se admite snapshot, mapeado o sql)");
+        };
+    }
+
+    private void cerrarAlmacen() {
+        if (almacen != null) {
+            try {
+                almacen.close();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudo cerrar el almacenamiento de clientes: " + e.getMessage());
+            }
+            almacen = null;
+        }
+    }
+
+    private void cerrarHistorial() {
+        if (historial != null) {
+            try {
+                historial.close();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudo cerrar el historial: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Persiste un comando recién ejecutado y lo agrega al historial de deshacer. El historial se
+     * escribe después del journal: si el programa se corta entre ambos, el cambio queda guardado
+     * aunque no se pueda deshacer.
+     */
+    private void registrarComando(Command command) {
+        persistirCambios(command, false);
+        try {
+            historial.registrar(command);
+        } catch (IOException e) {
+            System.err.println("❌ Error al escribir el historial: " + e.getMessage());
+        }
+        updateUndoButtonState();
+    }
+
+    /**
+     * Persiste el efecto de un comando agregándolo al journal (un write + fsync) y avisa al
+     * escritor en segundo plano, que agrupa los cambios y reescribe el snapshot completo. Con el
+     * almacenamiento mapeado o sql, en cambio, se escribe en el momento solo lo que cambió.
+     */
+    private void persistirCambios(Command command, boolean deshecho) {
+        if (almacen != null) {
+            try {
+                almacen.registrar(command, deshecho);
+            } catch (IOException e) {
+                System.err.println("❌ Error al guardar el cambio, se reescriben todos los clientes: " + e.getMessage());
+                try {
+                    almacen.reemplazarTodo(clientes.getClientes());
+                } catch (IOException e2) {
+                    System.err.println("❌ Error al guardar los clientes: " + e2.getMessage());
+                    JOptionPane.showMessageDialog(this, "Error al guardar los clientes: " + e2.getMessage(),
+                            "Error al Guardar", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.registrar(command, deshecho);
+            } catch (IOException e) {
+                System.err.println("❌ Error al escribir el journal, el cambio se guardará con la próxima escritura completa: " + e.getMessage());
+            }
+        }
+        // Si la carga falló, no se sobrescribe el archivo original: los cambios quedan en el journal
+        if (cargaCompleta) {
+            escritor.marcarSucio();
         }
     }
 
-    private void loadClientsFromExcel() {
-        List<Cliente> cargados = ExcelExporter.importarClientes("clientes.xlsx");
-        if (cargados != null) {
-            clientes = cargados;
+    // Se ejecuta en el EDT: copia solo los clientes que cambiaron y rota el journal en el mismo instante
+    private Checkpoint tomarCheckpoint() {
+        InstantaneasClientes.Instantanea instantanea = instantaneas.tomar();
+        long segmento = -1;
+        if (journal != null) {
+            try {
+                segmento = journal.rotar();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudo rotar el journal: " + e.getMessage());
+            }
         }
+        return new Checkpoint(instantanea, segmento);
     }
 
-    private void saveClientsToExcel() {
-        ExcelExporter.exportarClientes(clientes, "clientes.xlsx");
+    // Se ejecuta en el hilo de persistencia: escribe el snapshot (leyendo del anterior los clientes que
+    // no cambiaron) y, solo si se guardó bien, descarta el journal cubierto
+    private boolean escribirCheckpoint(Checkpoint checkpoint) {
+        InstantaneasClientes.Instantanea instantanea = checkpoint.instantanea();
+        InstantaneasClientes seguimiento = instantaneas;
+        try {
+            seguimiento.escribir(instantanea);
+        } catch (IOException e) {
+            System.err.println("❌ Error al guardar el snapshot de clientes, los cambios siguen en el journal: " + e.getMessage());
+            SwingUtilities.invokeLater(() -> seguimiento.escrita(instantanea, false));
+            return false;
+        }
+        SwingUtilities.invokeLater(() -> seguimiento.escrita(instantanea, true));
+        JournalClientes actual = journal;
+        if (checkpoint.segmento() >= 0 && actual != null) {
+            try {
+                actual.descartarHasta(checkpoint.segmento());
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudieron borrar segmentos del journal: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // Instantánea inmutable de los clientes junto con el último segmento del journal que cubre
+    private record Checkpoint(InstantaneasClientes.Instantanea instantanea, long segmento) {
     }
 
     private void undoLastAction() {
-        if (!commandHistory.isEmpty()) {
-            Command lastCommand = commandHistory.pop();
-            lastCommand.undo();
-            updateClientList();
-            saveClientsToExcel();
-            updateUndoButtonState();
-        } else {
+        if (!historial.puedeDeshacer()) {
             JOptionPane.showMessageDialog(this, "No hay acciones para deshacer.", "Deshacer", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        try {
+            boolean deshecho = historial.deshacer(command -> {
+                command.undo();
+                persistirCambios(command, true);
+            });
+            if (!deshecho) {
+                JOptionPane.showMessageDialog(this, "La acción guardada ya no corresponde a los datos actuales y no se pudo deshacer.", "Deshacer", JOptionPane.WARNING_MESSAGE);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error al leer el historial: " + e.getMessage());
+            JOptionPane.showMessageDialog(this, "Error al deshacer: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        updateUndoButtonState();
+    }
+
+    private void redoLastAction() {
+        try {
+            if (!historial.rehacer(command -> {
+                command.execute();
+                persistirCambios(command, false);
+            })) {
+                JOptionPane.showMessageDialog(this, "No hay acciones para rehacer.", "Rehacer", JOptionPane.INFORMATION_MESSAGE);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error al escribir el historial: " + e.getMessage());
         }
+        updateUndoButtonState();
     }
 
     private void deleteSelectedClient() {
@@ -171,10 +634,7 @@ public class MainWindow extends JFrame {
         if (confirm == JOptionPane.YES_OPTION) {
             EliminarClienteCommand command = new EliminarClienteCommand(clientes, client, selectedIndex);
             command.execute();
-            commandHistory.push(command);
-            updateClientList();
-            saveClientsToExcel();
-            updateUndoButtonState();
+            registrarComando(command);
         }
     }
 
@@ -256,13 +716,15 @@ public class MainWindow extends JFrame {
                     return;
                 }
 
+                if (clientes.existeDni(dni)) {
+                    JOptionPane.showMessageDialog(this, "Ya existe un cliente con DNI " + dni + ".", "Error de Validación", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
                 Cliente nuevo = new Cliente(nombre, apellido, dni, tipo, producto, total, cuotas, valor, fechaInicio);
                 AgregarClienteCommand command = new AgregarClienteCommand(clientes, nuevo);
                 command.execute();
-                commandHistory.push(command);
-                updateClientList();
-                saveClientsToExcel();
-                updateUndoButtonState();
+                registrarComando(command);
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, "Error de formato en números. Asegúrese de usar el formato correcto.", "Error", JOptionPane.ERROR_MESSAGE);
             } catch (DateTimeParseException e) {
@@ -273,6 +735,220 @@ public class MainWindow extends JFrame {
         }
     }
 
+    /**
+     * Importa los pagos de un CSV de extracto bancario. El archivo se lee en segundo plano
+     * (con las acciones deshabilitadas para que la lista no cambie mientras tanto); los pagos
+     * aceptados se aplican juntos como una sola acción que se puede deshacer y se persisten una vez.
+     * Junto al archivo queda un reporte con el resultado de cada línea.
+     */
+    private void importPaymentsFromCsv() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Importar pagos desde CSV");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Archivos CSV", "csv", "txt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path archivo = fileChooser.getSelectedFile().toPath();
+        Path reporte = archivo.resolveSibling(archivo.getFileName() + ".resultado.csv");
+        setAccionesHabilitadas(false);
+        new SwingWorker<ImportadorPagosCsv.Resultado, Void>() {
+            @Override
+            protected ImportadorPagosCsv.Resultado doInBackground() throws IOException {
+                return new ImportadorPagosCsv(clientes).leer(archivo);
+            }
+
+            @Override
+            protected void done() {
+                setAccionesHabilitadas(true);
+                ImportadorPagosCsv.Resultado resultado;
+                try {
+                    resultado = get();
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("❌ Error al leer el archivo de pagos: " + causa.getMessage());
+                    JOptionPane.showMessageDialog(MainWindow.this, "No se pudo leer el archivo: " + causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    updateUndoButtonState();
+                    return;
+                }
+
+                ImportarPagosCommand command = resultado.getComando();
+                if (command != null) {
+                    command.execute();
+                    registrarComando(command);
+                } else {
+                    updateUndoButtonState();
+                }
+                String ubicacionReporte;
+                try {
+                    resultado.escribirReporte(reporte);
+                    ubicacionReporte = "Reporte completo: " + reporte;
+                } catch (IOException e) {
+                    System.err.println("Advertencia: No se pudo escribir el reporte de la importación: " + e.getMessage());
+                    ubicacionReporte = "No se pudo escribir el reporte: " + e.getMessage();
+                }
+                System.out.println("✅ Pagos importados: " + resultado.getAceptadas() + ", rechazados: " + resultado.getRechazadas());
+
+                StringBuilder mensaje = new StringBuilder();
+                mensaje.append("Pagos aplicados: ").append(resultado.getAceptadas());
+                if (command != null) {
+                    mensaje.append(" (").append(command.getAfectados().size()).append(" clientes)");
+                }
+                mensaje.append("\nLíneas rechazadas: ").append(resultado.getRechazadas());
+                List<ImportadorPagosCsv.Linea> rechazadas = resultado.getLineasRechazadas();
+                for (int i = 0; i < Math.min(10, rechazadas.size()); i++) {
+                    ImportadorPagosCsv.Linea linea = rechazadas.get(i);
+                    mensaje.append("\n  Línea ").append(linea.numero()).append(": ").append(linea.detalle());
+                }
+                if (rechazadas.size() > 10) {
+                    mensaje.append("\n  ...");
+                }
+                mensaje.append("\n\n").append(ubicacionReporte);
+                JOptionPane.showMessageDialog(MainWindow.this, mensaje.toString(), "Importación de Pagos",
+                        resultado.getRechazadas() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+            }
+        }.execute();
+    }
+
+    /**
+     * Da de alta los clientes de una planilla de contratos (.xlsx o CSV). La lectura, validación
+     * y generación de cronogramas se hacen en segundo plano; los clientes aceptados se agregan
+     * juntos como una sola acción que se puede deshacer y se persisten una vez. Junto al archivo
+     * queda un reporte con el resultado de cada fila.
+     */
+    private void importClientsFromSpreadsheet() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Alta masiva de clientes");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Planillas (xlsx, csv)", "xlsx", "csv", "txt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path archivo = fileChooser.getSelectedFile().toPath();
+        Path reporte = archivo.resolveSibling(archivo.getFileName() + ".resultado.csv");
+        setAccionesHabilitadas(false);
+        new SwingWorker<AltaMasivaClientes.Resultado, Void>() {
+            @Override
+            protected AltaMasivaClientes.Resultado doInBackground() throws Exception {
+                return new AltaMasivaClientes(clientes).leer(archivo);
+            }
+
+            @Override
+            protected void done() {
+                setAccionesHabilitadas(true);
+                AltaMasivaClientes.Resultado resultado;
+                try {
+                    resultado = get();
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("❌ Error al leer la planilla de clientes: " + causa.getMessage());
+                    JOptionPane.showMessageDialog(MainWindow.this, "No se pudo leer la planilla: " + causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    updateUndoButtonState();
+                    return;
+                }
+
+                LoteCommand command = resultado.getComando();
+                if (command != null) {
+                    try {
+                        command.execute();
+                    } catch (IllegalArgumentException e) {
+                        // El lote se revierte entero
+                        JOptionPane.showMessageDialog(MainWindow.this, "No se pudo completar el alta: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        updateUndoButtonState();
+                        return;
+                    }
+                    registrarComando(command);
+                } else {
+                    updateUndoButtonState();
+                }
+                String ubicacionReporte;
+                try {
+                    resultado.escribirReporte(reporte);
+                    ubicacionReporte = "Reporte completo: " + reporte;
+                } catch (IOException e) {
+                    System.err.println("Advertencia: No se pudo escribir el reporte del alta masiva: " + e.getMessage());
+                    ubicacionReporte = "No se pudo escribir el reporte: " + e.getMessage();
+                }
+                System.out.println("✅ Clientes dados de alta: " + resultado.getAceptadas() + ", filas rechazadas: " + resultado.getRechazadas());
+
+                StringBuilder mensaje = new StringBuilder();
+                mensaje.append("Clientes agregados: ").append(resultado.getAceptadas());
+                mensaje.append("\nFilas rechazadas: ").append(resultado.getRechazadas());
+                List<AltaMasivaClientes.Linea> rechazadas = resultado.getLineasRechazadas();
+                for (int i = 0; i < Math.min(10, rechazadas.size()); i++) {
+                    AltaMasivaClientes.Linea linea = rechazadas.get(i);
+                    mensaje.append("\n  Fila ").append(linea.numero()).append(": ").append(linea.detalle());
+                }
+                if (rechazadas.size() > 10) {
+                    mensaje.append("\n  ...");
+                }
+                mensaje.append("\n\n").append(ubicacionReporte);
+                JOptionPane.showMessageDialog(MainWindow.this, mensaje.toString(), "Alta Masiva de Clientes",
+                        resultado.getRechazadas() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+            }
+        }.execute();
+    }
+
+    /**
+     * Exporta el reporte de mora (saldo impago por días de atraso) a una fecha de corte.
+     * El cálculo y la escritura del libro se hacen en segundo plano con las acciones
+     * deshabilitadas, para que ningún cliente cambie mientras se recorre la cartera.
+     */
+    private void exportAgingReport() {
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        String texto = (String) JOptionPane.showInputDialog(this, "Fecha de corte (dd/MM/yyyy):", "Reporte de Mora",
+                JOptionPane.QUESTION_MESSAGE, null, null, LocalDate.now().format(formato));
+        if (texto == null) {
+            return;
+        }
+        LocalDate fechaCorte;
+        try {
+            fechaCorte = LocalDate.parse(texto.trim(), formato);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Error de formato en la fecha. Use dd/MM/yyyy.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Guardar reporte de mora");
+        fileChooser.setSelectedFile(new java.io.File("mora_" + fechaCorte + ".xlsx"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path destino = fileChooser.getSelectedFile().toPath();
+        setAccionesHabilitadas(false);
+        new SwingWorker<ReporteMora, Void>() {
+            @Override
+            protected ReporteMora doInBackground() throws IOException {
+                ReporteMora reporte = ReporteMora.calcular(clientes.getClientes(), fechaCorte);
+                reporte.exportar(destino);
+                return reporte;
+            }
+
+            @Override
+            protected void done() {
+                setAccionesHabilitadas(true);
+                updateUndoButtonState();
+                ReporteMora reporte;
+                try {
+                    reporte = get();
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("❌ Error al generar el reporte de mora: " + causa.getMessage());
+                    JOptionPane.showMessageDialog(MainWindow.this, "No se pudo generar el reporte: " + causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                System.out.println("✅ Reporte de mora exportado a: " + destino);
+
+                StringBuilder mensaje = new StringBuilder("Mora al ").append(fechaCorte.format(formato)).append("\n");
+                for (ReporteMora.Tramo tramo : ReporteMora.Tramo.values()) {
+                    mensaje.append(String.format("%n  %-15s $%,14.2f  (%d cuotas)", tramo.getTitulo(),
+                            reporte.getTotal(tramo), reporte.getCuotas(tramo)));
+                }
+                mensaje.append(String.format("%n%n  Total vencido: $%,.2f", reporte.getTotalVencido()));
+                mensaje.append("\n\nReporte guardado en: ").append(destino);
+                JOptionPane.showMessageDialog(MainWindow.this, mensaje.toString(), "Reporte de Mora", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }.execute();
+    }
+
     private void showRegisterPaymentForm() {
         JTextField searchField = new JTextField();
         String[] searchOptions = {"DNI", "Apellido"};
@@ -297,11 +973,9 @@ public class MainWindow extends JFrame {
 
         Cliente cliente = null;
         if ("DNI".equals(searchType)) {
-            cliente = clientes.stream().filter(c -> c.getDni().equalsIgnoreCase(searchTerm)).findFirst().orElse(null);
+            cliente = clientes.buscarPorDni(searchTerm);
         } else if ("Apellido".equals(searchType)) {
-            List<Cliente> clientesPorApellido = clientes.stream()
-                    .filter(c -> c.getApellido().equalsIgnoreCase(searchTerm))
-                    .collect(Collectors.toList());
+            List<Cliente> clientesPorApellido = clientes.buscarPorApellido(searchTerm);
 
             if (clientesPorApellido.isEmpty()) {
                 JOptionPane.showMessageDialog(this, "No se encontraron clientes con ese apellido.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -365,13 +1039,9 @@ public class MainWindow extends JFrame {
                     return;
                 }
 
-                RegistrarPagoCommand command = new RegistrarPagoCommand(cliente, monto);
+                RegistrarPagoCommand command = new RegistrarPagoCommand(clientes, cliente, monto);
                 command.execute();
-                commandHistory.push(command);
-
-                updateClientList();
-                saveClientsToExcel();
-                updateUndoButtonState();
+                registrarComando(command);
 
                 String finalMessage = "Pago registrado exitosamente.";
                 if (cliente.getAdelantoAcumulado() > 0) {
@@ -0,0 +1,169 @@
+package com.inventario.ui;
+
+import com.inventario.models.Cliente;
+import com.inventario.reportes.IndiceVencimientos;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Panel de alertas de vencimiento: clientes que entraron en atraso hoy (su cuota venció ayer),
+ * los que tienen una cuota que vence hoy, los que vencen en los próximos días y los atrasos más
+ * antiguos. Cada lista es un rango del {@link IndiceVencimientos}, así que refrescarlas cuesta lo
+ * que muestran y no depende del tamaño de la cartera.
+ *
+ * Se refresca solo con los cambios del repositorio (agrupados en una sola actualización por
+ * ráfaga de eventos) y cuando cambia el día. Doble clic en una alerta elige al cliente.
+ */
+public class PanelAlertas extends JPanel implements OyenteRepositorio {
+
+    // Filas que se muestran como máximo en cada lista
+    private static final int MAX_FILAS = 100;
+    private static final int DIAS_PROXIMOS = Integer.getInteger("inventario.alertas.diasProximos", 7);
+
+    private final IndiceVencimientos indice;
+    private final DecimalFormat currencyFormat = new DecimalFormat("$#,##0.00");
+    private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final JSpinner spinnerDias = new JSpinner(new SpinnerNumberModel(DIAS_PROXIMOS, 1, 365, 1));
+    private final Lista nuevosAtrasos;
+    private final Lista vencenHoy;
+    private final Lista proximos;
+    private final Lista atrasosAntiguos;
+    private boolean refrescoPendiente = false;
+    private LocalDate hoy;
+
+    /**
+     * @param indice Índice de vencimientos; debe estar registrado en el repositorio antes que el panel.
+     * @param alElegir Se llama con el cliente de la alerta elegida.
+     */
+    public PanelAlertas(IndiceVencimientos indice, ClienteRepository repositorio, Consumer<Cliente> alElegir) {
+        super(new BorderLayout(5, 5));
+        this.indice = indice;
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 10, 10, 10),
+                BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Alertas de Vencimiento")));
+
+        JPanel panelDias = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        panelDias.add(new JLabel("Próximos"));
+        panelDias.add(spinnerDias);
+        panelDias.add(new JLabel("días"));
+        spinnerDias.addChangeListener(e -> refrescar());
+        add(panelDias, BorderLayout.NORTH);
+
+        nuevosAtrasos = new Lista(alElegir);
+        vencenHoy = new Lista(alElegir);
+        proximos = new Lista(alElegir);
+        atrasosAntiguos = new Lista(alElegir);
+        JPanel panelListas = new JPanel(new GridLayout(1, 4, 8, 0));
+        panelListas.add(nuevosAtrasos.contenedor);
+        panelListas.add(vencenHoy.contenedor);
+        panelListas.add(proximos.contenedor);
+        panelListas.add(atrasosAntiguos.contenedor);
+        add(panelListas, BorderLayout.CENTER);
+        setPreferredSize(new Dimension(0, 170));
+
+        repositorio.agregarOyente(this);
+        // Pasada la medianoche cambian las cuatro listas aunque no cambie ningún cliente
+        new Timer(60_000, e -> {
+            if (!LocalDate.now().equals(hoy)) {
+                refrescar();
+            }
+        }).start();
+        refrescar();
+    }
+
+    @Override
+    public void clienteAgregado(Cliente cliente, int indice) {
+        programarRefresco();
+    }
+
+    @Override
+    public void clienteEliminado(Cliente cliente, int indice) {
+        programarRefresco();
+    }
+
+    @Override
+    public void clienteReemplazado(Cliente anterior, Cliente nuevo, int indice) {
+        programarRefresco();
+    }
+
+    @Override
+    public void clienteModificado(Cliente cliente, int indice) {
+        programarRefresco();
+    }
+
+    // Una carga o importación avisa miles de cambios seguidos: se refresca una vez al final
+    private void programarRefresco() {
+        if (!refrescoPendiente) {
+            refrescoPendiente = true;
+            SwingUtilities.invokeLater(this::refrescar);
+        }
+    }
+
+    private void refrescar() {
+        refrescoPendiente = false;
+        hoy = LocalDate.now();
+        indice.alDia(hoy);
+        int dias = (Integer) spinnerDias.getValue();
+        LocalDate ayer = hoy.minusDays(1);
+        nuevosAtrasos.mostrar("Entraron en atraso hoy", indice.entre(ayer, ayer, MAX_FILAS + 1));
+        // Incluyen a los clientes atrasados que además tienen una cuota que vence en el rango
+        vencenHoy.mostrar("Vencen hoy", indice.vencenEntre(hoy, hoy, MAX_FILAS + 1));
+        proximos.mostrar("Próximos " + dias + " días", indice.vencenEntre(hoy.plusDays(1), hoy.plusDays(dias), MAX_FILAS + 1));
+        atrasosAntiguos.mostrar("Atrasos más antiguos", indice.atrasadosAl(hoy, MAX_FILAS + 1));
+    }
+
+    private String formatear(IndiceVencimientos.Alerta alerta) {
+        Cliente c = alerta.cliente();
+        long atraso = ChronoUnit.DAYS.between(alerta.vencimiento(), hoy);
+        String cuando = atraso > 0 ? atraso + " días" : alerta.vencimiento().format(dateFormat);
+        return c.getApellido() + ", " + c.getNombre() + " - Cuota " + alerta.numeroCuota()
+                + " " + currencyFormat.format(alerta.restante()) + " (" + cuando + ")";
+    }
+
+    private final class Lista {
+        final DefaultListModel<IndiceVencimientos.Alerta> modelo = new DefaultListModel<>();
+        final JList<IndiceVencimientos.Alerta> lista = new JList<>(modelo);
+        final JScrollPane contenedor = new JScrollPane(lista);
+
+        Lista(Consumer<Cliente> alElegir) {
+            lista.setFont(new Font("SansSerif", Font.PLAIN, 11));
+            lista.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            lista.setCellRenderer(new DefaultListCellRenderer() {
+                @Override
+                public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                    String texto = formatear((IndiceVencimientos.Alerta) value);
+                    return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+                }
+            });
+            lista.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    IndiceVencimientos.Alerta alerta = lista.getSelectedValue();
+                    if (e.getClickCount() == 2 && alerta != null) {
+                        alElegir.accept(alerta.cliente());
+                    }
+                }
+            });
+        }
+
+        void mostrar(String titulo, List<IndiceVencimientos.Alerta> alertas) {
+            modelo.clear();
+            for (int i = 0; i < Math.min(alertas.size(), MAX_FILAS); i++) {
+                modelo.addElement(alertas.get(i));
+            }
+            String cantidad = alertas.size() > MAX_FILAS ? MAX_FILAS + "+" : String.valueOf(alertas.size());
+            contenedor.setBorder(BorderFactory.createTitledBorder(titulo + " (" + cantidad + ")"));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.inventario.ui;
+
+import com.inventario.reportes.ProyeccionCobros;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Cobros esperados por día, semana o mes entre dos fechas, según el saldo impago de las cuotas.
+ * Cada consulta sale del índice por fecha de {@link ProyeccionCobros}, sin recorrer la cartera.
+ */
+public class ProyeccionCobrosDialog extends JDialog {
+
+    private static final String[] AGRUPACIONES = {"Día", "Semana", "Mes"};
+
+    private final ProyeccionCobros proyeccion;
+    private final DecimalFormat currencyFormat = new DecimalFormat("$#,##0.00");
+    private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final JTextField txtDesde;
+    private final JTextField txtHasta;
+    private final JComboBox<String> comboAgrupacion = new JComboBox<>(AGRUPACIONES);
+    private final DefaultTableModel modeloTabla;
+    private final JLabel lblTotalPeriodo = new JLabel();
+    private final JLabel lblVencido = new JLabel();
+    private final JLabel lblSinFecha = new JLabel();
+
+    public ProyeccionCobrosDialog(JFrame parent, ProyeccionCobros proyeccion) {
+        super(parent, "Proyección de Cobros", true);
+        this.proyeccion = proyeccion;
+        setSize(600, 500);
+        setMinimumSize(new Dimension(550, 400));
+        setLocationRelativeTo(parent);
+        setLayout(new BorderLayout(10, 10));
+
+        LocalDate hoy = LocalDate.now();
+        txtDesde = new JTextField(hoy.format(dateFormat), 10);
+        txtHasta = new JTextField(hoy.plusMonths(3).minusDays(1).format(dateFormat), 10);
+        comboAgrupacion.setSelectedIndex(1);
+
+        JPanel panelFiltros = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 5));
+        panelFiltros.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Rango"));
+        panelFiltros.add(new JLabel("Desde:"));
+        panelFiltros.add(txtDesde);
+        panelFiltros.add(new JLabel("Hasta:"));
+        panelFiltros.add(txtHasta);
+        panelFiltros.add(new JLabel("Agrupar por:"));
+        panelFiltros.add(comboAgrupacion);
+        JButton btnCalcular = new JButton("Calcular");
+        btnCalcular.addActionListener(e -> calcular());
+        panelFiltros.add(btnCalcular);
+        add(panelFiltros, BorderLayout.NORTH);
+
+        modeloTabla = new DefaultTableModel(new String[]{"Período", "Monto esperado", "Acumulado"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable tabla = new JTable(modeloTabla);
+        tabla.setFillsViewportHeight(true);
+        add(new JScrollPane(tabla), BorderLayout.CENTER);
+
+        JPanel panelTotales = new JPanel(new GridLayout(3, 1, 5, 2));
+        panelTotales.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        panelTotales.add(lblTotalPeriodo);
+        panelTotales.add(lblVencido);
+        panelTotales.add(lblSinFecha);
+        add(panelTotales, BorderLayout.SOUTH);
+
+        getRootPane().setDefaultButton(btnCalcular);
+        calcular();
+    }
+
+    private void calcular() {
+        LocalDate desde;
+        LocalDate hasta;
+        try {
+            desde = LocalDate.parse(txtDesde.getText().trim(), dateFormat);
+            hasta = LocalDate.parse(txtHasta.getText().trim(), dateFormat);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Error de formato en la fecha. Use dd/MM/yyyy.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (hasta.isBefore(desde)) {
+            JOptionPane.showMessageDialog(this, "La fecha 'Hasta' no puede ser anterior a 'Desde'.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        ProyeccionCobros.Agrupacion agrupacion = ProyeccionCobros.Agrupacion.values()[comboAgrupacion.getSelectedIndex()];
+
+        modeloTabla.setRowCount(0);
+        List<ProyeccionCobros.Periodo> periodos = proyeccion.proyectar(desde, hasta, agrupacion);
+        double acumulado = 0;
+        for (ProyeccionCobros.Periodo periodo : periodos) {
+            acumulado += periodo.monto();
+            String nombre = periodo.desde().equals(periodo.hasta())
+                    ? periodo.desde().format(dateFormat)
+                    : periodo.desde().format(dateFormat) + " - " + periodo.hasta().format(dateFormat);
+            modeloTabla.addRow(new Object[]{nombre, currencyFormat.format(periodo.monto()), currencyFormat.format(acumulado)});
+        }
+        lblTotalPeriodo.setText("Total esperado en el rango: " + currencyFormat.format(acumulado));
+        lblVencido.setText("Vencido sin cobrar antes del " + desde.format(dateFormat) + ": " + currencyFormat.format(proyeccion.getVencidoAntesDe(desde)));
+        lblSinFecha.setText("Cuotas sin fecha de vencimiento: " + currencyFormat.format(proyeccion.getSinFecha()));
+    }
+}
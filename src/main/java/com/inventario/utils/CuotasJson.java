@@ -0,0 +1,353 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cuota;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialización de la lista de cuotas de un cliente al formato JSON de la columna
+ * "Cuotas (JSON)" y su lectura en una sola pasada.
+ *
+ * El parser recorre los caracteres de la celda una vez y arma cada Cuota directamente,
+ * sin partir el texto ni crear substrings para números y fechas. Acepta todo lo que
+ * aceptaba la lectura anterior basada en split/indexOf: claves en cualquier orden,
+ * claves desconocidas (se ignoran), fechas vacías (null) e isFaltante ausente (false).
+ * Para valores con formas poco comunes recurre a Double.parseDouble / LocalDate.parse,
+ * de modo que el resultado es el mismo que antes.
+ */
+public class CuotasJson {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // Potencias de 10 representables exactamente como double (hasta 10^22)
+    private static final double[] POTENCIAS_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAXIMO_MANTISA_EXACTA = 1L << 53;
+
+    private CuotasJson() {
+    }
+
+    /**
+     * Serializa la lista de cuotas a JSON para guardarla en una celda.
+     */
+    public static String serializar(List<Cuota> cuotas) {
+        StringBuilder cuotasJson = new StringBuilder(cuotas.size() * 140 + 2);
+        cuotasJson.append("[");
+        for (Cuota cuota : cuotas) {
+            cuotasJson.append("{");
+            cuotasJson.append("\"numeroCuota\":").append(cuota.getNumeroCuota()).append(",");
+            cuotasJson.append("\"montoOriginal\":").append(cuota.getMontoOriginal()).append(",");
+            cuotasJson.append("\"montoPagado\":").append(cuota.getMontoPagado()).append(",");
+            cuotasJson.append("\"fechaVencimiento\":\"").append(cuota.getFechaVencimiento() != null ? cuota.getFechaVencimiento().format(DATE_FORMATTER) : "").append("\",");
+            cuotasJson.append("\"fechaPago\":\"").append(cuota.getFechaPago() != null ? cuota.getFechaPago().format(DATE_FORMATTER) : "").append("\",");
+            cuotasJson.append("\"isFaltante\":").append(cuota.isFaltante());
+            cuotasJson.append("},");
+        }
+        if (cuotas.size() > 0) {
+            cuotasJson.deleteCharAt(cuotasJson.length() - 1); // Eliminar la última coma
+        }
+        cuotasJson.append("]");
+        return cuotasJson.toString();
+    }
+
+    /**
+     * Lee la lista de cuotas desde el JSON de la celda.
+     * @param json El texto de la celda.
+     * @return Las cuotas leídas; una lista vacía si el texto no es un arreglo.
+     * @throws IllegalArgumentException Si falta un campo obligatorio o un valor es inválido.
+     */
+    public static List<Cuota> parsear(String json) {
+        List<Cuota> cuotas = new ArrayList<>();
+        if (!json.startsWith("[") || !json.endsWith("]")) {
+            return cuotas;
+        }
+        new Lector(json, json.length() - 1).leerCuotas(cuotas);
+        return cuotas;
+    }
+
+    /**
+     * Cursor sobre el texto. Los valores se leen por posición (inicio/fin) dentro del
+     * texto original; solo se crean Strings en los caminos de respaldo.
+     */
+    private static class Lector {
+        private final String s;
+        private final int fin; // Posición del ']' final
+        private int pos = 1;
+
+        // Campos de la cuota en curso
+        private boolean tieneNumero, tieneOriginal, tienePagado;
+        private int numeroCuota;
+        private double montoOriginal, montoPagado;
+        private LocalDate fechaVencimiento, fechaPago;
+        private boolean tieneVencimiento, tieneFechaPago, tieneFaltante;
+        private boolean isFaltante;
+
+        Lector(String s, int fin) {
+            this.s = s;
+            this.fin = fin;
+        }
+
+        void leerCuotas(List<Cuota> cuotas) {
+            saltarEspacios();
+            while (pos < fin) {
+                esperar('{');
+                leerObjeto();
+                cuotas.add(new Cuota(numeroCuota, montoOriginal, montoPagado, fechaVencimiento, fechaPago, isFaltante));
+                saltarEspacios();
+                if (pos < fin && s.charAt(pos) == ',') {
+                    pos++;
+                    saltarEspacios();
+                }
+            }
+        }
+
+        private void leerObjeto() {
+            tieneNumero = tieneOriginal = tienePagado = false;
+            tieneVencimiento = tieneFechaPago = tieneFaltante = false;
+            fechaVencimiento = null;
+            fechaPago = null;
+            isFaltante = false;
+
+            saltarEspacios();
+            while (pos < fin && s.charAt(pos) != '}') {
+                esperar('"');
+                int inicioClave = pos;
+                int finClave = s.indexOf('"', pos);
+                if (finClave < 0 || finClave >= fin) {
+                    throw new IllegalArgumentException("Clave sin cerrar en la posición " + inicioClave);
+                }
+                pos = finClave + 1;
+                saltarEspacios();
+                esperar(':');
+                saltarEspacios();
+                leerValor(inicioClave, finClave - inicioClave);
+                saltarEspacios();
+                if (pos < fin && s.charAt(pos) == ',') {
+                    pos++;
+                    saltarEspacios();
+                }
+            }
+            esperar('}');
+
+            if (!tieneNumero) {
+                throw new NumberFormatException("Falta numeroCuota");
+            }
+            if (!tieneOriginal || !tienePagado) {
+                throw new NumberFormatException("Falta montoOriginal o montoPagado en la cuota " + numeroCuota);
+            }
+        }
+
+        // Lee el valor de la clave que empieza en inicioClave; si la clave ya apareció se conserva la primera
+        private void leerValor(int inicioClave, int largoClave) {
+            int inicio, finValor;
+            if (pos < fin && s.charAt(pos) == '"') {
+                inicio = pos + 1;
+                finValor = s.indexOf('"', inicio);
+                if (finValor < 0 || finValor >= fin) {
+                    throw new IllegalArgumentException("Texto sin cerrar en la posición " + inicio);
+                }
+                pos = finValor + 1;
+            } else {
+                inicio = pos;
+                while (pos < fin && s.charAt(pos) != ',' && s.charAt(pos) != '}') {
+                    pos++;
+                }
+                finValor = pos;
+                while (finValor > inicio && s.charAt(finValor - 1) <= ' ') {
+                    finValor--;
+                }
+            }
+
+            if (esClave(inicioClave, largoClave, "numeroCuota")) {
+                if (!tieneNumero) {
+                    numeroCuota = leerEntero(inicio, finValor);
+                    tieneNumero = true;
+                }
+            } else if (esClave(inicioClave, largoClave, "montoOriginal")) {
+                if (!tieneOriginal) {
+                    montoOriginal = leerDouble(inicio, finValor);
+                    tieneOriginal = true;
+                }
+            } else if (esClave(inicioClave, largoClave, "montoPagado")) {
+                if (!tienePagado) {
+                    montoPagado = leerDouble(inicio, finValor);
+                    tienePagado = true;
+                }
+            } else if (esClave(inicioClave, largoClave, "fechaVencimiento")) {
+                if (!tieneVencimiento) {
+                    fechaVencimiento = leerFecha(inicio, finValor);
+                    tieneVencimiento = true;
+                }
+            } else if (esClave(inicioClave, largoClave, "fechaPago")) {
+                if (!tieneFechaPago) {
+                    fechaPago = leerFecha(inicio, finValor);
+                    tieneFechaPago = true;
+                }
+            } else if (esClave(inicioClave, largoClave, "isFaltante")) {
+                if (!tieneFaltante) {
+                    isFaltante = finValor - inicio == 4 && s.regionMatches(true, inicio, "true", 0, 4);
+                    tieneFaltante = true;
+                }
+            }
+        }
+
+        private boolean esClave(int inicio, int largo, String clave) {
+            return largo == clave.length() && s.regionMatches(inicio, clave, 0, largo);
+        }
+
+        private int leerEntero(int inicio, int finValor) {
+            int i = inicio;
+            boolean negativo = false;
+            if (i < finValor && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativo = s.charAt(i) == '-';
+                i++;
+            }
+            if (i == finValor || finValor - i > 9) {
+                return Integer.parseInt(s.substring(inicio, finValor));
+            }
+            int valor = 0;
+            for (; i < finValor; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Integer.parseInt(s.substring(inicio, finValor));
+                }
+                valor = valor * 10 + (c - '0');
+            }
+            return negativo ? -valor : valor;
+        }
+
+        /**
+         * Convierte la región a double. Usa el camino rápido exacto (mantisa de hasta 2^53
+         * y exponente decimal de hasta 22, cuyo resultado coincide con Double.parseDouble)
+         * y recurre a Double.parseDouble para cualquier otro caso.
+         */
+        private double leerDouble(int inicio, int finValor) {
+            int i = inicio;
+            boolean negativo = false;
+            if (i < finValor && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativo = s.charAt(i) == '-';
+                i++;
+            }
+            long mantisa = 0;
+            int exponente = 0;
+            int digitos = 0;
+            boolean hayDigitos = false;
+            boolean enDecimales = false;
+            for (; i < finValor; i++) {
+                char c = s.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    hayDigitos = true;
+                    if (mantisa != 0 || c != '0') {
+                        if (++digitos > 18) {
+                            return respaldoDouble(inicio, finValor);
+                        }
+                    }
+                    mantisa = mantisa * 10 + (c - '0');
+                    if (enDecimales) {
+                        exponente--;
+                    }
+                } else if (c == '.' && !enDecimales) {
+                    enDecimales = true;
+                } else {
+                    break;
+                }
+            }
+            if (!hayDigitos) {
+                return respaldoDouble(inicio, finValor);
+            }
+            if (i < finValor) {
+                char c = s.charAt(i);
+                if (c != 'e' && c != 'E') {
+                    return respaldoDouble(inicio, finValor);
+                }
+                i++;
+                boolean exponenteNegativo = false;
+                if (i < finValor && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                    exponenteNegativo = s.charAt(i) == '-';
+                    i++;
+                }
+                if (i == finValor || finValor - i > 3) {
+                    return respaldoDouble(inicio, finValor);
+                }
+                int exp = 0;
+                for (; i < finValor; i++) {
+                    c = s.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return respaldoDouble(inicio, finValor);
+                    }
+                    exp = exp * 10 + (c - '0');
+                }
+                exponente += exponenteNegativo ? -exp : exp;
+            }
+
+            double valor;
+            if (mantisa > MAXIMO_MANTISA_EXACTA) {
+                return respaldoDouble(inicio, finValor);
+            } else if (exponente == 0 || mantisa == 0) {
+                valor = mantisa;
+            } else if (exponente > 0 && exponente <= 22) {
+                valor = mantisa * POTENCIAS_10[exponente];
+            } else if (exponente < 0 && exponente >= -22) {
+                valor = mantisa / POTENCIAS_10[-exponente];
+            } else {
+                return respaldoDouble(inicio, finValor);
+            }
+            return negativo ? -valor : valor;
+        }
+
+        private double respaldoDouble(int inicio, int finValor) {
+            return Double.parseDouble(s.substring(inicio, finValor));
+        }
+
+        private LocalDate leerFecha(int inicio, int finValor) {
+            if (inicio == finValor) {
+                return null;
+            }
+            if (finValor - inicio == 10 && s.charAt(inicio + 4) == '-' && s.charAt(inicio + 7) == '-') {
+                int anio = digitos(inicio, 4);
+                int mes = digitos(inicio + 5, 2);
+                int dia = digitos(inicio + 8, 2);
+                if (anio >= 0 && mes >= 0 && dia >= 0) {
+                    try {
+                        return LocalDate.of(anio, mes, dia);
+                    } catch (DateTimeException e) {
+                        // Fechas como 2024-02-30 las resuelve el formatter; se usa el camino general
+                    }
+                }
+            }
+            return LocalDate.parse(s.substring(inicio, finValor), DATE_FORMATTER);
+        }
+
+        // Devuelve el número formado por 'cantidad' dígitos, o -1 si hay algún carácter que no es dígito
+        private int digitos(int inicio, int cantidad) {
+            int valor = 0;
+            for (int i = inicio; i < inicio + cantidad; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                valor = valor * 10 + (c - '0');
+            }
+            return valor;
+        }
+
+        private void saltarEspacios() {
+            while (pos < fin && s.charAt(pos) <= ' ') {
+                pos++;
+            }
+        }
+
+        private void esperar(char esperado) {
+            if (pos >= fin || s.charAt(pos) != esperado) {
+                throw new IllegalArgumentException("Se esperaba '" + esperado + "' en la posición " + pos);
+            }
+            pos++;
+        }
+    }
+}
@@ -2,34 +2,98 @@ package com.inventario.utils;
 
 import com.inventario.models.Cliente;
 import com.inventario.models.Cuota;
+import com.inventario.persistence.ArchivoAtomico;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import javax.swing.JOptionPane; // Importar JOptionPane
+import java.awt.GraphicsEnvironment;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
 
 public class ExcelExporter {
 
     private static final String DEFAULT_FILE_PATH = "clientes.xlsx";
     private static final String CLIENTES_SHEET_NAME = "Clientes";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Modo de escritura del libro Excel.
+     * DOM construye todo el libro en memoria (adecuado para archivos chicos);
+     * STREAMING mantiene solo una ventana de filas en memoria y vuelca el resto a disco.
+     */
+    public enum ModoExportacion { DOM, STREAMING }
+
+    // A partir de esta cantidad de clientes el modo automático usa STREAMING.
+    private static final int UMBRAL_STREAMING = Integer.getInteger("inventario.excel.umbralStreaming", 2000);
+    // Filas que SXSSF mantiene en memoria antes de volcarlas al archivo temporal.
+    private static final int VENTANA_FILAS = 200;
+    // Filas que se miden para estimar el ancho de columnas en modo STREAMING.
+    private static final int FILAS_MUESTRA_ANCHO = 500;
+    // Ancho máximo (en caracteres) para la columna de cuotas, que suele ser muy larga.
+    private static final int ANCHO_MAXIMO_CUOTAS = 80;
+
+    private static final String[] CLIENTES_HEADERS = {
+            "Nombre", "Apellido", "DNI", "Tipo de Cuota", "Producto", "Total Producto",
+            "Adelanto Acumulado", "Cuotas (JSON)" // Cuotas ahora en formato JSON
+    };
+
+    /**
+     * Exporta la lista de clientes eligiendo el modo según la cantidad de clientes:
+     * DOM para archivos chicos y STREAMING para carteras grandes.
+     * @param clientes La lista de objetos Cliente a exportar.
+     * @param rutaArchivo La ruta completa del archivo Excel de salida.
+     * @return true si el archivo se escribió correctamente.
+     */
+    public static boolean exportarClientes(List<Cliente> clientes, String rutaArchivo) {
+        return exportarClientes(clientes, rutaArchivo, modoPara(clientes.size()), 0);
+    }
+
+    /**
+     * Modo que usa la exportación automática para una cantidad de clientes.
+     */
+    public static ModoExportacion modoPara(int cantidadClientes) {
+        return cantidadClientes > UMBRAL_STREAMING ? ModoExportacion.STREAMING : ModoExportacion.DOM;
+    }
+
+    /**
+     * Exporta la lista de clientes en el modo indicado, sin copias de respaldo.
+     */
+    public static boolean exportarClientes(List<Cliente> clientes, String rutaArchivo, ModoExportacion modo) {
+        return exportarClientes(clientes, rutaArchivo, modo, 0);
+    }
 
     /**
      * Exporta la lista de clientes a un archivo Excel con una sola hoja:
      * "Clientes" donde se incluye el resumen y el detalle de cuotas en formato JSON.
-     * @param clientes La lista de objetos Cliente a exportar.
+     * En modo STREAMING el ancho de columnas se estima con una muestra de filas
+     * en lugar de usar autoSizeColumn, que recorre todas las filas.
+     * El archivo se escribe primero en un temporal y se mueve a su lugar con un rename atómico,
+     * así un corte a mitad de la escritura nunca deja un libro truncado.
+     * @param clientes Los clientes a exportar; se recorren una sola vez, así que en modo STREAMING
+     *                 pueden generarse a medida que se escriben sin tenerlos todos en memoria.
      * @param rutaArchivo La ruta completa del archivo Excel de salida.
+     * @param modo El modo de escritura del libro.
+     * @param copiasRespaldo Cantidad de versiones anteriores del archivo a conservar (0 para ninguna).
+     * @return true si el archivo se escribió correctamente.
      */
-    public static void exportarClientes(List<Cliente> clientes, String rutaArchivo) {
-        Workbook workbook = new XSSFWorkbook();
+    public static boolean exportarClientes(Iterable<Cliente> clientes, String rutaArchivo, ModoExportacion modo, int copiasRespaldo) {
+        boolean streaming = modo == ModoExportacion.STREAMING;
+        Workbook workbook;
+        if (streaming) {
+            SXSSFWorkbook sxssf = new SXSSFWorkbook(VENTANA_FILAS);
+            sxssf.setCompressTempFiles(true);
+            workbook = sxssf;
+        } else {
+            workbook = new XSSFWorkbook();
+        }
 
         // --- Hoja de Clientes (Resumen y Cuotas JSON) ---
         Sheet clientesSheet = workbook.createSheet(CLIENTES_SHEET_NAME);
@@ -45,20 +109,19 @@ public class ExcelExporter {
 
         // Cabecera para la hoja de Clientes (Añadido "Producto" y "Adelanto Acumulado")
         Row clientesHeader = clientesSheet.createRow(0);
-        String[] clientesHeaders = {
-                "Nombre", "Apellido", "DNI", "Tipo de Cuota", "Producto", "Total Producto",
-                "Adelanto Acumulado", "Cuotas (JSON)" // Cuotas ahora en formato JSON
-        };
-        for (int i = 0; i < clientesHeaders.length; i++) {
+        int[] anchos = new int[CLIENTES_HEADERS.length]; // Ancho estimado en caracteres (solo STREAMING)
+        for (int i = 0; i < CLIENTES_HEADERS.length; i++) {
             Cell cell = clientesHeader.createCell(i);
-            cell.setCellValue(clientesHeaders[i]);
+            cell.setCellValue(CLIENTES_HEADERS[i]);
             cell.setCellStyle(headerCellStyle);
+            anchos[i] = CLIENTES_HEADERS[i].length();
         }
 
         // Cuerpo para la hoja de Clientes (Ajustados índices de celdas)
         int rowNum = 1;
         for (Cliente cliente : clientes) {
-            Row row = clientesSheet.createRow(rowNum++);
+            Row row = clientesSheet.createRow(rowNum);
+            String cuotasJson = CuotasJson.serializar(cliente.getCuotas());
             row.createCell(0).setCellValue(cliente.getNombre());
             row.createCell(1).setCellValue(cliente.getApellido());
             row.createCell(2).setCellValue(cliente.getDni());
@@ -66,39 +129,60 @@ public class ExcelExporter {
             row.createCell(4).setCellValue(cliente.getProducto()); // Escribir el producto (índice 4)
             row.createCell(5).setCellValue(cliente.getTotalProducto()); // Total Producto (índice 5)
             row.createCell(6).setCellValue(cliente.getAdelantoAcumulado()); // Adelanto Acumulado (índice 6)
-
-            // Serializar la lista de cuotas a JSON para guardarla en una celda (índice 7)
-            StringBuilder cuotasJson = new StringBuilder("[");
-            for (Cuota cuota : cliente.getCuotas()) {
-                cuotasJson.append("{");
-                cuotasJson.append("\"numeroCuota\":").append(cuota.getNumeroCuota()).append(",");
-                cuotasJson.append("\"montoOriginal\":").append(cuota.getMontoOriginal()).append(",");
-                cuotasJson.append("\"montoPagado\":").append(cuota.getMontoPagado()).append(",");
-                cuotasJson.append("\"fechaVencimiento\":\"").append(cuota.getFechaVencimiento() != null ? cuota.getFechaVencimiento().format(DATE_FORMATTER) : "").append("\",");
-                cuotasJson.append("\"fechaPago\":\"").append(cuota.getFechaPago() != null ? cuota.getFechaPago().format(DATE_FORMATTER) : "").append("\",");
-                cuotasJson.append("\"isFaltante\":").append(cuota.isFaltante());
-                cuotasJson.append("},");
-            }
-            if (cliente.getCuotas().size() > 0) {
-                cuotasJson.deleteCharAt(cuotasJson.length() - 1); // Eliminar la última coma
+            row.createCell(7).setCellValue(cuotasJson); // Cuotas (JSON) (índice 7)
+
+            if (streaming && rowNum <= FILAS_MUESTRA_ANCHO) {
+                medirAncho(anchos, 0, cliente.getNombre());
+                medirAncho(anchos, 1, cliente.getApellido());
+                medirAncho(anchos, 2, cliente.getDni());
+                medirAncho(anchos, 3, cliente.getTipoCuota());
+                medirAncho(anchos, 4, cliente.getProducto());
+                medirAncho(anchos, 5, String.valueOf(cliente.getTotalProducto()));
+                medirAncho(anchos, 6, String.valueOf(cliente.getAdelantoAcumulado()));
+                anchos[7] = Math.max(anchos[7], Math.min(cuotasJson.length(), ANCHO_MAXIMO_CUOTAS));
             }
-            cuotasJson.append("]");
-            row.createCell(7).setCellValue(cuotasJson.toString()); // Cuotas (JSON)
+            rowNum++;
         }
 
         // Ajustar ancho de columnas para la hoja de Clientes
-        for (int i = 0; i < clientesHeaders.length; i++) {
-            clientesSheet.autoSizeColumn(i);
+        for (int i = 0; i < CLIENTES_HEADERS.length; i++) {
+            if (streaming) {
+                // Ancho en unidades de 1/256 de carácter, con margen y tope de Excel (255 caracteres)
+                clientesSheet.setColumnWidth(i, Math.min(anchos[i] + 2, 255) * 256);
+            } else {
+                clientesSheet.autoSizeColumn(i);
+            }
         }
 
         // Guardar archivo
-        try (FileOutputStream out = new FileOutputStream(rutaArchivo)) {
-            workbook.write(out);
-            workbook.close();
+        try {
+            ArchivoAtomico.escribir(Paths.get(rutaArchivo), copiasRespaldo, workbook::write);
             System.out.println("📁 Archivo exportado: " + rutaArchivo);
+            return true;
         } catch (IOException e) {
             System.err.println("❌ Error al exportar: " + e.getMessage());
-            JOptionPane.showMessageDialog(null, "Error al exportar clientes a Excel: " + e.getMessage(), "Error de Exportación", JOptionPane.ERROR_MESSAGE);
+            mostrarError("Error al exportar clientes a Excel: " + e.getMessage(), "Error de Exportación");
+            return false;
+        } finally {
+            cerrarLibro(workbook);
+        }
+    }
+
+    private static void medirAncho(int[] anchos, int columna, String valor) {
+        if (valor != null && valor.length() > anchos[columna]) {
+            anchos[columna] = valor.length();
+        }
+    }
+
+    // Cierra el libro y, en modo STREAMING, borra los archivos temporales de SXSSF
+    private static void cerrarLibro(Workbook workbook) {
+        try {
+            if (workbook instanceof SXSSFWorkbook sxssf) {
+                sxssf.dispose();
+            }
+            workbook.close();
+        } catch (IOException e) {
+            System.err.println("Advertencia: No se pudo cerrar el libro Excel: " + e.getMessage());
         }
     }
 
@@ -106,125 +190,128 @@ public class ExcelExporter {
      * Importa la lista de clientes desde un archivo Excel con una sola hoja (Clientes)
      * donde las cuotas están serializadas en JSON.
      * @param rutaArchivo La ruta completa del archivo Excel de entrada.
-     * @return Una lista de objetos Cliente leídos del Excel.
+     * @return Una lista de objetos Cliente leídos del Excel, o null si el archivo no se pudo leer
+     *         completo.
      */
     public static List<Cliente> importarClientes(String rutaArchivo) {
         List<Cliente> clientes = new ArrayList<>();
+        if (!importarClientes(rutaArchivo, clientes::add)) {
+            return null;
+        }
+        return clientes;
+    }
+
+    /**
+     * Importa los clientes fila por fila usando el lector por eventos (SAX), sin cargar
+     * la hoja completa en memoria. Cada Cliente se entrega al consumidor apenas se lee
+     * su fila, por lo que se puede empezar a mostrar la lista antes de terminar el archivo.
+     * @param rutaArchivo La ruta completa del archivo Excel de entrada.
+     * @param consumidor Recibe cada Cliente en el orden del archivo.
+     * @return false si hubo cualquier error de lectura, aunque el consumidor ya haya recibido parte
+     *         de los clientes (por ejemplo, con una hoja cortada); true solo si se leyó la hoja completa
+     *         (o si el archivo no existe).
+     */
+    public static boolean importarClientes(String rutaArchivo, Consumer<Cliente> consumidor) {
+        return leerClientes(rutaArchivo, consumidor).completa();
+    }
+
+    /**
+     * Resultado de leer el libro de clientes.
+     * @param completa false si hubo un error de lectura; el consumidor puede haber recibido parte de los clientes.
+     * @param filas Filas de datos leídas, sin la cabecera.
+     * @param descartadas Filas que se saltearon por tener celdas vacías; el resto llegó al consumidor.
+     */
+    public record LecturaClientes(boolean completa, int filas, int descartadas) {
+    }
+
+    /**
+     * Como {@link #importarClientes(String, Consumer)}, pero informa además cuántas filas se leyeron y
+     * cuántas se descartaron, para poder comprobar que llegaron todos los clientes del libro.
+     */
+    public static LecturaClientes leerClientes(String rutaArchivo, Consumer<Cliente> consumidor) {
         File excelFile = new File(rutaArchivo);
 
         if (!excelFile.exists()) {
             System.out.println("ℹ️ El archivo Excel no existe. Se iniciará con una lista de clientes vacía.");
-            return clientes;
+            return new LecturaClientes(true, 0, 0);
         }
 
-        try (FileInputStream fis = new FileInputStream(excelFile);
-             Workbook workbook = new XSSFWorkbook(fis)) {
-
-            // --- Importar Clientes desde la Hoja "Clientes" ---
-            Sheet clientesSheet = workbook.getSheet(CLIENTES_SHEET_NAME);
-            if (clientesSheet == null) {
-                System.err.println("❌ Hoja '" + CLIENTES_SHEET_NAME + "' no encontrada en el archivo Excel. Se iniciará con lista vacía.");
-                return new ArrayList<>();
-            }
-
-            DataFormatter formatter = new DataFormatter(); // Para leer celdas como String
-
-            for (int rowNum = 1; rowNum <= clientesSheet.getLastRowNum(); rowNum++) {
-                Row fila = clientesSheet.getRow(rowNum);
-                if (fila == null) {
-                    continue;
+        int[] filas = new int[2]; // Leídas y descartadas
+        try {
+            boolean hojaEncontrada = ExcelStreamingReader.leerHoja(excelFile, CLIENTES_SHEET_NAME, (rowNum, fila) -> {
+                if (rowNum == 0) {
+                    return; // Cabecera
                 }
-
-                // Asegúrate de que las celdas no sean nulas antes de intentar leerlas
-                // Ajustados los índices para leer Producto y Adelanto Acumulado
-                Cell nombreCell = fila.getCell(0);
-                Cell apellidoCell = fila.getCell(1);
-                Cell dniCell = fila.getCell(2);
-                Cell tipoCuotaCell = fila.getCell(3);
-                Cell productoCell = fila.getCell(4); // Celda para producto (índice 4)
-                Cell totalProductoCell = fila.getCell(5); // Celda para totalProducto (índice 5)
-                Cell adelantoAcumuladoCell = fila.getCell(6); // Celda para adelantoAcumulado (índice 6)
-                Cell cuotasJsonCell = fila.getCell(7); // Celda para cuotas JSON (índice 7)
+                filas[0]++;
 
                 // Validar que las celdas principales no sean nulas
-                if (nombreCell == null || apellidoCell == null || dniCell == null || tipoCuotaCell == null ||
-                        productoCell == null || totalProductoCell == null || adelantoAcumuladoCell == null || cuotasJsonCell == null) {
-                    System.err.println("Advertencia: Fila incompleta detectada en Excel, saltando fila " + rowNum);
-                    continue;
+                // (Nombre, Apellido, DNI, Tipo de Cuota, Producto, Total Producto, Adelanto Acumulado y Cuotas JSON)
+                for (int i = 0; i < CLIENTES_HEADERS.length; i++) {
+                    if (!fila.presente(i)) {
+                        System.err.println("Advertencia: Fila incompleta detectada en Excel, saltando fila " + rowNum);
+                        filas[1]++;
+                        return;
+                    }
                 }
 
-                String nombre = formatter.formatCellValue(nombreCell);
-                String apellido = formatter.formatCellValue(apellidoCell);
-                String dni = formatter.formatCellValue(dniCell);
-                String tipoCuota = formatter.formatCellValue(tipoCuotaCell);
-                String producto = formatter.formatCellValue(productoCell); // Leer producto
-                double totalProducto = getNumericCellValue(totalProductoCell);
-                double adelantoAcumulado = getNumericCellValue(adelantoAcumuladoCell); // Leer adelanto acumulado
+                String nombre = fila.texto(0);
+                String apellido = fila.texto(1);
+                String dni = fila.texto(2);
+                String tipoCuota = fila.texto(3);
+                String producto = fila.texto(4); // Leer producto
+                double totalProducto = fila.numero(5);
+                double adelantoAcumulado = fila.numero(6); // Leer adelanto acumulado
+                List<Cuota> cuotas = deserializarCuotas(fila.texto(7), nombre);
 
-                // Deserializar la lista de cuotas desde JSON
-                List<Cuota> cuotas = new ArrayList<>();
-                try {
-                    String cuotasJson = formatter.formatCellValue(cuotasJsonCell);
-                    // Lógica de parsing de JSON aquí (la misma que ya tenías)
-                    if (cuotasJson.startsWith("[") && cuotasJson.endsWith("]")) {
-                        String content = cuotasJson.substring(1, cuotasJson.length() - 1);
-                        String[] cuotaStrings = content.split("\\},\\{");
-                        for (String cs : cuotaStrings) {
-                            if (cs.isEmpty()) continue;
-                            if (!cs.startsWith("{")) cs = "{" + cs;
-                            if (!cs.endsWith("}")) cs = cs + "}";
-
-                            int numeroCuota = Integer.parseInt(extractValue(cs, "numeroCuota"));
-                            double montoOriginal = Double.parseDouble(extractValue(cs, "montoOriginal"));
-                            double montoPagado = Double.parseDouble(extractValue(cs, "montoPagado"));
-                            String fechaVencStr = extractValue(cs, "fechaVencimiento");
-                            String fechaPagoStr = extractValue(cs, "fechaPago");
-                            boolean isFaltante = Boolean.parseBoolean(extractValue(cs, "isFaltante"));
-
-                            LocalDate fechaVencimiento = fechaVencStr.isEmpty() ? null : LocalDate.parse(fechaVencStr, DATE_FORMATTER);
-                            LocalDate fechaPago = fechaPagoStr.isEmpty() ? null : LocalDate.parse(fechaPagoStr, DATE_FORMATTER);
-
-                            cuotas.add(new Cuota(numeroCuota, montoOriginal, montoPagado, fechaVencimiento, fechaPago, isFaltante));
-                        }
-                    }
-                } catch (Exception jsonE) {
-                    System.err.println("Error al deserializar cuotas para cliente " + nombre + ": " + jsonE.getMessage());
-                    cuotas = new ArrayList<>();
-                }
+                consumidor.accept(new Cliente(nombre, apellido, dni, tipoCuota, producto, totalProducto, cuotas, adelantoAcumulado));
+            });
 
-                // LLAMAR AL CONSTRUCTOR CORRECTO AHORA (con producto y adelantoAcumulado)
-                clientes.add(new Cliente(nombre, apellido, dni, tipoCuota, producto, totalProducto, cuotas, adelantoAcumulado));
+            if (!hojaEncontrada) {
+                System.err.println("❌ Hoja '" + CLIENTES_SHEET_NAME + "' no encontrada en el archivo Excel. Se iniciará con lista vacía.");
+                return new LecturaClientes(true, 0, 0);
             }
-
             System.out.println("✅ Clientes y detalles de cuotas importados desde: " + rutaArchivo);
 
         } catch (IOException e) {
             System.err.println("❌ Error al importar clientes desde Excel: " + e.getMessage());
-            JOptionPane.showMessageDialog(null, "Error al importar clientes desde Excel: " + e.getMessage(), "Error de Importación", JOptionPane.ERROR_MESSAGE);
-            return null;
+            mostrarError("Error al importar clientes desde Excel: " + e.getMessage(), "Error de Importación");
+            return new LecturaClientes(false, filas[0], filas[1]);
         } catch (Exception e) {
             System.err.println("❌ Error inesperado al leer el archivo Excel: " + e.getMessage());
-            JOptionPane.showMessageDialog(null, "Error inesperado al leer el archivo Excel: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            mostrarError("Error inesperado al leer el archivo Excel: " + e.getMessage(), "Error");
             e.printStackTrace();
+            return new LecturaClientes(false, filas[0], filas[1]);
+        }
+        return new LecturaClientes(true, filas[0], filas[1]);
+    }
+
+    // Sin pantalla (tests, uso desde la línea de comandos) el error queda solo en la consola
+    private static void mostrarError(String mensaje, String titulo) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            JOptionPane.showMessageDialog(null, mensaje, titulo, JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Verificación liviana de que un .xlsx no está truncado ni dañado: abre el directorio
+     * central del zip (que está al final del archivo) y comprueba que estén las partes del
+     * libro, sin descomprimir ni leer las hojas.
+     */
+    public static boolean esArchivoValido(Path archivo) {
+        try (ZipFile zip = new ZipFile(archivo.toFile())) {
+            return zip.getEntry("[Content_Types].xml") != null && zip.getEntry("xl/workbook.xml") != null;
+        } catch (IOException e) {
+            return false;
         }
-        return clientes;
     }
 
-    // Método auxiliar para el parsing rudimentario de JSON
-    private static String extractValue(String json, String key) {
-        String search = "\"" + key + "\":";
-        int startIndex = json.indexOf(search);
-        if (startIndex == -1) return "";
-        startIndex += search.length();
-        char firstChar = json.charAt(startIndex);
-        if (firstChar == '"') { // Es un String
-            startIndex++;
-            int endIndex = json.indexOf("\"", startIndex);
-            return json.substring(startIndex, endIndex);
-        } else { // Es un número o booleano
-            int endIndex = json.indexOf(",", startIndex);
-            if (endIndex == -1) endIndex = json.indexOf("}", startIndex);
-            return json.substring(startIndex, endIndex).trim();
+    // Deserializa la lista de cuotas desde el JSON de la celda
+    private static List<Cuota> deserializarCuotas(String cuotasJson, String nombre) {
+        try {
+            return CuotasJson.parsear(cuotasJson);
+        } catch (Exception jsonE) {
+            System.err.println("Error al deserializar cuotas para cliente " + nombre + ": " + jsonE.getMessage());
+            return new ArrayList<>();
         }
     }
 
@@ -0,0 +1,320 @@
+package com.inventario.utils;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Lector de hojas .xlsx basado en el modelo de eventos (SAX) de POI.
+ * A diferencia de new XSSFWorkbook(...), no arma el DOM de la hoja: recorre el XML
+ * y entrega cada fila a un {@link ManejadorFilas} apenas se termina de leer,
+ * por lo que la memoria usada no depende de la cantidad de filas.
+ */
+public class ExcelStreamingReader {
+
+    /**
+     * Recibe las filas de la hoja en el orden del archivo.
+     */
+    public interface ManejadorFilas {
+        /**
+         * @param numeroFila Número de fila base 0 (la cabecera es la fila 0).
+         * @param fila Celdas de la fila; la instancia se reutiliza entre llamadas.
+         */
+        void fila(int numeroFila, Fila fila);
+    }
+
+    /**
+     * Vista de las celdas de una fila. Los textos se formatean como lo haría
+     * DataFormatter; los números conservan el valor crudo guardado en el archivo.
+     */
+    public static class Fila {
+        private String[] textos = new String[8];
+        private String[] crudos = new String[8];
+        private boolean[] numericas = new boolean[8];
+        private int columnas;
+
+        public int getColumnas() { return columnas; }
+
+        public boolean presente(int columna) {
+            return columna < columnas && textos[columna] != null;
+        }
+
+        public String texto(int columna) {
+            return presente(columna) ? textos[columna] : "";
+        }
+
+        /**
+         * El valor crudo de las celdas numéricas (por ejemplo, el número de serie de una fecha
+         * o un DNI sin formato) y el texto formateado de las demás.
+         */
+        public String valor(int columna) {
+            if (!presente(columna)) {
+                return "";
+            }
+            return numericas[columna] ? crudos[columna] : textos[columna];
+        }
+
+        /**
+         * true si la celda es numérica: entonces {@link #valor(int)} es el número tal como está
+         * guardado en el archivo (con punto decimal), no un texto escrito por alguien.
+         */
+        public boolean esNumerica(int columna) {
+            return presente(columna) && numericas[columna];
+        }
+
+        /**
+         * Valor numérico de la celda. Las celdas de texto se intentan convertir y,
+         * si no se puede, se devuelve 0.0 (igual que la lectura con XSSFWorkbook).
+         */
+        public double numero(int columna) {
+            if (!presente(columna) || textos[columna].isEmpty()) {
+                return 0.0;
+            }
+            String valor = numericas[columna] ? crudos[columna] : textos[columna];
+            try {
+                return Double.parseDouble(valor);
+            } catch (NumberFormatException e) {
+                System.err.println("Advertencia: No se pudo parsear el valor numérico de la celda: '" + valor + "'");
+                return 0.0;
+            }
+        }
+
+        private void limpiar() {
+            Arrays.fill(textos, 0, columnas, null);
+            Arrays.fill(crudos, 0, columnas, null);
+            Arrays.fill(numericas, 0, columnas, false);
+            columnas = 0;
+        }
+
+        private void poner(int columna, String texto, String crudo, boolean numerica) {
+            if (columna >= textos.length) {
+                int nuevo = Math.max(columna + 1, textos.length * 2);
+                textos = Arrays.copyOf(textos, nuevo);
+                crudos = Arrays.copyOf(crudos, nuevo);
+                numericas = Arrays.copyOf(numericas, nuevo);
+            }
+            textos[columna] = texto;
+            crudos[columna] = crudo;
+            numericas[columna] = numerica;
+            columnas = Math.max(columnas, columna + 1);
+        }
+    }
+
+    /**
+     * Recorre la hoja indicada y entrega cada fila al manejador.
+     * @param archivo El archivo .xlsx a leer.
+     * @param nombreHoja El nombre de la hoja, o null para leer la primera.
+     * @param manejador Receptor de las filas.
+     * @return true si la hoja existe y se leyó, false si la hoja no está en el archivo.
+     * @throws IOException Si la hoja está incompleta: el XML termina antes de cerrar sus filas o
+     *                     tiene menos filas que las que declara su dimensión.
+     * @throws Exception Si el archivo no se puede abrir o su XML es inválido.
+     */
+    public static boolean leerHoja(File archivo, String nombreHoja, ManejadorFilas manejador) throws Exception {
+        try (OPCPackage paquete = OPCPackage.open(archivo, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(paquete, false);
+            StylesTable estilos = reader.getStylesTable();
+
+            Iterator<InputStream> hojas = reader.getSheetsData();
+            XSSFReader.SheetIterator iterador = (XSSFReader.SheetIterator) hojas;
+            while (iterador.hasNext()) {
+                try (InputStream hoja = iterador.next()) {
+                    if (nombreHoja != null && !nombreHoja.equals(iterador.getSheetName())) {
+                        continue;
+                    }
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    HojaHandler handler = new HojaHandler(strings, estilos, manejador);
+                    parser.setContentHandler(handler);
+                    parser.parse(new InputSource(hoja));
+                    handler.verificarCompleta();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handler SAX para el XML de una hoja (elementos row / c / v / is / t).
+     */
+    private static class HojaHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable estilos;
+        private final ManejadorFilas manejador;
+        private final DataFormatter formatter = new DataFormatter();
+        private final Fila fila = new Fila();
+        private final StringBuilder valor = new StringBuilder();
+
+        private int numeroFila = -1;
+        private int columna;
+        private int proximaColumna;
+        private String tipo;
+        private String estilo;
+        private boolean capturando;
+        // Última fila (base 0) que declara el elemento dimension, o -1 si no lo tiene
+        private int ultimaFilaDeclarada = -1;
+        private boolean filasCerradas;
+
+        HojaHandler(ReadOnlySharedStringsTable strings, StylesTable estilos, ManejadorFilas manejador) {
+            this.strings = strings;
+            this.estilos = estilos;
+            this.manejador = manejador;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atributos) {
+            switch (localName) {
+                case "dimension": {
+                    String ref = atributos.getValue("ref");
+                    if (ref != null) {
+                        ultimaFilaDeclarada = filaDeReferencia(ref.substring(ref.indexOf(':') + 1)) - 1;
+                    }
+                    break;
+                }
+                case "row": {
+                    String r = atributos.getValue("r");
+                    numeroFila = r != null ? Integer.parseInt(r) - 1 : numeroFila + 1;
+                    fila.limpiar();
+                    proximaColumna = 0;
+                    break;
+                }
+                case "c": {
+                    String referencia = atributos.getValue("r");
+                    columna = referencia != null ? columnaDeReferencia(referencia) : proximaColumna;
+                    proximaColumna = columna + 1;
+                    tipo = atributos.getValue("t");
+                    estilo = atributos.getValue("s");
+                    valor.setLength(0);
+                    // Una celda sin valor (solo con estilo) cuenta como presente y vacía
+                    fila.poner(columna, "", null, false);
+                    break;
+                }
+                case "v":
+                case "t":
+                    capturando = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    capturando = false;
+                    break;
+                case "c":
+                    terminarCelda();
+                    break;
+                case "row":
+                    manejador.fila(numeroFila, fila);
+                    break;
+                case "sheetData":
+                    filasCerradas = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturando) {
+                valor.append(ch, start, length);
+            }
+        }
+
+        /**
+         * Un parser SAX entrega las filas antes de llegar al final del XML, así que una hoja cortada
+         * puede haber entregado parte de sus filas sin error. Se verifica que se haya cerrado el
+         * bloque de filas y que no falten filas respecto de la dimensión declarada. Algunos
+         * escritores (SXSSF) declaran solo "A1", así que la dimensión es un mínimo y no un total,
+         * y una dimensión de una sola fila no dice nada.
+         */
+        void verificarCompleta() throws IOException {
+            if (!filasCerradas) {
+                throw new IOException("La hoja está incompleta: el archivo termina antes del final de las filas");
+            }
+            if (ultimaFilaDeclarada > 0 && numeroFila < ultimaFilaDeclarada) {
+                throw new IOException("La hoja está incompleta: se leyeron " + (numeroFila + 1)
+                        + " filas de las " + (ultimaFilaDeclarada + 1) + " que declara");
+            }
+        }
+
+        private void terminarCelda() {
+            String crudo = valor.toString();
+            if ("s".equals(tipo)) {
+                String texto = crudo.isEmpty() ? "" : strings.getItemAt(Integer.parseInt(crudo)).getString();
+                fila.poner(columna, texto, null, false);
+            } else if ("inlineStr".equals(tipo) || "str".equals(tipo)) {
+                fila.poner(columna, crudo, null, false);
+            } else if ("b".equals(tipo)) {
+                fila.poner(columna, "1".equals(crudo) ? "TRUE" : "FALSE", null, false);
+            } else if ("e".equals(tipo)) {
+                fila.poner(columna, crudo, null, false);
+            } else if (!crudo.isEmpty()) {
+                fila.poner(columna, formatearNumero(crudo), crudo, true);
+            }
+        }
+
+        private String formatearNumero(String crudo) {
+            double numero = Double.parseDouble(crudo);
+            short indiceFormato = 0;
+            String formato = "General";
+            if (estilo != null && estilos != null) {
+                XSSFCellStyle cellStyle = estilos.getStyleAt(Integer.parseInt(estilo));
+                if (cellStyle != null) {
+                    indiceFormato = cellStyle.getDataFormat();
+                    formato = cellStyle.getDataFormatString();
+                    if (formato == null) {
+                        formato = "General";
+                    }
+                }
+            }
+            return formatter.formatRawCellContents(numero, indiceFormato, formato);
+        }
+
+        // Convierte la parte de letras de una referencia ("AB12") en índice de columna base 0
+        private static int columnaDeReferencia(String referencia) {
+            int columna = 0;
+            for (int i = 0; i < referencia.length(); i++) {
+                char c = referencia.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                columna = columna * 26 + (c - 'A' + 1);
+            }
+            return columna - 1;
+        }
+
+        // Número de fila (base 1) de una referencia ("AB12" da 12); 0 si no tiene número
+        private static int filaDeReferencia(String referencia) {
+            int fila = 0;
+            for (int i = 0; i < referencia.length(); i++) {
+                char c = referencia.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    fila = fila * 10 + (c - '0');
+                }
+            }
+            return fila;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Cartera sintética de cualquier tamaño para pruebas de carga y benchmarks. Es determinística:
+ * con la misma semilla, cantidad y fecha de referencia genera siempre los mismos clientes, y el
+ * cliente i sale de su propia semilla, así que se puede pedir uno suelto con {@link #cliente(int)}
+ * o recorrerlos a todos sin guardarlos (por ejemplo, para escribir el libro en modo STREAMING).
+ *
+ * La mezcla imita una cartera real a la fecha de referencia:
+ * <ul>
+ * <li>70% de planes mensuales (3 a 36 cuotas) y 30% quincenales (4 a 48), con inicios en los
+ * dos años anteriores (algunos todavía por empezar).</li>
+ * <li>Entre los que ya tienen cuotas vencidas: la mayoría al día, otros atrasados de 1 a 3
+ * cuotas, algunos morosos que dejaron de pagar y algunos que pagaron por adelantado. Uno de
+ * cada tres con deuda tiene un pago parcial en la cuota que sigue.</li>
+ * <li>Alrededor del 3% ya canceló el plan y tiene un saldo a favor como adelanto acumulado.</li>
+ * <li>Alrededor del 5% tiene una o dos cuotas faltantes agregadas al final del plan.</li>
+ * <li>Los que no pagaron nada ni tienen faltantes quedan con el cronograma implícito, como un
+ * cliente recién agregado.</li>
+ * </ul>
+ *
+ * Se puede ejecutar para escribir un clientes.xlsx de prueba:
+ * java -cp ... com.inventario.utils.GeneradorCartera cantidad archivo.xlsx [semilla] [referencia AAAA-MM-DD]
+ */
+public class GeneradorCartera implements Iterable<Cliente> {
+
+    /**
+     * Fecha de referencia por defecto: fija, para que la cartera no cambie de un día a otro.
+     */
+    public static final LocalDate REFERENCIA = LocalDate.of(2025, 6, 30);
+
+    private static final String[] NOMBRES = {"Juan", "María", "José", "Ana", "Luis", "Carla", "Jorge", "Sofía", "Pedro", "Lucía",
+            "Miguel", "Valentina", "Diego", "Camila", "Martín", "Florencia", "Pablo", "Agustina", "Facundo", "Julieta",
+            "Carlos", "Laura", "Ricardo", "Marta", "Gustavo", "Silvia", "Sergio", "Paula", "Héctor", "Natalia",
+            "Raúl", "Andrea", "Oscar", "Gabriela", "Daniel", "Romina", "Ramón", "Noelia", "Hugo", "Micaela"};
+    private static final String[] APELLIDOS = {"González", "Rodríguez", "Gómez", "Fernández", "López", "Díaz", "Martínez", "Pérez",
+            "García", "Sánchez", "Romero", "Sosa", "Álvarez", "Torres", "Ruiz", "Ramírez", "Flores", "Acosta", "Benítez", "Medina",
+            "Herrera", "Suárez", "Aguirre", "Giménez", "Gutiérrez", "Pereyra", "Molina", "Castro", "Ortiz", "Silva",
+            "Núñez", "Luna", "Juárez", "Cabrera", "Ríos", "Ferreyra", "Godoy", "Morales", "Domínguez", "Moreno"};
+    private static final String[] PRODUCTOS = {"Televisor Samsung 50", "Heladera Patrick", "Notebook Lenovo", "Celular Motorola",
+            "Lavarropas Drean", "Aire acondicionado BGH", "Microondas Philco", "Smart TV LG 43", "Cocina Longvie",
+            "Celular Samsung A15", "Notebook HP 15", "Freezer Gafa", "Ventilador Liliana", "Parlante JBL", "Tablet Lenovo"};
+    // Precio de contado aproximado de cada producto, en pesos
+    private static final int[] PRECIOS = {650_000, 900_000, 1_100_000, 350_000, 750_000, 1_000_000, 250_000, 550_000, 700_000,
+            400_000, 950_000, 850_000, 90_000, 180_000, 300_000};
+    private static final int[] PLANES_MENSUALES = {3, 6, 6, 9, 12, 12, 12, 18, 24, 36};
+    private static final int[] PLANES_QUINCENALES = {4, 8, 12, 12, 24, 48};
+
+    private final long semilla;
+    private final int cantidad;
+    private final LocalDate referencia;
+
+    public GeneradorCartera(long semilla, int cantidad) {
+        this(semilla, cantidad, REFERENCIA);
+    }
+
+    /**
+     * @param referencia El "hoy" de la cartera: define qué cuotas vencieron y cuáles se pagaron.
+     */
+    public GeneradorCartera(long semilla, int cantidad, LocalDate referencia) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad de clientes no puede ser negativa: " + cantidad);
+        }
+        this.semilla = semilla;
+        this.cantidad = cantidad;
+        this.referencia = referencia;
+    }
+
+    public int size() {
+        return cantidad;
+    }
+
+    /**
+     * Genera los clientes de a uno a medida que se recorren; cada recorrido da los mismos.
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<>() {
+            private int siguiente;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < cantidad;
+            }
+
+            @Override
+            public Cliente next() {
+                if (siguiente >= cantidad) {
+                    throw new NoSuchElementException();
+                }
+                return cliente(siguiente++);
+            }
+        };
+    }
+
+    /**
+     * El cliente número i (desde 0) de la cartera. Su DNI es único dentro de la cartera.
+     */
+    public Cliente cliente(int i) {
+        SplittableRandom random = new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + i);
+        String nombre = NOMBRES[random.nextInt(NOMBRES.length)];
+        String apellido = APELLIDOS[random.nextInt(APELLIDOS.length)];
+        if (random.nextInt(6) == 0) {
+            apellido += " " + APELLIDOS[random.nextInt(APELLIDOS.length)];
+        }
+        String dni = String.valueOf(20_000_000L + i);
+        int producto = random.nextInt(PRODUCTOS.length);
+
+        boolean quincenal = random.nextInt(10) < 3;
+        String tipoCuota = quincenal ? "quincenal" : "mensual";
+        int plan = quincenal ? PLANES_QUINCENALES[random.nextInt(PLANES_QUINCENALES.length)]
+                : PLANES_MENSUALES[random.nextInt(PLANES_MENSUALES.length)];
+        // Precio con recargo por financiación, en cuotas redondeadas a $100
+        double precio = PRECIOS[producto] * (0.85 + random.nextDouble() * 0.3) * (1 + plan * 0.03);
+        double valorCuota = Math.max(100, Math.round(precio / plan / 100) * 100.0);
+        double total = valorCuota * plan;
+        LocalDate inicio = referencia.minusDays(random.nextInt(730)).plusDays(30);
+
+        // Los vencimientos salen del mismo cronograma que usa un cliente nuevo
+        CuotasColumnares cronograma = CuotasColumnares.cronograma(tipoCuota, inicio, plan, valorCuota);
+        int hoy = (int) referencia.toEpochDay();
+        int vencidas = 0;
+        while (vencidas < plan && cronograma.vencimientoEpoch(vencidas) <= hoy) {
+            vencidas++;
+        }
+
+        int pagadas;
+        double adelanto = 0;
+        int comportamiento = random.nextInt(100);
+        if (vencidas == 0) {
+            pagadas = 0;
+        } else if (comportamiento < 3) {
+            // Canceló el plan y pagó de más
+            pagadas = plan;
+            adelanto = Math.round(valorCuota * random.nextDouble() / 100) * 100.0;
+        } else if (comportamiento < 58) {
+            pagadas = vencidas;
+        } else if (comportamiento < 78) {
+            pagadas = Math.max(0, vencidas - 1 - random.nextInt(3));
+        } else if (comportamiento < 88) {
+            // Moroso: dejó de pagar hace tiempo
+            pagadas = random.nextInt(Math.max(1, vencidas / 2));
+        } else {
+            pagadas = Math.min(plan, vencidas + 1 + random.nextInt(2));
+        }
+        double parcial = 0;
+        if (pagadas < plan && vencidas > 0 && random.nextInt(3) == 0) {
+            parcial = Math.round(valorCuota * (0.3 + random.nextDouble() * 0.6) / 100) * 100.0;
+        }
+        int faltantes = random.nextInt(20) == 0 ? 1 + random.nextInt(2) : 0;
+        if (faltantes > 0) {
+            // El adelanto se habría usado para cubrir las faltantes
+            adelanto = 0;
+        }
+
+        if (pagadas == 0 && parcial == 0 && faltantes == 0) {
+            return new Cliente(nombre, apellido, dni, tipoCuota, PRODUCTOS[producto], total, plan, valorCuota, inicio);
+        }
+
+        int n = plan + faltantes;
+        int[] numero = new int[n];
+        double[] original = new double[n];
+        double[] pagado = new double[n];
+        int[] vencimiento = new int[n];
+        int[] fechaPago = new int[n];
+        boolean[] faltante = new boolean[n];
+        for (int k = 0; k < plan; k++) {
+            numero[k] = k + 1;
+            original[k] = valorCuota;
+            vencimiento[k] = cronograma.vencimientoEpoch(k);
+            fechaPago[k] = CuotasColumnares.SIN_FECHA;
+            if (k < pagadas) {
+                pagado[k] = valorCuota;
+                // Unos días antes o después del vencimiento, nunca después de la fecha de referencia
+                fechaPago[k] = Math.min(hoy, vencimiento[k] - 5 + random.nextInt(12));
+            } else if (k == pagadas && parcial > 0) {
+                pagado[k] = parcial;
+                fechaPago[k] = hoy - random.nextInt(20);
+            }
+        }
+        // Las faltantes (saldos que quedaron pendientes) vencen después de la última cuota del plan
+        for (int k = plan; k < n; k++) {
+            numero[k] = k + 1;
+            original[k] = Math.round(valorCuota * (0.2 + random.nextDouble() * 0.5) / 100) * 100.0;
+            vencimiento[k] = cronograma.vencimientoEpoch(plan - 1) + 30 * (k - plan + 1);
+            fechaPago[k] = CuotasColumnares.SIN_FECHA;
+            faltante[k] = true;
+        }
+        CuotasColumnares cuotas = CuotasColumnares.deColumnas(n, numero, original, pagado, vencimiento, fechaPago, faltante);
+        return new Cliente(nombre, apellido, dni, tipoCuota, PRODUCTOS[producto], total, cuotas, adelanto);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: GeneradorCartera cantidad archivo.xlsx [semilla] [referencia AAAA-MM-DD]");
+            System.exit(2);
+        }
+        try {
+            int cantidad = Integer.parseInt(args[0]);
+            long semilla = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+            LocalDate referencia = args.length > 3 ? LocalDate.parse(args[3]) : REFERENCIA;
+            long inicio = System.nanoTime();
+            boolean escrito = ExcelExporter.exportarClientes(new GeneradorCartera(semilla, cantidad, referencia), args[1],
+                    ExcelExporter.ModoExportacion.STREAMING, 0);
+            if (!escrito) {
+                System.exit(1);
+            }
+            System.out.printf("✅ %d clientes generados (semilla %d, referencia %s) en %d ms%n",
+                    cantidad, semilla, referencia, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            System.err.println("❌ Argumento inválido: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+}
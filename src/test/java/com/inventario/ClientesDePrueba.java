@@ -0,0 +1,95 @@
+package com.inventario;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import com.inventario.utils.GeneradorCartera;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Clientes para los tests. Los que necesitan una cartera grande sin casos particulares usan
+ * {@link GeneradorCartera}; acá están los clientes chicos armados a mano y la cartera fija de
+ * {@link #cartera(int)}, para los tests que cuentan con que cierto cliente tenga pagos o no.
+ */
+public final class ClientesDePrueba {
+
+    private ClientesDePrueba() {
+    }
+
+    /**
+     * Cliente con un plan mensual de 12 cuotas de 100 desde el 10/01/2025, sin pagos.
+     */
+    public static Cliente cliente(String nombre, String apellido, String dni, String producto) {
+        return new Cliente(nombre, apellido, dni, "mensual", producto, 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10));
+    }
+
+    public static Cliente cliente(String nombre, String apellido, String dni) {
+        return cliente(nombre, apellido, dni, "TV");
+    }
+
+    public static Cliente cliente(String nombre, String dni) {
+        return cliente(nombre, "Perez", dni, "TV");
+    }
+
+    /**
+     * 'cantidad' clientes con 24 cuotas de 100 desde el 31/01/2025 (un tercio quincenales) y DNI
+     * 30.000.000 + i. Los de posición par tienen un pago, así que sus cuotas están en columnas;
+     * los impares conservan el cronograma implícito.
+     */
+    public static List<Cliente> cartera(int cantidad) {
+        List<Cliente> clientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Cliente cliente = new Cliente("Nombre" + i, "Pérez Ñandú " + i, String.valueOf(30_000_000 + i),
+                    i % 3 == 0 ? "quincenal" : "mensual", "Heladera", 2400.0, 24, 100.0, LocalDate.of(2025, 1, 31));
+            if (i % 2 == 0) {
+                cliente.aplicarPagoACuotas(150 + i % 500);
+            }
+            clientes.add(cliente);
+        }
+        return clientes;
+    }
+
+    /**
+     * 'cantidad' clientes sin pagos con 'cuotas' cuotas de 100 (un tercio quincenales) y DNI
+     * 30.000.000 + i, que empiezan en un día al azar de los 'dias' que siguen a 'desde'. A
+     * diferencia de {@link GeneradorCartera}, las cuotas son chicas para que pagos de pocos pesos
+     * muevan al cliente de una cuota a otra.
+     */
+    public static List<Cliente> carteraAlAzar(Random random, int cantidad, int cuotas, LocalDate desde, int dias) {
+        List<Cliente> clientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            clientes.add(new Cliente("Nombre" + i, "Apellido" + i, String.valueOf(30_000_000 + i),
+                    i % 3 == 0 ? "quincenal" : "mensual", "TV", cuotas * 100.0, cuotas, 100.0,
+                    desde.plusDays(random.nextInt(dias))));
+        }
+        return clientes;
+    }
+
+    /**
+     * Los clientes del generador en una lista.
+     */
+    public static List<Cliente> lista(GeneradorCartera generador) {
+        List<Cliente> clientes = new ArrayList<>(generador.size());
+        generador.forEach(clientes::add);
+        return clientes;
+    }
+
+    /**
+     * Todos los datos del cliente y sus cuotas en un texto, para comparar dos clientes campo por campo.
+     */
+    public static String resumen(Cliente c) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(c.getNombre()).append('|').append(c.getApellido()).append('|').append(c.getDni()).append('|')
+                .append(c.getTipoCuota()).append('|').append(c.getProducto()).append('|').append(c.getTotalProducto())
+                .append('|').append(c.getAdelantoAcumulado());
+        for (Cuota cuota : c.getCuotas()) {
+            sb.append('\n').append(cuota.getNumeroCuota()).append(';').append(cuota.getMontoOriginal()).append(';')
+                    .append(cuota.getMontoPagado()).append(';').append(cuota.getFechaVencimiento()).append(';')
+                    .append(cuota.getFechaPago()).append(';').append(cuota.isFaltante());
+        }
+        return sb.toString();
+    }
+}
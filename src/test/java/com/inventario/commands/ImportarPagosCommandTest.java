@@ -0,0 +1,76 @@
+package com.inventario.commands;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.CuotasColumnares;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.repository.OyenteRepositorio;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.inventario.ClientesDePrueba.carteraAlAzar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImportarPagosCommandTest {
+
+    @Test
+    void losAvisosLleganSoloEnElHiloQueEjecutaElComando() throws Exception {
+        ClienteRepository clientes = new ClienteRepository();
+        Random random = new Random(3);
+        carteraAlAzar(random, 200, 12, LocalDate.of(2025, 1, 1), 200).forEach(clientes::agregar);
+        List<RegistrarPagoCommand> pagos = new ArrayList<>();
+        for (int k = 0; k < 2000; k++) {
+            pagos.add(new RegistrarPagoCommand(clientes.get(random.nextInt(clientes.size())), 1 + random.nextInt(150)));
+        }
+        ImportarPagosCommand importar = new ImportarPagosCommand(clientes, pagos);
+
+        Set<Thread> hilos = ConcurrentHashMap.newKeySet();
+        List<Cliente> reemplazados = new ArrayList<>();
+        clientes.agregarOyente(new OyenteRepositorio() {
+            @Override
+            public void clienteModificado(Cliente cliente, int indice) {
+                hilos.add(Thread.currentThread());
+            }
+
+            @Override
+            public void cuotaModificada(Cliente cliente, int indice, int vencimientoAntes, double restanteAntes) {
+                hilos.add(Thread.currentThread());
+            }
+
+            @Override
+            public void cuotasReemplazadas(Cliente cliente, CuotasColumnares anteriores) {
+                hilos.add(Thread.currentThread());
+                reemplazados.add(cliente);
+            }
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Thread ejecuto = pool.submit(() -> {
+                importar.execute();
+                return Thread.currentThread();
+            }).get();
+            assertEquals(Set.of(ejecuto), hilos);
+            assertEquals(importar.getAfectados(), reemplazados);
+
+            hilos.clear();
+            Thread deshizo = pool.submit(() -> {
+                importar.undo();
+                return Thread.currentThread();
+            }).get();
+            assertEquals(Set.of(deshizo), hilos);
+        } finally {
+            pool.shutdown();
+        }
+        // Los clientes vuelven a avisar sus cambios después de la importación
+        hilos.clear();
+        new RegistrarPagoCommand(clientes.get(0), 50).execute();
+        assertEquals(Set.of(Thread.currentThread()), hilos);
+    }
+}
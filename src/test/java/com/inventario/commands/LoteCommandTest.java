@@ -0,0 +1,82 @@
+package com.inventario.commands;
+
+import com.inventario.models.Cliente;
+import com.inventario.persistence.RegistroCambios;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoteCommandTest {
+
+    @Test
+    void seDeshaceEnteroYRegistraUnaVezPorCliente() {
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "1"));
+        clientes.agregar(cliente("Beto", "2"));
+        Cliente ana = clientes.get(0);
+        Cliente beto = clientes.get(1);
+
+        List<Command> pagos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            pagos.add(new RegistrarPagoCommand(clientes, i % 2 == 0 ? ana : beto, 30.0));
+        }
+        pagos.add(new EliminarClienteCommand(clientes, beto, 1));
+        pagos.add(new RegistrarPagoCommand(clientes, ana, 5.0));
+        LoteCommand lote = new LoteCommand(pagos);
+        lote.execute();
+        assertEquals(305.0, ana.getTotalPagado(), 1e-9);
+        assertEquals(1, clientes.size());
+
+        List<String> registro = new ArrayList<>();
+        lote.registrarCambios(anotador(registro), false);
+        // Los pagos en el lugar se agrupan antes y después de la baja
+        assertEquals(List.of("G1", "G2", "E2", "G1"), registro);
+
+        lote.undo();
+        assertEquals(0.0, ana.getTotalPagado(), 1e-9);
+        assertEquals(0.0, beto.getTotalPagado(), 1e-9);
+        assertEquals(2, clientes.size());
+        assertEquals(beto, clientes.get(1));
+
+        registro.clear();
+        lote.registrarCambios(anotador(registro), true);
+        assertEquals(List.of("G1", "G2@1", "G2", "G1"), registro);
+    }
+
+    @Test
+    void siUnComandoFallaSeRevierteLoEjecutado() {
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "1"));
+        Cliente ana = clientes.get(0);
+        LoteCommand lote = new LoteCommand(List.of(
+                new RegistrarPagoCommand(clientes, ana, 250.0),
+                new AgregarClienteCommand(clientes, cliente("Caro", "3")),
+                // DNI repetido: el repositorio lo rechaza
+                new AgregarClienteCommand(clientes, cliente("Otra Ana", "1"))));
+
+        assertThrows(IllegalArgumentException.class, lote::execute);
+        assertEquals(0.0, ana.getTotalPagado(), 1e-9);
+        assertEquals(1, clientes.size());
+        ana.verificarTotales();
+    }
+
+    private static RegistroCambios anotador(List<String> registro) {
+        return new RegistroCambios() {
+            @Override
+            public void clienteGuardado(Cliente cliente, int posicion) {
+                registro.add("G" + cliente.getDni() + (posicion >= 0 ? "@" + posicion : ""));
+            }
+
+            @Override
+            public void clienteEliminado(Cliente cliente) {
+                registro.add("E" + cliente.getDni());
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventario.importacion;
+
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AltaMasivaClientesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void validaDetectaDuplicadosYDaDeAltaComoUnLote() throws Exception {
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(new Cliente("Ya", "Existe", "20000001", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10)));
+
+        StringBuilder csv = new StringBuilder("Nombre;Apellido;DNI;Tipo;Producto;Total;Cuotas;Valor;Inicio\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("Nombre").append(i).append(";Apellido").append(i).append(";").append(30_000_000 + i)
+                    .append(";").append(i % 2 == 0 ? "Mensual" : "quincenal").append(";Heladera;\"1.200,00\";12;;10/01/2025\n");
+        }
+        csv.append("Repetido;Uno;30.000.005;mensual;TV;1200;12;;10/01/2025\n");  // fila 1002
+        csv.append("Viejo;Cliente;20000001;mensual;TV;1200;12;;10/01/2025\n");   // fila 1003
+        csv.append("Mal;Tipo;40000001;semanal;TV;1200;12;;10/01/2025\n");        // fila 1004
+        csv.append("Sin;Fecha;40000002;mensual;TV;1200;12;;\n");                 // fila 1005
+        csv.append("Cuotas;Raras;40000003;mensual;TV;1200;1,5;;10/01/2025\n");   // fila 1006
+
+        AltaMasivaClientes.Resultado resultado = new AltaMasivaClientes(clientes, new ForkJoinPool(4))
+                .leer(new BufferedReader(new StringReader(csv.toString())));
+        assertEquals(1000, resultado.getAceptadas());
+        assertEquals(List.of(1002, 1003, 1004, 1005, 1006),
+                resultado.getLineasRechazadas().stream().map(AltaMasivaClientes.Linea::numero).toList());
+        assertEquals("DNI repetido en el archivo (fila 7)", resultado.getLineasRechazadas().get(0).detalle());
+        assertEquals(1, clientes.size());
+
+        // Los cronogramas se generan en paralelo pero conservan el orden del archivo
+        Cliente ultimo = resultado.getClientesNuevos().get(999);
+        assertEquals("30000999", ultimo.getDni());
+        assertEquals(100.0, ultimo.getValorCuota(), 1e-9);
+        assertEquals(LocalDate.of(2025, 1, 10).plusDays(14L * 11), ultimo.getCuotas().get(11).getFechaVencimiento());
+
+        resultado.getComando().execute();
+        assertEquals(1001, clientes.size());
+        resultado.getComando().undo();
+        assertEquals(1, clientes.size());
+    }
+
+    @Test
+    void leeLaPrimeraHojaDeUnXlsxConFechasDeExcel() throws Exception {
+        Path archivo = dir.resolve("contratos.xlsx");
+        try (XSSFWorkbook libro = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(archivo)) {
+            Sheet hoja = libro.createSheet("Ventas");
+            CellStyle estiloFecha = libro.createCellStyle();
+            estiloFecha.setDataFormat(libro.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            Row encabezado = hoja.createRow(0);
+            encabezado.createCell(0).setCellValue("Nombre");
+            encabezado.createCell(5).setCellValue("Total");
+            Row fila = hoja.createRow(1);
+            fila.createCell(0).setCellValue("Ana");
+            fila.createCell(1).setCellValue("Pérez");
+            fila.createCell(2).setCellValue(30111222);
+            fila.createCell(3).setCellValue("mensual");
+            fila.createCell(4).setCellValue("Notebook");
+            fila.createCell(5).setCellValue(900000.5);
+            fila.createCell(6).setCellValue(6);
+            fila.createCell(8).setCellValue(LocalDate.of(2025, 3, 15));
+            fila.getCell(8).setCellStyle(estiloFecha);
+            libro.write(out);
+        }
+
+        AltaMasivaClientes.Resultado resultado = new AltaMasivaClientes(new ClienteRepository()).leer(archivo);
+        assertEquals(1, resultado.getAceptadas());
+        assertEquals(0, resultado.getRechazadas());
+        Cliente ana = resultado.getClientesNuevos().get(0);
+        assertEquals("30111222", ana.getDni());
+        assertEquals(150000.08, ana.getValorCuota(), 1e-9);
+        assertEquals(LocalDate.of(2025, 3, 15), ana.getCuotas().get(0).getFechaVencimiento());
+    }
+
+    @Test
+    void losMontosDeTextoSeLeenComoEnLaVentanaYLosNumericosDelXlsxCrudos() throws Exception {
+        AltaMasivaClientes.Resultado csv = new AltaMasivaClientes(new ClienteRepository()).leer(new BufferedReader(new StringReader(
+                "Ana;Pérez;30111222;mensual;TV;150.000;6;25.000,50;10/01/2025\n")));
+        Cliente ana = csv.getClientesNuevos().get(0);
+        assertEquals(150000.0, ana.getTotalProducto());
+        assertEquals(25000.5, ana.getValorCuota());
+
+        Path archivo = dir.resolve("contratos.xlsx");
+        try (XSSFWorkbook libro = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(archivo)) {
+            Sheet hoja = libro.createSheet("Ventas");
+            Row numerica = hoja.createRow(0);
+            Row texto = hoja.createRow(1);
+            for (Row fila : List.of(numerica, texto)) {
+                fila.createCell(0).setCellValue("Beto");
+                fila.createCell(1).setCellValue("Ruiz");
+                fila.createCell(2).setCellValue(fila == numerica ? "30333444" : "30555666");
+                fila.createCell(3).setCellValue("mensual");
+                fila.createCell(4).setCellValue("Heladera");
+                fila.createCell(6).setCellValue(3);
+                fila.createCell(8).setCellValue("10/01/2025");
+            }
+            // El valor guardado de una celda numérica tiene punto decimal, no de miles
+            numerica.createCell(5).setCellValue(1234.567);
+            texto.createCell(5).setCellValue("150.000");
+            libro.write(out);
+        }
+        AltaMasivaClientes.Resultado xlsx = new AltaMasivaClientes(new ClienteRepository()).leer(archivo);
+        assertEquals(2, xlsx.getAceptadas());
+        assertEquals(1234.567, xlsx.getClientesNuevos().get(0).getTotalProducto());
+        assertEquals(150000.0, xlsx.getClientesNuevos().get(1).getTotalProducto());
+    }
+}
@@ -0,0 +1,104 @@
+package com.inventario.importacion;
+
+import com.inventario.commands.ImportarPagosCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImportadorPagosCsvTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aplicaLosPagosAceptadosYReportaLosRechazados() throws Exception {
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "30111222"));
+        clientes.agregar(cliente("Beto", "30333444"));
+        Cliente ana = clientes.get(0);
+        Cliente beto = clientes.get(1);
+
+        String csv = "DNI;Monto;Fecha\n"
+                + "30.111.222;150,50;01/03/2025\n"
+                + "30333444;\"1.000,00\";01/03/2025\n"
+                + "\n"
+                + "99999999;100;01/03/2025\n"
+                + "30111222;abc;01/03/2025\n"
+                + "30111222;-5;01/03/2025\n"
+                + "30111222;49,50;02/03/2025\n"
+                + "solo-un-campo\n";
+        ImportadorPagosCsv.Resultado resultado = new ImportadorPagosCsv(clientes).leer(new BufferedReader(new StringReader(csv)));
+
+        assertEquals(9, resultado.getLineas().size());
+        assertEquals(3, resultado.getAceptadas());
+        assertEquals(4, resultado.getRechazadas());
+        assertEquals(List.of(5, 6, 7, 9), resultado.getLineasRechazadas().stream().map(ImportadorPagosCsv.Linea::numero).toList());
+        // Leer no modifica a nadie
+        assertEquals(0.0, ana.getTotalPagado(), 1e-9);
+
+        ImportarPagosCommand comando = resultado.getComando();
+        assertEquals(List.of(ana, beto), comando.getAfectados());
+        comando.execute();
+        assertEquals(200.0, ana.getTotalPagado(), 1e-9);
+        assertEquals(1000.0, beto.getTotalPagado(), 1e-9);
+        // Los dos pagos de Ana se aplicaron en el orden del archivo: el primero dejó la cuota 2 parcial
+        assertEquals(100.0, ana.getCuotas().get(1).getMontoPagado(), 1e-9);
+
+        comando.undo();
+        assertEquals(0.0, ana.getTotalPagado(), 1e-9);
+        assertEquals(0.0, beto.getTotalPagado(), 1e-9);
+        ana.verificarTotales();
+
+        Path reporte = dir.resolve("pagos.resultado.csv");
+        resultado.escribirReporte(reporte);
+        List<String> lineas = Files.readAllLines(reporte);
+        assertEquals(10, lineas.size());
+        assertEquals("5;RECHAZADA;99999999;;No existe un cliente con ese DNI", lineas.get(5));
+    }
+
+    @Test
+    void separadorComaYSinPagosAceptados() throws Exception {
+        ClienteRepository clientes = new ClienteRepository();
+        ImportadorPagosCsv.Resultado resultado = new ImportadorPagosCsv(clientes)
+                .leer(new BufferedReader(new StringReader("30111222,1500.75\n")));
+        assertEquals(1, resultado.getRechazadas());
+        assertNull(resultado.getComando());
+        assertEquals(1500.75, resultado.getLineas().get(0).monto(), 1e-9);
+        assertEquals(1234.56, ImportadorPagosCsv.parsearMonto("$ 1.234,56"), 1e-9);
+    }
+
+    @Test
+    void losMontosSeLeenComoEnLaVentana() throws Exception {
+        // El punto separa miles, igual que en el formulario de pago
+        assertEquals(15000.0, ImportadorPagosCsv.parsearMonto("15.000"));
+        assertEquals(1234567.0, ImportadorPagosCsv.parsearMonto("1.234.567"));
+        assertEquals(1234.56, ImportadorPagosCsv.parsearMonto("1.234,56"));
+        assertEquals(15000.0, ImportadorPagosCsv.parsearMonto("15000"));
+        assertEquals(15000.5, ImportadorPagosCsv.parsearMonto("15000,5"));
+        // Un punto que no puede separar miles es el decimal del extracto
+        assertEquals(1500.75, ImportadorPagosCsv.parsearMonto("1500.75"));
+        // Mezclas que no se pueden leer con seguridad
+        assertThrows(NumberFormatException.class, () -> ImportadorPagosCsv.parsearMonto("1,234.56"));
+        assertThrows(NumberFormatException.class, () -> ImportadorPagosCsv.parsearMonto("12.34,5"));
+        assertThrows(NumberFormatException.class, () -> ImportadorPagosCsv.parsearMonto("1.5.0"));
+
+        // Una línea de extracto con "15.000" paga quince mil
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "30111222"));
+        ImportadorPagosCsv.Resultado resultado = new ImportadorPagosCsv(clientes)
+                .leer(new BufferedReader(new StringReader("30111222;15.000\n")));
+        assertEquals(15000.0, resultado.getLineas().get(0).monto());
+    }
+}
@@ -0,0 +1,175 @@
+package com.inventario.models;
+
+import com.inventario.commands.RegistrarPagoCommand;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClienteTest {
+
+    @Test
+    void losTotalesAcompananLosPagosYElDeshacer() {
+        Cliente cliente = new Cliente("Ana", "Pérez", "1", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10));
+        assertEquals(1200.0, cliente.calcularDeudaRestante());
+        assertEquals(100.0, cliente.getValorCuota());
+
+        RegistrarPagoCommand pago = new RegistrarPagoCommand(cliente, 250.0);
+        pago.execute();
+        assertEquals(250.0, cliente.getTotalPagado(), 1e-9);
+        assertEquals(950.0, cliente.calcularDeudaRestante(), 1e-9);
+        assertEquals(2, cliente.getCuotasPagadasCount());
+        cliente.verificarTotales();
+
+        pago.undo();
+        assertEquals(0.0, cliente.getTotalPagado(), 1e-9);
+        assertEquals(1200.0, cliente.calcularDeudaRestante(), 1e-9);
+        assertEquals(0, cliente.getCuotasPagadasCount());
+        cliente.verificarTotales();
+
+        // Un pago posterior al deshacer actúa sobre las cuotas restauradas
+        cliente.aplicarPagoACuotas(1300.0);
+        assertEquals(12, cliente.getCuotasPagadasCount());
+        assertEquals(100.0, cliente.getAdelantoAcumulado(), 1e-9);
+        assertEquals(0.0, cliente.calcularDeudaRestante(), 1e-9);
+    }
+
+    @Test
+    void deshacerUnPagoSoloTocaLasCuotasQueCubrio() {
+        Cliente cliente = new Cliente("Eva", "Luna", "5", "mensual", "Notebook", 100000.0, 1000, 100.0, LocalDate.of(2025, 1, 10));
+        new RegistrarPagoCommand(cliente, 150.0).execute();
+        String antes = cliente.getCuotas().toString();
+
+        RegistrarPagoCommand pago = new RegistrarPagoCommand(cliente, 220.0);
+        pago.execute();
+        // Completa la cuota 2 y cubre la 3 y parte de la 4
+        assertEquals(3, pago.getCambios().size());
+        assertEquals(3, cliente.getCuotasPagadasCount());
+
+        pago.undo();
+        assertEquals(antes, cliente.getCuotas().toString());
+        assertEquals(1, cliente.getCuotasPagadasCount());
+        assertEquals(0.0, cliente.getAdelantoAcumulado(), 1e-9);
+        cliente.verificarTotales();
+
+        // Rehacer vuelve a registrar desde cero
+        pago.execute();
+        assertEquals(3, pago.getCambios().size());
+        assertEquals(370.0, cliente.getTotalPagado(), 1e-9);
+    }
+
+    @Test
+    void saldarConPagosConCentavosDejaLaDeudaEnCeroExacto() {
+        Cliente cliente = new Cliente("Gala", "Ríos", "6", "mensual", "TV", 700.0, 7, 100.0, LocalDate.of(2025, 1, 10));
+        List<RegistrarPagoCommand> pagos = new ArrayList<>();
+        for (double monto : new double[]{33.3, 70.1, 55.55, 120.7, 300.05, 199.9, 100.0}) {
+            RegistrarPagoCommand pago = new RegistrarPagoCommand(cliente, monto);
+            pago.execute();
+            pagos.add(pago);
+        }
+        assertEquals(7, cliente.getCuotasPagadasCount());
+        // Comparación exacta, como la que decide el aviso de deuda saldada
+        assertEquals(0.0, cliente.calcularDeudaRestante());
+        assertEquals(700.0, cliente.getTotalPagado());
+        cliente.verificarTotales();
+
+        for (int i = pagos.size() - 1; i >= 0; i--) {
+            pagos.get(i).undo();
+        }
+        assertEquals(700.0, cliente.calcularDeudaRestante());
+        assertEquals(0.0, cliente.getTotalPagado());
+    }
+
+    @Test
+    void losCambiosDeUnaCuotaActualizanAlCliente() {
+        Cuota faltante = new Cuota(1, 50.0, 0.0, true);
+        Cuota original = new Cuota(2, 80.0, 80.0, false);
+        Cliente cliente = new Cliente("Beto", "Ruiz", "2", "mensual", "Heladera", 130.0, new java.util.ArrayList<>(List.of(faltante, original)), 0.0);
+        assertEquals(80.0, cliente.getValorCuota());
+        assertEquals(1, cliente.getCuotasPagadasCount());
+
+        original.setMontoOriginal(120.0);
+        assertEquals(120.0, cliente.getValorCuota());
+        assertEquals(0, cliente.getCuotasPagadasCount());
+        assertEquals(90.0, cliente.calcularDeudaRestante(), 1e-9);
+
+        faltante.deshacerPago(10.0);
+        faltante.aplicarPago(60.0);
+        assertEquals(1, cliente.getCuotasPagadasCount());
+        assertEquals(130.0, cliente.getTotalPagado(), 1e-9);
+    }
+
+    @Test
+    void laListaDeCuotasNoSeModificaPorFuera() {
+        Cliente cliente = new Cliente("Caro", "Gómez", "3", "quincenal", "Celular", 600.0, 6, 100.0, LocalDate.of(2025, 1, 10));
+        assertThrows(UnsupportedOperationException.class, () -> cliente.getCuotas().clear());
+    }
+
+    @Test
+    void elCursorDePagoCoincideConOrdenarLasCuotas() {
+        Random random = new Random(12);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        List<Cuota> esperadas = new ArrayList<>();
+        List<Cuota> iniciales = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // Vencimientos desordenados, repetidos y algunos sin fecha
+            LocalDate vencimiento = random.nextInt(8) == 0 ? null : base.plusDays(random.nextInt(30) * 7L);
+            esperadas.add(new Cuota(i + 1, 100.0, 0.0, vencimiento, null, false));
+            iniciales.add(new Cuota(i + 1, 100.0, 0.0, vencimiento, null, false));
+        }
+        Cliente cliente = new Cliente("Dani", "Sosa", "4", "mensual", "Lavarropas", 4000.0, iniciales, 0.0);
+        CuotasColumnares almacen = cliente.getCuotasColumnares();
+        double adelantoEsperado = 0.0;
+
+        for (int paso = 0; paso < 300; paso++) {
+            int operacion = random.nextInt(4);
+            if (operacion <= 1) {
+                double monto = 10 + random.nextInt(250);
+                adelantoEsperado = pagarOrdenando(esperadas, monto + adelantoEsperado);
+                cliente.aplicarPagoACuotas(monto);
+            } else if (operacion == 2) {
+                // Deshacer parte de una cuota cualquiera hace retroceder el cursor
+                int i = random.nextInt(esperadas.size());
+                double monto = random.nextInt(120);
+                esperadas.get(i).deshacerPago(monto);
+                cliente.getCuotas().get(i).deshacerPago(monto);
+            } else {
+                // Una cuota faltante nueva entra en el orden según su vencimiento
+                LocalDate vencimiento = base.plusDays(random.nextInt(30) * 7L);
+                int numero = esperadas.size() + 1;
+                esperadas.add(new Cuota(numero, 50.0, 0.0, vencimiento, null, true));
+                almacen.agregar(numero, 50.0, 0.0, vencimiento, null, true);
+            }
+
+            assertEquals(adelantoEsperado, cliente.getAdelantoAcumulado(), 1e-9);
+            for (int i = 0; i < esperadas.size(); i++) {
+                assertEquals(esperadas.get(i).getMontoPagado(), almacen.pagado(i), 1e-9, "cuota " + i + " en el paso " + paso);
+            }
+        }
+        cliente.verificarTotales();
+    }
+
+    // El algoritmo anterior: ordenar todas las cuotas en cada pago
+    private static double pagarOrdenando(List<Cuota> cuotas, double monto) {
+        List<Cuota> ordenadas = new ArrayList<>(cuotas);
+        ordenadas.sort(Comparator
+                .comparing(Cuota::estaPagada)
+                .thenComparing(Cuota::getFechaVencimiento, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Cuota::getNumeroCuota));
+        for (Cuota cuota : ordenadas) {
+            if (monto <= 0) {
+                break;
+            }
+            if (!cuota.estaPagada()) {
+                monto = cuota.aplicarPago(monto);
+            }
+        }
+        return monto;
+    }
+}
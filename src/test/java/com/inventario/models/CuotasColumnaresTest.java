@@ -0,0 +1,65 @@
+package com.inventario.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CuotasColumnaresTest {
+
+    @Test
+    void elCronogramaImplicitoCoincideConElGenerado() {
+        LocalDate inicio = LocalDate.of(2025, 1, 31);
+        Cliente mensual = new Cliente("Ana", "Pérez", "1", "mensual", "TV", 1200.0, 12, 100.0, inicio);
+        Cliente quincenal = new Cliente("Beto", "Ruiz", "2", "Quincenal", "TV", 1200.0, 12, 100.0, inicio);
+        Cliente otro = new Cliente("Caro", "Gómez", "3", "semanal", "TV", 300.0, 3, 100.0, inicio);
+        assertTrue(mensual.getCuotasColumnares().esImplicito());
+
+        for (int i = 1; i <= 12; i++) {
+            Cuota cuota = mensual.getCuotas().get(i - 1);
+            assertEquals(i, cuota.getNumeroCuota());
+            assertEquals(100.0, cuota.getMontoOriginal());
+            assertEquals(inicio.plusMonths(i - 1), cuota.getFechaVencimiento());
+            assertEquals(inicio.plusWeeks((i - 1) * 2L), quincenal.getCuotas().get(i - 1).getFechaVencimiento());
+        }
+        assertNull(otro.getCuotas().get(2).getFechaVencimiento());
+    }
+
+    @Test
+    void elPrimerCambioMaterializaSinPerderDatos() {
+        LocalDate inicio = LocalDate.of(2025, 3, 10);
+        Cliente cliente = new Cliente("Ana", "Pérez", "1", "mensual", "TV", 600.0, 6, 100.0, inicio);
+        cliente.aplicarPagoACuotas(150.0);
+
+        CuotasColumnares cuotas = cliente.getCuotasColumnares();
+        assertFalse(cuotas.esImplicito());
+        assertTrue(cuotas.pagada(0));
+        assertEquals(50.0, cuotas.pagado(1));
+        assertEquals(LocalDate.now(), cuotas.fechaPago(0));
+        assertNull(cuotas.fechaPago(1));
+        assertEquals(inicio.plusMonths(5), cuotas.vencimiento(5));
+        assertEquals(6, cuotas.numero(5));
+
+        Cliente copia = cliente.copiar();
+        copia.aplicarPagoACuotas(50.0);
+        assertEquals(150.0, cliente.getTotalPagado(), 1e-9);
+        assertEquals(200.0, copia.getTotalPagado(), 1e-9);
+    }
+
+    @Test
+    void agregarUnaCuotaFaltanteActualizaLosTotales() {
+        Cliente cliente = new Cliente("Ana", "Pérez", "1", "mensual", "TV", 200.0,
+                new java.util.ArrayList<>(List.of(new Cuota(1, 100.0, 100.0, false), new Cuota(2, 100.0))), 0.0);
+        cliente.getCuotasColumnares().agregar(3, 40.0, 0.0, LocalDate.of(2025, 6, 1), null, true);
+
+        assertEquals(3, cliente.getTotalCuotas());
+        assertEquals(140.0, cliente.calcularDeudaRestante(), 1e-9);
+        assertTrue(cliente.getCuotas().get(2).isFaltante());
+        cliente.verificarTotales();
+    }
+}
@@ -0,0 +1,130 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cartera;
+import static com.inventario.ClientesDePrueba.resumen;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenCuotasMapeadoTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void losPagosSeEscribenEnElLugarYSeRecuperanAlReabrir() throws Exception {
+        Path registro = dir.resolve("clientes.registro");
+        Path cuotas = dir.resolve("clientes.cuotas");
+        ClienteRepository repo = new ClienteRepository();
+        cartera(200).forEach(repo::agregar);
+
+        try (AlmacenCuotasMapeado almacen = new AlmacenCuotasMapeado(registro, cuotas)) {
+            assertTrue(almacen.esNuevo());
+            almacen.reemplazarTodo(repo.getClientes());
+            long largoRegistro = Files.size(registro);
+
+            // Cliente con cuotas en columnas: el pago (y su deshacer) no agrega nada al registro
+            RegistrarPagoCommand pago = new RegistrarPagoCommand(repo, repo.get(0), 250.0);
+            pago.execute();
+            almacen.registrar(pago, false);
+            RegistrarPagoCommand deshecho = new RegistrarPagoCommand(repo, repo.get(2), 75.5);
+            deshecho.execute();
+            almacen.registrar(deshecho, false);
+            deshecho.undo();
+            almacen.registrar(deshecho, true);
+            assertEquals(largoRegistro, Files.size(registro));
+
+            // El primer pago de un cronograma implícito lo muda a un bloque con sus cuotas
+            RegistrarPagoCommand primerPago = new RegistrarPagoCommand(repo, repo.get(1), 130.0);
+            primerPago.execute();
+            almacen.registrar(primerPago, false);
+            assertTrue(Files.size(registro) > largoRegistro);
+
+            RegistrarPagoCommand otroPago = new RegistrarPagoCommand(repo, repo.get(1), 40.0);
+            otroPago.execute();
+            almacen.registrar(otroPago, false);
+
+            AgregarClienteCommand alta = new AgregarClienteCommand(repo, new Cliente("Ana", "Gómez", "1", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 3, 10)));
+            alta.execute();
+            almacen.registrar(alta, false);
+            Cliente baja = repo.get(5);
+            EliminarClienteCommand eliminar = new EliminarClienteCommand(repo, baja, 5);
+            eliminar.execute();
+            almacen.registrar(eliminar, false);
+        }
+
+        try (AlmacenCuotasMapeado almacen = new AlmacenCuotasMapeado(registro, cuotas)) {
+            assertFalse(almacen.esNuevo());
+            List<Cliente> leidos = almacen.leer();
+            assertEquals(repo.size(), leidos.size());
+            for (int i = 0; i < repo.size(); i++) {
+                assertEquals(resumen(repo.get(i)), resumen(leidos.get(i)));
+                leidos.get(i).verificarTotales();
+            }
+        }
+    }
+
+    @Test
+    void descartaUnaEntradaCortadaYCompactaElEspacioMuerto() throws Exception {
+        Path registro = dir.resolve("clientes.registro");
+        Path cuotas = dir.resolve("clientes.cuotas");
+        ClienteRepository repo = new ClienteRepository();
+        repo.agregar(new Cliente("Ana", "Gómez", "1", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10)));
+        repo.agregar(new Cliente("Beto", "Díaz", "2", "quincenal", "Lavarropas", 600.0, 6, 100.0, LocalDate.of(2025, 1, 10)));
+
+        try (AlmacenCuotasMapeado almacen = new AlmacenCuotasMapeado(registro, cuotas)) {
+            almacen.reemplazarTodo(repo.getClientes());
+            // Cada baja deshecha vuelve a escribir al cliente en un bloque nuevo y deja el anterior muerto
+            for (int i = 0; i < 1500; i++) {
+                RegistrarPagoCommand pago = new RegistrarPagoCommand(repo, repo.get(i % 2), 0.5);
+                pago.execute();
+                almacen.registrar(pago, false);
+                EliminarClienteCommand eliminar = new EliminarClienteCommand(repo, repo.get(i % 2), i % 2);
+                eliminar.execute();
+                almacen.registrar(eliminar, false);
+                eliminar.undo();
+                almacen.registrar(eliminar, true);
+            }
+        }
+        // Un corte a mitad de una entrada: queda solo parte de ella al final del registro
+        long largo = Files.size(registro);
+        try (FileChannel canal = FileChannel.open(registro, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(java.nio.ByteBuffer.wrap(new byte[]{40, 0, 0, 0, 1, 2, 3}));
+        }
+
+        List<Cliente> leidos;
+        try (AlmacenCuotasMapeado almacen = new AlmacenCuotasMapeado(registro, cuotas)) {
+            leidos = almacen.leer();
+        }
+        assertEquals(2, leidos.size());
+        for (int i = 0; i < repo.size(); i++) {
+            assertEquals(resumen(repo.get(i)), resumen(leidos.get(i)));
+        }
+        // Se compactó en la generación siguiente y la anterior se borró
+        assertTrue(Files.size(registro) < largo);
+        assertTrue(Files.exists(dir.resolve("clientes.cuotas.2")));
+        assertFalse(Files.exists(dir.resolve("clientes.cuotas.1")));
+
+        try (AlmacenCuotasMapeado almacen = new AlmacenCuotasMapeado(registro, cuotas)) {
+            List<Cliente> releidos = new ArrayList<>(almacen.leer());
+            assertEquals(resumen(repo.get(0)), resumen(releidos.get(0)));
+            assertEquals(resumen(repo.get(1)), resumen(releidos.get(1)));
+        }
+    }
+}
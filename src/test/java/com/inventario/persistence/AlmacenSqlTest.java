@@ -0,0 +1,130 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.LoteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cartera;
+import static com.inventario.ClientesDePrueba.resumen;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenSqlTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void guardaCadaComandoYRecuperaLosClientesEnOrden() throws Exception {
+        Path base = dir.resolve("clientes");
+        ClienteRepository repo = new ClienteRepository();
+        cartera(300).forEach(repo::agregar);
+
+        try (AlmacenSql almacen = new AlmacenSql(base)) {
+            assertTrue(almacen.esNuevo());
+            almacen.reemplazarTodo(repo.getClientes());
+
+            RegistrarPagoCommand pago = new RegistrarPagoCommand(repo, repo.get(0), 250.0);
+            pago.execute();
+            almacen.registrar(pago, false);
+            RegistrarPagoCommand deshecho = new RegistrarPagoCommand(repo, repo.get(2), 75.5);
+            deshecho.execute();
+            almacen.registrar(deshecho, false);
+            deshecho.undo();
+            almacen.registrar(deshecho, true);
+            // Primer pago de un cronograma implícito: sus filas ya estaban, solo cambia el pago
+            RegistrarPagoCommand primerPago = new RegistrarPagoCommand(repo, repo.get(1), 130.0);
+            primerPago.execute();
+            almacen.registrar(primerPago, false);
+
+            AgregarClienteCommand alta = new AgregarClienteCommand(repo, new Cliente("Ana", "Gómez", "1", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 3, 10)));
+            alta.execute();
+            almacen.registrar(alta, false);
+            EliminarClienteCommand baja = new EliminarClienteCommand(repo, repo.get(7), 7);
+            baja.execute();
+            almacen.registrar(baja, false);
+
+            // Un lote con varios pagos y una baja se guarda en una sola transacción
+            LoteCommand lote = new LoteCommand(List.of(
+                    new RegistrarPagoCommand(repo, repo.get(10), 40.0),
+                    new RegistrarPagoCommand(repo, repo.get(11), 60.0),
+                    new EliminarClienteCommand(repo, repo.get(12), 12)));
+            lote.execute();
+            almacen.registrar(lote, false);
+        }
+
+        try (AlmacenSql almacen = new AlmacenSql(base)) {
+            assertFalse(almacen.esNuevo());
+            List<Cliente> leidos = almacen.leer();
+            assertEquals(repo.size(), leidos.size());
+            for (int i = 0; i < repo.size(); i++) {
+                assertEquals(resumen(repo.get(i)), resumen(leidos.get(i)));
+                leidos.get(i).verificarTotales();
+            }
+            assertTrue(leidos.get(3).getCuotasColumnares().esImplicito());
+        }
+
+        // Las cuotas se pueden consultar por vencimiento, también las de cronogramas implícitos
+        try (Connection conexion = DriverManager.getConnection("jdbc:h2:file:" + base.toAbsolutePath(), "sa", "");
+             Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM cuota q JOIN cliente c ON c.id = q.cliente_id "
+                     + "WHERE c.dni = '30000003' AND q.fecha_vencimiento >= DATE '2025-01-31'")) {
+            rs.next();
+            assertEquals(24, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void deshacerBajasReinsertaEnSuPosicionAunqueHayaQueRenumerar() throws Exception {
+        Path base = dir.resolve("clientes");
+        ClienteRepository repo = new ClienteRepository();
+        for (int i = 0; i < 40; i++) {
+            repo.agregar(new Cliente("N" + i, "A" + i, String.valueOf(i), "mensual", "TV", 600.0, 6, 100.0, LocalDate.of(2025, 1, 10)));
+        }
+        List<String> esperado = dnis(repo.getClientes());
+
+        try (AlmacenSql almacen = new AlmacenSql(base)) {
+            almacen.reemplazarTodo(repo.getClientes());
+            // Cada baja deshecha vuelve entre los mismos vecinos, así que el espacio se achica a la mitad cada vez
+            List<EliminarClienteCommand> bajas = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                EliminarClienteCommand baja = new EliminarClienteCommand(repo, repo.get(1), 1);
+                baja.execute();
+                almacen.registrar(baja, false);
+                bajas.add(baja);
+            }
+            for (int i = bajas.size() - 1; i >= 0; i--) {
+                bajas.get(i).undo();
+                almacen.registrar(bajas.get(i), true);
+            }
+            assertEquals(esperado, dnis(repo.getClientes()));
+        }
+
+        try (AlmacenSql almacen = new AlmacenSql(base)) {
+            assertEquals(esperado, dnis(almacen.leer()));
+        }
+    }
+
+    private static List<String> dnis(List<Cliente> clientes) {
+        List<String> dnis = new ArrayList<>();
+        for (Cliente c : clientes) {
+            dnis.add(c.getDni());
+        }
+        return dnis;
+    }
+}
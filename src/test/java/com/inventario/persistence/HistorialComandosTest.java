@@ -0,0 +1,113 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.Command;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.LoteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistorialComandosTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void seDeshaceDesdeElDiscoDespuesDeReiniciar() throws Exception {
+        Path archivo = dir.resolve("clientes.historial");
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "1"));
+        clientes.agregar(cliente("Beto", "2"));
+        List<String> inicial = resumen(clientes);
+
+        try (HistorialComandos historial = new HistorialComandos(archivo, clientes, 100, 2, Long.MAX_VALUE)) {
+            ejecutar(historial, new AgregarClienteCommand(clientes, cliente("Caro", "3")));
+            ejecutar(historial, new RegistrarPagoCommand(clientes, clientes.get(0), 250.0));
+            ejecutar(historial, new RegistrarPagoCommand(clientes, clientes.get(2), 130.0));
+            ejecutar(historial, new EliminarClienteCommand(clientes, clientes.get(1), 1));
+            ejecutar(historial, new LoteCommand(List.of(
+                    new RegistrarPagoCommand(clientes, clientes.get(0), 90.0),
+                    new RegistrarPagoCommand(clientes, clientes.get(1), 40.0),
+                    new RegistrarPagoCommand(clientes, clientes.get(0), 300.0))));
+            assertEquals(5, historial.size());
+            // Solo los dos últimos quedan como objetos; el resto está únicamente en el log
+            assertEquals(2, historial.getEnMemoria());
+        }
+
+        // Al reiniciar, los clientes son objetos nuevos con el mismo estado
+        ClienteRepository reiniciado = new ClienteRepository();
+        for (Cliente c : clientes.getClientes()) {
+            reiniciado.agregar(c.copiar());
+        }
+        try (HistorialComandos historial = new HistorialComandos(archivo, reiniciado, 100, 2, Long.MAX_VALUE)) {
+            assertEquals(5, historial.size());
+            while (historial.puedeDeshacer()) {
+                assertTrue(historial.deshacer(Command::undo));
+            }
+            assertFalse(historial.deshacer(Command::undo));
+        }
+        assertEquals(inicial, resumen(reiniciado));
+        reiniciado.getClientes().forEach(Cliente::verificarTotales);
+    }
+
+    @Test
+    void rehaceYSeMantieneDentroDelLimite() throws Exception {
+        Path archivo = dir.resolve("clientes.historial");
+        ClienteRepository clientes = new ClienteRepository();
+        clientes.agregar(cliente("Ana", "1"));
+        Cliente ana = clientes.get(0);
+
+        try (HistorialComandos historial = new HistorialComandos(archivo, clientes, 8, 3, Long.MAX_VALUE)) {
+            for (int i = 0; i < 11; i++) {
+                ejecutar(historial, new RegistrarPagoCommand(clientes, ana, 50.0));
+                assertTrue(historial.size() <= 8);
+            }
+            assertEquals(550.0, ana.getTotalPagado(), 1e-9);
+
+            int disponibles = historial.size();
+            for (int i = 0; i < disponibles; i++) {
+                assertTrue(historial.deshacer(Command::undo));
+            }
+            assertEquals(550.0 - 50.0 * disponibles, ana.getTotalPagado(), 1e-9);
+
+            assertTrue(historial.rehacer(Command::execute));
+            assertTrue(historial.rehacer(Command::execute));
+            assertEquals(550.0 - 50.0 * (disponibles - 2), ana.getTotalPagado(), 1e-9);
+            assertEquals(2, historial.size());
+
+            // Un comando nuevo descarta lo que quedaba por rehacer
+            ejecutar(historial, new RegistrarPagoCommand(clientes, ana, 10.0));
+            assertFalse(historial.puedeRehacer());
+        }
+
+        try (HistorialComandos historial = new HistorialComandos(archivo, clientes, 8, 3, Long.MAX_VALUE)) {
+            assertEquals(3, historial.size());
+        }
+        ana.verificarTotales();
+    }
+
+    private static void ejecutar(HistorialComandos historial, Command comando) throws Exception {
+        comando.execute();
+        historial.registrar(comando);
+    }
+
+    private static List<String> resumen(ClienteRepository clientes) {
+        List<String> lineas = new ArrayList<>();
+        for (Cliente c : clientes.getClientes()) {
+            lineas.add(c.getDetalles() + c.getCuotas());
+        }
+        return lineas;
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import com.inventario.utils.GeneradorCartera;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.lista;
+import static com.inventario.ClientesDePrueba.resumen;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstantaneasClientesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void copiaSoloLosClientesCambiadosYLeeElRestoDelSnapshotAnterior() throws Exception {
+        Path archivo = dir.resolve("clientes.dat");
+        SnapshotClientes.escribir(List.copyOf(lista(new GeneradorCartera(11, 3000))), archivo, 1);
+        ClienteRepository clientes = new ClienteRepository();
+        InstantaneasClientes instantaneas = new InstantaneasClientes(clientes, archivo, 1);
+        SnapshotClientes.leer(archivo).forEach(clientes::agregar);
+        instantaneas.partirDe(archivo);
+        assertEquals(0, instantaneas.getCambiados());
+
+        new RegistrarPagoCommand(clientes, clientes.get(5), 1000.0).execute();
+        new EliminarClienteCommand(clientes, clientes.get(100), 100).execute();
+        clientes.agregar(0, new GeneradorCartera(12, 3001).cliente(3000));
+        clientes.reemplazarOAgregar(clientes.get(2000).copiar(), -1);
+
+        InstantaneasClientes.Instantanea primera = instantaneas.tomar();
+        assertEquals(3000, primera.size());
+        assertEquals(3, primera.getCopiados());
+        // Un pago después de tomarla no entra en esta instantánea, pero sí en la siguiente
+        Cliente pagadoDespues = clientes.get(7);
+        String antesDelPago = resumen(pagadoDespues);
+        new RegistrarPagoCommand(clientes, pagadoDespues, 500.0).execute();
+
+        instantaneas.escribir(primera);
+        instantaneas.escrita(primera, true);
+        List<Cliente> escritos = SnapshotClientes.leer(archivo);
+        assertEquals(clientes.size(), escritos.size());
+        for (int i = 0; i < escritos.size(); i++) {
+            String esperado = clientes.get(i) == pagadoDespues ? antesDelPago : resumen(clientes.get(i));
+            assertEquals(esperado, resumen(escritos.get(i)), "cliente " + i);
+        }
+        assertEquals(1, instantaneas.getCambiados());
+
+        InstantaneasClientes.Instantanea segunda = instantaneas.tomar();
+        assertEquals(1, segunda.getCopiados());
+        instantaneas.escribir(segunda);
+        instantaneas.escrita(segunda, true);
+        escritos = SnapshotClientes.leer(archivo);
+        for (int i = 0; i < escritos.size(); i++) {
+            assertEquals(resumen(clientes.get(i)), resumen(escritos.get(i)), "cliente " + i);
+        }
+        assertEquals(0, instantaneas.tomar().getCopiados());
+    }
+
+    @Test
+    void sinBaseOConUnaBaseQueNoCorrespondeCopiaATodos() throws Exception {
+        Path archivo = dir.resolve("clientes.dat");
+        ClienteRepository clientes = new ClienteRepository();
+        InstantaneasClientes instantaneas = new InstantaneasClientes(clientes, archivo, 0);
+        lista(new GeneradorCartera(21, 500)).forEach(clientes::agregar);
+        // Cargados del libro, no del snapshot
+        instantaneas.partirDe(null);
+        InstantaneasClientes.Instantanea completa = instantaneas.tomar();
+        assertEquals(500, completa.getCopiados());
+        instantaneas.escribir(completa);
+        instantaneas.escrita(completa, true);
+
+        // Alguien reemplazó el snapshot por otro que no tiene a estos clientes
+        SnapshotClientes.escribir(List.copyOf(lista(new GeneradorCartera(22, 10))), archivo, 0);
+        new RegistrarPagoCommand(clientes, clientes.get(0), 100.0).execute();
+        InstantaneasClientes.Instantanea parcial = instantaneas.tomar();
+        assertEquals(1, parcial.getCopiados());
+        assertThrows(IOException.class, () -> instantaneas.escribir(parcial));
+        instantaneas.escrita(parcial, false);
+        assertEquals(500, instantaneas.tomar().getCopiados());
+    }
+}
@@ -0,0 +1,131 @@
+package com.inventario.persistence;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalClientesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reproduceLosComandosSobreElCheckpoint() throws Exception {
+        List<Cliente> checkpoint = new ArrayList<>();
+        checkpoint.add(cliente("Ana", "1"));
+        checkpoint.add(cliente("Beto", "2"));
+        ClienteRepository actual = new ClienteRepository();
+        actual.agregarTodos(checkpoint);
+        Path archivo = dir.resolve("clientes.journal");
+
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            AgregarClienteCommand agregar = new AgregarClienteCommand(actual, cliente("Caro\tcon tab", "3"));
+            agregar.execute();
+            journal.registrar(agregar, false);
+
+            RegistrarPagoCommand pago = new RegistrarPagoCommand(actual.get(0), 150.0);
+            pago.execute();
+            journal.registrar(pago, false);
+
+            EliminarClienteCommand eliminar = new EliminarClienteCommand(actual, actual.get(1), 1);
+            eliminar.execute();
+            journal.registrar(eliminar, false);
+            eliminar.undo();
+            journal.registrar(eliminar, true);
+            assertEquals(4, journal.getEntradas());
+        }
+
+        ClienteRepository recuperados = new ClienteRepository();
+        recuperados.agregarTodos(copiar(checkpoint));
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            assertEquals(4, journal.reproducir(recuperados));
+        }
+        assertEquals(resumen(actual), resumen(recuperados));
+
+        // Reproducir dos veces sobre el mismo checkpoint da el mismo resultado
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            journal.reproducir(recuperados);
+        }
+        assertEquals(resumen(actual), resumen(recuperados));
+    }
+
+    @Test
+    void descartaLaUltimaEntradaIncompleta() throws Exception {
+        Path archivo = dir.resolve("clientes.journal");
+        ClienteRepository actual = new ClienteRepository();
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            AgregarClienteCommand agregar = new AgregarClienteCommand(actual, cliente("Ana", "1"));
+            agregar.execute();
+            journal.registrar(agregar, false);
+        }
+        Files.writeString(archivo, "1234\tG\t-1\tcorta", StandardOpenOption.APPEND);
+        long largoValido = Files.size(archivo) - "1234\tG\t-1\tcorta".length();
+
+        ClienteRepository recuperados = new ClienteRepository();
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            assertEquals(1, journal.reproducir(recuperados));
+        }
+        assertEquals(1, recuperados.size());
+        assertEquals(largoValido, Files.size(archivo));
+    }
+
+    @Test
+    void reproduceLosSegmentosCerradosYDescartaLosCubiertos() throws Exception {
+        Path archivo = dir.resolve("clientes.journal");
+        ClienteRepository actual = new ClienteRepository();
+        long segmento;
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            AgregarClienteCommand primero = new AgregarClienteCommand(actual, cliente("Ana", "1"));
+            primero.execute();
+            journal.registrar(primero, false);
+            segmento = journal.rotar();
+            AgregarClienteCommand segundo = new AgregarClienteCommand(actual, cliente("Beto", "2"));
+            segundo.execute();
+            journal.registrar(segundo, false);
+        }
+
+        ClienteRepository sinCheckpoint = new ClienteRepository();
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            assertEquals(2, journal.reproducir(sinCheckpoint));
+            // El checkpoint con Ana ya está escrito: su segmento se puede borrar
+            journal.descartarHasta(segmento);
+        }
+        assertEquals(resumen(actual), resumen(sinCheckpoint));
+
+        ClienteRepository conCheckpoint = new ClienteRepository();
+        conCheckpoint.agregar(cliente("Ana", "1"));
+        try (JournalClientes journal = new JournalClientes(archivo)) {
+            assertEquals(1, journal.reproducir(conCheckpoint));
+        }
+        assertEquals(resumen(actual), resumen(conCheckpoint));
+    }
+
+    private static List<Cliente> copiar(List<Cliente> clientes) {
+        List<Cliente> copia = new ArrayList<>();
+        for (Cliente c : clientes) {
+            copia.add(cliente(c.getNombre(), c.getDni()));
+        }
+        return copia;
+    }
+
+    private static List<String> resumen(ClienteRepository clientes) {
+        List<String> lineas = new ArrayList<>();
+        for (Cliente c : clientes.getClientes()) {
+            lineas.add(c.getDetalles());
+        }
+        return lineas;
+    }
+}
@@ -0,0 +1,92 @@
+package com.inventario.persistence;
+
+import com.inventario.models.Cliente;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cartera;
+import static com.inventario.ClientesDePrueba.resumen;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotClientesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void guardaYRecuperaClientesConCronogramasImplicitosYMaterializados() throws Exception {
+        List<Cliente> clientes = cartera(3000);
+        Cliente conFaltante = clientes.get(10);
+        conFaltante.getCuotasColumnares().agregar(25, 80.0, 0.0, null, null, true);
+        // Un pago que no es exacto en centavos se guarda como double tal cual
+        clientes.get(1).aplicarPagoACuotas(100.0 / 3);
+        // Un texto más largo que el buffer de lectura y escritura
+        clientes.add(new Cliente("Largo", "Producto", "1", "semanal", "x".repeat(200_000), 10.0, 2, 5.0, LocalDate.of(2025, 1, 1)));
+        clientes.add(new Cliente("Sin", null, "2", "mensual", null, 0.0, 0, 0.0, LocalDate.of(2025, 1, 1)));
+
+        Path archivo = dir.resolve("clientes.dat");
+        SnapshotClientes.escribir(clientes, archivo, 0);
+        assertTrue(SnapshotClientes.esArchivoValido(archivo));
+        List<Cliente> leidos = SnapshotClientes.leer(archivo);
+
+        assertEquals(clientes.size(), leidos.size());
+        for (int i = 0; i < clientes.size(); i++) {
+            Cliente esperado = clientes.get(i);
+            Cliente leido = leidos.get(i);
+            assertEquals(resumen(esperado), resumen(leido));
+            assertEquals(esperado.getCuotasColumnares().esImplicito(), leido.getCuotasColumnares().esImplicito());
+            assertEquals(esperado.getTotalPagado(), leido.getTotalPagado(), 1e-9);
+            leido.verificarTotales();
+        }
+        assertNull(leidos.get(leidos.size() - 1).getApellido());
+        assertEquals(200_000, leidos.get(leidos.size() - 2).getProducto().length());
+        assertTrue(leidos.get(10).getCuotas().get(24).isFaltante());
+        assertEquals(100.0 / 3, leidos.get(1).getCuotas().get(0).getMontoPagado());
+    }
+
+    @Test
+    void detectaArchivosDanadosYSeRecuperaDeLaCopiaDeRespaldo() throws Exception {
+        Path archivo = dir.resolve("clientes.dat");
+        List<Cliente> primera = List.of(new Cliente("Ana", "Gómez", "1", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10)));
+        SnapshotClientes.escribir(primera, archivo, 2);
+        List<Cliente> segunda = new ArrayList<>(primera);
+        segunda.add(new Cliente("Beto", "Díaz", "2", "mensual", "TV", 600.0, 6, 100.0, LocalDate.of(2025, 1, 10)));
+        SnapshotClientes.escribir(segunda, archivo, 2);
+
+        // Un byte cambiado en el medio: el encabezado y el cierre están bien, pero no el CRC
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            java.nio.ByteBuffer b = java.nio.ByteBuffer.allocate(1);
+            canal.read(b, 40);
+            b.put(0, (byte) (b.get(0) ^ 0x55));
+            b.rewind();
+            canal.write(b, 40);
+        }
+        assertTrue(SnapshotClientes.esArchivoValido(archivo));
+        assertThrows(IOException.class, () -> SnapshotClientes.leer(archivo));
+
+        // Truncado: ya no pasa la verificación liviana y se elige la copia anterior
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 3);
+        }
+        assertFalse(SnapshotClientes.esArchivoValido(archivo));
+        Path elegido = ArchivoAtomico.elegirValido(archivo, 2, SnapshotClientes::esArchivoValido);
+        assertEquals(ArchivoAtomico.respaldo(archivo, 1), elegido);
+        assertEquals(1, SnapshotClientes.leer(elegido).size());
+
+        Files.writeString(dir.resolve("otro.dat"), "esto no es un snapshot de clientes");
+        assertFalse(SnapshotClientes.esArchivoValido(dir.resolve("otro.dat")));
+    }
+}
@@ -0,0 +1,162 @@
+package com.inventario.reportes;
+
+import com.inventario.commands.Command;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.inventario.ClientesDePrueba.carteraAlAzar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceVencimientosTest {
+
+    @Test
+    void losRangosCoincidenConBuscarLaPrimeraImpagaDeCadaCliente() {
+        ClienteRepository clientes = new ClienteRepository();
+        Random random = new Random(9);
+        carteraAlAzar(random, 400, 12, LocalDate.of(2025, 1, 1), 200).forEach(clientes::agregar);
+        IndiceVencimientos indice = IndiceVencimientos.sobre(clientes);
+
+        Deque<Command> hechos = new ArrayDeque<>();
+        for (int paso = 0; paso < 600; paso++) {
+            int accion = random.nextInt(10);
+            if (accion < 7) {
+                Command pago = new RegistrarPagoCommand(clientes, clientes.get(random.nextInt(clientes.size())), 1 + random.nextInt(400));
+                pago.execute();
+                hechos.push(pago);
+            } else if (accion < 8) {
+                Cliente cliente = clientes.get(random.nextInt(clientes.size()));
+                Command baja = new EliminarClienteCommand(clientes, cliente, clientes.indiceDe(cliente));
+                baja.execute();
+                hechos.push(baja);
+            } else if (!hechos.isEmpty()) {
+                hechos.pop().undo();
+            }
+        }
+
+        LocalDate hoy = LocalDate.of(2025, 6, 1);
+        LocalDate hasta = hoy.plusDays(30);
+        assertEquals(esperados(clientes, LocalDate.MIN, hoy.minusDays(1)), clientesDe(indice.atrasadosAl(hoy, Integer.MAX_VALUE)));
+        assertEquals(esperados(clientes, hoy, hasta), clientesDe(indice.entre(hoy, hasta, Integer.MAX_VALUE)));
+
+        List<IndiceVencimientos.Alerta> atrasados = indice.atrasadosAl(hoy, 50);
+        assertTrue(atrasados.size() <= 50);
+        for (int i = 1; i < atrasados.size(); i++) {
+            assertTrue(!atrasados.get(i).vencimiento().isBefore(atrasados.get(i - 1).vencimiento()), "ordenados por fecha");
+        }
+    }
+
+    @Test
+    void unPagoMueveAlClienteASuSiguienteVencimiento() {
+        ClienteRepository clientes = new ClienteRepository();
+        Cliente cliente = new Cliente("Ana", "Gómez", "30111222", "mensual", "TV", 300.0, 3, 100.0, LocalDate.of(2025, 3, 5));
+        clientes.agregar(cliente);
+        clientes.agregar(new Cliente("Sin", "Cuotas", "1", "mensual", "TV", 0.0, 0, 0.0, LocalDate.of(2025, 3, 5)));
+        IndiceVencimientos indice = IndiceVencimientos.sobre(clientes);
+        assertEquals(1, indice.size());
+
+        LocalDate marzo = LocalDate.of(2025, 3, 5);
+        IndiceVencimientos.Alerta alerta = indice.entre(marzo, marzo, 10).get(0);
+        assertEquals(1, alerta.numeroCuota());
+        assertEquals(100.0, alerta.restante(), 1e-9);
+
+        Command pago = new RegistrarPagoCommand(clientes, cliente, 150);
+        pago.execute();
+        assertTrue(indice.entre(marzo, marzo, 10).isEmpty());
+        alerta = indice.entre(LocalDate.of(2025, 4, 5), LocalDate.of(2025, 4, 5), 10).get(0);
+        assertEquals(2, alerta.numeroCuota());
+        assertEquals(50.0, alerta.restante(), 1e-9);
+
+        pago.undo();
+        assertEquals(1, indice.entre(marzo, marzo, 10).get(0).numeroCuota());
+        new RegistrarPagoCommand(clientes, cliente, 300).execute();
+        assertEquals(0, indice.size());
+    }
+
+    @Test
+    void unClienteAtrasadoTambienApareceConLaCuotaQueVencePronto() {
+        ClienteRepository clientes = new ClienteRepository();
+        // Debe la cuota del 5 de marzo y la siguiente vence el 5 de abril
+        Cliente atrasado = new Cliente("Ana", "Gómez", "30111222", "mensual", "TV", 300.0, 3, 100.0, LocalDate.of(2025, 3, 5));
+        clientes.agregar(atrasado);
+        Random random = new Random(4);
+        for (Cliente cliente : carteraAlAzar(random, 300, 12, LocalDate.of(2025, 1, 1), 120)) {
+            clientes.agregar(cliente);
+            new RegistrarPagoCommand(clientes, cliente, random.nextInt(500)).execute();
+        }
+        LocalDate abril = LocalDate.of(2025, 4, 5);
+        IndiceVencimientos indice = IndiceVencimientos.sobre(clientes, LocalDate.of(2025, 4, 1));
+
+        IndiceVencimientos.Alerta alerta = indice.vencenEntre(abril, abril, Integer.MAX_VALUE).stream()
+                .filter(a -> a.cliente() == atrasado).findFirst().orElseThrow();
+        assertEquals(2, alerta.numeroCuota());
+        assertEquals(1, indice.atrasadosAl(abril, Integer.MAX_VALUE).stream().filter(a -> a.cliente() == atrasado).count());
+
+        // Días que avanzan (y uno que retrocede), con pagos en el medio
+        for (LocalDate hoy : List.of(LocalDate.of(2025, 4, 6), LocalDate.of(2025, 5, 20), LocalDate.of(2025, 5, 2), LocalDate.of(2025, 7, 1))) {
+            indice.alDia(hoy);
+            for (int i = 0; i < 40; i++) {
+                new RegistrarPagoCommand(clientes, clientes.get(random.nextInt(clientes.size())), 1 + random.nextInt(200)).execute();
+            }
+            LocalDate hasta = hoy.plusDays(20);
+            assertEquals(esperadosDesde(clientes, hoy, hasta), clientesDe(indice.vencenEntre(hoy, hasta, Integer.MAX_VALUE)));
+            for (IndiceVencimientos.Alerta a : indice.vencenEntre(hoy, hasta, Integer.MAX_VALUE)) {
+                assertTrue(!a.vencimiento().isBefore(hoy) && !a.vencimiento().isAfter(hasta) && a.restante() > 0);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> indice.vencenEntre(abril, abril, 10));
+    }
+
+    // Clientes con alguna cuota impaga que vence en el rango
+    private static Set<Cliente> esperadosDesde(ClienteRepository clientes, LocalDate desde, LocalDate hasta) {
+        Set<Cliente> esperados = new HashSet<>();
+        for (Cliente cliente : clientes.getClientes()) {
+            for (Cuota cuota : cliente.getCuotas()) {
+                LocalDate vence = cuota.getFechaVencimiento();
+                if (!cuota.estaPagada() && vence != null && !vence.isBefore(desde) && !vence.isAfter(hasta)) {
+                    esperados.add(cliente);
+                }
+            }
+        }
+        return esperados;
+    }
+
+    // Clientes cuya cuota impaga más vieja vence en el rango, recorriendo todas sus cuotas
+    private static Set<Cliente> esperados(ClienteRepository clientes, LocalDate desde, LocalDate hasta) {
+        Set<Cliente> esperados = new HashSet<>();
+        for (Cliente cliente : clientes.getClientes()) {
+            LocalDate primera = null;
+            for (Cuota cuota : cliente.getCuotas()) {
+                if (!cuota.estaPagada() && (primera == null || cuota.getFechaVencimiento().isBefore(primera))) {
+                    primera = cuota.getFechaVencimiento();
+                }
+            }
+            if (primera != null && !primera.isBefore(desde) && !primera.isAfter(hasta)) {
+                esperados.add(cliente);
+            }
+        }
+        return esperados;
+    }
+
+    private static Set<Cliente> clientesDe(List<IndiceVencimientos.Alerta> alertas) {
+        Set<Cliente> set = new HashSet<>();
+        for (IndiceVencimientos.Alerta alerta : alertas) {
+            set.add(alerta.cliente());
+        }
+        assertEquals(alertas.size(), set.size(), "un cliente aparece una sola vez");
+        return set;
+    }
+}
@@ -0,0 +1,173 @@
+package com.inventario.reportes;
+
+import com.inventario.commands.Command;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.ImportarPagosCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.inventario.ClientesDePrueba.carteraAlAzar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProyeccionCobrosTest {
+
+    @Test
+    void seMantieneIgualARecorrerLaCarteraConPagosBajasYDeshacer() {
+        ClienteRepository clientes = new ClienteRepository();
+        Random random = new Random(5);
+        carteraAlAzar(random, 300, 18, LocalDate.of(2025, 1, 1), 365).forEach(clientes::agregar);
+        ProyeccionCobros proyeccion = ProyeccionCobros.sobre(clientes);
+
+        Deque<Command> hechos = new ArrayDeque<>();
+        for (int paso = 0; paso < 400; paso++) {
+            int accion = random.nextInt(10);
+            Command comando;
+            if (accion < 6) {
+                comando = new RegistrarPagoCommand(clientes, clientes.get(random.nextInt(clientes.size())), 1 + random.nextInt(250));
+            } else if (accion < 7) {
+                Cliente cliente = clientes.get(random.nextInt(clientes.size()));
+                comando = new EliminarClienteCommand(clientes, cliente, clientes.indiceDe(cliente));
+            } else if (accion < 8) {
+                List<RegistrarPagoCommand> pagos = new ArrayList<>();
+                for (int k = 0; k < 20; k++) {
+                    pagos.add(new RegistrarPagoCommand(clientes.get(random.nextInt(clientes.size())), 10 + random.nextInt(90)));
+                }
+                comando = new ImportarPagosCommand(clientes, pagos);
+            } else {
+                if (!hechos.isEmpty()) {
+                    hechos.pop().undo();
+                }
+                continue;
+            }
+            comando.execute();
+            hechos.push(comando);
+        }
+
+        LocalDate desde = LocalDate.of(2025, 1, 1);
+        LocalDate hasta = LocalDate.of(2027, 3, 31);
+        for (ProyeccionCobros.Periodo periodo : proyeccion.proyectar(desde, hasta, ProyeccionCobros.Agrupacion.MES)) {
+            assertEquals(recorrer(clientes, periodo.desde(), periodo.hasta()), periodo.monto(), 0.005, periodo.toString());
+        }
+        double total = 0;
+        for (Cliente cliente : clientes.getClientes()) {
+            total += cliente.calcularDeudaRestante();
+        }
+        assertEquals(total, proyeccion.getTotal(), 0.01);
+        assertEquals(recorrer(clientes, LocalDate.MIN, desde.minusDays(1)), proyeccion.getVencidoAntesDe(desde), 0.005);
+    }
+
+    @Test
+    void unaImportacionEnVariosHilosDejaLaMismaProyeccionQueRecorrerLaCartera() throws Exception {
+        ClienteRepository clientes = new ClienteRepository();
+        Random random = new Random(8);
+        carteraAlAzar(random, 500, 18, LocalDate.of(2025, 1, 1), 365).forEach(clientes::agregar);
+        ProyeccionCobros proyeccion = ProyeccionCobros.sobre(clientes);
+        List<RegistrarPagoCommand> pagos = new ArrayList<>();
+        for (int k = 0; k < 3000; k++) {
+            pagos.add(new RegistrarPagoCommand(clientes.get(random.nextInt(clientes.size())), 1 + random.nextInt(150)));
+        }
+        ImportarPagosCommand importar = new ImportarPagosCommand(clientes, pagos);
+
+        LocalDate desde = LocalDate.of(2025, 1, 1);
+        LocalDate hasta = LocalDate.of(2027, 12, 31);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pool.submit(importar::execute).get();
+            assertEquals(recorrer(clientes, desde, hasta), proyeccion.getMonto(desde, hasta), 0.005);
+            pool.submit(importar::undo).get();
+            assertEquals(recorrer(clientes, desde, hasta), proyeccion.getMonto(desde, hasta), 0.005);
+        } finally {
+            pool.shutdown();
+        }
+        for (ProyeccionCobros.Periodo periodo : proyeccion.proyectar(desde, hasta, ProyeccionCobros.Agrupacion.MES)) {
+            assertEquals(recorrer(clientes, periodo.desde(), periodo.hasta()), periodo.monto(), 0.005, periodo.toString());
+        }
+    }
+
+    @Test
+    void agrupaPorDiaSemanaYMesYAmpliaElRangoDeFechas() {
+        ClienteRepository clientes = new ClienteRepository();
+        ProyeccionCobros proyeccion = ProyeccionCobros.sobre(clientes);
+        clientes.agregar(new Cliente("A", "Uno", "1", "mensual", "TV", 300.0, 3, 100.0, LocalDate.of(2025, 3, 5)));
+        // Muy lejos de la primera fecha: obliga a agrandar el árbol hacia adelante y hacia atrás
+        clientes.agregar(new Cliente("B", "Dos", "2", "quincenal", "TV", 100.0, 2, 50.0, LocalDate.of(2045, 3, 6)));
+        clientes.agregar(new Cliente("C", "Tres", "3", "mensual", "TV", 70.0, 1, 70.0, LocalDate.of(2001, 7, 1)));
+        clientes.agregar(new Cliente("D", "Cuatro", "4", "sin período", "TV", 40.0, 2, 20.0, LocalDate.of(2025, 1, 1)));
+
+        assertEquals(100.0, proyeccion.getMonto(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 5)), 1e-9);
+        assertEquals(50.0, proyeccion.getMonto(LocalDate.of(2045, 3, 20), LocalDate.of(2045, 3, 20)), 1e-9);
+        assertEquals(70.0, proyeccion.getVencidoAntesDe(LocalDate.of(2025, 1, 1)), 1e-9);
+        assertEquals(40.0, proyeccion.getSinFecha(), 1e-9);
+        assertEquals(510.0, proyeccion.getTotal(), 1e-9);
+
+        // Miércoles 5/3 a domingo 9/3, y de ahí semanas de lunes a domingo
+        List<ProyeccionCobros.Periodo> semanas = proyeccion.proyectar(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 4, 10), ProyeccionCobros.Agrupacion.SEMANA);
+        assertEquals(LocalDate.of(2025, 3, 9), semanas.get(0).hasta());
+        assertEquals(LocalDate.of(2025, 4, 10), semanas.get(semanas.size() - 1).hasta());
+        assertEquals(100.0, semanas.get(0).monto(), 1e-9);
+        List<ProyeccionCobros.Periodo> meses = proyeccion.proyectar(LocalDate.of(2025, 2, 15), LocalDate.of(2025, 5, 31), ProyeccionCobros.Agrupacion.MES);
+        assertEquals(4, meses.size());
+        assertEquals(List.of(0.0, 100.0, 100.0, 100.0), meses.stream().map(ProyeccionCobros.Periodo::monto).toList());
+        assertEquals(31, proyeccion.proyectar(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), ProyeccionCobros.Agrupacion.DIA).size());
+
+        new RegistrarPagoCommand(clientes, clientes.get(0), 130).execute();
+        assertEquals(0.0, proyeccion.getMonto(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 5)), 1e-9);
+        assertEquals(70.0, proyeccion.getMonto(LocalDate.of(2025, 4, 5), LocalDate.of(2025, 4, 5)), 1e-9);
+    }
+
+    @Test
+    void sigueLasCuotasEditadasAunqueNadieAviseAlRepositorio() {
+        ClienteRepository clientes = new ClienteRepository();
+        Cliente ana = new Cliente("Ana", "Uno", "1", "mensual", "TV", 300.0, 3, 100.0, LocalDate.of(2025, 3, 5));
+        Cliente beto = new Cliente("Beto", "Dos", "2", "quincenal", "TV", 200.0, 4, 50.0, LocalDate.of(2025, 3, 1));
+        clientes.agregar(ana);
+        clientes.agregar(beto);
+        ProyeccionCobros proyeccion = ProyeccionCobros.sobre(clientes);
+        LocalDate desde = LocalDate.of(2025, 1, 1);
+        LocalDate hasta = LocalDate.of(2026, 12, 31);
+
+        // Un pago sin repositorio, una edición de monto y de vencimiento y un cambio de todas las cuotas
+        new RegistrarPagoCommand(ana, 130.0).execute();
+        beto.getCuotas().get(1).setMontoOriginal(80.0);
+        beto.getCuotas().get(2).setFechaVencimiento(LocalDate.of(2025, 8, 15));
+        assertEquals(recorrer(clientes, desde, hasta), proyeccion.getMonto(desde, hasta), 1e-9);
+        assertEquals(80.0, proyeccion.getMonto(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 15)), 1e-9);
+        assertEquals(0.0, proyeccion.getMonto(LocalDate.of(2025, 3, 29), LocalDate.of(2025, 3, 29)), 1e-9);
+        assertEquals(50.0, proyeccion.getMonto(LocalDate.of(2025, 8, 15), LocalDate.of(2025, 8, 15)), 1e-9);
+
+        List<Cuota> nuevas = new ArrayList<>();
+        nuevas.add(new Cuota(1, 500.0, 100.0, LocalDate.of(2025, 6, 1), null, false));
+        ana.restaurarCuotas(nuevas);
+        assertEquals(400.0, proyeccion.getMonto(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 1)), 1e-9);
+        assertEquals(recorrer(clientes, desde, hasta), proyeccion.getMonto(desde, hasta), 1e-9);
+
+        // Un cliente que ya no está en el repositorio deja de sumar aunque se lo siga modificando
+        clientes.eliminar(beto);
+        new RegistrarPagoCommand(beto, 40.0).execute();
+        assertEquals(400.0, proyeccion.getTotal(), 1e-9);
+    }
+
+    private static double recorrer(ClienteRepository clientes, LocalDate desde, LocalDate hasta) {
+        double monto = 0;
+        for (Cliente cliente : clientes.getClientes()) {
+            for (Cuota cuota : cliente.getCuotas()) {
+                LocalDate vencimiento = cuota.getFechaVencimiento();
+                if (!cuota.estaPagada() && vencimiento != null && !vencimiento.isBefore(desde) && !vencimiento.isAfter(hasta)) {
+                    monto += cuota.getMontoRestante();
+                }
+            }
+        }
+        return monto;
+    }
+}
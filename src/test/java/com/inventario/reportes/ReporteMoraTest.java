@@ -0,0 +1,89 @@
+package com.inventario.reportes;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.inventario.ClientesDePrueba.carteraAlAzar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReporteMoraTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void clasificaElSaldoImpagoPorDiasDeAtraso() {
+        Cliente cliente = new Cliente("Ana", "Gómez", "30111222", "mensual", "TV", 1200.0, 12, 100.0, LocalDate.of(2025, 1, 10));
+        cliente.aplicarPagoACuotas(150);  // Cuota 1 paga, a la 2 le quedan 50
+
+        ReporteMora reporte = ReporteMora.calcular(List.of(cliente), LocalDate.of(2025, 6, 15));
+
+        // Vencen el 10 de cada mes: feb (125 días) y mar (97) pasan los 90, abr 66, may 36, jun 5
+        assertEquals(150.0, reporte.getTotal(ReporteMora.Tramo.MAS_DE_90), 1e-9);
+        assertEquals(2, reporte.getCuotas(ReporteMora.Tramo.MAS_DE_90));
+        assertEquals(100.0, reporte.getTotal(ReporteMora.Tramo.DIAS_61_90), 1e-9);
+        assertEquals(100.0, reporte.getTotal(ReporteMora.Tramo.DIAS_31_60), 1e-9);
+        assertEquals(100.0, reporte.getTotal(ReporteMora.Tramo.DIAS_1_30), 1e-9);
+        assertEquals(600.0, reporte.getTotal(ReporteMora.Tramo.AL_DIA), 1e-9);
+        assertEquals(450.0, reporte.getTotalVencido(), 1e-9);
+        assertEquals(1, reporte.getClientes(ReporteMora.Tramo.MAS_DE_90));
+        assertEquals(125, reporte.getFilas().get(0).diasAtraso());
+    }
+
+    @Test
+    void coincideConClasificarCadaCuotaYSeExporta() throws Exception {
+        Random random = new Random(11);
+        List<Cliente> clientes = carteraAlAzar(random, 3000, 24, LocalDate.of(2024, 1, 1), 500);
+        for (Cliente cliente : clientes) {
+            if (random.nextBoolean()) {
+                cliente.aplicarPagoACuotas(random.nextInt(2400));
+            }
+        }
+        LocalDate corte = LocalDate.of(2025, 3, 31);
+        ReporteMora secuencial = ReporteMora.calcular(clientes, corte, new ForkJoinPool(1));
+        ReporteMora paralelo = ReporteMora.calcular(clientes, corte, new ForkJoinPool(4));
+
+        // Lo mismo cuota por cuota (incluye cronogramas implícitos que empiezan a fin de mes)
+        double[] esperado = new double[ReporteMora.Tramo.values().length];
+        for (Cliente cliente : clientes) {
+            for (Cuota cuota : cliente.getCuotas()) {
+                if (!cuota.estaPagada()) {
+                    esperado[ReporteMora.Tramo.de(ChronoUnit.DAYS.between(cuota.getFechaVencimiento(), corte)).ordinal()] += cuota.getMontoRestante();
+                }
+            }
+        }
+        int conMora = 0;
+        for (ReporteMora.Tramo tramo : ReporteMora.Tramo.values()) {
+            assertEquals(esperado[tramo.ordinal()], paralelo.getTotal(tramo), 1e-6);
+            assertEquals(secuencial.getTotal(tramo), paralelo.getTotal(tramo), 1e-6);
+            assertEquals(secuencial.getCuotas(tramo), paralelo.getCuotas(tramo));
+            assertEquals(secuencial.getClientes(tramo), paralelo.getClientes(tramo));
+            if (tramo != ReporteMora.Tramo.AL_DIA) {
+                conMora += paralelo.getClientes(tramo);
+            }
+        }
+        assertEquals(secuencial.getFilas().size(), paralelo.getFilas().size());
+
+        Path archivo = dir.resolve("mora.xlsx");
+        paralelo.exportar(archivo);
+        try (InputStream in = Files.newInputStream(archivo); XSSFWorkbook libro = new XSSFWorkbook(in)) {
+            Sheet resumen = libro.getSheet("Resumen");
+            assertEquals(paralelo.getTotalVencido(), resumen.getRow(8).getCell(1).getNumericCellValue(), 1e-6);
+            Sheet detalle = libro.getSheet("Mora por cliente");
+            assertEquals(conMora, detalle.getLastRowNum());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.inventario.repository;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.models.Cliente;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClienteRepositoryTest {
+
+    @Test
+    void buscaPorDniYApellidoNormalizados() {
+        ClienteRepository repositorio = new ClienteRepository();
+        Cliente ana = cliente("Ana", "Pérez", "12.345.678");
+        Cliente beto = cliente("Beto", "Perez", "20111222");
+        repositorio.agregar(ana);
+        repositorio.agregar(beto);
+
+        assertSame(ana, repositorio.buscarPorDni("12345678"));
+        assertSame(beto, repositorio.buscarPorDni(" 20.111.222 "));
+        assertEquals(List.of(ana, beto), repositorio.buscarPorApellido("PEREZ"));
+    }
+
+    @Test
+    void rechazaDniDuplicados() {
+        ClienteRepository repositorio = new ClienteRepository();
+        repositorio.agregar(cliente("Ana", "Pérez", "123"));
+        assertThrows(IllegalArgumentException.class, () -> repositorio.agregar(cliente("Otra", "Gómez", "1.2.3")));
+
+        List<Cliente> rechazados = repositorio.agregarTodos(List.of(cliente("Beto", "Ruiz", "456"), cliente("Caro", "Ruiz", "456")));
+        assertEquals(1, rechazados.size());
+        assertEquals("Caro", rechazados.get(0).getNombre());
+        assertEquals(2, repositorio.size());
+    }
+
+    @Test
+    void losComandosMantienenLosIndices() {
+        ClienteRepository repositorio = new ClienteRepository();
+        Cliente ana = cliente("Ana", "Pérez", "1");
+        Cliente beto = cliente("Beto", "Ruiz", "2");
+        new AgregarClienteCommand(repositorio, ana).execute();
+        AgregarClienteCommand agregarBeto = new AgregarClienteCommand(repositorio, beto);
+        agregarBeto.execute();
+
+        EliminarClienteCommand eliminarAna = new EliminarClienteCommand(repositorio, ana, 0);
+        eliminarAna.execute();
+        assertNull(repositorio.buscarPorDni("1"));
+        assertTrue(repositorio.buscarPorApellido("perez").isEmpty());
+
+        eliminarAna.undo();
+        assertSame(ana, repositorio.get(0));
+        assertSame(ana, repositorio.buscarPorDni("1"));
+
+        agregarBeto.undo();
+        assertNull(repositorio.buscarPorDni("2"));
+        assertEquals(1, repositorio.size());
+    }
+
+    @Test
+    void indiceDeSigueLasAltasBajasYReemplazosEnElMedio() {
+        ClienteRepository repositorio = new ClienteRepository();
+        for (int i = 0; i < 500; i++) {
+            repositorio.agregar(cliente("N" + i, "A" + i, String.valueOf(i)));
+        }
+        Random azar = new Random(7);
+        int siguienteDni = 500;
+        for (int paso = 0; paso < 2000; paso++) {
+            int posicion = azar.nextInt(repositorio.size());
+            switch (azar.nextInt(3)) {
+                case 0 -> repositorio.agregar(posicion, cliente("N", "A", String.valueOf(siguienteDni++)));
+                case 1 -> assertEquals(posicion, repositorio.eliminar(repositorio.get(posicion)));
+                default -> repositorio.reemplazarOAgregar(repositorio.get(posicion).copiar(), -1);
+            }
+            // Se consulta solo de vez en cuando, para que se acumulen varios cambios sin recalcular
+            if (paso % 7 == 0) {
+                int consultado = azar.nextInt(repositorio.size());
+                assertEquals(consultado, repositorio.indiceDe(repositorio.get(consultado)));
+            }
+        }
+        for (int i = 0; i < repositorio.size(); i++) {
+            assertEquals(i, repositorio.indiceDe(repositorio.get(i)));
+        }
+        Cliente fuera = cliente("Fuera", "X", "999999");
+        assertEquals(-1, repositorio.indiceDe(fuera));
+        assertFalse(repositorio.contiene(fuera));
+    }
+}
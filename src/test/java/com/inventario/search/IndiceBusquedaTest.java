@@ -0,0 +1,66 @@
+package com.inventario.search;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceBusquedaTest {
+
+    @Test
+    void buscaPorPrefijoDniYVariasPalabras() {
+        ClienteRepository repositorio = new ClienteRepository();
+        Cliente ana = cliente("Ana", "González", "30.111.222", "Televisor Samsung");
+        Cliente beto = cliente("Beto", "Gonzalo", "28999111", "Heladera");
+        Cliente caro = cliente("Carolina", "Pérez", "31222333", "Televisor LG");
+        repositorio.agregarTodos(List.of(ana, beto, caro));
+        IndiceBusqueda indice = IndiceBusqueda.sobre(repositorio);
+
+        assertEquals(List.of(ana, beto), indice.buscar("gonz", 10));
+        assertEquals(List.of(ana), indice.buscar("30111", 10));
+        assertEquals(List.of(ana), indice.buscar("30.111.222", 10));
+        assertEquals(List.of(caro), indice.buscar("perez tele", 10));
+        assertEquals(List.of(ana, caro), indice.buscar("televisor", 10));
+        assertEquals(List.of(ana), indice.buscar("televisor", 1));
+    }
+
+    @Test
+    void toleraErroresDeTipeo() {
+        ClienteRepository repositorio = new ClienteRepository();
+        Cliente ana = cliente("Ana", "González", "1", "Notebook");
+        repositorio.agregar(ana);
+        repositorio.agregar(cliente("Beto", "Ramírez", "2", "Heladera"));
+        IndiceBusqueda indice = IndiceBusqueda.sobre(repositorio);
+
+        assertEquals(List.of(ana), indice.buscar("gonzales", 10));
+        assertEquals(List.of(ana), indice.buscar("ana notebok", 10));
+    }
+
+    @Test
+    void seActualizaConLosComandos() {
+        ClienteRepository repositorio = new ClienteRepository();
+        IndiceBusqueda indice = IndiceBusqueda.sobre(repositorio);
+        Cliente ana = cliente("Ana", "González", "1", "Notebook");
+
+        AgregarClienteCommand agregar = new AgregarClienteCommand(repositorio, ana);
+        agregar.execute();
+        assertEquals(List.of(ana), indice.buscar("gonz", 10));
+
+        EliminarClienteCommand eliminar = new EliminarClienteCommand(repositorio, ana, 0);
+        eliminar.execute();
+        assertTrue(indice.buscar("gonz", 10).isEmpty());
+        assertTrue(indice.buscar("gonzales", 10).isEmpty());
+
+        eliminar.undo();
+        assertEquals(List.of(ana), indice.buscar("notebook", 10));
+        agregar.undo();
+        assertEquals(0, indice.size());
+    }
+}
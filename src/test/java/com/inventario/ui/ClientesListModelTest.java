@@ -0,0 +1,47 @@
+package com.inventario.ui;
+
+import com.inventario.commands.AgregarClienteCommand;
+import com.inventario.commands.EliminarClienteCommand;
+import com.inventario.commands.RegistrarPagoCommand;
+import com.inventario.models.Cliente;
+import com.inventario.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.ClientesDePrueba.cliente;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ClientesListModelTest {
+
+    @Test
+    void avisaSoloElIntervaloQueCambio() {
+        ClienteRepository repositorio = new ClienteRepository();
+        repositorio.agregar(cliente("Ana", "1"));
+        repositorio.agregar(cliente("Beto", "2"));
+        ClientesListModel modelo = new ClientesListModel(repositorio);
+        List<String> eventos = new ArrayList<>();
+        modelo.addListDataListener(new ListDataListener() {
+            public void intervalAdded(ListDataEvent e) { eventos.add("+" + e.getIndex0() + "-" + e.getIndex1()); }
+            public void intervalRemoved(ListDataEvent e) { eventos.add("-" + e.getIndex0() + "-" + e.getIndex1()); }
+            public void contentsChanged(ListDataEvent e) { eventos.add("~" + e.getIndex0() + "-" + e.getIndex1()); }
+        });
+
+        Cliente caro = cliente("Caro", "3");
+        new AgregarClienteCommand(repositorio, caro).execute();
+        RegistrarPagoCommand pago = new RegistrarPagoCommand(repositorio, repositorio.get(1), 100.0);
+        pago.execute();
+        pago.undo();
+        EliminarClienteCommand eliminar = new EliminarClienteCommand(repositorio, repositorio.get(0), 0);
+        eliminar.execute();
+        eliminar.undo();
+
+        assertEquals(List.of("+2-2", "~1-1", "~1-1", "-0-0", "+0-0"), eventos);
+        assertEquals(3, modelo.getSize());
+        assertSame(caro, modelo.getElementAt(2));
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cuota;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Copia del parser anterior de la columna "Cuotas (JSON)" (split + extractValue),
+// usada como referencia de compatibilidad y como línea base en CuotasJsonJmh.
+public class CuotasJsonLegado {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    public static List<Cuota> parsear(String cuotasJson) {
+        List<Cuota> cuotas = new ArrayList<>();
+        if (cuotasJson.startsWith("[") && cuotasJson.endsWith("]")) {
+            String content = cuotasJson.substring(1, cuotasJson.length() - 1);
+            String[] cuotaStrings = content.split("\\},\\{");
+            for (String cs : cuotaStrings) {
+                if (cs.isEmpty()) continue;
+                if (!cs.startsWith("{")) cs = "{" + cs;
+                if (!cs.endsWith("}")) cs = cs + "}";
+
+                int numeroCuota = Integer.parseInt(extractValue(cs, "numeroCuota"));
+                double montoOriginal = Double.parseDouble(extractValue(cs, "montoOriginal"));
+                double montoPagado = Double.parseDouble(extractValue(cs, "montoPagado"));
+                String fechaVencStr = extractValue(cs, "fechaVencimiento");
+                String fechaPagoStr = extractValue(cs, "fechaPago");
+                boolean isFaltante = Boolean.parseBoolean(extractValue(cs, "isFaltante"));
+
+                LocalDate fechaVencimiento = fechaVencStr.isEmpty() ? null : LocalDate.parse(fechaVencStr, DATE_FORMATTER);
+                LocalDate fechaPago = fechaPagoStr.isEmpty() ? null : LocalDate.parse(fechaPagoStr, DATE_FORMATTER);
+
+                cuotas.add(new Cuota(numeroCuota, montoOriginal, montoPagado, fechaVencimiento, fechaPago, isFaltante));
+            }
+        }
+        return cuotas;
+    }
+
+    private static String extractValue(String json, String key) {
+        String search = "\"" + key + "\":";
+        int startIndex = json.indexOf(search);
+        if (startIndex == -1) return "";
+        startIndex += search.length();
+        char firstChar = json.charAt(startIndex);
+        if (firstChar == '"') { // Es un String
+            startIndex++;
+            int endIndex = json.indexOf("\"", startIndex);
+            return json.substring(startIndex, endIndex);
+        } else { // Es un número o booleano
+            int endIndex = json.indexOf(",", startIndex);
+            if (endIndex == -1) endIndex = json.indexOf("}", startIndex);
+            return json.substring(startIndex, endIndex).trim();
+        }
+    }
+}
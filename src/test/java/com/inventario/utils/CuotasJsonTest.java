@@ -0,0 +1,80 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cuota;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CuotasJsonTest {
+
+    @Test
+    void leeLoMismoQueElParserAnterior() {
+        String[] casos = {
+                "[]",
+                "[{\"numeroCuota\":1,\"montoOriginal\":115000.0,\"montoPagado\":0.0,\"fechaVencimiento\":\"2025-07-01\",\"fechaPago\":\"\",\"isFaltante\":false}]",
+                "[{\"numeroCuota\":1,\"montoOriginal\":1.5E7,\"montoPagado\":1.0E-5,\"fechaVencimiento\":\"\",\"fechaPago\":\"2024-02-29\",\"isFaltante\":true},"
+                        + "{\"numeroCuota\":2,\"montoOriginal\":0.1,\"montoPagado\":-0.0,\"fechaVencimiento\":\"2024-02-30\",\"fechaPago\":\"\",\"isFaltante\":TRUE}]",
+                // Claves desordenadas, desconocidas y sin isFaltante
+                "[{\"montoPagado\":12.345678901234567,\"extra\":\"x\",\"numeroCuota\":3,\"montoOriginal\":1e3,\"fechaVencimiento\":\"2030-12-31\"}]",
+                // Valores numéricos que solo resuelve Double.parseDouble
+                "[{\"numeroCuota\":+4,\"montoOriginal\":123456789012345678901234,\"montoPagado\":1.5d,\"fechaVencimiento\":\"\",\"fechaPago\":\"\",\"isFaltante\":false}]",
+                "no es json"
+        };
+        for (String caso : casos) {
+            assertIguales(CuotasJsonLegado.parsear(caso), CuotasJson.parsear(caso));
+        }
+    }
+
+    @Test
+    void idaYVueltaConMontosAleatorios() {
+        Random random = new Random(42);
+        List<Cuota> cuotas = new ArrayList<>();
+        LocalDate inicio = LocalDate.of(2024, 1, 15);
+        for (int i = 1; i <= 500; i++) {
+            double original = Math.round(random.nextDouble() * 1_000_000_00) / 100.0;
+            double pagado = random.nextBoolean() ? original : random.nextDouble() * original;
+            cuotas.add(new Cuota(i, original, pagado, inicio.plusWeeks(i), random.nextBoolean() ? inicio.plusDays(i) : null, i % 7 == 0));
+        }
+        String json = CuotasJson.serializar(cuotas);
+        assertIguales(CuotasJsonLegado.parsear(json), CuotasJson.parsear(json));
+        assertIguales(cuotas, CuotasJson.parsear(json));
+    }
+
+    @Test
+    void aceptaEspaciosEntreElementos() {
+        String json = "[ {\"numeroCuota\": 1, \"montoOriginal\": 10.0, \"montoPagado\": 0.0, \"fechaVencimiento\": \"2025-01-01\"} ,"
+                + " {\"numeroCuota\": 2, \"montoOriginal\": 10.0, \"montoPagado\": 5.0} ]";
+        List<Cuota> cuotas = CuotasJson.parsear(json);
+        assertEquals(2, cuotas.size());
+        assertEquals(LocalDate.of(2025, 1, 1), cuotas.get(0).getFechaVencimiento());
+        assertEquals(5.0, cuotas.get(1).getMontoPagado());
+    }
+
+    @Test
+    void rechazaCuotasSinCamposObligatorios() {
+        assertThrows(NumberFormatException.class, () -> CuotasJson.parsear("[{\"montoOriginal\":1.0,\"montoPagado\":0.0}]"));
+        assertThrows(NumberFormatException.class, () -> CuotasJsonLegado.parsear("[{\"montoOriginal\":1.0,\"montoPagado\":0.0}]"));
+        assertTrue(CuotasJson.parsear("[").isEmpty());
+    }
+
+    private static void assertIguales(List<Cuota> esperadas, List<Cuota> obtenidas) {
+        assertEquals(esperadas.size(), obtenidas.size());
+        for (int i = 0; i < esperadas.size(); i++) {
+            Cuota e = esperadas.get(i);
+            Cuota o = obtenidas.get(i);
+            assertEquals(e.getNumeroCuota(), o.getNumeroCuota());
+            assertEquals(Double.doubleToLongBits(e.getMontoOriginal()), Double.doubleToLongBits(o.getMontoOriginal()));
+            assertEquals(Double.doubleToLongBits(e.getMontoPagado()), Double.doubleToLongBits(o.getMontoPagado()));
+            assertEquals(e.getFechaVencimiento(), o.getFechaVencimiento());
+            assertEquals(e.getFechaPago(), o.getFechaPago());
+            assertEquals(e.isFaltante(), o.isFaltante());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cliente;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static com.inventario.ClientesDePrueba.lista;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExcelExporterTest {
+
+    private static final String HOJA = "xl/worksheets/sheet1.xml";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unaHojaCortadaNoSeDaPorLeidaAunqueYaHayaEntregadoClientes() throws IOException {
+        Path completo = dir.resolve("completo.xlsx");
+        assertTrue(ExcelExporter.exportarClientes(new GeneradorCartera(5, 2000), completo.toString(),
+                ExcelExporter.ModoExportacion.STREAMING, 0));
+        // El zip sigue siendo válido, pero el XML de la hoja termina a la mitad
+        Path cortado = dir.resolve("cortado.xlsx");
+        reemplazarHoja(completo, cortado, xml -> Arrays.copyOf(xml, xml.length / 2));
+        assertTrue(ExcelExporter.esArchivoValido(cortado));
+
+        List<Cliente> recibidos = new ArrayList<>();
+        assertFalse(ExcelExporter.importarClientes(cortado.toString(), recibidos::add));
+        assertTrue(recibidos.size() > 0 && recibidos.size() < 2000, "recibidos " + recibidos.size());
+        assertNull(ExcelExporter.importarClientes(cortado.toString()));
+
+        assertEquals(2000, ExcelExporter.importarClientes(completo.toString()).size());
+    }
+
+    @Test
+    void faltanFilasRespectoDeLaDimensionDeclarada() throws IOException {
+        Path completo = dir.resolve("completo.xlsx");
+        assertTrue(ExcelExporter.exportarClientes(lista(new GeneradorCartera(5, 50)), completo.toString(),
+                ExcelExporter.ModoExportacion.DOM, 0));
+        // XML bien formado pero sin las últimas filas que declara <dimension ref="A1:H51"/>
+        Path recortado = dir.resolve("recortado.xlsx");
+        reemplazarHoja(completo, recortado, xml -> {
+            String texto = new String(xml, StandardCharsets.UTF_8);
+            int desde = texto.indexOf("<row r=\"40\"");
+            int hasta = texto.indexOf("</sheetData>");
+            assertTrue(desde > 0 && hasta > desde);
+            return (texto.substring(0, desde) + texto.substring(hasta)).getBytes(StandardCharsets.UTF_8);
+        });
+
+        List<Cliente> recibidos = new ArrayList<>();
+        ExcelExporter.LecturaClientes lectura = ExcelExporter.leerClientes(recortado.toString(), recibidos::add);
+        assertFalse(lectura.completa());
+        assertEquals(38, lectura.filas());
+        assertEquals(38, recibidos.size());
+
+        ExcelExporter.LecturaClientes completa = ExcelExporter.leerClientes(completo.toString(), c -> { });
+        assertTrue(completa.completa());
+        assertEquals(50, completa.filas());
+        assertEquals(0, completa.descartadas());
+    }
+
+    // Copia el libro entrada por entrada cambiando solo el XML de la hoja
+    private static void reemplazarHoja(Path origen, Path destino, UnaryOperator<byte[]> cambio) throws IOException {
+        try (ZipFile zip = new ZipFile(origen.toFile());
+             OutputStream salida = Files.newOutputStream(destino);
+             ZipOutputStream zipSalida = new ZipOutputStream(salida)) {
+            Enumeration<? extends ZipEntry> entradas = zip.entries();
+            while (entradas.hasMoreElements()) {
+                ZipEntry entrada = entradas.nextElement();
+                byte[] datos;
+                try (InputStream in = zip.getInputStream(entrada)) {
+                    datos = in.readAllBytes();
+                }
+                if (HOJA.equals(entrada.getName())) {
+                    datos = cambio.apply(datos);
+                }
+                zipSalida.putNextEntry(new ZipEntry(entrada.getName()));
+                zipSalida.write(datos);
+                zipSalida.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.inventario.utils;
+
+import com.inventario.models.Cliente;
+import com.inventario.models.Cuota;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.inventario.ClientesDePrueba.resumen;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneradorCarteraTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void laMismaSemillaGeneraLaMismaCarteraConTodaLaMezcla() {
+        GeneradorCartera generador = new GeneradorCartera(7, 5000);
+        Set<String> dnis = new HashSet<>();
+        int quincenales = 0, implicitos = 0, parciales = 0, conAdelanto = 0, conFaltantes = 0, atrasados = 0;
+        int i = 0;
+        for (Cliente cliente : generador) {
+            assertEquals(resumen(cliente), resumen(generador.cliente(i)));
+            cliente.verificarTotales();
+            assertTrue(dnis.add(cliente.getDni()));
+            if ("quincenal".equals(cliente.getTipoCuota())) {
+                quincenales++;
+            }
+            if (cliente.getCuotasColumnares().esImplicito()) {
+                implicitos++;
+            }
+            if (cliente.getAdelantoAcumulado() > 0) {
+                conAdelanto++;
+                assertEquals(0, cliente.getCuotasRestantes());
+            }
+            boolean parcial = false, faltante = false, atrasado = false;
+            for (Cuota cuota : cliente.getCuotas()) {
+                parcial |= cuota.getMontoPagado() > 0 && !cuota.estaPagada();
+                faltante |= cuota.isFaltante();
+                atrasado |= !cuota.estaPagada() && cuota.getFechaVencimiento().isBefore(GeneradorCartera.REFERENCIA.minusMonths(1));
+                if (cuota.getFechaPago() != null) {
+                    assertTrue(!cuota.getFechaPago().isAfter(GeneradorCartera.REFERENCIA));
+                }
+            }
+            parciales += parcial ? 1 : 0;
+            conFaltantes += faltante ? 1 : 0;
+            atrasados += atrasado ? 1 : 0;
+            i++;
+        }
+        assertEquals(5000, i);
+        // Proporciones aproximadas de la mezcla
+        assertTrue(quincenales > 1200 && quincenales < 1800, "quincenales " + quincenales);
+        assertTrue(implicitos > 250, "implícitos " + implicitos);
+        assertTrue(parciales > 800, "parciales " + parciales);
+        assertTrue(conAdelanto > 50, "con adelanto " + conAdelanto);
+        assertTrue(conFaltantes > 150 && conFaltantes < 350, "con faltantes " + conFaltantes);
+        assertTrue(atrasados > 500, "atrasados " + atrasados);
+
+        assertNotEquals(resumen(generador.cliente(10)), resumen(new GeneradorCartera(8, 5000).cliente(10)));
+        assertNotEquals(resumen(generador.cliente(10)),
+                resumen(new GeneradorCartera(7, 5000, LocalDate.of(2026, 1, 1)).cliente(10)));
+    }
+
+    @Test
+    void escribeElLibroEnModoStreamingYSeVuelveALeer() {
+        GeneradorCartera generador = new GeneradorCartera(3, 2500);
+        Path archivo = dir.resolve("clientes.xlsx");
+        assertTrue(ExcelExporter.exportarClientes(generador, archivo.toString(), ExcelExporter.ModoExportacion.STREAMING, 0));
+
+        List<Cliente> leidos = ExcelExporter.importarClientes(archivo.toString());
+        assertNotNull(leidos);
+        assertEquals(generador.size(), leidos.size());
+        for (int i = 0; i < leidos.size(); i++) {
+            assertEquals(resumen(generador.cliente(i)), resumen(leidos.get(i)));
+        }
+    }
+}